@@ -0,0 +1,45 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2026 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.*;
+import org.openjdk.jmh.runner.options.*;
+
+/**
+ * The entry point of {@code benchmarks.jar}. This accepts the same arguments as
+ * JMH's own launcher, but always enables the GC profiler, so allocation rates are
+ * reported next to timings:
+ *
+ * <pre>
+ * java -jar target/benchmarks.jar               # run everything
+ * java -jar target/benchmarks.jar Parsing -f 2  # run ParsingBenchmark with 2 forks
+ * </pre>
+ *
+ * @author Marko Zajc
+ */
+@SuppressWarnings("javadoc")
+public final class BenchmarkRunner {
+
+	public static void main(String[] args) throws CommandLineOptionException, RunnerException {
+		var options = new OptionsBuilder().parent(new CommandLineOptions(args)).addProfiler(GCProfiler.class).build();
+		new Runner(options).run();
+	}
+
+	private BenchmarkRunner() {}
+
+}
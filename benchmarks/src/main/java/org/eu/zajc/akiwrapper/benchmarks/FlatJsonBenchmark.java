@@ -0,0 +1,65 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2026 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.benchmarks;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.TimeUnit.*;
+import static org.eu.zajc.akiwrapper.core.utils.route.FlatJson.*;
+
+import org.eu.zajc.akiwrapper.core.utils.route.FlatJson;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares reading the fields of an answer response with org.json (the previous
+ * approach) and with {@link FlatJson}.
+ *
+ * @author Marko Zajc
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(NANOSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = SECONDS)
+@Fork(1)
+@SuppressWarnings("javadoc")
+public class FlatJsonBenchmark {
+
+	private final byte[] body = ("{\"completion\":\"OK\",\"akitude\":\"defi.png\",\"step\":\"1\"," +
+		"\"progression\":\"3.61130\",\"question_id\":\"266\",\"question\":\"Is your character a YouTuber?\"}")
+			.getBytes(UTF_8);
+
+	@Benchmark
+	public void jsonObject(Blackhole blackhole) {
+		var json = new JSONObject(new String(this.body, UTF_8));
+		blackhole.consume(json.has("completion") ? json.getString("completion").toUpperCase() : null);
+		blackhole.consume(Integer.parseInt(json.getString("step")));
+		blackhole.consume(Double.parseDouble(json.getString("progression")));
+		blackhole.consume(json.getString("question"));
+	}
+
+	@Benchmark
+	public void flatJson(Blackhole blackhole) {
+		var json = FlatJson.parse(this.body);
+		blackhole.consume(json.optString(KEY_COMPLETION));
+		blackhole.consume(json.getInt(KEY_STEP));
+		blackhole.consume(json.getDouble(KEY_PROGRESSION));
+		blackhole.consume(json.getString(KEY_QUESTION));
+	}
+
+}
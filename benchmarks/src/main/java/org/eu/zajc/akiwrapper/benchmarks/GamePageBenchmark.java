@@ -0,0 +1,63 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2026 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.benchmarks;
+
+import static java.util.concurrent.TimeUnit.*;
+import static org.eu.zajc.akiwrapper.Fixtures.readFixture;
+
+import java.io.IOException;
+
+import org.eu.zajc.akiwrapper.core.utils.route.GamePage;
+import org.jsoup.Jsoup;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Compares parsing the game page by building a jsoup DOM (the previous approach)
+ * with the single-pass scanner used by {@link GamePage#parse(String)}.
+ *
+ * @author Marko Zajc
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(MICROSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = SECONDS)
+@Fork(1)
+@SuppressWarnings("javadoc")
+public class GamePageBenchmark {
+
+	@Param({ "game.html", "game-entities.html" })
+	public String fixture;
+
+	private String html;
+
+	@Setup
+	public void setup() throws IOException {
+		this.html = readFixture(this.fixture);
+	}
+
+	@Benchmark
+	public GamePage document() {
+		return GamePage.fromDocument(Jsoup.parse(this.html));
+	}
+
+	@Benchmark
+	public GamePage streaming() {
+		return GamePage.parse(this.html);
+	}
+
+}
@@ -0,0 +1,111 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2026 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.benchmarks;
+
+import static java.time.Duration.ofHours;
+import static java.util.concurrent.TimeUnit.*;
+
+import java.io.*;
+import java.nio.file.*;
+
+import org.eu.zajc.akiwrapper.AkiwrapperBuilder;
+import org.eu.zajc.akiwrapper.core.snapshot.GameSnapshot;
+import org.eu.zajc.akiwrapper.core.store.*;
+import org.eu.zajc.akiwrapper.standin.AkinatorStandIn;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures parking and retrieving games in each {@link GameStore} implementation,
+ * with the store already holding {@link #games} games.
+ *
+ * @author Marko Zajc
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(NANOSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = SECONDS)
+@Fork(1)
+@SuppressWarnings("javadoc")
+public class GameStoreBenchmark {
+
+	@Param({ "memory", "file", "mapped" })
+	public String store;
+
+	@Param({ "100000" })
+	public int games;
+
+	private GameStore gameStore;
+	private GameSnapshot snapshot;
+	private Path directory;
+	private int next;
+
+	@Setup
+	public void setup() throws IOException {
+		try (var standIn = new AkinatorStandIn()) {
+			this.snapshot = new AkiwrapperBuilder().setTransport(standIn.createInProcessTransport()).build().snapshot();
+		}
+
+		this.directory = Files.createTempDirectory("akiwrapper-store");
+		switch (this.store) {
+			case "memory":
+				this.gameStore = new MemoryGameStore();
+				break;
+			case "file":
+				this.gameStore = new FileGameStore(this.directory.resolve("games"));
+				break;
+			case "mapped":
+				this.gameStore = new MappedGameStore(this.directory.resolve("games"), this.games);
+				break;
+			default:
+				throw new IllegalArgumentException(this.store);
+		}
+
+		for (int i = 0; i < this.games; i++)
+			this.gameStore.put("game" + i, this.snapshot, ofHours(1));
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		System.out.printf("%n%s%n", this.gameStore.getMetrics());
+		if (this.gameStore instanceof Closeable)
+			((Closeable) this.gameStore).close();
+		try (var files = Files.list(this.directory)) {
+			for (var file : (Iterable<Path>) files::iterator)
+				Files.delete(file);
+		}
+		Files.delete(this.directory);
+	}
+
+	@Benchmark
+	public void put() {
+		this.gameStore.put("game" + nextIndex(), this.snapshot, ofHours(1));
+	}
+
+	@Benchmark
+	public GameSnapshot get() {
+		return this.gameStore.get("game" + nextIndex());
+	}
+
+	private int nextIndex() {
+		int index = this.next++;
+		if (this.next == this.games)
+			this.next = 0;
+		return index;
+	}
+
+}
@@ -0,0 +1,78 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2026 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.benchmarks;
+
+import static java.util.concurrent.TimeUnit.*;
+import static org.eu.zajc.akiwrapper.Fixtures.readFixtureBytes;
+
+import java.io.IOException;
+
+import org.eu.zajc.akiwrapper.AkiwrapperBuilder;
+import org.eu.zajc.akiwrapper.core.entities.impl.*;
+import org.eu.zajc.akiwrapper.core.utils.route.FlatJson;
+import org.eu.zajc.akiwrapper.standin.AkinatorStandIn;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures receiving a guess and reading its fields, depending on how much of it is
+ * used. {@code rejected} reads only what a rejected guess is usually shown with (its
+ * name), while {@code shown} reads every field, which costs as much as decoding them
+ * all up front did. Run with {@code -prof gc} and compare
+ * {@code gc.alloc.rate.norm} to see the allocation per guess.
+ *
+ * @author Marko Zajc
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(NANOSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = SECONDS)
+@Fork(1)
+@SuppressWarnings("javadoc")
+public class GuessBenchmark {
+
+	private AkiwrapperImpl api;
+	private byte[] guessJson;
+
+	@Setup
+	public void setup() throws IOException {
+		try (var standIn = new AkinatorStandIn()) {
+			this.api = (AkiwrapperImpl) new AkiwrapperBuilder().setTransport(standIn.createInProcessTransport())
+				.build();
+		}
+		this.guessJson = readFixtureBytes("guess.json");
+	}
+
+	@Benchmark
+	public void rejected(Blackhole blackhole) {
+		var guess = GuessImpl.fromJson(this.api, FlatJson.parse(this.guessJson));
+		blackhole.consume(guess.getName());
+	}
+
+	@Benchmark
+	public void shown(Blackhole blackhole) {
+		var guess = GuessImpl.fromJson(this.api, FlatJson.parse(this.guessJson));
+		blackhole.consume(guess.getId());
+		blackhole.consume(guess.getName());
+		blackhole.consume(guess.getPseudonym());
+		blackhole.consume(guess.getDescription());
+		blackhole.consume(guess.getImage());
+		blackhole.consume(guess.getFlagPhoto());
+	}
+
+}
@@ -0,0 +1,104 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2026 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.benchmarks;
+
+import static java.util.concurrent.TimeUnit.*;
+import static org.eu.zajc.akiwrapper.Fixtures.*;
+
+import java.io.IOException;
+
+import org.eu.zajc.akiwrapper.AkiwrapperBuilder;
+import org.eu.zajc.akiwrapper.core.entities.impl.*;
+import org.eu.zajc.akiwrapper.core.entities.impl.AkiwrapperImpl.Session;
+import org.eu.zajc.akiwrapper.core.utils.route.*;
+import org.eu.zajc.akiwrapper.standin.AkinatorStandIn;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures turning recorded responses into entities: the game page into a
+ * {@link Session} and the first question, and answer responses into questions and
+ * guesses. Each benchmark starts from the raw payload, except for the
+ * {@code *FromDocument} benchmarks, which measure the DOM fallback on an already
+ * parsed document.
+ *
+ * @author Marko Zajc
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(NANOSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = SECONDS)
+@Fork(1)
+@SuppressWarnings("javadoc")
+public class ParsingBenchmark {
+
+	private AkiwrapperImpl api;
+	private String gameHtml;
+	private Document gameDocument;
+	private byte[] questionJson;
+	private byte[] guessJson;
+
+	@Setup
+	public void setup() throws IOException {
+		try (var standIn = new AkinatorStandIn()) {
+			this.api = (AkiwrapperImpl) new AkiwrapperBuilder().setTransport(standIn.createInProcessTransport())
+				.build();
+		}
+		this.gameHtml = readFixture("game.html");
+		this.gameDocument = Jsoup.parse(this.gameHtml);
+		this.questionJson = readFixtureBytes("question.json");
+		this.guessJson = readFixtureBytes("guess.json");
+	}
+
+	@Benchmark
+	public Session sessionFromDocument() {
+		return Session.fromHtml(this.gameDocument);
+	}
+
+	@Benchmark
+	public QuestionImpl questionFromHtml() {
+		return QuestionImpl.fromGamePage(this.api, GamePage.parse(this.gameHtml));
+	}
+
+	@Benchmark
+	public QuestionImpl questionFromJson() {
+		return QuestionImpl.fromJson(this.api, FlatJson.parse(this.questionJson));
+	}
+
+	@Benchmark
+	public GuessImpl guessFromJson() {
+		return GuessImpl.fromJson(this.api, FlatJson.parse(this.guessJson));
+	}
+
+	@Benchmark
+	public Status statusFromDocument() {
+		return Status.fromHtml(this.gameDocument);
+	}
+
+	@Benchmark
+	public Status statusFromJson() {
+		return Status.fromJson(FlatJson.parse(this.questionJson));
+	}
+
+	@Benchmark
+	public Status statusFromString() {
+		return Status.fromString("KO - TIMEOUT");
+	}
+
+}
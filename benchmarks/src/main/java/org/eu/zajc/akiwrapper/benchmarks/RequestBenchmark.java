@@ -0,0 +1,101 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2026 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.benchmarks;
+
+import static java.util.concurrent.TimeUnit.*;
+import static org.eu.zajc.akiwrapper.core.utils.route.Routes.*;
+
+import java.util.*;
+
+import org.eu.zajc.akiwrapper.Akiwrapper.Answer;
+import org.eu.zajc.akiwrapper.AkiwrapperBuilder;
+import org.eu.zajc.akiwrapper.core.entities.impl.AkiwrapperImpl;
+import org.eu.zajc.akiwrapper.core.utils.HttpUtils;
+import org.eu.zajc.akiwrapper.core.utils.route.*;
+import org.eu.zajc.akiwrapper.standin.AkinatorStandIn;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures building the body of an answer request: encoding the whole form with
+ * {@link HttpUtils#urlEncodeForm(Map)} (which every request used to do), encoding
+ * only the variable parameters with a compiled {@link RouteTemplate}, compiling a
+ * {@link Route}, and creating a {@link Request} with its parameters set.
+ *
+ * @author Marko Zajc
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(NANOSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = SECONDS)
+@Fork(1)
+@SuppressWarnings("javadoc")
+public class RequestBenchmark {
+
+	private AkiwrapperImpl api;
+	private Map<String, Object> form;
+	private RouteTemplate template;
+	private Object[] values;
+
+	@Setup
+	public void setup() {
+		try (var standIn = new AkinatorStandIn()) {
+			this.api = (AkiwrapperImpl) new AkiwrapperBuilder().setTransport(standIn.createInProcessTransport())
+				.build();
+		}
+
+		this.form = new LinkedHashMap<>();
+		this.form.put("cm", false);
+		this.form.put("sid", 1);
+		var session = this.api.getSession();
+		this.form.put(PARAMETER_SESSION, session.getSession());
+		this.form.put(PARAMETER_SIGNATURE, session.getSignature());
+		this.form.put(PARAMETER_STEP, 12);
+		this.form.put(PARAMETER_PROGRESSION, 43.19278);
+		this.form.put(PARAMETER_ANSWER, Answer.PROBABLY.getId());
+		this.form.put(PARAMETER_STEP_LAST_PROPOSITION, "");
+
+		this.template = this.api.getContext().getRouteTemplate(ANSWER);
+		this.values =
+			new Object[] { session.getSession(), session.getSignature(), 12, 43.19278, Answer.PROBABLY.getId(), "" };
+	}
+
+	@Benchmark
+	public String urlEncodeForm() {
+		return HttpUtils.urlEncodeForm(this.form);
+	}
+
+	@Benchmark
+	public byte[] encodeForm() {
+		return this.template.encodeForm(this.values);
+	}
+
+	@Benchmark
+	public RouteTemplate compileRoute() {
+		return ANSWER.compile(this.api.getContext());
+	}
+
+	@Benchmark
+	public Request createRequest() {
+		return ANSWER.createRequest(this.api)
+			.parameter(PARAMETER_STEP, 12)
+			.parameter(PARAMETER_PROGRESSION, 43.19278)
+			.parameter(PARAMETER_ANSWER, Answer.PROBABLY.getId())
+			.parameter(PARAMETER_STEP_LAST_PROPOSITION, "");
+	}
+
+}
@@ -0,0 +1,95 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2026 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.benchmarks;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.TimeUnit.*;
+
+import org.eu.zajc.akiwrapper.Akiwrapper.Answer;
+import org.eu.zajc.akiwrapper.*;
+import org.eu.zajc.akiwrapper.core.entities.Question;
+import org.eu.zajc.akiwrapper.core.snapshot.GameSnapshot;
+import org.eu.zajc.akiwrapper.standin.AkinatorStandIn;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures encoding and decoding {@link GameSnapshot}s in both formats, and resuming
+ * a game from one. Snapshots are taken on a question and on a guess, and their
+ * encoded sizes are printed during setup.
+ *
+ * @author Marko Zajc
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(NANOSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = SECONDS)
+@Fork(1)
+@SuppressWarnings("javadoc")
+public class SnapshotBenchmark {
+
+	@Param({ "question", "guess" })
+	public String query;
+
+	private AkiwrapperBuilder builder;
+	private GameSnapshot snapshot;
+	private byte[] bytes;
+	private String json;
+
+	@Setup
+	public void setup() {
+		try (var standIn = new AkinatorStandIn().setGuessInterval(2)) {
+			this.builder = new AkiwrapperBuilder().setTransport(standIn.createInProcessTransport());
+			Akiwrapper api = this.builder.build();
+			var question = (Question) ((Question) api.getCurrentQuery()).answer(Answer.YES);
+			if ("guess".equals(this.query))
+				question.answer(Answer.YES);
+
+			this.snapshot = api.snapshot();
+		}
+		this.bytes = this.snapshot.toBytes();
+		this.json = this.snapshot.toJson();
+		System.out.printf("%n%s snapshot size: %d bytes binary, %d bytes JSON%n", this.query, this.bytes.length,
+						  this.json.getBytes(UTF_8).length);
+	}
+
+	@Benchmark
+	public byte[] encodeBinary() {
+		return this.snapshot.toBytes();
+	}
+
+	@Benchmark
+	public GameSnapshot decodeBinary() {
+		return GameSnapshot.fromBytes(this.bytes);
+	}
+
+	@Benchmark
+	public String encodeJson() {
+		return this.snapshot.toJson();
+	}
+
+	@Benchmark
+	public GameSnapshot decodeJson() {
+		return GameSnapshot.fromJson(this.json);
+	}
+
+	@Benchmark
+	public Akiwrapper resume() {
+		return this.builder.resume(GameSnapshot.fromBytes(this.bytes));
+	}
+
+}
@@ -0,0 +1,140 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2026 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.example.load;
+
+import static java.lang.System.*;
+import static java.time.Duration.*;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.Nonnull;
+
+import org.eu.zajc.akiwrapper.AkiwrapperBuilder;
+import org.eu.zajc.akiwrapper.core.transport.HttpClientTransport;
+import org.eu.zajc.akiwrapper.core.utils.route.EndpointResolverBuilder;
+import org.eu.zajc.akiwrapper.standin.AkinatorStandIn;
+
+/**
+ * A load generator that plays many concurrent games against a local
+ * {@link AkinatorStandIn}, to find out how many games one JVM can drive and what
+ * limits it. Each {@link Player} runs on its own thread and goes through
+ * {@link AkiwrapperBuilder#build()}, answering questions (occasionally undoing an
+ * answer), and rejecting or confirming guesses. At the end, throughput and latency
+ * percentiles are printed for every route (see {@link RouteMetrics}).<br>
+ * By default, requests go over HTTP through the same {@link HttpClientTransport}
+ * that is used against Akinator. Options (all optional):
+ *
+ * <pre>
+ * --players=100        concurrent players (threads)
+ * --interval=100ms     time between a player's interactions
+ * --duration=30s       length of the measurement
+ * --warmup=5s          time to run before measuring
+ * --latency=20ms       stand-in latency
+ * --jitter=10ms        additional random stand-in latency
+ * --error-rate=0       fraction of requests the stand-in fails with a 503
+ * --in-process         skip HTTP and call the stand-in directly
+ * </pre>
+ *
+ * @author Marko Zajc
+ */
+public class LoadTest {
+
+	public static void main(String[] args) throws IOException, InterruptedException {
+		var options = parseOptions(args);
+		int players = Integer.parseInt(options.getOrDefault("players", "100"));
+		var interval = parseDuration(options.getOrDefault("interval", "100ms"));
+		var duration = parseDuration(options.getOrDefault("duration", "30s"));
+		var warmup = parseDuration(options.getOrDefault("warmup", "5s"));
+		var latency = parseDuration(options.getOrDefault("latency", "20ms"));
+		var jitter = parseDuration(options.getOrDefault("jitter", "10ms"));
+		double errorRate = Double.parseDouble(options.getOrDefault("error-rate", "0"));
+		boolean inProcess = options.containsKey("in-process");
+
+		try (var standIn = new AkinatorStandIn().setLatency(latency, jitter).setErrorRate(errorRate)) {
+			var builder = new AkiwrapperBuilder();
+			if (inProcess) {
+				builder.setTransport(new TimingTransport(standIn.createInProcessTransport()));
+			} else {
+				standIn.start();
+				builder.setEndpointResolver(new EndpointResolverBuilder().setBaseUri(standIn.getBaseUri()).build())
+					.setTransport(new TimingTransport(HttpClientTransport.of(HttpClient.newHttpClient())));
+			}
+
+			out.printf("Running %d players at one interaction per %d ms for %d s (+%d s warmup) over %s%n", players,
+					   interval.toMillis(), duration.toSeconds(), warmup.toSeconds(),
+					   inProcess ? "in-process" : "HTTP");
+
+			var games = new LongAdder();
+			var interactions = new LongAdder();
+			long deadline = nanoTime() + warmup.plus(duration).toNanos();
+			var executor = Executors.newFixedThreadPool(players);
+			for (int i = 0; i < players; i++)
+				executor.execute(new Player(builder, interval.toNanos(), deadline, games, interactions));
+
+			Thread.sleep(warmup.toMillis());
+			RouteMetrics.resetAll();
+			games.reset();
+			interactions.reset();
+			long start = nanoTime();
+
+			Thread.sleep(duration.toMillis());
+			double seconds = (nanoTime() - start) / 1e9;
+			executor.shutdownNow();
+			executor.awaitTermination(10, TimeUnit.SECONDS);
+
+			out.println();
+			out.printf("games: %d (%.1f/s), interactions: %d (%.1f/s)%n", games.sum(), games.sum() / seconds,
+					   interactions.sum(), interactions.sum() / seconds);
+			out.printf("peak threads: %d, stand-in sessions: %d%n%n",
+					   ManagementFactory.getThreadMXBean().getPeakThreadCount(), standIn.getSessions());
+			RouteMetrics.printAll(out, seconds);
+		}
+	}
+
+	@Nonnull
+	private static Map<String, String> parseOptions(@Nonnull String[] args) {
+		var options = new HashMap<String, String>();
+		for (var arg : args) {
+			if (!arg.startsWith("--"))
+				throw new IllegalArgumentException("Unknown argument: " + arg);
+
+			int separator = arg.indexOf('=');
+			if (separator < 0)
+				options.put(arg.substring(2), "");
+			else
+				options.put(arg.substring(2, separator), arg.substring(separator + 1));
+		}
+		return options;
+	}
+
+	@Nonnull
+	private static Duration parseDuration(@Nonnull String duration) {
+		if (duration.endsWith("ms"))
+			return ofMillis(Long.parseLong(duration.substring(0, duration.length() - 2)));
+		else if (duration.endsWith("s"))
+			return ofSeconds(Long.parseLong(duration.substring(0, duration.length() - 1)));
+		else
+			return ofMillis(Long.parseLong(duration));
+	}
+
+}
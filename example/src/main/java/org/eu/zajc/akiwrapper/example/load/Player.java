@@ -0,0 +1,144 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2026 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.example.load;
+
+import static java.lang.System.nanoTime;
+import static org.eu.zajc.akiwrapper.example.load.RouteMetrics.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import javax.annotation.Nonnull;
+
+import org.eu.zajc.akiwrapper.Akiwrapper.Answer;
+import org.eu.zajc.akiwrapper.AkiwrapperBuilder;
+import org.eu.zajc.akiwrapper.core.entities.*;
+
+/**
+ * A simulated player that plays games back to back on its own thread. The player
+ * interacts on a fixed schedule, one interaction per interval, and measures each
+ * interaction from the time it was scheduled for rather than the time it actually
+ * started. When an interaction takes longer than the interval, the following ones
+ * start late, and that delay is included in their response time.
+ *
+ * @author Marko Zajc
+ */
+public class Player implements Runnable {
+
+	private static final Answer[] ANSWERS = Answer.values();
+	private static final double UNDO_PROBABILITY = 0.1;
+	private static final double REJECT_PROBABILITY = 0.5;
+
+	@Nonnull private final AkiwrapperBuilder builder;
+	private final long intervalNanos;
+	private final long deadline;
+	@Nonnull private final LongAdder games;
+	@Nonnull private final LongAdder interactions;
+
+	private long intended;
+
+	public Player(@Nonnull AkiwrapperBuilder builder, long intervalNanos, long deadline, @Nonnull LongAdder games,
+				  @Nonnull LongAdder interactions) {
+		this.builder = builder;
+		this.intervalNanos = intervalNanos;
+		this.deadline = deadline;
+		this.games = games;
+		this.interactions = interactions;
+	}
+
+	@Override
+	public void run() {
+		// stagger players so that they don't all start at once
+		this.intended = nanoTime() + ThreadLocalRandom.current().nextLong(Math.max(1, this.intervalNanos));
+		while (this.intended - this.deadline < 0 && !Thread.currentThread().isInterrupted())
+			playGame();
+	}
+
+	private void playGame() {
+		Query query;
+		try {
+			awaitSchedule();
+			query = this.builder.build().getCurrentQuery();
+			record(NEW_SESSION);
+
+		} catch (Exception e) { // NOSONAR Utilities#join rethrows InterruptedException unchecked
+			fail(NEW_SESSION);
+			return;
+		}
+
+		while (query != null && this.intended - this.deadline < 0) {
+			awaitSchedule();
+			var random = ThreadLocalRandom.current();
+			RouteMetrics route = null;
+			try {
+				if (query instanceof Question question) {
+					if (question.getStep() > 0 && random.nextDouble() < UNDO_PROBABILITY) {
+						route = CANCEL_ANSWER;
+						query = question.undoAnswer();
+					} else {
+						route = ANSWER;
+						query = question.answer(ANSWERS[random.nextInt(ANSWERS.length)]);
+					}
+
+				} else if (query instanceof Guess guess) {
+					if (random.nextDouble() < REJECT_PROBABILITY) {
+						route = EXCLUDE;
+						query = guess.reject();
+					} else {
+						route = CHOICE;
+						guess.confirm();
+						query = null;
+					}
+				}
+
+			} catch (Exception e) { // NOSONAR see above
+				if (route != null)
+					fail(route);
+				return;
+			}
+
+			if (route != null)
+				record(route);
+		}
+
+		this.games.increment();
+	}
+
+	private void awaitSchedule() {
+		long delay;
+		while ((delay = this.intended - nanoTime()) > 0)
+			LockSupport.parkNanos(delay);
+	}
+
+	private void record(@Nonnull RouteMetrics route) {
+		route.recordResponseTime(nanoTime() - this.intended);
+		this.interactions.increment();
+		this.intended += this.intervalNanos;
+	}
+
+	private void fail(@Nonnull RouteMetrics route) {
+		// interruptions come from the load test stopping, not from a failed request
+		if (Thread.currentThread().isInterrupted())
+			return;
+
+		// the failed game is abandoned, and the next one starts at the next slot
+		route.recordError();
+		this.intended += this.intervalNanos;
+	}
+
+}
@@ -0,0 +1,131 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2026 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.example.load;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import java.io.PrintStream;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.*;
+
+import org.HdrHistogram.*;
+
+/**
+ * Latency and error metrics for one of Akinator's routes. Two histograms are kept:
+ * <ul>
+ * <li><b>response time</b> is measured by players from the moment an interaction was
+ * <i>supposed</i> to start according to their schedule, which corrects for
+ * coordinated omission - if the system stalls, the delayed interactions are still
+ * charged for the time they spent waiting.</li>
+ * <li><b>service time</b> is measured by {@link TimingTransport} around each HTTP
+ * exchange, including retried ones, and shows what the server alone contributes.</li>
+ * </ul>
+ * All values are recorded in microseconds.
+ *
+ * @author Marko Zajc
+ */
+public enum RouteMetrics {
+
+	NEW_SESSION("/game"),
+	ANSWER("/answer"),
+	CANCEL_ANSWER("/cancel_answer"),
+	EXCLUDE("/exclude"),
+	CHOICE("/choice");
+
+	private static final RouteMetrics[] VALUES = values();
+	private static final double[] PERCENTILES = { 50, 90, 99, 99.9 };
+
+	@Nonnull private final String path;
+	@Nonnull private final Recorder responseTimes = new Recorder(3);
+	@Nonnull private final Recorder serviceTimes = new Recorder(3);
+	@Nonnull private final LongAdder errors = new LongAdder();
+
+	RouteMetrics(@Nonnull String path) {
+		this.path = path;
+	}
+
+	/**
+	 * @param path
+	 *            the route's path.
+	 *
+	 * @return the {@link RouteMetrics} for the path, or {@code null} if the path isn't
+	 *         one of Akinator's routes.
+	 */
+	@Nullable
+	public static RouteMetrics fromPath(@Nonnull String path) {
+		for (var metrics : VALUES)
+			if (metrics.path.equals(path))
+				return metrics;
+		return null;
+	}
+
+	public void recordResponseTime(long nanos) {
+		this.responseTimes.recordValue(NANOSECONDS.toMicros(nanos));
+	}
+
+	public void recordServiceTime(long nanos) {
+		this.serviceTimes.recordValue(NANOSECONDS.toMicros(nanos));
+	}
+
+	public void recordError() {
+		this.errors.increment();
+	}
+
+	/**
+	 * Discards everything recorded so far, used to drop the warmup period.
+	 */
+	public static void resetAll() {
+		for (var metrics : VALUES) {
+			metrics.responseTimes.reset();
+			metrics.serviceTimes.reset();
+			metrics.errors.reset();
+		}
+	}
+
+	/**
+	 * Prints a table of throughput and latency percentiles for every route.
+	 *
+	 * @param out
+	 *            the stream to print to.
+	 * @param seconds
+	 *            the length of the measured period, used to calculate throughput.
+	 */
+	public static void printAll(@Nonnull PrintStream out, double seconds) {
+		out.printf("%-14s %-8s %9s %9s %7s", "route", "kind", "count", "ops/s", "errors");
+		for (var percentile : PERCENTILES)
+			out.printf(" %9s", "p" + (percentile == (long) percentile ? Long.toString((long) percentile) : percentile));
+		out.printf(" %9s%n", "max");
+
+		for (var metrics : VALUES) {
+			long errorCount = metrics.errors.sum();
+			print(out, metrics.name(), "response", metrics.responseTimes.getIntervalHistogram(), seconds, errorCount);
+			print(out, "", "service", metrics.serviceTimes.getIntervalHistogram(), seconds, -1);
+		}
+		out.println("(latencies in milliseconds)");
+	}
+
+	private static void print(@Nonnull PrintStream out, @Nonnull String route, @Nonnull String kind,
+							  @Nonnull Histogram histogram, double seconds, long errors) {
+		out.printf("%-14s %-8s %9d %9.1f %7s", route, kind, histogram.getTotalCount(),
+				   histogram.getTotalCount() / seconds, errors < 0 ? "" : Long.toString(errors));
+		for (var percentile : PERCENTILES)
+			out.printf(" %9.2f", histogram.getValueAtPercentile(percentile) / 1000D);
+		out.printf(" %9.2f%n", histogram.getMaxValue() / 1000D);
+	}
+
+}
@@ -0,0 +1,51 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2026 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.example.load;
+
+import static java.lang.System.nanoTime;
+
+import java.util.concurrent.CompletableFuture;
+
+import javax.annotation.Nonnull;
+
+import org.eu.zajc.akiwrapper.core.transport.*;
+
+/**
+ * A {@link Transport} that records the service time of each exchange into the
+ * {@link RouteMetrics} of its route.
+ *
+ * @author Marko Zajc
+ */
+public class TimingTransport implements Transport {
+
+	@Nonnull private final Transport delegate;
+
+	public TimingTransport(@Nonnull Transport delegate) {
+		this.delegate = delegate;
+	}
+
+	@Override
+	public CompletableFuture<TransportResponse> execute(TransportRequest request) {
+		var metrics = RouteMetrics.fromPath(request.getUri().getPath());
+		long start = nanoTime();
+		return this.delegate.execute(request).whenComplete((r, t) -> {
+			if (metrics != null)
+				metrics.recordServiceTime(nanoTime() - start);
+		});
+	}
+
+}
@@ -23,7 +23,8 @@ import java.util.*;
 import javax.annotation.*;
 
 import org.eu.zajc.akiwrapper.core.entities.*;
-import org.eu.zajc.akiwrapper.core.exceptions.LanguageThemeCombinationException;
+import org.eu.zajc.akiwrapper.core.exceptions.*;
+import org.eu.zajc.akiwrapper.core.snapshot.GameSnapshot;
 
 /**
  * The "core" of interaction with the Akinator's API.<br>
@@ -222,6 +223,23 @@ public interface Akiwrapper {
 	@Nullable
 	Query getCurrentQuery();
 
+	/**
+	 * Takes a {@link GameSnapshot} of this game, which can be stored and later resumed
+	 * with {@link AkiwrapperBuilder#resume(GameSnapshot)}, possibly in a different
+	 * process. Taking a snapshot doesn't contact Akinator. This instance can still be
+	 * used afterwards, but a game should only be continued from one place - once either
+	 * this instance or a resumed one is interacted with, older snapshots of the game
+	 * become stale.
+	 *
+	 * @return a snapshot of this game.
+	 *
+	 * @throws InteractionInFlightException
+	 *             if an interaction is queued or in flight, because its outcome would
+	 *             not be included in the snapshot.
+	 */
+	@Nonnull
+	GameSnapshot snapshot();
+
 	/**
 	 * Returns the {@link Language} used. Akinator returns localized {@link Query}
 	 * objects.
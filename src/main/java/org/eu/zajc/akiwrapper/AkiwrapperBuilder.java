@@ -16,17 +16,27 @@
  */
 package org.eu.zajc.akiwrapper;
 
+import static java.util.concurrent.CompletableFuture.completedFuture;
 import static org.eu.zajc.akiwrapper.Akiwrapper.Language.ENGLISH;
 import static org.eu.zajc.akiwrapper.Akiwrapper.Theme.CHARACTER;
+import static org.eu.zajc.akiwrapper.core.utils.Utilities.*;
 
 import java.net.http.HttpClient;
+import java.util.concurrent.CompletableFuture;
 
 import javax.annotation.*;
 
 import org.eu.zajc.akiwrapper.Akiwrapper.*;
-import org.eu.zajc.akiwrapper.core.entities.Query;
-import org.eu.zajc.akiwrapper.core.entities.impl.AkiwrapperImpl;
+import org.eu.zajc.akiwrapper.core.entities.*;
+import org.eu.zajc.akiwrapper.core.entities.impl.*;
 import org.eu.zajc.akiwrapper.core.exceptions.LanguageThemeCombinationException;
+import org.eu.zajc.akiwrapper.core.image.ImageCache;
+import org.eu.zajc.akiwrapper.core.session.SessionPool;
+import org.eu.zajc.akiwrapper.core.snapshot.GameSnapshot;
+import org.eu.zajc.akiwrapper.core.store.GameStore;
+import org.eu.zajc.akiwrapper.core.transport.*;
+import org.eu.zajc.akiwrapper.core.utils.*;
+import org.eu.zajc.akiwrapper.core.utils.route.*;
 
 /**
  * A class used to build an {@link Akiwrapper} object.
@@ -36,6 +46,16 @@ import org.eu.zajc.akiwrapper.core.exceptions.LanguageThemeCombinationException;
 public class AkiwrapperBuilder {
 
 	@Nullable private HttpClient httpClient;
+	@Nullable private Transport transport;
+	@Nonnull private RetryPolicy retryPolicy;
+	@Nonnull private TimeoutPolicy timeoutPolicy;
+	@Nonnull private IsolationPolicy isolationPolicy;
+	@Nonnull private String tenant;
+	@Nonnull private Priority priority;
+	@Nonnull private EndpointResolver endpointResolver;
+	@Nullable private SessionPool sessionPool;
+	@Nullable private InternPool internPool;
+	@Nullable private ImageCache imageCache;
 	private boolean filterProfanity;
 	@Nonnull private Language language;
 	@Nonnull private Theme theme;
@@ -55,9 +75,48 @@ public class AkiwrapperBuilder {
 	 */
 	@Nonnull public static final Theme DEFAULT_THEME = CHARACTER;
 
-	private AkiwrapperBuilder(@Nullable HttpClient httpClient, boolean filterProfanity, @Nonnull Language language,
-							  @Nonnull Theme theme) {
+	/**
+	 * The default {@link RetryPolicy} for new {@link Akiwrapper} instances.
+	 */
+	@Nonnull public static final RetryPolicy DEFAULT_RETRY_POLICY = RetryPolicy.DEFAULT;
+
+	/**
+	 * The default {@link TimeoutPolicy} for new {@link Akiwrapper} instances.
+	 */
+	@Nonnull public static final TimeoutPolicy DEFAULT_TIMEOUT_POLICY = TimeoutPolicy.DEFAULT;
+
+	/**
+	 * The default {@link IsolationPolicy} for new {@link Akiwrapper} instances.
+	 */
+	@Nonnull public static final IsolationPolicy DEFAULT_ISOLATION_POLICY = IsolationPolicy.DEFAULT;
+
+	/**
+	 * The default tenant for new {@link Akiwrapper} instances.
+	 */
+	@Nonnull public static final String DEFAULT_TENANT = "default";
+
+	/**
+	 * The default {@link Priority} for new {@link Akiwrapper} instances.
+	 */
+	@Nonnull public static final Priority DEFAULT_PRIORITY = Priority.INTERACTIVE;
+
+	/**
+	 * The default {@link EndpointResolver} for new {@link Akiwrapper} instances.
+	 */
+	@Nonnull public static final EndpointResolver DEFAULT_ENDPOINT_RESOLVER = EndpointResolver.DEFAULT;
+
+	private AkiwrapperBuilder(@Nullable HttpClient httpClient, @Nonnull RetryPolicy retryPolicy,
+							  @Nonnull TimeoutPolicy timeoutPolicy, @Nonnull IsolationPolicy isolationPolicy,
+							  @Nonnull String tenant, @Nonnull Priority priority,
+							  @Nonnull EndpointResolver endpointResolver, boolean filterProfanity,
+							  @Nonnull Language language, @Nonnull Theme theme) {
 		this.httpClient = httpClient;
+		this.retryPolicy = retryPolicy;
+		this.timeoutPolicy = timeoutPolicy;
+		this.isolationPolicy = isolationPolicy;
+		this.tenant = tenant;
+		this.priority = priority;
+		this.endpointResolver = endpointResolver;
 		this.filterProfanity = filterProfanity;
 		this.language = language;
 		this.theme = theme;
@@ -70,18 +129,34 @@ public class AkiwrapperBuilder {
 	 * ({@link #DEFAULT_FILTER_PROFANITY}),
 	 * <li>language is set to {@link Language#ENGLISH} ({@link #DEFAULT_LANGUAGE}),
 	 * <li>theme is set to {@link Theme#CHARACTER} ({@link #DEFAULT_THEME}),
+	 * <li>retry policy is set to {@link RetryPolicy#DEFAULT}
+	 * ({@link #DEFAULT_RETRY_POLICY}),
+	 * <li>timeout policy is set to {@link TimeoutPolicy#DEFAULT}
+	 * ({@link #DEFAULT_TIMEOUT_POLICY}),
+	 * <li>isolation policy is set to {@link IsolationPolicy#DEFAULT}
+	 * ({@link #DEFAULT_ISOLATION_POLICY}),
+	 * <li>tenant is set to {@code "default"} ({@link #DEFAULT_TENANT}),
+	 * <li>priority is set to {@link Priority#INTERACTIVE} ({@link #DEFAULT_PRIORITY}),
+	 * <li>endpoint resolver is set to {@link EndpointResolver#DEFAULT}
+	 * ({@link #DEFAULT_ENDPOINT_RESOLVER}),
 	 * </ul>
 	 */
 	public AkiwrapperBuilder() {
-		this(null, DEFAULT_FILTER_PROFANITY, DEFAULT_LANGUAGE, DEFAULT_THEME);
+		this(null, DEFAULT_RETRY_POLICY, DEFAULT_TIMEOUT_POLICY, DEFAULT_ISOLATION_POLICY, DEFAULT_TENANT,
+			 DEFAULT_PRIORITY, DEFAULT_ENDPOINT_RESOLVER, DEFAULT_FILTER_PROFANITY, DEFAULT_LANGUAGE, DEFAULT_THEME);
 	}
 
 	/**
-	 * Sets the {@link HttpClient} to be used by the built Akiwrapper instance.
+	 * Sets the {@link HttpClient} to be used by the built Akiwrapper instance. If this
+	 * is not set, all instances share the default {@link SharedHttpClient}, which is
+	 * usually what you want - creating an {@link HttpClient} for each instance also
+	 * creates a separate executor and connection pool for each game.<br>
+	 * This is ignored if a {@link Transport} is set with
+	 * {@link #setTransport(Transport)}.
 	 *
 	 * @param httpClient
-	 *            the {@link HttpClient} to be used or {$code null} to use
-	 *            {@link HttpClient#newHttpClient()}.
+	 *            the {@link HttpClient} to be used or {@code null} to use
+	 *            {@link SharedHttpClient#getDefault()}.
 	 *
 	 * @return current instance, used for chaining.
 	 */
@@ -94,14 +169,345 @@ public class AkiwrapperBuilder {
 	/**
 	 * Returns the {@link HttpClient} to be used by the built Akiwrapper instance.
 	 *
-	 * @return {@link HttpClient} to be used or {$code null} to use
-	 *         {@link HttpClient#newHttpClient()}.
+	 * @return {@link HttpClient} to be used or {@code null} to use
+	 *         {@link SharedHttpClient#getDefault()}.
 	 */
 	@Nullable
 	public HttpClient getHttpClient() {
 		return this.httpClient;
 	}
 
+	/**
+	 * Sets the {@link Transport} used to send requests. This allows using a different
+	 * HTTP client, a stand-in for Akinator, or instrumenting requests. If this is not
+	 * set, requests are sent by an {@link HttpClientTransport} using the
+	 * {@link HttpClient} set with {@link #setHttpClient(HttpClient)}.<br>
+	 * This is set to {@code null} by default.
+	 *
+	 * @param transport
+	 *            the {@link Transport} to use or {@code null} to send requests with the
+	 *            {@link HttpClient}.
+	 *
+	 * @return current instance, used for chaining.
+	 *
+	 * @see #getTransport()
+	 */
+	@Nonnull
+	public AkiwrapperBuilder setTransport(@Nullable Transport transport) {
+		this.transport = transport;
+		return this;
+	}
+
+	/**
+	 * Returns the {@link Transport} used to send requests.<br>
+	 * This is set to {@code null} by default.
+	 *
+	 * @return the {@link Transport} or {@code null} if requests are sent with the
+	 *         {@link HttpClient}.
+	 *
+	 * @see #setTransport(Transport)
+	 */
+	@Nullable
+	public Transport getTransport() {
+		return this.transport;
+	}
+
+	/**
+	 * Sets the {@link RetryPolicy}, which decides if and when failed requests are
+	 * retried.<br>
+	 * This is set to {@link RetryPolicy#DEFAULT} by default.
+	 *
+	 * @param retryPolicy
+	 *            the {@link RetryPolicy} to use, or {@link RetryPolicy#NONE} to disable
+	 *            retries.
+	 *
+	 * @return current instance, used for chaining.
+	 *
+	 * @see #getRetryPolicy()
+	 */
+	@Nonnull
+	public AkiwrapperBuilder setRetryPolicy(@Nonnull RetryPolicy retryPolicy) {
+		this.retryPolicy = retryPolicy;
+		return this;
+	}
+
+	/**
+	 * Returns the {@link RetryPolicy}, which decides if and when failed requests are
+	 * retried.<br>
+	 * This is set to {@link RetryPolicy#DEFAULT} by default.
+	 *
+	 * @return the {@link RetryPolicy}.
+	 *
+	 * @see #setRetryPolicy(RetryPolicy)
+	 */
+	@Nonnull
+	public RetryPolicy getRetryPolicy() {
+		return this.retryPolicy;
+	}
+
+	/**
+	 * Sets the {@link TimeoutPolicy}, which decides how long a single attempt of a
+	 * request may take before it's abandoned.<br>
+	 * This is set to {@link TimeoutPolicy#DEFAULT} by default.
+	 *
+	 * @param timeoutPolicy
+	 *            the {@link TimeoutPolicy} to use.
+	 *
+	 * @return current instance, used for chaining.
+	 *
+	 * @see #getTimeoutPolicy()
+	 */
+	@Nonnull
+	public AkiwrapperBuilder setTimeoutPolicy(@Nonnull TimeoutPolicy timeoutPolicy) {
+		this.timeoutPolicy = timeoutPolicy;
+		return this;
+	}
+
+	/**
+	 * Returns the {@link TimeoutPolicy}, which decides how long a single attempt of a
+	 * request may take before it's abandoned.<br>
+	 * This is set to {@link TimeoutPolicy#DEFAULT} by default.
+	 *
+	 * @return the {@link TimeoutPolicy}.
+	 *
+	 * @see #setTimeoutPolicy(TimeoutPolicy)
+	 */
+	@Nonnull
+	public TimeoutPolicy getTimeoutPolicy() {
+		return this.timeoutPolicy;
+	}
+
+	/**
+	 * Sets the {@link IsolationPolicy}, which limits the amount of requests in flight to
+	 * each host and stops sending requests to hosts that keep failing.<br>
+	 * This is set to {@link IsolationPolicy#DEFAULT} by default.
+	 *
+	 * @param isolationPolicy
+	 *            the {@link IsolationPolicy} to use, or {@link IsolationPolicy#NONE} to
+	 *            disable isolation.
+	 *
+	 * @return current instance, used for chaining.
+	 *
+	 * @see #getIsolationPolicy()
+	 */
+	@Nonnull
+	public AkiwrapperBuilder setIsolationPolicy(@Nonnull IsolationPolicy isolationPolicy) {
+		this.isolationPolicy = isolationPolicy;
+		return this;
+	}
+
+	/**
+	 * Returns the {@link IsolationPolicy}, which limits the amount of requests in flight
+	 * to each host and stops sending requests to hosts that keep failing.<br>
+	 * This is set to {@link IsolationPolicy#DEFAULT} by default.
+	 *
+	 * @return the {@link IsolationPolicy}.
+	 *
+	 * @see #setIsolationPolicy(IsolationPolicy)
+	 */
+	@Nonnull
+	public IsolationPolicy getIsolationPolicy() {
+		return this.isolationPolicy;
+	}
+
+	/**
+	 * Sets the tenant, such as the community or the job the game is played for.
+	 * Requests that wait for a host's concurrency limit are shared between tenants in
+	 * proportion to their weights (see
+	 * {@link IsolationPolicyBuilder#setTenantWeight(String, int)}), so a single tenant
+	 * can't monopolize the host.<br>
+	 * This is set to {@value #DEFAULT_TENANT} by default.
+	 *
+	 * @param tenant
+	 *            the tenant.
+	 *
+	 * @return current instance, used for chaining.
+	 *
+	 * @see #getTenant()
+	 */
+	@Nonnull
+	public AkiwrapperBuilder setTenant(@Nonnull String tenant) {
+		this.tenant = tenant;
+		return this;
+	}
+
+	/**
+	 * Returns the tenant, such as the community or the job the game is played for.<br>
+	 * This is set to {@value #DEFAULT_TENANT} by default.
+	 *
+	 * @return the tenant.
+	 *
+	 * @see #setTenant(String)
+	 */
+	@Nonnull
+	public String getTenant() {
+		return this.tenant;
+	}
+
+	/**
+	 * Sets the {@link Priority} of the game's requests. Queued interactive requests are
+	 * always sent before queued batch requests, so background jobs (such as health
+	 * probes) should use {@link Priority#BATCH}.<br>
+	 * This is set to {@link Priority#INTERACTIVE} by default.
+	 *
+	 * @param priority
+	 *            the priority.
+	 *
+	 * @return current instance, used for chaining.
+	 *
+	 * @see #getPriority()
+	 */
+	@Nonnull
+	public AkiwrapperBuilder setPriority(@Nonnull Priority priority) {
+		this.priority = priority;
+		return this;
+	}
+
+	/**
+	 * Returns the {@link Priority} of the game's requests.<br>
+	 * This is set to {@link Priority#INTERACTIVE} by default.
+	 *
+	 * @return the priority.
+	 *
+	 * @see #setPriority(Priority)
+	 */
+	@Nonnull
+	public Priority getPriority() {
+		return this.priority;
+	}
+
+	/**
+	 * Sets the {@link EndpointResolver}, which decides where requests are sent, for
+	 * example to send them through a reverse proxy.<br>
+	 * This is set to {@link EndpointResolver#DEFAULT} by default.
+	 *
+	 * @param endpointResolver
+	 *            the {@link EndpointResolver} to use.
+	 *
+	 * @return current instance, used for chaining.
+	 *
+	 * @see #getEndpointResolver()
+	 */
+	@Nonnull
+	public AkiwrapperBuilder setEndpointResolver(@Nonnull EndpointResolver endpointResolver) {
+		this.endpointResolver = endpointResolver;
+		return this;
+	}
+
+	/**
+	 * Returns the {@link EndpointResolver}, which decides where requests are sent.<br>
+	 * This is set to {@link EndpointResolver#DEFAULT} by default.
+	 *
+	 * @return the {@link EndpointResolver}.
+	 *
+	 * @see #setEndpointResolver(EndpointResolver)
+	 */
+	@Nonnull
+	public EndpointResolver getEndpointResolver() {
+		return this.endpointResolver;
+	}
+
+	/**
+	 * Sets the {@link SessionPool} to take ready sessions from. If the pool has a ready
+	 * session for this builder's configuration, {@link #build()} returns immediately
+	 * without contacting Akinator. Otherwise, a session is created as usual, and the
+	 * pool starts filling in the background.<br>
+	 * This is set to {@code null} by default.
+	 *
+	 * @param sessionPool
+	 *            the {@link SessionPool} to use or {@code null} to always create a new
+	 *            session.
+	 *
+	 * @return current instance, used for chaining.
+	 *
+	 * @see #getSessionPool()
+	 */
+	@Nonnull
+	public AkiwrapperBuilder setSessionPool(@Nullable SessionPool sessionPool) {
+		this.sessionPool = sessionPool;
+		return this;
+	}
+
+	/**
+	 * Returns the {@link SessionPool} to take ready sessions from.<br>
+	 * This is set to {@code null} by default.
+	 *
+	 * @return the {@link SessionPool} or {@code null} if sessions are always created on
+	 *         demand.
+	 *
+	 * @see #setSessionPool(SessionPool)
+	 */
+	@Nullable
+	public SessionPool getSessionPool() {
+		return this.sessionPool;
+	}
+
+	/**
+	 * Sets the {@link InternPool} to intern question texts and guess fields with. Games
+	 * that share a pool share a single copy of each question and guess string rather
+	 * than holding their own, which noticeably reduces the heap used by many concurrent
+	 * games.<br>
+	 * This is set to {@code null} by default.
+	 *
+	 * @param internPool
+	 *            the {@link InternPool} to use or {@code null} to not intern strings.
+	 *
+	 * @return current instance, used for chaining.
+	 *
+	 * @see #getInternPool()
+	 */
+	@Nonnull
+	public AkiwrapperBuilder setInternPool(@Nullable InternPool internPool) {
+		this.internPool = internPool;
+		return this;
+	}
+
+	/**
+	 * Returns the {@link InternPool} to intern question texts and guess fields with.<br>
+	 * This is set to {@code null} by default.
+	 *
+	 * @return the {@link InternPool} or {@code null} if strings aren't interned.
+	 *
+	 * @see #setInternPool(InternPool)
+	 */
+	@Nullable
+	public InternPool getInternPool() {
+		return this.internPool;
+	}
+
+	/**
+	 * Sets the {@link ImageCache} to download guess images with. The image of every
+	 * guess is then downloaded in the background as soon as the guess is received, and
+	 * {@link Guess#getImageDataAsync()} serves it from the cache.<br>
+	 * This is set to {@code null} by default.
+	 *
+	 * @param imageCache
+	 *            the {@link ImageCache} to use or {@code null} to download images only
+	 *            when they're requested, without caching them.
+	 *
+	 * @return current instance, used for chaining.
+	 *
+	 * @see #getImageCache()
+	 */
+	@Nonnull
+	public AkiwrapperBuilder setImageCache(@Nullable ImageCache imageCache) {
+		this.imageCache = imageCache;
+		return this;
+	}
+
+	/**
+	 * Returns the {@link ImageCache} to download guess images with.<br>
+	 * This is set to {@code null} by default.
+	 *
+	 * @return the {@link ImageCache} or {@code null} if images aren't cached.
+	 *
+	 * @see #setImageCache(ImageCache)
+	 */
+	@Nullable
+	public ImageCache getImageCache() {
+		return this.imageCache;
+	}
+
 	/**
 	 * Sets the profanity filter preference. Profanity filtering is done by Akinator and
 	 * not by Akiwrapper. Keep in mind that Akinator's filters aren't perfect, so
@@ -213,15 +619,97 @@ public class AkiwrapperBuilder {
 	 *             if the {@link Language} and {@link Theme} combination is incompatible.
 	 */
 	@Nonnull
-	@SuppressWarnings("null")
 	public Akiwrapper build() throws LanguageThemeCombinationException {
-		var httpClient = this.httpClient != null ? this.httpClient : HttpClient.newHttpClient();
+		return join(buildAsync());
+	}
 
+	/**
+	 * Asynchronously creates a new {@link Akiwrapper} instance. This behaves exactly like
+	 * {@link #build()}, except that it doesn't block the calling thread while the
+	 * session is being created. Cancelling the returned {@link CompletableFuture}
+	 * aborts session creation.
+	 *
+	 * @return a {@link CompletableFuture} of a new {@link Akiwrapper} instance.
+	 *
+	 * @throws LanguageThemeCombinationException
+	 *             if the {@link Language} and {@link Theme} combination is incompatible.
+	 *             This is thrown directly rather than through the returned future.
+	 */
+	@Nonnull
+	@SuppressWarnings("null")
+	public CompletableFuture<Akiwrapper> buildAsync() throws LanguageThemeCombinationException {
 		if (!this.language.isThemeSupported(this.theme))
 			throw new LanguageThemeCombinationException(this.language, this.theme);
 
-		var api = new AkiwrapperImpl(httpClient, this.language, this.theme, this.filterProfanity);
-		api.createSession();
+		var api = createApi(this.language, this.theme, this.filterProfanity);
+		if (this.sessionPool != null) {
+			var pooled = this.sessionPool.take(this);
+			if (pooled != null) {
+				api.adoptSession(pooled);
+				return completedFuture(api);
+			}
+		}
+
+		var session = api.createSessionAsync();
+		return propagateCancellation(session.thenApply(v -> api), session);
+	}
+
+	/**
+	 * Resumes a game from a {@link GameSnapshot} taken with {@link Akiwrapper#snapshot()},
+	 * without contacting Akinator. The {@link Language}, {@link Theme}, and profanity
+	 * filter preference are taken from the snapshot, and this builder's values for them
+	 * are ignored. Everything else (such as the transport and the retry policy) is
+	 * taken from this builder. The session pool is not used.
+	 *
+	 * @param snapshot
+	 *            the snapshot to resume.
+	 *
+	 * @return the resumed {@link Akiwrapper} instance.
+	 *
+	 * @see Akiwrapper#snapshot()
+	 */
+	@Nonnull
+	public Akiwrapper resume(@Nonnull GameSnapshot snapshot) {
+		var api = createApi(snapshot.getLanguage(), snapshot.getTheme(), snapshot.doesFilterProfanity());
+		api.restore(snapshot);
+		return api;
+	}
+
+	/**
+	 * Resumes a game stored in a {@link GameStore}, as described in
+	 * {@link #resume(GameSnapshot)}. The game is not removed from the store.
+	 *
+	 * @param store
+	 *            the store the game is stored in.
+	 * @param key
+	 *            the key the game is stored under.
+	 *
+	 * @return the resumed {@link Akiwrapper} instance, or {@code null} if there is no
+	 *         game stored under {@code key} or if it has expired.
+	 *
+	 * @see GameStore#park(String, Akiwrapper, java.time.Duration)
+	 */
+	@Nullable
+	public Akiwrapper resume(@Nonnull GameStore store, @Nonnull String key) {
+		var snapshot = store.get(key);
+		return snapshot == null ? null : resume(snapshot);
+	}
+
+	@Nonnull
+	private AkiwrapperImpl createApi(@Nonnull Language language, @Nonnull Theme theme, boolean filterProfanity) {
+		HttpClient httpClient = null;
+		var transport = this.transport;
+		if (transport == null) {
+			httpClient = this.httpClient != null ? this.httpClient : SharedHttpClient.getDefault();
+			transport = HttpClientTransport.of(httpClient);
+		}
+
+		var api = new AkiwrapperImpl(GameContext.of(transport, this.retryPolicy, this.timeoutPolicy,
+													this.isolationPolicy, this.tenant, this.priority,
+													this.endpointResolver, language, theme, filterProfanity,
+													this.internPool, this.imageCache));
+		if (httpClient instanceof SharedHttpClient)
+			((SharedHttpClient) httpClient).retainFor(api);
 		return api;
 	}
 
@@ -16,15 +16,18 @@
  */
 package org.eu.zajc.akiwrapper.core.entities;
 
+import java.io.IOException;
 import java.io.ObjectInputFilter.Status;
 import java.net.URL;
+import java.util.concurrent.CompletableFuture;
 
 import javax.annotation.*;
 
 import org.eu.zajc.akiwrapper.*;
 import org.eu.zajc.akiwrapper.Akiwrapper.*;
 import org.eu.zajc.akiwrapper.core.exceptions.*;
-import org.eu.zajc.akiwrapper.core.utils.Utilities;
+import org.eu.zajc.akiwrapper.core.image.*;
+import org.eu.zajc.akiwrapper.core.utils.*;
 
 /**
  * A representation of Akinator's guess. Guesses are either confirmed with
@@ -55,7 +58,7 @@ public interface Guess extends Query {
 	 *
 	 * @see #reject()
 	 *
-	 * @apiNote This method is thread safe - interaction methods are locked per
+	 * @apiNote This method is thread safe - interaction methods are queued per
 	 *          {@link Akiwrapper} instance.
 	 * @apiNote Since this ends the session and is not really required to succeed, any
 	 *          API exceptions thrown are suppressed.
@@ -64,6 +67,18 @@ public interface Guess extends Query {
 	 */
 	void confirm();
 
+	/**
+	 * This is an interaction method for {@link Guess}.<br>
+	 * Confirms the {@link Guess} like {@link #confirm()}, but gives up once
+	 * {@code deadline} passes. Like any other failure to confirm, this is suppressed.
+	 *
+	 * @param deadline
+	 *            the {@link Deadline} or {@code null} for no deadline.
+	 *
+	 * @see #confirm()
+	 */
+	void confirm(@Nullable Deadline deadline);
+
 	/**
 	 * This is an interaction method for {@link Guess}.<br>
 	 * Rejects the {@link Guess} and provides the next {@link Query}. If the next query
@@ -86,7 +101,7 @@ public interface Guess extends Query {
 	 *
 	 * @return the next {@link Query} or {@code null} if there are none left.
 	 *
-	 * @apiNote This method is thread safe - interaction methods are locked per
+	 * @apiNote This method is thread safe - interaction methods are queued per
 	 *          {@link Akiwrapper} instance.
 	 * @apiNote Do not use this method in automated tests, as it introduces faulty data
 	 *          into Akinator's database, dulling the ranking algorithm.
@@ -94,6 +109,141 @@ public interface Guess extends Query {
 	@Nullable
 	Query reject();
 
+	/**
+	 * This is an interaction method for {@link Guess}.<br>
+	 * Rejects the {@link Guess} like {@link #reject()}, but fails with a
+	 * {@link DeadlineExceededException} if it can't be completed before
+	 * {@code deadline}. Timed out requests are only retried if the retry can complete
+	 * in time.
+	 *
+	 * @param deadline
+	 *            the {@link Deadline} or {@code null} for no deadline.
+	 *
+	 * @return the next {@link Query} or {@code null} if there are none left.
+	 *
+	 * @throws DeadlineExceededException
+	 *             if the deadline passes before the guess is rejected.
+	 *
+	 * @see #reject()
+	 */
+	@Nullable
+	Query reject(@Nullable Deadline deadline);
+
+	/**
+	 * This is an interaction method for {@link Guess}.<br>
+	 * Asynchronously confirms the {@link Guess}. This behaves exactly like
+	 * {@link #confirm()}, except that it doesn't block the calling thread while the
+	 * request is in flight. API exceptions are suppressed just like in
+	 * {@link #confirm()}, so the returned {@link CompletableFuture} only completes
+	 * exceptionally with an {@link IllegalStateException} if this {@link Guess} is not
+	 * current.
+	 *
+	 * @return a {@link CompletableFuture} that completes once the guess is confirmed.
+	 *
+	 * @see #confirm()
+	 *
+	 * @apiNote Interactions are queued per {@link Akiwrapper} instance, so this can be
+	 *          safely called while another interaction is in flight.
+	 * @apiNote Do not use this method in automated tests, as it introduces faulty data
+	 *          into Akinator's database, dulling the ranking algorithm.
+	 */
+	@Nonnull
+	CompletableFuture<Void> confirmAsync();
+
+	/**
+	 * This is an interaction method for {@link Guess}.<br>
+	 * Asynchronously confirms the {@link Guess} like {@link #confirmAsync()}, but gives
+	 * up once {@code deadline} passes.
+	 *
+	 * @param deadline
+	 *            the {@link Deadline} or {@code null} for no deadline.
+	 *
+	 * @return a {@link CompletableFuture} that completes once the guess is confirmed.
+	 *
+	 * @see #confirmAsync()
+	 */
+	@Nonnull
+	CompletableFuture<Void> confirmAsync(@Nullable Deadline deadline);
+
+	/**
+	 * This is an interaction method for {@link Guess}.<br>
+	 * Asynchronously rejects the {@link Guess}. This behaves exactly like
+	 * {@link #reject()}, except that it doesn't block the calling thread while the
+	 * request is in flight. The returned {@link CompletableFuture} completes with the
+	 * next {@link Query} (or {@code null} if there are none left), or exceptionally with
+	 * any of the exceptions {@link #reject()} would throw.<br>
+	 * Cancelling the returned future aborts the request, and leaves
+	 * {@link Akiwrapper#getCurrentQuery()} unchanged. Keep in mind that the server might
+	 * have already processed the rejection by then, so cancelling an interaction that
+	 * is already in flight may desynchronize the session.
+	 *
+	 * @return a {@link CompletableFuture} of the next {@link Query}.
+	 *
+	 * @see #reject()
+	 *
+	 * @apiNote Interactions are queued per {@link Akiwrapper} instance, so this can be
+	 *          safely called while another interaction is in flight.
+	 * @apiNote Do not use this method in automated tests, as it introduces faulty data
+	 *          into Akinator's database, dulling the ranking algorithm.
+	 */
+	@Nonnull
+	CompletableFuture<Query> rejectAsync();
+
+	/**
+	 * This is an interaction method for {@link Guess}.<br>
+	 * Asynchronously rejects the {@link Guess} like {@link #rejectAsync()}, but
+	 * completes exceptionally with a {@link DeadlineExceededException} if it can't be
+	 * completed before {@code deadline}. The deadline also covers the time spent
+	 * waiting for other queued interactions.
+	 *
+	 * @param deadline
+	 *            the {@link Deadline} or {@code null} for no deadline.
+	 *
+	 * @return a {@link CompletableFuture} of the next {@link Query}.
+	 *
+	 * @see #rejectAsync()
+	 */
+	@Nonnull
+	CompletableFuture<Query> rejectAsync(@Nullable Deadline deadline);
+
+	/**
+	 * This is an interaction method for {@link Guess}.<br>
+	 * Rejects the {@link Guess} if no other interaction with this {@link Akiwrapper}
+	 * instance is in flight. This behaves like {@link #rejectAsync()}, except that it
+	 * never waits for other interactions: if one is queued or in flight, the returned
+	 * {@link CompletableFuture} is already completed exceptionally with an
+	 * {@link InteractionInFlightException}, and nothing is sent to the server.
+	 *
+	 * @return a {@link CompletableFuture} of the next {@link Query}, completed
+	 *         exceptionally with an {@link InteractionInFlightException} if another
+	 *         interaction is in flight, or with an {@link IllegalStateException} if this
+	 *         {@link Guess} is not current.
+	 *
+	 * @see #rejectAsync()
+	 *
+	 * @apiNote Do not use this method in automated tests, as it introduces faulty data
+	 *          into Akinator's database, dulling the ranking algorithm.
+	 */
+	@Nonnull
+	CompletableFuture<Query> tryReject();
+
+	/**
+	 * This is an interaction method for {@link Guess}.<br>
+	 * Rejects the {@link Guess} if no other interaction is in flight like
+	 * {@link #tryReject()}, but completes exceptionally with a
+	 * {@link DeadlineExceededException} if it can't be completed before
+	 * {@code deadline}.
+	 *
+	 * @param deadline
+	 *            the {@link Deadline} or {@code null} for no deadline.
+	 *
+	 * @return a {@link CompletableFuture} of the next {@link Query}.
+	 *
+	 * @see #tryReject()
+	 */
+	@Nonnull
+	CompletableFuture<Query> tryReject(@Nullable Deadline deadline);
+
 	/**
 	 * Returns the name of the guessed subject. This is localized to the {@link Language}
 	 * and in line with the {@link Theme} set in the {@link AkiwrapperBuilder}.
@@ -135,6 +285,35 @@ public interface Guess extends Query {
 	@Nullable
 	URL getImage();
 
+	/**
+	 * Downloads the image of this subject (see {@link #getImage()}). If an
+	 * {@link ImageCache} is set with {@link AkiwrapperBuilder#setImageCache(ImageCache)},
+	 * the download was already started in the background when this guess was received,
+	 * so the image is usually returned right away. Otherwise, it is downloaded with
+	 * {@link HttpClientImageLoader} and isn't cached.<br>
+	 * If the image couldn't be downloaded, the {@link IOException} is rethrown as-is,
+	 * even though it isn't declared.
+	 *
+	 * @return the image's bytes, which must not be modified, or {@code null} if this
+	 *         guess doesn't have an image.
+	 *
+	 * @see #getImageDataAsync()
+	 */
+	@Nullable
+	byte[] getImageData();
+
+	/**
+	 * Asynchronously downloads the image of this subject. This behaves exactly like
+	 * {@link #getImageData()}, except that it doesn't block the calling thread.
+	 *
+	 * @return a {@link CompletableFuture} of the image's bytes, which must not be
+	 *         modified, or of {@code null} if this guess doesn't have an image.
+	 *
+	 * @see #getImageData()
+	 */
+	@Nonnull
+	CompletableFuture<byte[]> getImageDataAsync();
+
 	/**
 	 * Returns this guess' ID. ID's are unique to each guess and can be used to track
 	 * rejected guesses, because Akinator won't do that for you.
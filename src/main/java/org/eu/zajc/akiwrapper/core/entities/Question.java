@@ -18,12 +18,14 @@ package org.eu.zajc.akiwrapper.core.entities;
 
 import java.io.ObjectInputFilter.Status;
 import java.net.*;
+import java.util.concurrent.CompletableFuture;
 
 import javax.annotation.*;
 
 import org.eu.zajc.akiwrapper.*;
 import org.eu.zajc.akiwrapper.Akiwrapper.*;
 import org.eu.zajc.akiwrapper.core.exceptions.*;
+import org.eu.zajc.akiwrapper.core.utils.Deadline;
 
 /**
  * A type of {@link Query} that represents Akinator's question. Questions are
@@ -64,12 +66,34 @@ public interface Question extends Query {
 	 *
 	 * @see #undoAnswer()
 	 *
-	 * @apiNote This method is thread safe - interaction methods are locked per
+	 * @apiNote This method is thread safe - interaction methods are queued per
 	 *          {@link Akiwrapper} instance.
 	 */
 	@Nullable
 	Query answer(Answer answer);
 
+	/**
+	 * This is an interaction method for {@link Question}.<br>
+	 * Submits an answer for the question like {@link #answer(Answer)}, but fails with a
+	 * {@link DeadlineExceededException} if it can't be completed before
+	 * {@code deadline}. Timed out requests are only retried if the retry can complete
+	 * in time.
+	 *
+	 * @param answer
+	 *            the {@link Answer} to submit.
+	 * @param deadline
+	 *            the {@link Deadline} or {@code null} for no deadline.
+	 *
+	 * @return the next {@link Query} or {@code null} if there are none left.
+	 *
+	 * @throws DeadlineExceededException
+	 *             if the deadline passes before the answer is submitted.
+	 *
+	 * @see #answer(Answer)
+	 */
+	@Nullable
+	Query answer(Answer answer, @Nullable Deadline deadline);
+
 	/**
 	 * This is an interaction method for {@link Question}.<br>
 	 * Goes one question backwards, undoing the previous {@link #answer(Answer)} call.
@@ -97,12 +121,158 @@ public interface Question extends Query {
 	 *
 	 * @see #answer(Answer)
 	 *
-	 * @apiNote This method is thread safe - interaction methods are locked per
+	 * @apiNote This method is thread safe - interaction methods are queued per
 	 *          {@link Akiwrapper} instance.
 	 */
 	@Nonnull
 	Question undoAnswer();
 
+	/**
+	 * This is an interaction method for {@link Question}.<br>
+	 * Goes one question backwards like {@link #undoAnswer()}, but fails with a
+	 * {@link DeadlineExceededException} if it can't be completed before
+	 * {@code deadline}.
+	 *
+	 * @param deadline
+	 *            the {@link Deadline} or {@code null} for no deadline.
+	 *
+	 * @return the previous {@link Question}.
+	 *
+	 * @throws DeadlineExceededException
+	 *             if the deadline passes before the answer is undone.
+	 *
+	 * @see #undoAnswer()
+	 */
+	@Nonnull
+	Question undoAnswer(@Nullable Deadline deadline);
+
+	/**
+	 * This is an interaction method for {@link Question}.<br>
+	 * Asynchronously submits an answer for the question. This behaves exactly like
+	 * {@link #answer(Answer)}, except that it doesn't block the calling thread while the
+	 * request is in flight. The returned {@link CompletableFuture} completes with the
+	 * next {@link Query} (or {@code null} if there are none left), or exceptionally with
+	 * any of the exceptions {@link #answer(Answer)} would throw.<br>
+	 * Cancelling the returned future aborts the request, and leaves
+	 * {@link Akiwrapper#getCurrentQuery()} unchanged. Keep in mind that the server might
+	 * have already processed the answer by then, so cancelling an interaction that is
+	 * already in flight may desynchronize the session.
+	 *
+	 * @param answer
+	 *            the {@link Answer} to submit.
+	 *
+	 * @return a {@link CompletableFuture} of the next {@link Query}.
+	 *
+	 * @see #answer(Answer)
+	 *
+	 * @apiNote Interactions are queued per {@link Akiwrapper} instance, so this can be
+	 *          safely called while another interaction is in flight (the call will then
+	 *          fail with an {@link IllegalStateException} because this {@link Question}
+	 *          won't be current anymore).
+	 */
+	@Nonnull
+	CompletableFuture<Query> answerAsync(@Nonnull Answer answer);
+
+	/**
+	 * This is an interaction method for {@link Question}.<br>
+	 * Asynchronously submits an answer for the question like
+	 * {@link #answerAsync(Answer)}, but completes exceptionally with a
+	 * {@link DeadlineExceededException} if it can't be completed before
+	 * {@code deadline}. The deadline also covers the time spent waiting for other
+	 * queued interactions.
+	 *
+	 * @param answer
+	 *            the {@link Answer} to submit.
+	 * @param deadline
+	 *            the {@link Deadline} or {@code null} for no deadline.
+	 *
+	 * @return a {@link CompletableFuture} of the next {@link Query}.
+	 *
+	 * @see #answerAsync(Answer)
+	 */
+	@Nonnull
+	CompletableFuture<Query> answerAsync(@Nonnull Answer answer, @Nullable Deadline deadline);
+
+	/**
+	 * This is an interaction method for {@link Question}.<br>
+	 * Asynchronously goes one question backwards. This behaves exactly like
+	 * {@link #undoAnswer()}, except that it doesn't block the calling thread while the
+	 * request is in flight. The returned {@link CompletableFuture} completes with the
+	 * previous {@link Question}, or exceptionally with any of the exceptions
+	 * {@link #undoAnswer()} would throw.<br>
+	 * Cancelling the returned future aborts the request, and leaves
+	 * {@link Akiwrapper#getCurrentQuery()} unchanged. Keep in mind that the server might
+	 * have already processed the request by then, so cancelling an interaction that is
+	 * already in flight may desynchronize the session.
+	 *
+	 * @return a {@link CompletableFuture} of the previous {@link Question}.
+	 *
+	 * @see #undoAnswer()
+	 *
+	 * @apiNote Interactions are queued per {@link Akiwrapper} instance, so this can be
+	 *          safely called while another interaction is in flight.
+	 */
+	@Nonnull
+	CompletableFuture<Question> undoAnswerAsync();
+
+	/**
+	 * This is an interaction method for {@link Question}.<br>
+	 * Asynchronously goes one question backwards like {@link #undoAnswerAsync()}, but
+	 * completes exceptionally with a {@link DeadlineExceededException} if it can't be
+	 * completed before {@code deadline}.
+	 *
+	 * @param deadline
+	 *            the {@link Deadline} or {@code null} for no deadline.
+	 *
+	 * @return a {@link CompletableFuture} of the previous {@link Question}.
+	 *
+	 * @see #undoAnswerAsync()
+	 */
+	@Nonnull
+	CompletableFuture<Question> undoAnswerAsync(@Nullable Deadline deadline);
+
+	/**
+	 * This is an interaction method for {@link Question}.<br>
+	 * Submits an answer for the question if no other interaction with this
+	 * {@link Akiwrapper} instance is in flight. This behaves like
+	 * {@link #answerAsync(Answer)}, except that it never waits for other interactions:
+	 * if one is queued or in flight, the returned {@link CompletableFuture} is already
+	 * completed exceptionally with an {@link InteractionInFlightException}, and nothing
+	 * is sent to the server. This is useful for handling user input that may arrive
+	 * twice, such as a double-tapped button.
+	 *
+	 * @param answer
+	 *            the {@link Answer} to submit.
+	 *
+	 * @return a {@link CompletableFuture} of the next {@link Query}, completed
+	 *         exceptionally with an {@link InteractionInFlightException} if another
+	 *         interaction is in flight, or with an {@link IllegalStateException} if this
+	 *         {@link Question} is not current.
+	 *
+	 * @see #answerAsync(Answer)
+	 */
+	@Nonnull
+	CompletableFuture<Query> tryAnswer(@Nonnull Answer answer);
+
+	/**
+	 * This is an interaction method for {@link Question}.<br>
+	 * Submits an answer for the question if no other interaction is in flight like
+	 * {@link #tryAnswer(Answer)}, but completes exceptionally with a
+	 * {@link DeadlineExceededException} if it can't be completed before
+	 * {@code deadline}.
+	 *
+	 * @param answer
+	 *            the {@link Answer} to submit.
+	 * @param deadline
+	 *            the {@link Deadline} or {@code null} for no deadline.
+	 *
+	 * @return a {@link CompletableFuture} of the next {@link Query}.
+	 *
+	 * @see #tryAnswer(Answer)
+	 */
+	@Nonnull
+	CompletableFuture<Query> tryAnswer(@Nonnull Answer answer, @Nullable Deadline deadline);
+
 	/**
 	 * Returns the question text that should be displayed to the user. This is localized
 	 * to the {@link Language} and in line with the {@link Theme} set in the
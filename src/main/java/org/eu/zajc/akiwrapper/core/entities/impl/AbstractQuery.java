@@ -16,14 +16,14 @@
  */
 package org.eu.zajc.akiwrapper.core.entities.impl;
 
+import static org.eu.zajc.akiwrapper.core.utils.route.FlatJson.*;
 import static org.eu.zajc.akiwrapper.core.utils.route.Status.QUESTIONS_EXHAUSTED;
 
 import javax.annotation.Nonnull;
 
 import org.eu.zajc.akiwrapper.core.entities.*;
 import org.eu.zajc.akiwrapper.core.exceptions.MalformedResponseException;
-import org.eu.zajc.akiwrapper.core.utils.route.Response;
-import org.json.JSONObject;
+import org.eu.zajc.akiwrapper.core.utils.route.*;
 
 /**
  * <b>Note:</b> This is an internal class and its internals are subject to change
@@ -45,24 +45,24 @@ public abstract class AbstractQuery implements Query {
 	}
 
 	protected void ensureCurrent() {
-		if (this.akiwrapper.getCurrentQuery() != this)
-			throw new IllegalStateException("Can only reply to the current query");
+		this.akiwrapper.ensureCurrent(this);
 	}
 
-	public Query parseNext(@Nonnull Response<JSONObject> resp) {
+	public Query parseNext(@Nonnull Response<FlatJson> resp) {
 		var parsed = resp.getStatus() == QUESTIONS_EXHAUSTED ? null : fromJson(this.akiwrapper, resp.getBody());
+		this.akiwrapper.advance(this, parsed);
+
+		// only once the game has actually moved on, so that a lost race leaves it untouched
 		if (parsed instanceof Guess)
 			this.akiwrapper.setLastGuessStep(this.step);
-
-		this.akiwrapper.setCurrentResponse(parsed);
 		return parsed;
 	}
 
 	@Nonnull
-	private static Query fromJson(@Nonnull AkiwrapperImpl akiwrapper, JSONObject json) {
-		if (json.has("question"))
+	private static Query fromJson(@Nonnull AkiwrapperImpl akiwrapper, FlatJson json) {
+		if (json.has(KEY_QUESTION))
 			return QuestionImpl.fromJson(akiwrapper, json);
-		else if (json.has("name_proposition"))
+		else if (json.has(KEY_NAME_PROPOSITION))
 			return GuessImpl.fromJson(akiwrapper, json);
 		else
 			throw new MalformedResponseException();
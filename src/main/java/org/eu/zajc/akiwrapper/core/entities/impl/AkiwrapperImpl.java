@@ -17,19 +17,28 @@
 package org.eu.zajc.akiwrapper.core.entities.impl;
 
 import static java.util.Optional.ofNullable;
+import static java.util.concurrent.CompletableFuture.*;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 import static java.util.regex.Pattern.compile;
-import static org.eu.zajc.akiwrapper.core.utils.route.Routes.NEW_SESSION;
+import static org.eu.zajc.akiwrapper.core.utils.Utilities.*;
+import static org.eu.zajc.akiwrapper.core.utils.route.Routes.*;
 
-import java.net.http.HttpClient;
+import java.lang.invoke.*;
+import java.net.*;
 import java.util.*;
-import java.util.concurrent.locks.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 import java.util.regex.Pattern;
 
 import javax.annotation.*;
 
 import org.eu.zajc.akiwrapper.Akiwrapper;
 import org.eu.zajc.akiwrapper.core.entities.Query;
-import org.eu.zajc.akiwrapper.core.exceptions.MalformedResponseException;
+import org.eu.zajc.akiwrapper.core.exceptions.*;
+import org.eu.zajc.akiwrapper.core.snapshot.GameSnapshot;
+import org.eu.zajc.akiwrapper.core.transport.Transport;
+import org.eu.zajc.akiwrapper.core.utils.Deadline;
+import org.eu.zajc.akiwrapper.core.utils.route.*;
 import org.jsoup.nodes.Element;
 import org.slf4j.*;
 
@@ -44,14 +53,14 @@ public class AkiwrapperImpl implements Akiwrapper {
 
 	public static class Session {
 
-		private static final Pattern IDENTIFIER_PATTERN =
+		public static final Pattern IDENTIFIER_PATTERN =
 			compile("localStorage\\.setItem\\('identifiant', '([^']*)'\\);");
 
 		@Nonnull private final String session;
 		@Nonnull private final String signature;
 		@Nullable private final String identifier;
 
-		private Session(@Nonnull String session, @Nonnull String signature, @Nullable String identifier) {
+		public Session(@Nonnull String session, @Nonnull String signature, @Nullable String identifier) {
 			this.session = session;
 			this.signature = signature;
 			this.identifier = identifier;
@@ -77,9 +86,14 @@ public class AkiwrapperImpl implements Akiwrapper {
 			}).orElseThrow(MalformedResponseException::new);
 		}
 
-		public void apply(@Nonnull Map<String, Object> parameters) {
-			parameters.put("session", this.session);
-			parameters.put("signature", this.signature);
+		@Nonnull
+		public String getSession() {
+			return this.session;
+		}
+
+		@Nonnull
+		public String getSignature() {
+			return this.signature;
 		}
 
 		@Nullable
@@ -93,29 +107,277 @@ public class AkiwrapperImpl implements Akiwrapper {
 
 	public static final int LAST_STEP = 80;
 
-	@Nonnull private final HttpClient httpClient;
-	@Nonnull private final Language language;
-	@Nonnull private final Theme theme;
-	private final boolean filterProfanity;
+	private static final String NOT_CURRENT = "Can only reply to the current query";
 
-	private Session session;
-	private Query currentQuery;
+	private static final CompletableFuture<?> IDLE = completedFuture(null);
+	private static final VarHandle CURRENT_QUERY;
+	private static final VarHandle LAST_INTERACTION;
+	static {
+		try {
+			var lookup = MethodHandles.lookup();
+			CURRENT_QUERY = lookup.findVarHandle(AkiwrapperImpl.class, "currentQuery", Query.class);
+			LAST_INTERACTION = lookup.findVarHandle(AkiwrapperImpl.class, "lastInteraction", CompletableFuture.class);
+		} catch (ReflectiveOperationException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	// everything that is shared between games with the same configuration lives in the
+	// context, so that idle games stay small
+	@Nonnull private final GameContext context;
+	private volatile Session session;
+	private volatile Query currentQuery;
 	private volatile int lastGuessStep;
-	@Nonnull private Lock interactionLock = new ReentrantLock();
+	@Nonnull private volatile CompletableFuture<?> lastInteraction = IDLE;
 
-	public AkiwrapperImpl(@Nonnull HttpClient httpClient, @Nonnull Language language, @Nonnull Theme theme,
-						  boolean filterProfanity) {
-		this.httpClient = httpClient;
-		this.language = language;
-		this.theme = theme;
-		this.filterProfanity = filterProfanity;
+	public AkiwrapperImpl(@Nonnull GameContext context) {
+		this.context = context;
 	}
 
-	@SuppressWarnings("null")
 	public void createSession() {
-		var resp = NEW_SESSION.createRequest(this).retrieveDocument().getBody();
-		this.session = Session.fromHtml(resp);
-		this.currentQuery = QuestionImpl.fromHtml(this, resp);
+		join(createSessionAsync());
+	}
+
+	@Nonnull
+	@SuppressWarnings("null")
+	public CompletableFuture<Void> createSessionAsync() {
+		var request = NEW_SESSION.createRequest(this).retrieveGamePageAsync();
+		return propagateCancellation(request.thenAccept(r -> {
+			var page = r.getBody();
+			this.session = page.getSession();
+			this.currentQuery = QuestionImpl.fromGamePage(this, page);
+		}), request);
+	}
+
+	/**
+	 * Takes over the session and the initial question of another (unused) instance.
+	 * This is used to hand out sessions from a
+	 * {@link org.eu.zajc.akiwrapper.core.session.SessionPool}.
+	 *
+	 * @param donor
+	 *            the instance to take the session from
+	 */
+	public void adoptSession(@Nonnull AkiwrapperImpl donor) {
+		var question = (QuestionImpl) donor.getCurrentQuery();
+		if (donor.session == null || question == null)
+			throw new IllegalStateException("The donor instance doesn't have a session");
+
+		this.session = donor.session;
+		this.currentQuery = new QuestionImpl(this, question.getStep(), question.getProgression(), question.getText());
+	}
+
+	/**
+	 * Restores the session and the current query from a {@link GameSnapshot}. The
+	 * snapshot's language, theme, and profanity filter preference must be the same as
+	 * this instance's.
+	 *
+	 * @param snapshot
+	 *            the snapshot to restore
+	 */
+	@SuppressWarnings("null")
+	public void restore(@Nonnull GameSnapshot snapshot) {
+		this.session = new Session(snapshot.getSession(), snapshot.getSignature(), snapshot.getIdentifier());
+		this.lastGuessStep = snapshot.getLastGuessStep();
+
+		Query query;
+		switch (snapshot.getQueryType()) {
+			case QUESTION:
+				query = new QuestionImpl(this, snapshot.getStep(), snapshot.getProgression(),
+										 this.context.intern(snapshot.getText()));
+				break;
+			case GUESS:
+				URL image = null;
+				if (snapshot.getGuessImage() != null) {
+					try {
+						image = new URI(snapshot.getGuessImage()).toURL();
+					} catch (URISyntaxException | MalformedURLException | IllegalArgumentException e) {
+						throw new IllegalArgumentException("Malformed guess image URL in the game snapshot", e);
+					}
+				}
+				query = new GuessImpl(this, snapshot.getStep(), snapshot.getProgression(),
+									  this.context.intern(snapshot.getGuessId()),
+									  this.context.intern(snapshot.getText()),
+									  this.context.intern(snapshot.getGuessPseudonym()),
+									  this.context.intern(snapshot.getGuessDescription()), image,
+									  this.context.intern(snapshot.getGuessFlagPhoto()));
+				break;
+			default:
+				query = null;
+		}
+		this.currentQuery = query;
+	}
+
+	/**
+	 * Queues an interaction. Interactions are executed one after another, but unlike a
+	 * lock, waiting for the previous interaction doesn't park any threads. Cancelling
+	 * the returned future cancels the interaction if it hasn't started yet, and
+	 * otherwise cancels the stage returned by {@code interaction}.
+	 *
+	 * @param <T>
+	 *            the interaction's result type
+	 * @param interaction
+	 *            the interaction, which is started after all previously queued
+	 *            interactions complete
+	 *
+	 * @return a {@link CompletableFuture} that completes with the interaction's result
+	 */
+	@Nonnull
+	public <T> CompletableFuture<T> interact(@Nonnull Supplier<CompletableFuture<T>> interaction) {
+		return interact(null, interaction);
+	}
+
+	/**
+	 * Queues an interaction like {@link #interact(Supplier)}, but fails it with a
+	 * {@link DeadlineExceededException} if {@code deadline} passes before all previously
+	 * queued interactions complete. Once the interaction has started, enforcing the
+	 * deadline is up to the interaction itself.
+	 *
+	 * @param <T>
+	 *            the interaction's result type
+	 * @param deadline
+	 *            the {@link Deadline} or {@code null} for no deadline
+	 * @param interaction
+	 *            the interaction, which is started after all previously queued
+	 *            interactions complete
+	 *
+	 * @return a {@link CompletableFuture} that completes with the interaction's result
+	 */
+	@Nonnull
+	public <T> CompletableFuture<T> interact(@Nullable Deadline deadline,
+											 @Nonnull Supplier<CompletableFuture<T>> interaction) {
+		var result = new CompletableFuture<T>();
+		var marker = new CompletableFuture<Void>();
+		var previous = (CompletableFuture<?>) LAST_INTERACTION.getAndSet(this, marker);
+		completeMarker(previous, result, marker);
+		marker.whenComplete((r, t) -> becomeIdle(marker));
+
+		var turn = previous.handle((r, t) -> (Void) null);
+		if (deadline != null)
+			turn.orTimeout(deadline.getRemainingNanos(), NANOSECONDS);
+
+		turn.whenComplete((r, t) -> {
+			if (t != null) // the deadline passed while waiting
+				result.completeExceptionally(new DeadlineExceededException());
+			else if (!result.isDone()) // cancelled while waiting
+				start(interaction, result, marker);
+		});
+
+		return result;
+	}
+
+	/**
+	 * Starts an interaction immediately if no other interaction is queued or in flight,
+	 * and {@code query} is still current. Unlike {@link #interact(Supplier)}, this never
+	 * waits: if the interaction can't be started right away, the returned future is
+	 * already completed exceptionally.
+	 *
+	 * @param <T>
+	 *            the interaction's result type
+	 * @param query
+	 *            the query that is being interacted with
+	 * @param interaction
+	 *            the interaction
+	 *
+	 * @return a {@link CompletableFuture} that completes with the interaction's result,
+	 *         or a failed one with an {@link InteractionInFlightException} if another
+	 *         interaction is in flight, or an {@link IllegalStateException} if
+	 *         {@code query} isn't current
+	 */
+	@Nonnull
+	public <T> CompletableFuture<T> tryInteract(@Nonnull Query query,
+												@Nonnull Supplier<CompletableFuture<T>> interaction) {
+		var previous = this.lastInteraction;
+		if (!previous.isDone())
+			return failedFuture(new InteractionInFlightException());
+
+		if (this.currentQuery != query)
+			return failedFuture(new IllegalStateException(NOT_CURRENT));
+
+		var result = new CompletableFuture<T>();
+		var marker = new CompletableFuture<Void>();
+		if (!LAST_INTERACTION.compareAndSet(this, previous, marker))
+			return failedFuture(new InteractionInFlightException()); // lost the race
+		completeMarker(previous, result, marker);
+		marker.whenComplete((r, t) -> becomeIdle(marker));
+
+		start(interaction, result, marker);
+		return result;
+	}
+
+	private static void completeMarker(@Nonnull CompletableFuture<?> previous, @Nonnull CompletableFuture<?> result,
+									   @Nonnull CompletableFuture<Void> marker) {
+		// start() completes the marker before the result, so that whoever observes the
+		// result also observes the interaction as finished; this only covers results
+		// that are completed some other way, such as by cancellation or by the deadline
+		// passing. if that happens while the interaction is still queued, the next one
+		// must keep waiting for the previous one
+		result.whenComplete((r, t) -> previous.whenComplete((r2, t2) -> marker.complete(null)));
+	}
+
+	private void becomeIdle(@Nonnull CompletableFuture<?> marker) {
+		// drop the reference to the finished interaction unless another one was queued
+		LAST_INTERACTION.compareAndSet(this, marker, IDLE);
+	}
+
+	private static <T> void start(@Nonnull Supplier<CompletableFuture<T>> interaction,
+								  @Nonnull CompletableFuture<T> result, @Nonnull CompletableFuture<Void> marker) {
+		CompletableFuture<T> stage;
+		try {
+			stage = interaction.get();
+		} catch (RuntimeException e) {
+			marker.complete(null);
+			result.completeExceptionally(e);
+			return;
+		}
+
+		stage.whenComplete((v, e) -> {
+			marker.complete(null);
+			if (e != null)
+				result.completeExceptionally(unwrapCompletion(e));
+			else
+				result.complete(v);
+		});
+		propagateCancellation(result, stage);
+	}
+
+	/**
+	 * Ensures that {@code query} is the current query.
+	 *
+	 * @param query
+	 *            the query that is being interacted with
+	 *
+	 * @throws IllegalStateException
+	 *             if {@code query} isn't current
+	 */
+	public void ensureCurrent(@Nonnull Query query) {
+		if (this.currentQuery != query)
+			throw new IllegalStateException(NOT_CURRENT);
+	}
+
+	/**
+	 * Moves the game from one query to the next. Because interactions are serialized,
+	 * this should never fail, but the transition is still done atomically so that a
+	 * reply to a stale query can't overwrite a newer one.
+	 *
+	 * @param from
+	 *            the query that was interacted with
+	 * @param to
+	 *            the next query, or {@code null} if there are none left
+	 *
+	 * @throws IllegalStateException
+	 *             if {@code from} isn't current anymore
+	 */
+	public void advance(@Nonnull Query from, @Nullable Query to) {
+		if (!CURRENT_QUERY.compareAndSet(this, from, to))
+			throw new IllegalStateException(NOT_CURRENT);
+	}
+
+	@Override
+	public GameSnapshot snapshot() {
+		if (!this.lastInteraction.isDone())
+			throw new InteractionInFlightException();
+
+		return GameSnapshot.capture(this);
 	}
 
 	@Override
@@ -125,30 +387,41 @@ public class AkiwrapperImpl implements Akiwrapper {
 
 	@Override
 	public Language getLanguage() {
-		return this.language;
+		return this.context.getLanguage();
 	}
 
 	@Override
 	public Theme getTheme() {
-		return this.theme;
+		return this.context.getTheme();
 	}
 
 	@Override
 	public boolean doesFilterProfanity() {
-		return this.filterProfanity;
+		return this.context.doesFilterProfanity();
 	}
 
 	@Nonnull
-	public HttpClient getHttpClient() {
-		return this.httpClient;
+	public GameContext getContext() {
+		return this.context;
 	}
 
-	public Session getSession() {
-		return this.session;
+	@Nonnull
+	public Transport getTransport() {
+		return this.context.getTransport();
+	}
+
+	@Nonnull
+	public RetryPolicy getRetryPolicy() {
+		return this.context.getRetryPolicy();
+	}
+
+	@Nonnull
+	public EndpointResolver getEndpointResolver() {
+		return this.context.getEndpointResolver();
 	}
 
-	public void setCurrentResponse(@Nullable Query response) {
-		this.currentQuery = response;
+	public Session getSession() {
+		return this.session;
 	}
 
 	public int getLastGuessStep() {
@@ -159,8 +432,4 @@ public class AkiwrapperImpl implements Akiwrapper {
 		this.lastGuessStep = lastGuessStep;
 	}
 
-	@Nonnull
-	public Lock getInteractionLock() {
-		return this.interactionLock;
-	}
 }
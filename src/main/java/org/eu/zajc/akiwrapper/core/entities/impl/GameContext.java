@@ -0,0 +1,223 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2026 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.core.entities.impl;
+
+import static java.util.Collections.synchronizedMap;
+
+import java.lang.ref.WeakReference;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.annotation.*;
+
+import org.eu.zajc.akiwrapper.Akiwrapper.*;
+import org.eu.zajc.akiwrapper.core.image.ImageCache;
+import org.eu.zajc.akiwrapper.core.transport.Transport;
+import org.eu.zajc.akiwrapper.core.utils.InternPool;
+import org.eu.zajc.akiwrapper.core.utils.route.*;
+
+/**
+ * <b>Note:</b> This is an internal class and its internals are subject to change
+ * without prior deprecation. Use with caution.<br>
+ * <br>
+ * The configuration shared by all games with the same transport, retry policy,
+ * timeout policy, isolation policy, tenant, priority, endpoints, language, theme,
+ * profanity filter preference, intern pool, and image cache, along with the
+ * {@link RouteTemplate}s compiled for it. Instances are canonical - {@link #of}
+ * returns the same instance for the same configuration for as long as it's in use -
+ * so a game only needs a single reference to its configuration, and templates are
+ * compiled once per configuration rather than once per game.
+ *
+ * @author Marko Zajc
+ */
+@SuppressWarnings("javadoc") // internal
+public final class GameContext {
+
+	private static final Map<GameContext, WeakReference<GameContext>> INSTANCES =
+		synchronizedMap(new WeakHashMap<>());
+
+	@Nonnull private final Transport transport;
+	@Nonnull private final RetryPolicy retryPolicy;
+	@Nonnull private final TimeoutPolicy timeoutPolicy;
+	@Nonnull private final IsolationPolicy isolationPolicy;
+	@Nonnull private final String tenant;
+	@Nonnull private final Priority priority;
+	@Nonnull private final EndpointResolver endpointResolver;
+	@Nonnull private final Language language;
+	@Nonnull private final Theme theme;
+	private final boolean filterProfanity;
+	@Nullable private final InternPool internPool;
+	@Nullable private final ImageCache imageCache;
+	@Nonnull private final Map<Route, RouteTemplate> routeTemplates = new ConcurrentHashMap<>();
+
+	private GameContext(@Nonnull Transport transport, @Nonnull RetryPolicy retryPolicy,
+						@Nonnull TimeoutPolicy timeoutPolicy, @Nonnull IsolationPolicy isolationPolicy,
+						@Nonnull String tenant, @Nonnull Priority priority, @Nonnull EndpointResolver endpointResolver,
+						@Nonnull Language language, @Nonnull Theme theme, boolean filterProfanity,
+						@Nullable InternPool internPool, @Nullable ImageCache imageCache) {
+		this.transport = transport;
+		this.retryPolicy = retryPolicy;
+		this.timeoutPolicy = timeoutPolicy;
+		this.isolationPolicy = isolationPolicy;
+		this.tenant = tenant;
+		this.priority = priority;
+		this.endpointResolver = endpointResolver;
+		this.language = language;
+		this.theme = theme;
+		this.filterProfanity = filterProfanity;
+		this.internPool = internPool;
+		this.imageCache = imageCache;
+	}
+
+	@Nonnull
+	public static GameContext of(@Nonnull Transport transport, @Nonnull RetryPolicy retryPolicy,
+								 @Nonnull TimeoutPolicy timeoutPolicy, @Nonnull IsolationPolicy isolationPolicy,
+								 @Nonnull String tenant, @Nonnull Priority priority,
+								 @Nonnull EndpointResolver endpointResolver, @Nonnull Language language,
+								 @Nonnull Theme theme, boolean filterProfanity, @Nullable InternPool internPool,
+								 @Nullable ImageCache imageCache) {
+		var key = new GameContext(transport, retryPolicy, timeoutPolicy, isolationPolicy, tenant, priority,
+								  endpointResolver, language, theme, filterProfanity, internPool, imageCache);
+		synchronized (INSTANCES) {
+			var reference = INSTANCES.get(key);
+			var context = reference == null ? null : reference.get();
+			if (context == null) {
+				context = key;
+				INSTANCES.put(context, new WeakReference<>(context));
+			}
+			return context;
+		}
+	}
+
+	/**
+	 * Returns the {@link RouteTemplate} for a {@link Route}, compiling it if this is the
+	 * first request to that route, or if the default headers have changed since it was
+	 * compiled.
+	 *
+	 * @param route
+	 *            the route
+	 *
+	 * @return the compiled {@link RouteTemplate}
+	 */
+	@Nonnull
+	public RouteTemplate getRouteTemplate(@Nonnull Route route) {
+		var template = this.routeTemplates.get(route);
+		if (template == null || template.getHeaders() != this.endpointResolver.getHeaders(this.language)) {
+			template = route.compile(this);
+			this.routeTemplates.put(route, template);
+		}
+		return template;
+	}
+
+	/**
+	 * Returns the canonical instance of a parsed string from the {@link InternPool}, if
+	 * one is set.
+	 *
+	 * @param value
+	 *            the string
+	 *
+	 * @return the pooled string equal to {@code value}, or {@code value} itself if no
+	 *         pool is set.
+	 */
+	@Nullable
+	public String intern(@Nullable String value) {
+		return this.internPool == null ? value : this.internPool.intern(this.language, value);
+	}
+
+	@Nonnull
+	public Transport getTransport() {
+		return this.transport;
+	}
+
+	@Nonnull
+	public RetryPolicy getRetryPolicy() {
+		return this.retryPolicy;
+	}
+
+	@Nonnull
+	public TimeoutPolicy getTimeoutPolicy() {
+		return this.timeoutPolicy;
+	}
+
+	@Nonnull
+	public IsolationPolicy getIsolationPolicy() {
+		return this.isolationPolicy;
+	}
+
+	@Nonnull
+	public String getTenant() {
+		return this.tenant;
+	}
+
+	@Nonnull
+	public Priority getPriority() {
+		return this.priority;
+	}
+
+	@Nonnull
+	public EndpointResolver getEndpointResolver() {
+		return this.endpointResolver;
+	}
+
+	@Nonnull
+	public Language getLanguage() {
+		return this.language;
+	}
+
+	@Nonnull
+	public Theme getTheme() {
+		return this.theme;
+	}
+
+	public boolean doesFilterProfanity() {
+		return this.filterProfanity;
+	}
+
+	@Nullable
+	public InternPool getInternPool() {
+		return this.internPool;
+	}
+
+	@Nullable
+	public ImageCache getImageCache() {
+		return this.imageCache;
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(this.transport, this.retryPolicy, this.timeoutPolicy, this.isolationPolicy, this.tenant,
+							this.priority, this.endpointResolver, this.language, this.theme, this.filterProfanity,
+							this.internPool, this.imageCache);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (!(obj instanceof GameContext))
+			return false;
+
+		var other = (GameContext) obj;
+		return this.transport.equals(other.transport) && this.retryPolicy.equals(other.retryPolicy) &&
+			this.timeoutPolicy.equals(other.timeoutPolicy) && this.isolationPolicy.equals(other.isolationPolicy) &&
+			this.tenant.equals(other.tenant) && this.priority == other.priority &&
+			this.endpointResolver.equals(other.endpointResolver) && this.language == other.language &&
+			this.theme == other.theme && this.filterProfanity == other.filterProfanity &&
+			this.internPool == other.internPool && this.imageCache == other.imageCache;
+	}
+
+}
@@ -17,17 +17,23 @@
 
 package org.eu.zajc.akiwrapper.core.entities.impl;
 
+import static java.util.concurrent.CompletableFuture.completedFuture;
 import static org.eu.zajc.akiwrapper.core.entities.impl.AkiwrapperImpl.LOG;
+import static org.eu.zajc.akiwrapper.core.utils.Utilities.*;
+import static org.eu.zajc.akiwrapper.core.utils.route.FlatJson.*;
 import static org.eu.zajc.akiwrapper.core.utils.route.Routes.*;
+import static org.eu.zajc.akiwrapper.core.utils.route.Status.OK;
 
 import java.net.*;
+import java.util.concurrent.CompletableFuture;
 
 import javax.annotation.*;
 
 import org.eu.zajc.akiwrapper.core.entities.*;
 import org.eu.zajc.akiwrapper.core.exceptions.*;
-import org.eu.zajc.akiwrapper.core.utils.Utilities;
-import org.json.*;
+import org.eu.zajc.akiwrapper.core.image.HttpClientImageLoader;
+import org.eu.zajc.akiwrapper.core.utils.Deadline;
+import org.eu.zajc.akiwrapper.core.utils.route.*;
 
 /**
  * <b>Note:</b> This is an internal class and its internals are subject to change
@@ -38,121 +44,258 @@ import org.json.*;
 @SuppressWarnings("javadoc") // internal
 public class GuessImpl extends AbstractQuery implements Guess {
 
-	@Nonnull private final String id;
-	@Nonnull private final String name;
-	@Nullable private final String pseudonym;
-	@Nonnull private final String description;
-	@Nullable private final URL image;
-	@Nonnull private final String flagPhoto; // the purpose of this is unknown, but it's required for Routes.CHOICE
+	private static final String NO_PSEUDONYM = "none";
+
+	// guesses parsed from a response decode their fields on first access, as most
+	// guesses are rejected without ever being shown in full. The undecoded values are
+	// copied out of the response, so that the rest of it isn't kept. Decoding is
+	// idempotent, so racing threads may both decode a field, but will see equal values
+	@Nullable private final FlatJson json;
+	@Nullable private volatile String id;
+	@Nullable private volatile String name;
+	@Nullable private volatile String pseudonym; // NO_PSEUDONYM if there is none
+	@Nullable private volatile String description;
+	@Nullable private volatile URL image;
+	@Nullable private volatile String flagPhoto; // the purpose of this is unknown, but it's required for Routes.CHOICE
 
 	GuessImpl(@Nonnull AkiwrapperImpl akiwrapper, int step, double progression, @Nonnull String id,
 			  @Nonnull String name, @Nullable String pseudonym, @Nonnull String description, @Nullable URL image,
 			  @Nonnull String flagPhoto) {
 		super(akiwrapper, step, progression);
+		this.json = null;
 		this.id = id;
 		this.name = name;
-		this.pseudonym = pseudonym;
+		this.pseudonym = pseudonym == null ? NO_PSEUDONYM : pseudonym;
 		this.description = description;
 		this.image = image;
 		this.flagPhoto = flagPhoto;
 	}
 
+	private GuessImpl(@Nonnull AkiwrapperImpl akiwrapper, int step, double progression, @Nonnull FlatJson json) {
+		super(akiwrapper, step, progression);
+		this.json = json;
+	}
+
 	@Nonnull
-	@SuppressWarnings("null")
-	public static GuessImpl fromJson(@Nonnull AkiwrapperImpl akiwrapper, @Nonnull JSONObject json) {
-		try {
-			var previous = akiwrapper.getCurrentQuery();
-			return new GuessImpl(akiwrapper, Utilities.parseInt(json.getString("step")),
-								 previous == null ? 100D : previous.getProgression(), json.getString("id_proposition"),
-								 json.getString("name_proposition"), getPseudonym(json),
-								 json.getString("description_proposition"),
-								 json.has("photo") ? new URI(json.getString("photo")).toURL() : null,
-								 json.getString("flag_photo"));
-
-		} catch (JSONException | URISyntaxException | MalformedURLException e) {
-			throw new MalformedResponseException(e);
+	public static GuessImpl fromJson(@Nonnull AkiwrapperImpl akiwrapper, @Nonnull FlatJson json) {
+		// only check that the fields are there, they're decoded when they're first used
+		if (!json.has(KEY_ID_PROPOSITION) || !json.has(KEY_NAME_PROPOSITION) || !json.has(KEY_PSEUDO) ||
+			!json.has(KEY_DESCRIPTION_PROPOSITION) || !json.has(KEY_FLAG_PHOTO))
+			throw new MalformedResponseException();
+
+		var previous = akiwrapper.getCurrentQuery();
+		// only the guess's own values are kept, rather than the whole response
+		var fields = json.compact(KEY_ID_PROPOSITION, KEY_NAME_PROPOSITION, KEY_PSEUDO, KEY_DESCRIPTION_PROPOSITION,
+								  KEY_PHOTO, KEY_FLAG_PHOTO);
+		var guess = new GuessImpl(akiwrapper, json.getInt(KEY_STEP),
+								  previous == null ? 100D : previous.getProgression(), fields);
+
+		// start downloading the image now so that it's ready by the time it's shown
+		var imageCache = akiwrapper.getContext().getImageCache();
+		if (imageCache != null) {
+			var image = guess.getImage();
+			if (image != null)
+				imageCache.prefetch(image);
 		}
+
+		return guess;
 	}
 
-	@Nullable
-	private static String getPseudonym(@Nonnull JSONObject json) {
-		var pseudo = json.getString("pseudo");
-		return "none".equals(pseudo) ? null : pseudo;
+	@Nonnull
+	@SuppressWarnings("null")
+	private String decode(@Nonnull String key) {
+		// only guesses parsed from a response have undecoded fields
+		return getAkiwrapper().getContext().intern(this.json.decodeString(key));
 	}
 
 	@Override
 	public void confirm() {
+		join(confirmAsync());
+	}
+
+	@Override
+	public void confirm(Deadline deadline) {
+		join(confirmAsync(deadline));
+	}
+
+	@Override
+	public CompletableFuture<Void> confirmAsync() {
+		return confirmAsync(null);
+	}
+
+	@Override
+	public CompletableFuture<Void> confirmAsync(Deadline deadline) {
 		var identifier = this.getAkiwrapper().getSession().getIdentifier();
 		if (identifier == null)
-			return;
+			return completedFuture(null);
 
-		try {
-			this.getAkiwrapper().getInteractionLock().lock();
+		return this.getAkiwrapper().interact(deadline, () -> {
 			this.ensureCurrent();
 
-			CHOICE.createRequest(getAkiwrapper())
+			var request = CHOICE.createRequest(getAkiwrapper())
 				.parameter(PARAMETER_STEP, getStep())
-				.parameter(PARAMETER_GUESS_ID, this.id)
-				.parameter(PARAMETER_GUESS_NAME, this.name)
-				.parameter(PARAMETER_GUESS_DESCRIPTION, this.description)
-				.parameter(PARAMETER_GUESS_FLAG_PHOTO, this.flagPhoto)
+				.parameter(PARAMETER_GUESS_ID, getId())
+				.parameter(PARAMETER_GUESS_NAME, getName())
+				.parameter(PARAMETER_GUESS_DESCRIPTION, getDescription())
+				.parameter(PARAMETER_GUESS_FLAG_PHOTO, getFlagPhoto())
 				.parameter(PARAMETER_IDENTIFIER, identifier)
-				.retrieveEmpty();
+				.deadline(deadline)
+				.retrieveEmptyAsync();
 
-		} catch (AkinatorException e) {
-			// we don't care about out session anymore anyways, throwing would be silly
-			LOG.warn("Caught an exception when confirming a guess", e);
+			return propagateCancellation(request.handle((r, t) -> {
+				if (t != null) {
+					var cause = unwrapCompletion(t);
+					if (!(cause instanceof AkinatorException))
+						throw asUnchecked(cause);
 
-		} finally {
-			this.getAkiwrapper().getInteractionLock().unlock();
-		}
+					// we don't care about out session anymore anyways, throwing would be silly
+					LOG.warn("Caught an exception when confirming a guess", cause);
+				}
+				return null;
+			}), request);
+		});
 	}
 
 	@Override
 	public Query reject() {
-		try {
-			this.getAkiwrapper().getInteractionLock().lock();
-			this.ensureCurrent();
+		return join(rejectAsync());
+	}
 
-			var resp = EXCLUDE.createRequest(getAkiwrapper())
-				.parameter(PARAMETER_STEP, getStep())
-				.parameter(PARAMETER_PROGRESSION, getProgression())
-				.retrieveJson();
-			return parseNext(resp);
+	@Override
+	public Query reject(Deadline deadline) {
+		return join(rejectAsync(deadline));
+	}
 
-		} finally {
-			this.getAkiwrapper().getInteractionLock().unlock();
+	@Override
+	public CompletableFuture<Query> rejectAsync() {
+		return rejectAsync(null);
+	}
+
+	@Override
+	public CompletableFuture<Query> rejectAsync(Deadline deadline) {
+		return this.getAkiwrapper().interact(deadline, () -> submitRejection(deadline));
+	}
+
+	@Override
+	public CompletableFuture<Query> tryReject() {
+		return tryReject(null);
+	}
+
+	@Override
+	public CompletableFuture<Query> tryReject(Deadline deadline) {
+		return this.getAkiwrapper().tryInteract(this, () -> submitRejection(deadline));
+	}
+
+	@Nonnull
+	private CompletableFuture<Query> submitRejection(@Nullable Deadline deadline) {
+		this.ensureCurrent();
+
+		var request = EXCLUDE.createRequest(getAkiwrapper())
+			.parameter(PARAMETER_STEP, getStep())
+			.parameter(PARAMETER_PROGRESSION, getProgression())
+			.reconcile(this::reconcileRejection)
+			.deadline(deadline)
+			.retrieveJsonAsync();
+		return propagateCancellation(request.thenApply(this::parseNext), request);
+	}
+
+	/**
+	 * Reconciles the response to a retried rejection. Rejecting doesn't advance the step,
+	 * so it doesn't matter whether the lost attempt was applied, as long as the response
+	 * is for this guess' step.
+	 */
+	@Nonnull
+	private CompletableFuture<Response<FlatJson>> reconcileRejection(@Nonnull Response<FlatJson> response) {
+		var status = response.getStatus();
+		if (status.isErroneous())
+			throw new ServerStatusException(status);
+
+		if (status == OK) {
+			int step = response.getBody().getInt(KEY_STEP);
+			if (step != getStep())
+				throw new AkinatorException("A retried rejection got out of sync (expected step " +
+					getStep() +
+					", got " +
+					step +
+					")");
 		}
+		return completedFuture(response);
 	}
 
 	@Override
 	public String getName() {
-		return this.name;
+		var value = this.name;
+		if (value == null)
+			this.name = value = decode(KEY_NAME_PROPOSITION);
+		return value;
 	}
 
 	@Override
 	public String getPseudonym() {
-		return this.pseudonym;
+		var value = this.pseudonym;
+		if (value == null)
+			this.pseudonym = value = decode(KEY_PSEUDO);
+		return NO_PSEUDONYM.equals(value) ? null : value;
 	}
 
 	@Override
 	public String getDescription() {
-		return this.description;
+		var value = this.description;
+		if (value == null)
+			this.description = value = decode(KEY_DESCRIPTION_PROPOSITION);
+		return value;
 	}
 
 	@Override
+	@SuppressWarnings("null")
 	public URL getImage() {
-		return this.image;
+		var value = this.image;
+		if (value == null && this.json != null) {
+			var photo = this.json.optString(KEY_PHOTO);
+			if (photo == null)
+				return null;
+
+			try {
+				this.image = value = new URI(photo).toURL();
+			} catch (URISyntaxException | MalformedURLException | IllegalArgumentException e) {
+				throw new MalformedResponseException(e);
+			}
+		}
+		return value;
+	}
+
+	@Override
+	public byte[] getImageData() {
+		return join(getImageDataAsync());
+	}
+
+	@Override
+	public CompletableFuture<byte[]> getImageDataAsync() {
+		var currentImage = getImage();
+		if (currentImage == null)
+			return completedFuture(null);
+
+		var imageCache = getAkiwrapper().getContext().getImageCache();
+		if (imageCache != null)
+			return imageCache.get(currentImage);
+		else
+			return new HttpClientImageLoader().load(currentImage);
 	}
 
 	@Override
 	public String getId() {
-		return this.id;
+		var value = this.id;
+		if (value == null)
+			this.id = value = decode(KEY_ID_PROPOSITION);
+		return value;
 	}
 
 	@Nonnull
 	public String getFlagPhoto() {
-		return this.flagPhoto;
+		var value = this.flagPhoto;
+		if (value == null)
+			this.flagPhoto = value = decode(KEY_FLAG_PHOTO);
+		return value;
 	}
 
 }
@@ -16,18 +16,22 @@
  */
 package org.eu.zajc.akiwrapper.core.entities.impl;
 
+import static java.util.concurrent.CompletableFuture.completedFuture;
+import static org.eu.zajc.akiwrapper.core.entities.impl.AkiwrapperImpl.LOG;
+import static org.eu.zajc.akiwrapper.core.utils.Utilities.*;
+import static org.eu.zajc.akiwrapper.core.utils.route.FlatJson.*;
 import static org.eu.zajc.akiwrapper.core.utils.route.Routes.*;
+import static org.eu.zajc.akiwrapper.core.utils.route.Status.*;
 
-import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
-import javax.annotation.Nonnull;
+import javax.annotation.*;
 
 import org.eu.zajc.akiwrapper.Akiwrapper.Answer;
 import org.eu.zajc.akiwrapper.core.entities.*;
 import org.eu.zajc.akiwrapper.core.exceptions.*;
-import org.eu.zajc.akiwrapper.core.utils.Utilities;
-import org.json.*;
-import org.jsoup.nodes.Element;
+import org.eu.zajc.akiwrapper.core.utils.Deadline;
+import org.eu.zajc.akiwrapper.core.utils.route.*;
 
 /**
  * <b>Note:</b> This is an internal class and its internals are subject to change
@@ -40,78 +44,169 @@ public class QuestionImpl extends AbstractQuery implements Question {
 
 	@Nonnull private final String question;
 
-	private QuestionImpl(@Nonnull AkiwrapperImpl akiwrapper, int step, double progression, @Nonnull String question) {
+	QuestionImpl(@Nonnull AkiwrapperImpl akiwrapper, int step, double progression, @Nonnull String question) {
 		super(akiwrapper, step, progression);
 		this.question = question;
 	}
 
 	@Nonnull
-	@SuppressWarnings("null")
-	public static QuestionImpl fromJson(@Nonnull AkiwrapperImpl akiwrapper, @Nonnull JSONObject json) {
-		try {
-			return new QuestionImpl(akiwrapper, Utilities.parseInt(json.getString("step")),
-									Utilities.parseDouble(json.getString("progression")), json.getString("question"));
-
-		} catch (JSONException e) {
-			throw new MalformedResponseException(e);
-		}
+	public static QuestionImpl fromJson(@Nonnull AkiwrapperImpl akiwrapper, @Nonnull FlatJson json) {
+		return new QuestionImpl(akiwrapper, json.getInt(KEY_STEP), json.getDouble(KEY_PROGRESSION),
+								akiwrapper.getContext().intern(json.getString(KEY_QUESTION)));
 	}
 
-	@SuppressWarnings("null")
-	public static QuestionImpl fromHtml(@Nonnull AkiwrapperImpl akiwrapper, @Nonnull Element gameRoot) {
-		var question = Optional.ofNullable(gameRoot.getElementById("question-label"))
-			.map(Element::wholeOwnText)
-			.orElseThrow(MalformedResponseException::new);
+	@Nonnull
+	public static QuestionImpl fromGamePage(@Nonnull AkiwrapperImpl akiwrapper, @Nonnull GamePage page) {
+		return new QuestionImpl(akiwrapper, page.getStep(), 0, akiwrapper.getContext().intern(page.getQuestion()));
+	}
 
-		var step = Utilities.parseInt(Optional.ofNullable(gameRoot.getElementById("step-info"))
-			.map(Element::wholeOwnText)
-			.orElseThrow(MalformedResponseException::new)) - 1;
+	@Override
+	public Query answer(Answer answer) {
+		return join(answerAsync(answer));
+	}
 
-		return new QuestionImpl(akiwrapper, step, 0, question);
+	@Override
+	public Query answer(Answer answer, Deadline deadline) {
+		return join(answerAsync(answer, deadline));
 	}
 
 	@Override
-	public Query answer(Answer answer) {
-		try {
-			this.getAkiwrapper().getInteractionLock().lock();
-			this.ensureCurrent();
+	public CompletableFuture<Query> answerAsync(Answer answer) {
+		return answerAsync(answer, null);
+	}
 
-			var resp = ANSWER.createRequest(this.getAkiwrapper())
-				.parameter(PARAMETER_STEP, getStep())
-				.parameter(PARAMETER_PROGRESSION, getProgression())
-				.parameter(PARAMETER_ANSWER, answer.getId())
-				.parameter(PARAMETER_STEP_LAST_PROPOSITION, this.getAkiwrapper().getLastGuessStep())
-				.retrieveJson();
-			return parseNext(resp);
+	@Override
+	public CompletableFuture<Query> answerAsync(Answer answer, Deadline deadline) {
+		return this.getAkiwrapper().interact(deadline, () -> submitAnswer(answer, deadline));
+	}
+
+	@Override
+	public CompletableFuture<Query> tryAnswer(Answer answer) {
+		return tryAnswer(answer, null);
+	}
 
-		} finally {
-			this.getAkiwrapper().getInteractionLock().unlock();
+	@Override
+	public CompletableFuture<Query> tryAnswer(Answer answer, Deadline deadline) {
+		return this.getAkiwrapper().tryInteract(this, () -> submitAnswer(answer, deadline));
+	}
+
+	@Nonnull
+	private CompletableFuture<Query> submitAnswer(@Nonnull Answer answer, @Nullable Deadline deadline) {
+		this.ensureCurrent();
+
+		var request = createAnswerRequest(answer, deadline).reconcile(r -> reconcileAnswer(answer, deadline, r))
+			.retrieveJsonAsync();
+		return propagateCancellation(request.thenApply(this::parseNext), request);
+	}
+
+	@Nonnull
+	private Request createAnswerRequest(@Nonnull Answer answer, @Nullable Deadline deadline) {
+		return ANSWER.createRequest(this.getAkiwrapper())
+			.parameter(PARAMETER_STEP, getStep())
+			.parameter(PARAMETER_PROGRESSION, getProgression())
+			.parameter(PARAMETER_ANSWER, answer.getId())
+			.parameter(PARAMETER_STEP_LAST_PROPOSITION, this.getAkiwrapper().getLastGuessStep())
+			.deadline(deadline);
+	}
+
+	/**
+	 * Reconciles the response to a retried answer. The answer was applied exactly once if
+	 * the response is for the next step. If it's for the step after that, both the lost
+	 * attempt and the retry were applied, so the retry is undone. If the retry was
+	 * rejected, the lost attempt was most likely applied and the retry was rejected
+	 * because of its stale step, so the lost attempt is undone and replayed to get its
+	 * result.
+	 */
+	@Nonnull
+	private CompletableFuture<Response<FlatJson>> reconcileAnswer(@Nonnull Answer answer, @Nullable Deadline deadline,
+																  @Nonnull Response<FlatJson> response) {
+		var status = response.getStatus();
+		if (status == QUESTIONS_EXHAUSTED)
+			return completedFuture(response);
+
+		int expected = getStep() + 1;
+		if (status == OK) {
+			var json = response.getBody();
+			int step = json.getInt(KEY_STEP);
+			if (step == expected)
+				return completedFuture(response);
+
+			if (step == expected + 1) {
+				LOG.debug("A retried answer was applied twice, undoing step {}", step);
+				return undoStep(step, json.getDouble(KEY_PROGRESSION), status, deadline);
+			}
+
+			throw new AkinatorException("A retried answer got out of sync (expected step " +
+				expected +
+				", got " +
+				step +
+				")");
 		}
+
+		LOG.debug("A retried answer was rejected, replaying step {}", expected);
+		return undoStep(expected, getProgression(), status, deadline).thenCompose(r -> {
+			if (r.getBody().getInt(KEY_STEP) != getStep())
+				throw new ServerStatusException(status);
+
+			return createAnswerRequest(answer, deadline).retrieveJsonAsync();
+		});
+	}
+
+	@Nonnull
+	private CompletableFuture<Response<FlatJson>> undoStep(int step, double progression, @Nonnull Status status,
+														   @Nullable Deadline deadline) {
+		var request = CANCEL_ANSWER.createRequest(this.getAkiwrapper())
+			.parameter(PARAMETER_STEP, step)
+			.parameter(PARAMETER_PROGRESSION, progression)
+			.deadline(deadline)
+			.retrieveJsonAsync();
+
+		// if the step can't be undone either, the original status is the more useful error
+		return request.exceptionally(t -> {
+			var cause = unwrapCompletion(t);
+			if (cause instanceof ServerStatusException)
+				throw new ServerStatusException(status);
+			throw asUnchecked(cause);
+		});
 	}
 
 	@Override
 	public Question undoAnswer() {
-		try {
-			this.getAkiwrapper().getInteractionLock().lock();
+		return join(undoAnswerAsync());
+	}
+
+	@Override
+	public Question undoAnswer(Deadline deadline) {
+		return join(undoAnswerAsync(deadline));
+	}
+
+	@Override
+	public CompletableFuture<Question> undoAnswerAsync() {
+		return undoAnswerAsync(null);
+	}
+
+	@Override
+	public CompletableFuture<Question> undoAnswerAsync(Deadline deadline) {
+		return this.getAkiwrapper().interact(deadline, () -> {
 			this.ensureCurrent();
 
 			if (getStep() == 0)
 				throw new UndoOutOfBoundsException();
 
-			var resp = CANCEL_ANSWER.createRequest(this.getAkiwrapper())
+			var request = CANCEL_ANSWER.createRequest(this.getAkiwrapper())
 				.parameter(PARAMETER_STEP, getStep())
 				.parameter(PARAMETER_PROGRESSION, getProgression())
-				.retrieveJson();
-
-			var next = parseNext(resp);
-			if (next instanceof Question)
-				return (Question) next;
-			else
-				throw new MalformedResponseException();
-
-		} finally {
-			this.getAkiwrapper().getInteractionLock().unlock();
-		}
+				.deadline(deadline)
+				.retrieveJsonAsync();
+
+			return propagateCancellation(request.thenApply(resp -> {
+				var next = parseNext(resp);
+				if (next instanceof Question)
+					return (Question) next;
+				else
+					throw new MalformedResponseException();
+			}), request);
+		});
 	}
 
 	@Override
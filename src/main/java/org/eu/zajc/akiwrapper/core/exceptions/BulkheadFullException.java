@@ -0,0 +1,35 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2026 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.core.exceptions;
+
+import org.eu.zajc.akiwrapper.core.utils.route.IsolationPolicy;
+
+/**
+ * An exception indicating that a request wasn't sent because too many requests to
+ * its host are already in flight or queued (see {@link IsolationPolicy}). Nothing is
+ * sent to the server in that case, so the interaction can be retried later.
+ *
+ * @author Marko Zajc
+ */
+public class BulkheadFullException extends AkinatorException {
+
+	@SuppressWarnings("javadoc") // internal
+	public BulkheadFullException() {
+		super("Too many requests to this host are in flight");
+	}
+
+}
@@ -0,0 +1,39 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2026 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.core.exceptions;
+
+import org.eu.zajc.akiwrapper.Akiwrapper;
+import org.eu.zajc.akiwrapper.core.entities.*;
+
+/**
+ * An exception indicating that a non-blocking interaction method, such as
+ * {@link Question#tryAnswer(org.eu.zajc.akiwrapper.Akiwrapper.Answer)} or
+ * {@link Guess#tryReject()}, was called while another interaction with the same
+ * {@link Akiwrapper} instance was still in flight. Nothing is sent to the server in
+ * that case, so the interaction can simply be dropped (for example, when a user
+ * double-taps a button) or retried later.
+ *
+ * @author Marko Zajc
+ */
+public class InteractionInFlightException extends AkinatorException {
+
+	@SuppressWarnings("javadoc") // internal
+	public InteractionInFlightException() {
+		super("Another interaction is in flight");
+	}
+
+}
@@ -0,0 +1,84 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2026 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.core.image;
+
+import static java.util.concurrent.CompletableFuture.failedFuture;
+import static org.eu.zajc.akiwrapper.core.utils.Utilities.propagateCancellation;
+
+import java.io.IOException;
+import java.net.*;
+import java.net.http.*;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.util.concurrent.*;
+
+import javax.annotation.Nonnull;
+
+import org.eu.zajc.akiwrapper.core.utils.SharedHttpClient;
+
+/**
+ * The default {@link ImageLoader}, which downloads images with a {@link HttpClient}.
+ *
+ * @author Marko Zajc
+ */
+public final class HttpClientImageLoader implements ImageLoader {
+
+	@Nonnull private final HttpClient httpClient;
+
+	/**
+	 * Creates a new {@link HttpClientImageLoader} that downloads images with
+	 * {@link SharedHttpClient#getDefault()}.
+	 */
+	public HttpClientImageLoader() {
+		this(SharedHttpClient.getDefault());
+	}
+
+	/**
+	 * Creates a new {@link HttpClientImageLoader}.
+	 *
+	 * @param httpClient
+	 *            the {@link HttpClient} to download images with.
+	 */
+	public HttpClientImageLoader(@Nonnull HttpClient httpClient) {
+		this.httpClient = httpClient;
+	}
+
+	@Override
+	public CompletableFuture<byte[]> load(URL url) {
+		HttpRequest request;
+		try {
+			request = HttpRequest.newBuilder(url.toURI()).GET().build();
+		} catch (URISyntaxException | IllegalArgumentException e) {
+			return failedFuture(new IOException("Invalid image URL: " + url, e));
+		}
+
+		var sent = this.httpClient.sendAsync(request, BodyHandlers.ofByteArray());
+		return propagateCancellation(sent.thenApply(r -> {
+			if (r.statusCode() != 200)
+				throw new CompletionException(new IOException("Got status " + r.statusCode() + " for " + url));
+			return r.body();
+		}), sent);
+	}
+
+	/**
+	 * @return the {@link HttpClient} images are downloaded with.
+	 */
+	@Nonnull
+	public HttpClient getHttpClient() {
+		return this.httpClient;
+	}
+
+}
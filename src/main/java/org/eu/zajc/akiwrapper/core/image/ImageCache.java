@@ -0,0 +1,472 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2026 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.core.image;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.*;
+import static java.util.concurrent.CompletableFuture.*;
+import static org.eu.zajc.akiwrapper.core.utils.Utilities.unwrapCompletion;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.security.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import javax.annotation.*;
+
+import org.eu.zajc.akiwrapper.AkiwrapperBuilder;
+import org.eu.zajc.akiwrapper.core.entities.Guess;
+import org.slf4j.Logger;
+
+/**
+ * A cache of guess images. When a cache is set with
+ * {@link AkiwrapperBuilder#setImageCache(ImageCache)}, the image of every guess is
+ * downloaded in the background as soon as the guess is received, so it is usually
+ * already in memory when {@link Guess#getImageDataAsync()} is called.<br>
+ * Images are kept in memory, where the least recently used ones are evicted once
+ * their total size exceeds {@link #getMaxMemory()}. Optionally, images are also
+ * written to a directory, which is bounded the same way by
+ * {@link #getMaxDiskSize()} and survives restarts. Concurrent requests for the same
+ * image share a single download.<br>
+ * The returned arrays are shared between all callers and must not be modified. The
+ * same cache can (and should) be shared by any amount of builders.
+ *
+ * @author Marko Zajc
+ */
+public final class ImageCache {
+
+	private static final Logger LOG = getLogger(ImageCache.class);
+
+	/**
+	 * The default maximum total size of images kept in memory.
+	 */
+	public static final long DEFAULT_MAX_MEMORY = 32L << 20;
+
+	/**
+	 * The default maximum total size of images kept on disk.
+	 */
+	public static final long DEFAULT_MAX_DISK_SIZE = 256L << 20;
+
+	private static final String FILE_SUFFIX = ".img";
+	private static final String TEMP_SUFFIX = ".tmp";
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+	@Nonnull private final ImageLoader loader;
+	private final long maxMemory;
+	@Nullable private final Path directory;
+	private final long maxDiskSize;
+	@Nonnull private final LinkedHashMap<String, byte[]> memory = new LinkedHashMap<>(16, 0.75f, true);
+	private long memoryUsage; // guarded by memory
+	@Nonnull private final AtomicLong diskUsage = new AtomicLong();
+	@Nonnull private final Map<String, CompletableFuture<byte[]>> inFlight = new ConcurrentHashMap<>();
+	@Nonnull private final LongAdder memoryHits = new LongAdder();
+	@Nonnull private final LongAdder diskHits = new LongAdder();
+	@Nonnull private final LongAdder joins = new LongAdder();
+	@Nonnull private final LongAdder loads = new LongAdder();
+	@Nonnull private final LongAdder failures = new LongAdder();
+
+	/**
+	 * Creates a new in-memory {@link ImageCache} that downloads images with
+	 * {@link HttpClientImageLoader} and keeps up to {@link #DEFAULT_MAX_MEMORY} bytes of
+	 * them.
+	 */
+	public ImageCache() {
+		this(new HttpClientImageLoader(), DEFAULT_MAX_MEMORY);
+	}
+
+	/**
+	 * Creates a new in-memory {@link ImageCache}.
+	 *
+	 * @param loader
+	 *            the {@link ImageLoader} to download images with.
+	 * @param maxMemory
+	 *            the maximum total size of images kept in memory, in bytes.
+	 */
+	public ImageCache(@Nonnull ImageLoader loader, long maxMemory) {
+		if (maxMemory < 0)
+			throw new IllegalArgumentException("maxMemory must not be negative");
+
+		this.loader = loader;
+		this.maxMemory = maxMemory;
+		this.directory = null;
+		this.maxDiskSize = 0;
+	}
+
+	/**
+	 * Creates a new {@link ImageCache} that also keeps images in a directory. Images
+	 * already in the directory (for example from a previous run) are reused.
+	 *
+	 * @param loader
+	 *            the {@link ImageLoader} to download images with.
+	 * @param maxMemory
+	 *            the maximum total size of images kept in memory, in bytes.
+	 * @param directory
+	 *            the directory to keep images in. It is created if it doesn't exist,
+	 *            and it shouldn't be used for anything else.
+	 * @param maxDiskSize
+	 *            the maximum total size of images kept in {@code directory}, in bytes.
+	 *
+	 * @throws IOException
+	 *             if the directory can't be created or read.
+	 */
+	public ImageCache(@Nonnull ImageLoader loader, long maxMemory, @Nonnull Path directory,
+					  long maxDiskSize) throws IOException {
+		if (maxMemory < 0)
+			throw new IllegalArgumentException("maxMemory must not be negative");
+		if (maxDiskSize < 0)
+			throw new IllegalArgumentException("maxDiskSize must not be negative");
+
+		this.loader = loader;
+		this.maxMemory = maxMemory;
+		this.directory = Files.createDirectories(directory);
+		this.maxDiskSize = maxDiskSize;
+
+		try (var files = Files.newDirectoryStream(directory)) {
+			for (var file : files) {
+				if (file.getFileName().toString().endsWith(TEMP_SUFFIX))
+					Files.deleteIfExists(file); // left over from an interrupted write
+				else if (Files.isRegularFile(file))
+					this.diskUsage.addAndGet(Files.size(file));
+			}
+		}
+		if (this.diskUsage.get() > maxDiskSize)
+			trimDisk();
+	}
+
+	/**
+	 * Returns an image, downloading it if it isn't cached. If the same image is already
+	 * being downloaded, that download is shared. Cancelling the returned future doesn't
+	 * cancel the download.
+	 *
+	 * @param url
+	 *            the URL of the image.
+	 *
+	 * @return a {@link CompletableFuture} of the image's bytes, which must not be
+	 *         modified.
+	 */
+	@Nonnull
+	public CompletableFuture<byte[]> get(@Nonnull URL url) {
+		// URL#equals resolves hosts, so the string form is used as the key
+		var key = url.toString();
+		var cached = getFromMemory(key);
+		if (cached != null) {
+			this.memoryHits.increment();
+			return completedFuture(cached);
+		}
+
+		var promise = new CompletableFuture<byte[]>();
+		var existing = this.inFlight.putIfAbsent(key, promise);
+		if (existing != null) {
+			this.joins.increment();
+			return existing.copy();
+		}
+
+		// a download may have finished between the lookup and claiming the key
+		cached = getFromMemory(key);
+		if (cached != null) {
+			this.memoryHits.increment();
+			this.inFlight.remove(key, promise);
+			promise.complete(cached);
+			return promise.copy();
+		}
+
+		fetch(url, key).whenComplete((bytes, t) -> {
+			if (t == null)
+				putInMemory(key, bytes);
+			else
+				this.failures.increment();
+
+			this.inFlight.remove(key, promise);
+			if (t == null)
+				promise.complete(bytes);
+			else
+				promise.completeExceptionally(unwrapCompletion(t));
+		});
+		return promise.copy();
+	}
+
+	/**
+	 * Starts downloading an image in the background if it isn't in memory already.
+	 * Failures are logged and otherwise ignored. This method doesn't block.
+	 *
+	 * @param url
+	 *            the URL of the image.
+	 */
+	public void prefetch(@Nonnull URL url) {
+		if (getFromMemory(url.toString()) != null)
+			return;
+
+		get(url).whenComplete((b, t) -> {
+			if (t != null)
+				LOG.debug("Couldn't prefetch {}", url, t);
+		});
+	}
+
+	/**
+	 * Returns an image if it's in memory. This doesn't count towards the statistics.
+	 *
+	 * @param url
+	 *            the URL of the image.
+	 *
+	 * @return the image's bytes, which must not be modified, or {@code null} if the
+	 *         image isn't in memory.
+	 */
+	@Nullable
+	public byte[] getIfPresent(@Nonnull URL url) {
+		return getFromMemory(url.toString());
+	}
+
+	/**
+	 * Removes all images from memory. Images on disk and the statistics are kept.
+	 */
+	public void clear() {
+		synchronized (this.memory) {
+			this.memory.clear();
+			this.memoryUsage = 0;
+		}
+	}
+
+	@Nonnull
+	private CompletableFuture<byte[]> fetch(@Nonnull URL url, @Nonnull String key) {
+		var currentDirectory = this.directory;
+		if (currentDirectory == null)
+			return load(url);
+
+		var file = currentDirectory.resolve(fileName(key));
+		return supplyAsync(() -> readFile(file)).thenCompose(bytes -> {
+			if (bytes != null) {
+				this.diskHits.increment();
+				return completedFuture(bytes);
+			}
+
+			var loaded = load(url);
+			loaded.thenAcceptAsync(b -> writeFile(file, b));
+			return loaded;
+		});
+	}
+
+	@Nonnull
+	private CompletableFuture<byte[]> load(@Nonnull URL url) {
+		this.loads.increment();
+		try {
+			return this.loader.load(url);
+		} catch (RuntimeException e) {
+			return failedFuture(e);
+		}
+	}
+
+	@Nullable
+	private byte[] getFromMemory(@Nonnull String key) {
+		synchronized (this.memory) {
+			return this.memory.get(key);
+		}
+	}
+
+	private void putInMemory(@Nonnull String key, @Nonnull byte[] bytes) {
+		if (bytes.length > this.maxMemory)
+			return;
+
+		synchronized (this.memory) {
+			var previous = this.memory.put(key, bytes);
+			this.memoryUsage += bytes.length - (previous == null ? 0 : previous.length);
+
+			var iterator = this.memory.values().iterator();
+			while (this.memoryUsage > this.maxMemory) {
+				this.memoryUsage -= iterator.next().length;
+				iterator.remove();
+			}
+		}
+	}
+
+	@Nullable
+	private static byte[] readFile(@Nonnull Path file) {
+		try {
+			var bytes = Files.readAllBytes(file);
+			// the modification time doubles as the access time for eviction
+			Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+			return bytes;
+
+		} catch (NoSuchFileException e) {
+			return null;
+
+		} catch (IOException e) {
+			LOG.warn("Couldn't read cached image {}", file, e);
+			return null;
+		}
+	}
+
+	private void writeFile(@Nonnull Path file, @Nonnull byte[] bytes) {
+		if (bytes.length > this.maxDiskSize)
+			return;
+
+		try {
+			var temp = Files.createTempFile(file.getParent(), file.getFileName().toString(), TEMP_SUFFIX);
+			Files.write(temp, bytes);
+			long previous = Files.exists(file) ? Files.size(file) : 0;
+			Files.move(temp, file, ATOMIC_MOVE, REPLACE_EXISTING);
+			if (this.diskUsage.addAndGet(bytes.length - previous) > this.maxDiskSize)
+				trimDisk();
+
+		} catch (IOException e) {
+			LOG.warn("Couldn't write cached image {}", file, e);
+		}
+	}
+
+	private synchronized void trimDisk() {
+		if (this.diskUsage.get() <= this.maxDiskSize || this.directory == null)
+			return;
+
+		var files = new ArrayList<Path>();
+		var times = new HashMap<Path, FileTime>();
+		try (var stream = Files.newDirectoryStream(this.directory, "*" + FILE_SUFFIX)) {
+			for (var file : stream) {
+				files.add(file);
+				times.put(file, Files.getLastModifiedTime(file));
+			}
+		} catch (IOException e) {
+			LOG.warn("Couldn't list cached images in {}", this.directory, e);
+			return;
+		}
+
+		files.sort(Comparator.comparing(times::get));
+		for (var file : files) {
+			if (this.diskUsage.get() <= this.maxDiskSize)
+				break;
+
+			try {
+				long size = Files.size(file);
+				if (Files.deleteIfExists(file))
+					this.diskUsage.addAndGet(-size);
+			} catch (IOException e) {
+				LOG.warn("Couldn't evict cached image {}", file, e);
+			}
+		}
+	}
+
+	@Nonnull
+	private static String fileName(@Nonnull String key) {
+		byte[] digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(UTF_8));
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e); // required to be supported
+		}
+
+		var name = new StringBuilder(digest.length * 2 + FILE_SUFFIX.length());
+		for (byte b : digest)
+			name.append(HEX[(b >> 4) & 0xF]).append(HEX[b & 0xF]);
+		return name.append(FILE_SUFFIX).toString();
+	}
+
+	/**
+	 * @return the maximum total size of images kept in memory, in bytes.
+	 */
+	public long getMaxMemory() {
+		return this.maxMemory;
+	}
+
+	/**
+	 * @return the total size of images currently kept in memory, in bytes.
+	 */
+	public long getMemoryUsage() {
+		synchronized (this.memory) {
+			return this.memoryUsage;
+		}
+	}
+
+	/**
+	 * @return the directory images are kept in, or {@code null} if they're only kept
+	 *         in memory.
+	 */
+	@Nullable
+	public Path getDirectory() {
+		return this.directory;
+	}
+
+	/**
+	 * @return the maximum total size of images kept on disk, in bytes, or {@code 0} if
+	 *         images are only kept in memory.
+	 */
+	public long getMaxDiskSize() {
+		return this.maxDiskSize;
+	}
+
+	/**
+	 * @return the total size of images currently kept on disk, in bytes.
+	 */
+	public long getDiskUsage() {
+		return this.diskUsage.get();
+	}
+
+	/**
+	 * @return the amount of requests served from memory.
+	 */
+	public long getMemoryHits() {
+		return this.memoryHits.sum();
+	}
+
+	/**
+	 * @return the amount of requests served from disk.
+	 */
+	public long getDiskHits() {
+		return this.diskHits.sum();
+	}
+
+	/**
+	 * @return the amount of requests that joined a download already in progress.
+	 */
+	public long getJoins() {
+		return this.joins.sum();
+	}
+
+	/**
+	 * @return the amount of images downloaded with the {@link ImageLoader}.
+	 */
+	public long getLoads() {
+		return this.loads.sum();
+	}
+
+	/**
+	 * @return the amount of requests that failed.
+	 */
+	public long getFailures() {
+		return this.failures.sum();
+	}
+
+	/**
+	 * @return the fraction of requests (including prefetches) that didn't need to
+	 *         download the image, or {@code 0} if there were none.
+	 */
+	public double getHitRatio() {
+		long hits = getMemoryHits() + getDiskHits() + getJoins();
+		long total = hits + getLoads();
+		return total == 0 ? 0 : (double) hits / total;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("memoryHits=%d diskHits=%d joins=%d loads=%d failures=%d hitRatio=%.3f memory=%d/%d " +
+			"disk=%d/%d", getMemoryHits(), getDiskHits(), getJoins(), getLoads(), getFailures(), getHitRatio(),
+							 getMemoryUsage(), getMaxMemory(), getDiskUsage(), getMaxDiskSize());
+	}
+
+}
@@ -0,0 +1,48 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2026 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.core.image;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.concurrent.CompletableFuture;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Downloads guess images for an {@link ImageCache}. The cache handles deduplication
+ * and caching, so implementations should download each image they're asked for
+ * exactly once. Implementations must be thread-safe.<br>
+ * The default implementation is {@link HttpClientImageLoader}.
+ *
+ * @author Marko Zajc
+ */
+public interface ImageLoader {
+
+	/**
+	 * Downloads an image. This method should not block.
+	 *
+	 * @param url
+	 *            the URL of the image.
+	 *
+	 * @return a {@link CompletableFuture} that completes with the image's bytes, or
+	 *         completes exceptionally with an {@link IOException} if the image couldn't
+	 *         be downloaded.
+	 */
+	@Nonnull
+	CompletableFuture<byte[]> load(@Nonnull URL url);
+
+}
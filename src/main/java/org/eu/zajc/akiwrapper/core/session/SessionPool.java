@@ -0,0 +1,304 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2026 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.core.session;
+
+import static java.lang.System.nanoTime;
+import static java.time.Duration.ofMinutes;
+import static java.util.concurrent.CompletableFuture.delayedExecutor;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.*;
+
+import org.eu.zajc.akiwrapper.*;
+import org.eu.zajc.akiwrapper.Akiwrapper.*;
+import org.eu.zajc.akiwrapper.core.entities.impl.AkiwrapperImpl;
+import org.eu.zajc.akiwrapper.core.image.ImageCache;
+import org.eu.zajc.akiwrapper.core.transport.Transport;
+import org.eu.zajc.akiwrapper.core.utils.InternPool;
+import org.eu.zajc.akiwrapper.core.utils.route.*;
+import org.slf4j.Logger;
+
+/**
+ * A pool of pre-created game sessions. Creating a session is the slowest call in a
+ * game, because it requires fetching and parsing the whole game page, so this pool
+ * keeps a number of ready sessions for each configuration. When an
+ * {@link AkiwrapperBuilder} with a {@link SessionPool} set is built, it takes a
+ * ready session from the pool (if there is one) instead of creating a new one, and
+ * the pool is refilled in the background.<br>
+ * Builders only share pooled sessions when all of their settings match: the
+ * {@link Language}, the {@link Theme}, the profanity filter preference, the
+ * {@link EndpointResolver}, the tenant, the {@link Priority}, and the
+ * {@link HttpClient}, the {@link Transport}, the {@link RetryPolicy}, the
+ * {@link InternPool}, the {@link ImageCache}, the {@link TimeoutPolicy} and the
+ * {@link IsolationPolicy}, which are compared by identity.
+ * Builders with equal settings are interchangeable, so it doesn't matter which one
+ * triggers a refill.<br>
+ * Sessions that have been in the pool for longer than the configured time-to-live
+ * are discarded and replaced, because Akinator eventually expires idle sessions.<br>
+ * The pool for a given configuration is only filled once a builder with that
+ * configuration is built or passed to {@link #prefill(AkiwrapperBuilder)}.
+ *
+ * @author Marko Zajc
+ *
+ * @see AkiwrapperBuilder#setSessionPool(SessionPool)
+ */
+public class SessionPool {
+
+	private static final Logger LOG = getLogger(SessionPool.class);
+
+	/**
+	 * The default time-to-live of pooled sessions.
+	 */
+	@Nonnull public static final Duration DEFAULT_TTL = ofMinutes(5);
+
+	private final int size;
+	private final long ttlNanos;
+	@Nonnull private final Map<Key, Partition> partitions = new ConcurrentHashMap<>();
+
+	/**
+	 * Creates a new {@link SessionPool} with the default time-to-live
+	 * ({@link #DEFAULT_TTL}).
+	 *
+	 * @param size
+	 *            the amount of ready sessions to keep for each configuration.
+	 */
+	public SessionPool(int size) {
+		this(size, DEFAULT_TTL);
+	}
+
+	/**
+	 * Creates a new {@link SessionPool}.
+	 *
+	 * @param size
+	 *            the amount of ready sessions to keep for each configuration.
+	 * @param ttl
+	 *            the time after which an unused pooled session is discarded and
+	 *            replaced.
+	 */
+	public SessionPool(int size, @Nonnull Duration ttl) {
+		if (size < 1)
+			throw new IllegalArgumentException("size must be positive");
+		if (ttl.isNegative() || ttl.isZero())
+			throw new IllegalArgumentException("ttl must be positive");
+
+		this.size = size;
+		this.ttlNanos = ttl.toNanos();
+	}
+
+	/**
+	 * Starts filling the pool for the configuration of the given builder, so that the
+	 * first {@link AkiwrapperBuilder#build()} call doesn't have to wait for a session to
+	 * be created. This method doesn't block.
+	 *
+	 * @param builder
+	 *            the builder whose configuration to prepare sessions for.
+	 */
+	public void prefill(@Nonnull AkiwrapperBuilder builder) {
+		getPartition(builder).refill(builder);
+	}
+
+	/**
+	 * <b>Note:</b> This is an internal method and is subject to change without prior
+	 * deprecation. Use with caution.<br>
+	 * <br>
+	 * Takes a ready session for the builder's configuration out of the pool and starts
+	 * refilling the pool in the background.
+	 *
+	 * @param builder
+	 *            the builder to take a session for.
+	 *
+	 * @return an {@link AkiwrapperImpl} holding a ready session, or {@code null} if
+	 *         there are none ready.
+	 */
+	@Nullable
+	public AkiwrapperImpl take(@Nonnull AkiwrapperBuilder builder) {
+		var partition = getPartition(builder);
+		var taken = partition.take();
+		partition.refill(builder);
+		return taken;
+	}
+
+	/**
+	 * Returns the amount of ready sessions for the builder's configuration.
+	 *
+	 * @param builder
+	 *            the builder whose configuration to check.
+	 *
+	 * @return the amount of ready sessions.
+	 */
+	public int getReady(@Nonnull AkiwrapperBuilder builder) {
+		var partition = this.partitions.get(new Key(builder));
+		return partition == null ? 0 : partition.ready.size();
+	}
+
+	/**
+	 * Discards all ready sessions. Sessions that are currently being created will still
+	 * be added to the pool once they're ready.
+	 */
+	public void clear() {
+		this.partitions.values().forEach(p -> p.ready.clear());
+	}
+
+	/**
+	 * @return the amount of ready sessions kept for each configuration.
+	 */
+	public int getSize() {
+		return this.size;
+	}
+
+	/**
+	 * @return the time after which an unused pooled session is discarded.
+	 */
+	@Nonnull
+	public Duration getTtl() {
+		return Duration.ofNanos(this.ttlNanos);
+	}
+
+	@Nonnull
+	private Partition getPartition(@Nonnull AkiwrapperBuilder builder) {
+		return this.partitions.computeIfAbsent(new Key(builder), k -> new Partition());
+	}
+
+	private final class Partition {
+
+		@Nonnull private final Deque<Entry> ready = new ConcurrentLinkedDeque<>();
+		@Nonnull private final AtomicInteger pending = new AtomicInteger();
+
+		@Nullable
+		AkiwrapperImpl take() {
+			Entry entry;
+			while ((entry = this.ready.pollFirst()) != null) {
+				if (!entry.isExpired())
+					return entry.session;
+			}
+			return null;
+		}
+
+		void refill(@Nonnull AkiwrapperBuilder builder) {
+			// bounded, so that sessions that fail right away (for example while the circuit
+			// of their host is open) aren't recreated in a loop
+			for (int created = 0; created < SessionPool.this.size;) {
+				int currentPending = this.pending.get();
+				if (this.ready.size() + currentPending >= SessionPool.this.size)
+					return;
+
+				if (this.pending.compareAndSet(currentPending, currentPending + 1)) {
+					created++;
+					create(builder);
+				}
+			}
+		}
+
+		private void create(@Nonnull AkiwrapperBuilder builder) {
+			var template = new AkiwrapperBuilder().setHttpClient(builder.getHttpClient())
+				.setTransport(builder.getTransport())
+				.setRetryPolicy(builder.getRetryPolicy())
+				.setTimeoutPolicy(builder.getTimeoutPolicy())
+				.setIsolationPolicy(builder.getIsolationPolicy())
+				.setTenant(builder.getTenant())
+				.setPriority(builder.getPriority())
+				.setEndpointResolver(builder.getEndpointResolver())
+				.setInternPool(builder.getInternPool())
+				.setImageCache(builder.getImageCache())
+				.setLanguage(builder.getLanguage())
+				.setTheme(builder.getTheme())
+				.setFilterProfanity(builder.doesFilterProfanity());
+
+			CompletableFuture<Akiwrapper> session;
+			try {
+				session = template.buildAsync();
+			} catch (RuntimeException e) {
+				this.pending.decrementAndGet();
+				throw e;
+			}
+
+			session.whenComplete((api, t) -> {
+				if (t != null) {
+					this.pending.decrementAndGet();
+					LOG.debug("Couldn't create a pooled session", t);
+					return;
+				}
+
+				var entry = new Entry((AkiwrapperImpl) api, nanoTime() + SessionPool.this.ttlNanos);
+				this.ready.addLast(entry);
+				this.pending.decrementAndGet();
+
+				// replace the session once it expires so that the pool stays warm
+				delayedExecutor(SessionPool.this.ttlNanos, NANOSECONDS).execute(() -> {
+					if (this.ready.remove(entry))
+						refill(builder);
+				});
+			});
+		}
+
+	}
+
+	private static final class Entry {
+
+		@Nonnull private final AkiwrapperImpl session;
+		private final long expiry;
+
+		Entry(@Nonnull AkiwrapperImpl session, long expiry) {
+			this.session = session;
+			this.expiry = expiry;
+		}
+
+		boolean isExpired() {
+			return nanoTime() - this.expiry >= 0;
+		}
+
+	}
+
+	private static final class Key {
+
+		@Nonnull private final List<Object> settings;
+
+		Key(@Nonnull AkiwrapperBuilder builder) {
+			// apart from EndpointResolver, the tenant and the priority, the settings objects
+			// don't override equals(), so they're compared by identity
+			this.settings = Arrays.asList(builder.getLanguage(), builder.getTheme(), builder.doesFilterProfanity(),
+										  builder.getEndpointResolver(), builder.getTenant(), builder.getPriority(),
+										  builder.getHttpClient(), builder.getTransport(), builder.getRetryPolicy(),
+										  builder.getInternPool(), builder.getImageCache(), builder.getTimeoutPolicy(),
+										  builder.getIsolationPolicy());
+		}
+
+		@Override
+		public int hashCode() {
+			return this.settings.hashCode();
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (!(obj instanceof Key))
+				return false;
+
+			return this.settings.equals(((Key) obj).settings);
+		}
+
+	}
+
+}
@@ -0,0 +1,578 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2026 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.core.snapshot;
+
+import java.io.*;
+import java.util.Arrays;
+
+import javax.annotation.*;
+
+import org.eu.zajc.akiwrapper.*;
+import org.eu.zajc.akiwrapper.Akiwrapper.*;
+import org.eu.zajc.akiwrapper.core.entities.*;
+import org.eu.zajc.akiwrapper.core.entities.impl.*;
+import org.json.*;
+
+/**
+ * An immutable snapshot of an ongoing game, which can be used to suspend a game and
+ * resume it later, possibly in a different process. A snapshot contains everything
+ * needed to continue the game: the session, the current {@link Query}, and the
+ * {@link Language}, {@link Theme}, and profanity filter preference. It doesn't
+ * contain any connection settings - those are taken from the
+ * {@link AkiwrapperBuilder} the game is resumed with.<br>
+ * Snapshots can be encoded into a compact binary format with {@link #toBytes()}
+ * (usually under 200 bytes), or into JSON with {@link #toJson()}. Both formats are
+ * versioned, so snapshots taken by this version of Akiwrapper can be read by later
+ * versions.<br>
+ * <b>Note:</b> Akinator expires idle sessions after a while, so a game can't be
+ * resumed indefinitely.
+ *
+ * @author Marko Zajc
+ *
+ * @see Akiwrapper#snapshot()
+ * @see AkiwrapperBuilder#resume(GameSnapshot)
+ */
+public final class GameSnapshot {
+
+	/**
+	 * The current version of the snapshot format.
+	 */
+	public static final int VERSION = 1;
+
+	private static final byte MAGIC_0 = 'A';
+	private static final byte MAGIC_1 = 'K';
+
+	private static final int FLAG_FILTER_PROFANITY = 1;
+	private static final int FLAG_IDENTIFIER = 1 << 1;
+	private static final int FLAG_QUESTION = 1 << 2;
+	private static final int FLAG_GUESS = 1 << 3;
+	private static final int FLAG_PSEUDONYM = 1 << 4;
+	private static final int FLAG_IMAGE = 1 << 5;
+
+	private static final String KEY_VERSION = "version";
+	private static final String KEY_LANGUAGE = "language";
+	private static final String KEY_THEME = "theme";
+	private static final String KEY_FILTER_PROFANITY = "filterProfanity";
+	private static final String KEY_SESSION = "session";
+	private static final String KEY_SIGNATURE = "signature";
+	private static final String KEY_IDENTIFIER = "identifier";
+	private static final String KEY_LAST_GUESS_STEP = "lastGuessStep";
+	private static final String KEY_QUERY = "query";
+	private static final String KEY_TYPE = "type";
+	private static final String KEY_STEP = "step";
+	private static final String KEY_PROGRESSION = "progression";
+	private static final String KEY_TEXT = "text";
+	private static final String KEY_ID = "id";
+	private static final String KEY_NAME = "name";
+	private static final String KEY_PSEUDONYM = "pseudonym";
+	private static final String KEY_DESCRIPTION = "description";
+	private static final String KEY_IMAGE = "image";
+	private static final String KEY_FLAG_PHOTO = "flagPhoto";
+	private static final String TYPE_QUESTION = "question";
+	private static final String TYPE_GUESS = "guess";
+
+	/**
+	 * The type of the current query in a snapshot.
+	 */
+	public enum QueryType {
+
+		/**
+		 * The current query is a {@link Question}.
+		 */
+		QUESTION,
+
+		/**
+		 * The current query is a {@link Guess}.
+		 */
+		GUESS,
+
+		/**
+		 * There is no current query, because the game has ended.
+		 */
+		NONE
+
+	}
+
+	@Nonnull private final Language language;
+	@Nonnull private final Theme theme;
+	private final boolean filterProfanity;
+	@Nonnull private final String session;
+	@Nonnull private final String signature;
+	@Nullable private final String identifier;
+	private final int lastGuessStep;
+	@Nonnull private final QueryType queryType;
+	private final int step;
+	private final double progression;
+	@Nullable private final String text;
+	@Nullable private final String guessId;
+	@Nullable private final String guessPseudonym;
+	@Nullable private final String guessDescription;
+	@Nullable private final String guessImage;
+	@Nullable private final String guessFlagPhoto;
+
+	@SuppressWarnings("null")
+	GameSnapshot(@Nonnull Language language, @Nonnull Theme theme, boolean filterProfanity,
+				 @Nonnull String session, @Nonnull String signature, @Nullable String identifier,
+				 int lastGuessStep, @Nonnull QueryType queryType, int step, double progression,
+				 @Nullable String text, @Nullable String guessId, @Nullable String guessPseudonym,
+				 @Nullable String guessDescription, @Nullable String guessImage,
+				 @Nullable String guessFlagPhoto) {
+		this.language = language;
+		this.theme = theme;
+		this.filterProfanity = filterProfanity;
+		this.session = session;
+		this.signature = signature;
+		this.identifier = identifier;
+		this.lastGuessStep = lastGuessStep;
+		this.queryType = queryType;
+		this.step = step;
+		this.progression = progression;
+		this.text = text;
+		this.guessId = guessId;
+		this.guessPseudonym = guessPseudonym;
+		this.guessDescription = guessDescription;
+		this.guessImage = guessImage;
+		this.guessFlagPhoto = guessFlagPhoto;
+	}
+
+	/**
+	 * <b>Note:</b> This is an internal method. Use {@link Akiwrapper#snapshot()}
+	 * instead.<br>
+	 * Captures the state of an {@link AkiwrapperImpl}. The caller must make sure that no
+	 * interaction is in flight.
+	 *
+	 * @param api
+	 *            the instance to capture.
+	 *
+	 * @return a snapshot of {@code api}.
+	 *
+	 * @throws IllegalStateException
+	 *             if {@code api} doesn't have a session.
+	 */
+	@Nonnull
+	@SuppressWarnings("null")
+	public static GameSnapshot capture(@Nonnull AkiwrapperImpl api) {
+		var apiSession = api.getSession();
+		if (apiSession == null)
+			throw new IllegalStateException("The instance doesn't have a session");
+
+		var query = api.getCurrentQuery();
+		if (query instanceof GuessImpl) {
+			var guess = (GuessImpl) query;
+			return new GameSnapshot(api.getLanguage(), api.getTheme(), api.doesFilterProfanity(),
+									apiSession.getSession(), apiSession.getSignature(), apiSession.getIdentifier(),
+									api.getLastGuessStep(), QueryType.GUESS, guess.getStep(), guess.getProgression(),
+									guess.getName(), guess.getId(), guess.getPseudonym(), guess.getDescription(),
+									guess.getImage() == null ? null : guess.getImage().toString(),
+									guess.getFlagPhoto());
+
+		} else if (query instanceof Question) {
+			var question = (Question) query;
+			return new GameSnapshot(api.getLanguage(), api.getTheme(), api.doesFilterProfanity(),
+									apiSession.getSession(), apiSession.getSignature(), apiSession.getIdentifier(),
+									api.getLastGuessStep(), QueryType.QUESTION, question.getStep(),
+									question.getProgression(), question.getText(), null, null, null, null, null);
+
+		} else {
+			return new GameSnapshot(api.getLanguage(), api.getTheme(), api.doesFilterProfanity(),
+									apiSession.getSession(), apiSession.getSignature(), apiSession.getIdentifier(),
+									api.getLastGuessStep(), QueryType.NONE, 0, 0, null, null, null, null, null,
+									null);
+		}
+	}
+
+	/**
+	 * Encodes this snapshot into the binary format.
+	 *
+	 * @return the encoded snapshot.
+	 */
+	@Nonnull
+	public byte[] toBytes() {
+		var bytes = new ByteArrayOutputStream(256);
+		try (var out = new DataOutputStream(bytes)) {
+			int flags = 0;
+			if (this.filterProfanity)
+				flags |= FLAG_FILTER_PROFANITY;
+			if (this.identifier != null)
+				flags |= FLAG_IDENTIFIER;
+			if (this.queryType == QueryType.QUESTION)
+				flags |= FLAG_QUESTION;
+			if (this.queryType == QueryType.GUESS)
+				flags |= FLAG_GUESS;
+			if (this.guessPseudonym != null)
+				flags |= FLAG_PSEUDONYM;
+			if (this.guessImage != null)
+				flags |= FLAG_IMAGE;
+
+			out.writeByte(MAGIC_0);
+			out.writeByte(MAGIC_1);
+			out.writeByte(VERSION);
+			out.writeByte(flags);
+			out.writeUTF(this.language.getLanguageCode());
+			out.writeByte(this.theme.getId());
+			out.writeUTF(this.session);
+			out.writeUTF(this.signature);
+			if (this.identifier != null)
+				out.writeUTF(this.identifier);
+			out.writeByte(this.lastGuessStep);
+
+			if (this.queryType != QueryType.NONE) {
+				out.writeByte(this.step);
+				out.writeDouble(this.progression);
+				out.writeUTF(this.text);
+			}
+
+			if (this.queryType == QueryType.GUESS) {
+				out.writeUTF(this.guessId);
+				if (this.guessPseudonym != null)
+					out.writeUTF(this.guessPseudonym);
+				out.writeUTF(this.guessDescription);
+				if (this.guessImage != null)
+					out.writeUTF(this.guessImage);
+				out.writeUTF(this.guessFlagPhoto);
+			}
+
+		} catch (IOException e) {
+			throw new UncheckedIOException(e); // can't happen with a ByteArrayOutputStream
+		}
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Decodes a snapshot encoded with {@link #toBytes()}.
+	 *
+	 * @param bytes
+	 *            the encoded snapshot.
+	 *
+	 * @return the decoded snapshot.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if {@code bytes} is not a valid snapshot, or if it was encoded with an
+	 *             unsupported version of the format.
+	 */
+	@Nonnull
+	public static GameSnapshot fromBytes(@Nonnull byte[] bytes) {
+		try (var in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+			if (in.readByte() != MAGIC_0 || in.readByte() != MAGIC_1)
+				throw new IllegalArgumentException("Not a game snapshot");
+
+			int version = in.readUnsignedByte();
+			if (version != VERSION)
+				throw new IllegalArgumentException("Unsupported snapshot version: " + version);
+
+			int flags = in.readUnsignedByte();
+			var language = languageFromCode(in.readUTF());
+			var theme = themeFromId(in.readUnsignedByte());
+			var session = in.readUTF();
+			var signature = in.readUTF();
+			var identifier = (flags & FLAG_IDENTIFIER) != 0 ? in.readUTF() : null;
+			int lastGuessStep = in.readUnsignedByte();
+
+			var queryType = (flags & FLAG_GUESS) != 0 ? QueryType.GUESS :
+				(flags & FLAG_QUESTION) != 0 ? QueryType.QUESTION : QueryType.NONE;
+			int step = 0;
+			double progression = 0;
+			String text = null;
+			if (queryType != QueryType.NONE) {
+				step = in.readUnsignedByte();
+				progression = in.readDouble();
+				text = in.readUTF();
+			}
+
+			String guessId = null;
+			String guessPseudonym = null;
+			String guessDescription = null;
+			String guessImage = null;
+			String guessFlagPhoto = null;
+			if (queryType == QueryType.GUESS) {
+				guessId = in.readUTF();
+				guessPseudonym = (flags & FLAG_PSEUDONYM) != 0 ? in.readUTF() : null;
+				guessDescription = in.readUTF();
+				guessImage = (flags & FLAG_IMAGE) != 0 ? in.readUTF() : null;
+				guessFlagPhoto = in.readUTF();
+			}
+
+			if (in.available() != 0)
+				throw new IllegalArgumentException("Trailing data after the game snapshot");
+
+			return new GameSnapshot(language, theme, (flags & FLAG_FILTER_PROFANITY) != 0, session, signature,
+									identifier, lastGuessStep, queryType, step, progression, text, guessId,
+									guessPseudonym, guessDescription, guessImage, guessFlagPhoto);
+
+		} catch (IOException e) {
+			throw new IllegalArgumentException("Malformed game snapshot", e);
+		}
+	}
+
+	/**
+	 * Encodes this snapshot into JSON. This is larger and slower than
+	 * {@link #toBytes()}, but can be inspected and stored in text-only stores.
+	 *
+	 * @return the encoded snapshot.
+	 */
+	@Nonnull
+	public String toJson() {
+		var json = new JSONObject();
+		json.put(KEY_VERSION, VERSION);
+		json.put(KEY_LANGUAGE, this.language.getLanguageCode());
+		json.put(KEY_THEME, this.theme.getId());
+		json.put(KEY_FILTER_PROFANITY, this.filterProfanity);
+		json.put(KEY_SESSION, this.session);
+		json.put(KEY_SIGNATURE, this.signature);
+		json.putOpt(KEY_IDENTIFIER, this.identifier);
+		json.put(KEY_LAST_GUESS_STEP, this.lastGuessStep);
+
+		if (this.queryType != QueryType.NONE) {
+			var query = new JSONObject();
+			query.put(KEY_STEP, this.step);
+			query.put(KEY_PROGRESSION, this.progression);
+			if (this.queryType == QueryType.QUESTION) {
+				query.put(KEY_TYPE, TYPE_QUESTION);
+				query.put(KEY_TEXT, this.text);
+
+			} else {
+				query.put(KEY_TYPE, TYPE_GUESS);
+				query.put(KEY_NAME, this.text);
+				query.put(KEY_ID, this.guessId);
+				query.putOpt(KEY_PSEUDONYM, this.guessPseudonym);
+				query.put(KEY_DESCRIPTION, this.guessDescription);
+				query.putOpt(KEY_IMAGE, this.guessImage);
+				query.put(KEY_FLAG_PHOTO, this.guessFlagPhoto);
+			}
+			json.put(KEY_QUERY, query);
+		}
+
+		return json.toString();
+	}
+
+	/**
+	 * Decodes a snapshot encoded with {@link #toJson()}.
+	 *
+	 * @param json
+	 *            the encoded snapshot.
+	 *
+	 * @return the decoded snapshot.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if {@code json} is not a valid snapshot, or if it was encoded with an
+	 *             unsupported version of the format.
+	 */
+	@Nonnull
+	@SuppressWarnings("null")
+	public static GameSnapshot fromJson(@Nonnull String json) {
+		try {
+			var object = new JSONObject(json);
+			int version = object.getInt(KEY_VERSION);
+			if (version != VERSION)
+				throw new IllegalArgumentException("Unsupported snapshot version: " + version);
+
+			var language = languageFromCode(object.getString(KEY_LANGUAGE));
+			var theme = themeFromId(object.getInt(KEY_THEME));
+			var filterProfanity = object.getBoolean(KEY_FILTER_PROFANITY);
+			var session = object.getString(KEY_SESSION);
+			var signature = object.getString(KEY_SIGNATURE);
+			var identifier = object.optString(KEY_IDENTIFIER, null);
+			var lastGuessStep = object.getInt(KEY_LAST_GUESS_STEP);
+
+			var query = object.optJSONObject(KEY_QUERY);
+			if (query == null)
+				return new GameSnapshot(language, theme, filterProfanity, session, signature, identifier,
+										lastGuessStep, QueryType.NONE, 0, 0, null, null, null, null, null, null);
+
+			int step = query.getInt(KEY_STEP);
+			double progression = query.getDouble(KEY_PROGRESSION);
+			var type = query.getString(KEY_TYPE);
+			if (TYPE_QUESTION.equals(type))
+				return new GameSnapshot(language, theme, filterProfanity, session, signature, identifier,
+										lastGuessStep, QueryType.QUESTION, step, progression,
+										query.getString(KEY_TEXT), null, null, null, null, null);
+			else if (TYPE_GUESS.equals(type))
+				return new GameSnapshot(language, theme, filterProfanity, session, signature, identifier,
+										lastGuessStep, QueryType.GUESS, step, progression, query.getString(KEY_NAME),
+										query.getString(KEY_ID), query.optString(KEY_PSEUDONYM, null),
+										query.getString(KEY_DESCRIPTION), query.optString(KEY_IMAGE, null),
+										query.getString(KEY_FLAG_PHOTO));
+			else
+				throw new IllegalArgumentException("Unknown query type: " + type);
+
+		} catch (JSONException e) {
+			throw new IllegalArgumentException("Malformed game snapshot", e);
+		}
+	}
+
+	/**
+	 * @return the {@link Language} of the game.
+	 */
+	@Nonnull
+	public Language getLanguage() {
+		return this.language;
+	}
+
+	/**
+	 * @return the {@link Theme} of the game.
+	 */
+	@Nonnull
+	public Theme getTheme() {
+		return this.theme;
+	}
+
+	/**
+	 * @return whether the profanity filter is enabled.
+	 */
+	public boolean doesFilterProfanity() {
+		return this.filterProfanity;
+	}
+
+	/**
+	 * @return the session ID.
+	 */
+	@Nonnull
+	public String getSession() {
+		return this.session;
+	}
+
+	/**
+	 * @return the session signature.
+	 */
+	@Nonnull
+	public String getSignature() {
+		return this.signature;
+	}
+
+	/**
+	 * @return the session identifier, or {@code null} if Akinator didn't provide one.
+	 */
+	@Nullable
+	public String getIdentifier() {
+		return this.identifier;
+	}
+
+	/**
+	 * @return the step of the last {@link Guess}.
+	 */
+	public int getLastGuessStep() {
+		return this.lastGuessStep;
+	}
+
+	/**
+	 * @return the type of the current query.
+	 */
+	@Nonnull
+	public QueryType getQueryType() {
+		return this.queryType;
+	}
+
+	/**
+	 * @return the step of the current query, or {@code 0} if there is none.
+	 */
+	public int getStep() {
+		return this.step;
+	}
+
+	/**
+	 * @return the progression of the current query, or {@code 0} if there is none.
+	 */
+	public double getProgression() {
+		return this.progression;
+	}
+
+	/**
+	 * @return the text of the current {@link Question}, the name of the current
+	 *         {@link Guess}, or {@code null} if there is no current query.
+	 */
+	@Nullable
+	public String getText() {
+		return this.text;
+	}
+
+	/**
+	 * @return the ID of the current {@link Guess}, or {@code null} if the current query
+	 *         isn't a {@link Guess}.
+	 */
+	@Nullable
+	public String getGuessId() {
+		return this.guessId;
+	}
+
+	/**
+	 * @return the pseudonym of the user who added the current {@link Guess}, or
+	 *         {@code null} if there is none.
+	 */
+	@Nullable
+	public String getGuessPseudonym() {
+		return this.guessPseudonym;
+	}
+
+	/**
+	 * @return the description of the current {@link Guess}, or {@code null} if the
+	 *         current query isn't a {@link Guess}.
+	 */
+	@Nullable
+	public String getGuessDescription() {
+		return this.guessDescription;
+	}
+
+	/**
+	 * @return the image URL of the current {@link Guess}, or {@code null} if there is
+	 *         none.
+	 */
+	@Nullable
+	public String getGuessImage() {
+		return this.guessImage;
+	}
+
+	/**
+	 * @return the photo flag of the current {@link Guess}, or {@code null} if the
+	 *         current query isn't a {@link Guess}.
+	 */
+	@Nullable
+	public String getGuessFlagPhoto() {
+		return this.guessFlagPhoto;
+	}
+
+	@Override
+	public int hashCode() {
+		return Arrays.hashCode(toBytes());
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (!(obj instanceof GameSnapshot))
+			return false;
+
+		return Arrays.equals(toBytes(), ((GameSnapshot) obj).toBytes());
+	}
+
+	@Nonnull
+	private static Language languageFromCode(@Nonnull String code) {
+		for (var language : Language.values())
+			if (language.getLanguageCode().equals(code))
+				return language;
+		throw new IllegalArgumentException("Unknown language: " + code);
+	}
+
+	@Nonnull
+	private static Theme themeFromId(int id) {
+		for (var theme : Theme.values())
+			if (theme.getId() == id)
+				return theme;
+		throw new IllegalArgumentException("Unknown theme: " + id);
+	}
+
+}
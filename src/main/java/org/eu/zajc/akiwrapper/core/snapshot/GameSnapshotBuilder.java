@@ -0,0 +1,244 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2026 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.core.snapshot;
+
+import static org.eu.zajc.akiwrapper.AkiwrapperBuilder.*;
+
+import javax.annotation.*;
+
+import org.eu.zajc.akiwrapper.*;
+import org.eu.zajc.akiwrapper.Akiwrapper.*;
+import org.eu.zajc.akiwrapper.core.entities.*;
+import org.eu.zajc.akiwrapper.core.snapshot.GameSnapshot.QueryType;
+
+/**
+ * A class used to build a {@link GameSnapshot} from its fields. This is meant for
+ * {@link org.eu.zajc.akiwrapper.core.store.GameStore} implementations that don't
+ * store snapshots in one of the encoded forms; snapshots of running games should be
+ * taken with {@link Akiwrapper#snapshot()}.
+ *
+ * @author Marko Zajc
+ */
+public class GameSnapshotBuilder {
+
+	private static final int MAX_STEP = 0xFF;
+
+	@Nonnull private Language language = DEFAULT_LANGUAGE;
+	@Nonnull private Theme theme = DEFAULT_THEME;
+	private boolean filterProfanity = DEFAULT_FILTER_PROFANITY;
+	@Nullable private String session;
+	@Nullable private String signature;
+	@Nullable private String identifier;
+	private int lastGuessStep;
+	@Nonnull private QueryType queryType = QueryType.NONE;
+	private int step;
+	private double progression;
+	@Nullable private String text;
+	@Nullable private String guessId;
+	@Nullable private String guessPseudonym;
+	@Nullable private String guessDescription;
+	@Nullable private String guessImage;
+	@Nullable private String guessFlagPhoto;
+
+	/**
+	 * Sets the {@link Language} of the game.<br>
+	 * This is set to {@link AkiwrapperBuilder#DEFAULT_LANGUAGE} by default.
+	 *
+	 * @param language
+	 *            the language.
+	 *
+	 * @return current instance, used for chaining.
+	 */
+	@Nonnull
+	public GameSnapshotBuilder setLanguage(@Nonnull Language language) {
+		this.language = language;
+		return this;
+	}
+
+	/**
+	 * Sets the {@link Theme} of the game.<br>
+	 * This is set to {@link AkiwrapperBuilder#DEFAULT_THEME} by default.
+	 *
+	 * @param theme
+	 *            the theme.
+	 *
+	 * @return current instance, used for chaining.
+	 */
+	@Nonnull
+	public GameSnapshotBuilder setTheme(@Nonnull Theme theme) {
+		this.theme = theme;
+		return this;
+	}
+
+	/**
+	 * Sets whether the profanity filter is enabled.<br>
+	 * This is set to {@value AkiwrapperBuilder#DEFAULT_FILTER_PROFANITY} by default.
+	 *
+	 * @param filterProfanity
+	 *            whether to filter profanity.
+	 *
+	 * @return current instance, used for chaining.
+	 */
+	@Nonnull
+	public GameSnapshotBuilder setFilterProfanity(boolean filterProfanity) {
+		this.filterProfanity = filterProfanity;
+		return this;
+	}
+
+	/**
+	 * Sets the session of the game. This must be set before building.
+	 *
+	 * @param session
+	 *            the session ID.
+	 * @param signature
+	 *            the session signature.
+	 * @param identifier
+	 *            the session identifier, or {@code null} if there is none.
+	 *
+	 * @return current instance, used for chaining.
+	 */
+	@Nonnull
+	public GameSnapshotBuilder setSession(@Nonnull String session, @Nonnull String signature,
+										  @Nullable String identifier) {
+		this.session = session;
+		this.signature = signature;
+		this.identifier = identifier;
+		return this;
+	}
+
+	/**
+	 * Sets the step of the last {@link Guess}.<br>
+	 * This is set to {@code 0} by default.
+	 *
+	 * @param lastGuessStep
+	 *            the step of the last guess.
+	 *
+	 * @return current instance, used for chaining.
+	 */
+	@Nonnull
+	public GameSnapshotBuilder setLastGuessStep(int lastGuessStep) {
+		this.lastGuessStep = checkStep(lastGuessStep);
+		return this;
+	}
+
+	/**
+	 * Sets the current query to a {@link Question}.
+	 *
+	 * @param step
+	 *            the step of the question.
+	 * @param progression
+	 *            the progression of the question.
+	 * @param text
+	 *            the text of the question.
+	 *
+	 * @return current instance, used for chaining.
+	 */
+	@Nonnull
+	public GameSnapshotBuilder setQuestion(int step, double progression, @Nonnull String text) {
+		setQuery(QueryType.QUESTION, step, progression, text);
+		return this;
+	}
+
+	/**
+	 * Sets the current query to a {@link Guess}.
+	 *
+	 * @param step
+	 *            the step of the guess.
+	 * @param progression
+	 *            the progression of the guess.
+	 * @param name
+	 *            the name of the guessed character.
+	 * @param id
+	 *            the ID of the guess.
+	 * @param pseudonym
+	 *            the pseudonym of the user who added the guess, or {@code null} if
+	 *            there is none.
+	 * @param description
+	 *            the description of the guessed character.
+	 * @param image
+	 *            the URL of the guess's image, or {@code null} if there is none.
+	 * @param flagPhoto
+	 *            the photo flag of the guess.
+	 *
+	 * @return current instance, used for chaining.
+	 */
+	@Nonnull
+	@SuppressWarnings("null")
+	public GameSnapshotBuilder setGuess(int step, double progression, @Nonnull String name, @Nonnull String id,
+										@Nullable String pseudonym, @Nonnull String description,
+										@Nullable String image, @Nonnull String flagPhoto) {
+		setQuery(QueryType.GUESS, step, progression, name);
+		this.guessId = id;
+		this.guessPseudonym = pseudonym;
+		this.guessDescription = description;
+		this.guessImage = image;
+		this.guessFlagPhoto = flagPhoto;
+		return this;
+	}
+
+	/**
+	 * Clears the current query, as if the game had ended. This is the default.
+	 *
+	 * @return current instance, used for chaining.
+	 */
+	@Nonnull
+	public GameSnapshotBuilder clearQuery() {
+		this.queryType = QueryType.NONE;
+		this.step = 0;
+		this.progression = 0;
+		this.text = null;
+		this.guessId = null;
+		this.guessPseudonym = null;
+		this.guessDescription = null;
+		this.guessImage = null;
+		this.guessFlagPhoto = null;
+		return this;
+	}
+
+	/**
+	 * @return a new {@link GameSnapshot} with this builder's configuration.
+	 *
+	 * @throws IllegalStateException
+	 *             if the session hasn't been set.
+	 */
+	@Nonnull
+	@SuppressWarnings("null")
+	public GameSnapshot build() {
+		if (this.session == null || this.signature == null)
+			throw new IllegalStateException("The session must be set");
+
+		return new GameSnapshot(this.language, this.theme, this.filterProfanity, this.session, this.signature,
+								this.identifier, this.lastGuessStep, this.queryType, this.step, this.progression,
+								this.text, this.guessId, this.guessPseudonym, this.guessDescription,
+								this.guessImage, this.guessFlagPhoto);
+	}
+
+	private void setQuery(@Nonnull QueryType queryType, int step, double progression, @Nonnull String text) {
+		clearQuery();
+		this.queryType = queryType;
+		this.step = checkStep(step);
+		this.progression = progression;
+		this.text = text;
+	}
+
+	private static int checkStep(int step) {
+		if (step < 0 || step > MAX_STEP)
+			throw new IllegalArgumentException("step must be between 0 and " + MAX_STEP);
+		return step;
+	}
+
+}
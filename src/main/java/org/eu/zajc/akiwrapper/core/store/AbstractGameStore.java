@@ -0,0 +1,149 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2026 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.core.store;
+
+import static java.lang.System.nanoTime;
+
+import java.time.Duration;
+
+import javax.annotation.*;
+
+import org.eu.zajc.akiwrapper.core.snapshot.GameSnapshot;
+
+/**
+ * A base for {@link GameStore} implementations that store snapshots in their binary
+ * form (see {@link GameSnapshot#toBytes()}). This class validates arguments,
+ * encodes and decodes snapshots, and records {@link GameStoreMetrics}, so
+ * implementations only need to store and retrieve bytes.
+ *
+ * @author Marko Zajc
+ */
+public abstract class AbstractGameStore implements GameStore {
+
+	@Nonnull private final GameStoreMetrics metrics = new GameStoreMetrics();
+
+	@Override
+	public final void put(@Nonnull String key, @Nonnull GameSnapshot snapshot, @Nonnull Duration ttl) {
+		if (ttl.isNegative() || ttl.isZero())
+			throw new IllegalArgumentException("ttl must be positive");
+
+		long start = nanoTime();
+		write(key, snapshot.toBytes(), ttl);
+		this.metrics.recordPut(nanoTime() - start);
+	}
+
+	@Override
+	@Nullable
+	public final GameSnapshot get(@Nonnull String key) {
+		long start = nanoTime();
+		var bytes = read(key);
+		var snapshot = bytes == null ? null : GameSnapshot.fromBytes(bytes);
+		this.metrics.recordGet(snapshot != null, nanoTime() - start);
+		return snapshot;
+	}
+
+	@Override
+	public final boolean evict(@Nonnull String key) {
+		boolean evicted = delete(key);
+		if (evicted)
+			this.metrics.recordEviction();
+		return evicted;
+	}
+
+	@Override
+	@Nonnull
+	public final GameStoreMetrics getMetrics() {
+		return this.metrics;
+	}
+
+	/**
+	 * Stores the binary form of a snapshot, replacing any value stored under the same
+	 * key.
+	 *
+	 * @param key
+	 *            the key to store the snapshot under.
+	 * @param snapshot
+	 *            the binary form of the snapshot.
+	 * @param ttl
+	 *            the time after which the snapshot expires, always positive.
+	 */
+	protected abstract void write(@Nonnull String key, @Nonnull byte[] snapshot, @Nonnull Duration ttl);
+
+	/**
+	 * Retrieves the binary form of a snapshot. Implementations that track expiry
+	 * themselves should call {@link #recordExpiration()} when they find an expired
+	 * entry.
+	 *
+	 * @param key
+	 *            the key the snapshot is stored under.
+	 *
+	 * @return the binary form of the snapshot, or {@code null} if there is none or it
+	 *         has expired.
+	 */
+	@Nullable
+	protected abstract byte[] read(@Nonnull String key);
+
+	/**
+	 * Removes a snapshot.
+	 *
+	 * @param key
+	 *            the key the snapshot is stored under.
+	 *
+	 * @return whether a snapshot that hadn't expired yet was removed.
+	 */
+	protected abstract boolean delete(@Nonnull String key);
+
+	/**
+	 * Records that an expired entry was discarded.
+	 */
+	protected final void recordExpiration() {
+		this.metrics.recordExpiration();
+	}
+
+	/**
+	 * Computes the wall-clock time at which an entry stored now expires.
+	 *
+	 * @param ttl
+	 *            the entry's time-to-live.
+	 *
+	 * @return the expiry time in milliseconds since the epoch.
+	 */
+	protected static long expiryOf(@Nonnull Duration ttl) {
+		long now = System.currentTimeMillis();
+		long millis;
+		try {
+			millis = ttl.toMillis();
+		} catch (ArithmeticException e) {
+			return Long.MAX_VALUE;
+		}
+		return millis > Long.MAX_VALUE - now ? Long.MAX_VALUE : now + millis;
+	}
+
+	/**
+	 * Checks whether an entry has expired.
+	 *
+	 * @param expiry
+	 *            the expiry time in milliseconds since the epoch, as returned by
+	 *            {@link #expiryOf(Duration)}.
+	 *
+	 * @return whether the entry has expired.
+	 */
+	protected static boolean isExpired(long expiry) {
+		return System.currentTimeMillis() >= expiry;
+	}
+
+}
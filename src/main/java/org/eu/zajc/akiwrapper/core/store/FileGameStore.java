@@ -0,0 +1,434 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2026 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.core.store;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.*;
+import static java.nio.file.StandardOpenOption.*;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.nio.file.*;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.*;
+
+import javax.annotation.*;
+
+import org.eu.zajc.akiwrapper.core.snapshot.GameSnapshot;
+import org.slf4j.Logger;
+
+/**
+ * A {@link GameStore} that keeps snapshots in an append-only file, with an index of
+ * live entries kept in memory. Each {@link #put(String, GameSnapshot, Duration)} and
+ * {@link #evict(String)} appends a record to the file, which makes writes cheap and
+ * means a crash can at worst lose the record that was being written. When the store
+ * is opened, the file is replayed to rebuild the index, and an incomplete record at
+ * the end of the file (left behind by a crash) is truncated.<br>
+ * Replaced, evicted, and expired records take up space until the file is compacted,
+ * which rewrites it with only the live entries. Compaction happens automatically
+ * once the garbage in the file exceeds the compaction threshold and makes up at
+ * least half of the file, and can also be triggered with {@link #compact()}.<br>
+ * Writes aren't forced to the storage device until the store is closed, so entries
+ * written shortly before a power loss may be lost.
+ *
+ * @author Marko Zajc
+ */
+public class FileGameStore extends AbstractGameStore implements Closeable {
+
+	private static final Logger LOG = getLogger(FileGameStore.class);
+
+	/**
+	 * The default amount of garbage, in bytes, that has to accumulate before the file
+	 * is compacted automatically.
+	 */
+	public static final long DEFAULT_COMPACTION_THRESHOLD = 1 << 20;
+
+	private static final byte[] HEADER = { 'A', 'K', 'S', 1 };
+	private static final byte TYPE_PUT = 1;
+	private static final byte TYPE_DELETE = 2;
+	private static final int PUT_OVERHEAD = 1 + 2 + Long.BYTES + Integer.BYTES;
+	private static final int DELETE_OVERHEAD = 1 + 2;
+
+	@Nonnull private final Path path;
+	private final long compactionThreshold;
+	@Nonnull private final Map<String, Location> index = new ConcurrentHashMap<>();
+	@Nonnull private final AtomicLong garbage = new AtomicLong();
+	@Nonnull private final ReadWriteLock lock = new ReentrantReadWriteLock();
+	@Nonnull private FileChannel channel;
+	private long size;
+
+	/**
+	 * Opens or creates a {@link FileGameStore} with the default compaction threshold
+	 * ({@link #DEFAULT_COMPACTION_THRESHOLD}).
+	 *
+	 * @param path
+	 *            the file to store snapshots in.
+	 *
+	 * @throws IOException
+	 *             if the file can't be opened or isn't a game store file.
+	 */
+	public FileGameStore(@Nonnull Path path) throws IOException {
+		this(path, DEFAULT_COMPACTION_THRESHOLD);
+	}
+
+	/**
+	 * Opens or creates a {@link FileGameStore}.
+	 *
+	 * @param path
+	 *            the file to store snapshots in.
+	 * @param compactionThreshold
+	 *            the amount of garbage, in bytes, that has to accumulate before the
+	 *            file is compacted automatically.
+	 *
+	 * @throws IOException
+	 *             if the file can't be opened or isn't a game store file.
+	 */
+	@SuppressWarnings("null")
+	public FileGameStore(@Nonnull Path path, long compactionThreshold) throws IOException {
+		if (compactionThreshold < 0)
+			throw new IllegalArgumentException("compactionThreshold must not be negative");
+
+		this.path = path;
+		this.compactionThreshold = compactionThreshold;
+		this.channel = FileChannel.open(path, CREATE, READ, WRITE);
+		try {
+			replay();
+		} catch (IOException | RuntimeException e) {
+			this.channel.close();
+			throw e;
+		}
+	}
+
+	@Override
+	protected void write(@Nonnull String key, @Nonnull byte[] snapshot, @Nonnull Duration ttl) {
+		var keyBytes = encodeKey(key);
+		long expiry = expiryOf(ttl);
+		var record = ByteBuffer.allocate(PUT_OVERHEAD + keyBytes.length + snapshot.length);
+		record.put(TYPE_PUT).putShort((short) keyBytes.length).put(keyBytes);
+		record.putLong(expiry).putInt(snapshot.length).put(snapshot).flip();
+
+		this.lock.writeLock().lock();
+		try {
+			long position = append(record);
+			long valueOffset = position + PUT_OVERHEAD + keyBytes.length;
+			var previous = this.index.put(key, new Location(valueOffset, snapshot.length, expiry, record.limit()));
+			if (previous != null)
+				this.garbage.addAndGet(previous.recordSize);
+			compactIfNeeded();
+
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+
+		} finally {
+			this.lock.writeLock().unlock();
+		}
+	}
+
+	@Override
+	@Nullable
+	protected byte[] read(@Nonnull String key) {
+		this.lock.readLock().lock();
+		try {
+			var location = this.index.get(key);
+			if (location == null)
+				return null;
+
+			if (isExpired(location.expiry)) {
+				if (this.index.remove(key, location)) {
+					this.garbage.addAndGet(location.recordSize);
+					recordExpiration();
+				}
+				return null;
+			}
+
+			var value = ByteBuffer.allocate(location.length);
+			readFully(this.channel, value, location.valueOffset);
+			return value.array();
+
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+
+		} finally {
+			this.lock.readLock().unlock();
+		}
+	}
+
+	@Override
+	protected boolean delete(@Nonnull String key) {
+		this.lock.writeLock().lock();
+		try {
+			var location = this.index.remove(key);
+			if (location == null)
+				return false;
+
+			var keyBytes = encodeKey(key);
+			var record = ByteBuffer.allocate(DELETE_OVERHEAD + keyBytes.length);
+			record.put(TYPE_DELETE).putShort((short) keyBytes.length).put(keyBytes).flip();
+			append(record);
+			this.garbage.addAndGet(location.recordSize + (long) record.limit());
+			compactIfNeeded();
+
+			return !isExpired(location.expiry);
+
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+
+		} finally {
+			this.lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Rewrites the file with only the live entries, discarding replaced, evicted, and
+	 * expired records.
+	 *
+	 * @throws IOException
+	 *             if the file couldn't be rewritten. The store remains usable with the
+	 *             original file in that case.
+	 */
+	@SuppressWarnings("resource")
+	public void compact() throws IOException {
+		this.lock.writeLock().lock();
+		try {
+			var temporary = this.path.resolveSibling(this.path.getFileName() + ".compact");
+			var compacted = new HashMap<String, Location>();
+			long compactedSize;
+			try (var out = FileChannel.open(temporary, CREATE, TRUNCATE_EXISTING, WRITE)) {
+				out.write(ByteBuffer.wrap(HEADER));
+				compactedSize = HEADER.length;
+
+				for (var entry : this.index.entrySet()) {
+					var location = entry.getValue();
+					if (isExpired(location.expiry)) {
+						recordExpiration();
+						continue;
+					}
+
+					var keyBytes = encodeKey(entry.getKey());
+					var record = ByteBuffer.allocate(location.recordSize);
+					record.put(TYPE_PUT).putShort((short) keyBytes.length).put(keyBytes);
+					record.putLong(location.expiry).putInt(location.length);
+					readFully(this.channel, record, location.valueOffset);
+					record.flip();
+					while (record.hasRemaining())
+						out.write(record);
+
+					long valueOffset = compactedSize + PUT_OVERHEAD + keyBytes.length;
+					compacted.put(entry.getKey(),
+								  new Location(valueOffset, location.length, location.expiry, location.recordSize));
+					compactedSize += location.recordSize;
+				}
+				out.force(true);
+			}
+
+			this.channel.close();
+			Files.move(temporary, this.path, REPLACE_EXISTING, ATOMIC_MOVE);
+			this.channel = FileChannel.open(this.path, READ, WRITE);
+			this.index.clear();
+			this.index.putAll(compacted);
+			this.garbage.set(0);
+			this.size = compactedSize;
+
+		} finally {
+			// reopen the original file if compaction failed after closing it
+			if (!this.channel.isOpen())
+				this.channel = FileChannel.open(this.path, READ, WRITE);
+			this.lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Returns the amount of stored entries, which may include expired entries that
+	 * haven't been discarded yet.
+	 *
+	 * @return the amount of stored entries.
+	 */
+	public int size() {
+		return this.index.size();
+	}
+
+	/**
+	 * @return the current size of the file in bytes.
+	 */
+	public long getFileSize() {
+		this.lock.readLock().lock();
+		try {
+			return this.size;
+		} finally {
+			this.lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * @return the amount of bytes in the file taken up by replaced, evicted, and
+	 *         discarded expired records.
+	 */
+	public long getGarbage() {
+		return this.garbage.get();
+	}
+
+	/**
+	 * @return the file snapshots are stored in.
+	 */
+	@Nonnull
+	public Path getPath() {
+		return this.path;
+	}
+
+	/**
+	 * Forces all written records to the storage device and closes the file.
+	 */
+	@Override
+	public void close() throws IOException {
+		this.lock.writeLock().lock();
+		try {
+			if (this.channel.isOpen()) {
+				this.channel.force(true);
+				this.channel.close();
+			}
+		} finally {
+			this.lock.writeLock().unlock();
+		}
+	}
+
+	private void compactIfNeeded() throws IOException {
+		long currentGarbage = this.garbage.get();
+		if (currentGarbage >= this.compactionThreshold && currentGarbage * 2 >= this.size)
+			compact();
+	}
+
+	private long append(@Nonnull ByteBuffer record) throws IOException {
+		long position = this.size;
+		long offset = position;
+		while (record.hasRemaining())
+			offset += this.channel.write(record, offset);
+		this.size = offset;
+		return position;
+	}
+
+	private void replay() throws IOException {
+		long length = this.channel.size();
+		if (length == 0) {
+			this.channel.write(ByteBuffer.wrap(HEADER), 0);
+			this.size = HEADER.length;
+			return;
+		}
+
+		var header = ByteBuffer.allocate(HEADER.length);
+		if (length < HEADER.length || this.channel.read(header, 0) != HEADER.length ||
+			!Arrays.equals(header.array(), HEADER))
+			throw new IOException(this.path + " is not a game store file");
+
+		// the stream isn't closed because that would close the channel
+		this.channel.position(HEADER.length);
+		var in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(this.channel)));
+
+		long position = HEADER.length;
+		var value = new byte[0];
+		try {
+			while (position < length) {
+				byte type = in.readByte();
+				if (type != TYPE_PUT && type != TYPE_DELETE)
+					break;
+
+				var keyBytes = new byte[in.readUnsignedShort()];
+				in.readFully(keyBytes);
+				var key = new String(keyBytes, UTF_8);
+
+				Location previous;
+				if (type == TYPE_PUT) {
+					long expiry = in.readLong();
+					int valueLength = in.readInt();
+					if (valueLength < 0)
+						break;
+					if (value.length < valueLength)
+						value = new byte[valueLength];
+					in.readFully(value, 0, valueLength);
+
+					int recordSize = PUT_OVERHEAD + keyBytes.length + valueLength;
+					long valueOffset = position + PUT_OVERHEAD + keyBytes.length;
+					if (isExpired(expiry)) {
+						previous = this.index.remove(key);
+						this.garbage.addAndGet(recordSize);
+					} else {
+						previous = this.index.put(key, new Location(valueOffset, valueLength, expiry, recordSize));
+					}
+					position += recordSize;
+
+				} else {
+					previous = this.index.remove(key);
+					int recordSize = DELETE_OVERHEAD + keyBytes.length;
+					this.garbage.addAndGet(recordSize);
+					position += recordSize;
+				}
+
+				if (previous != null)
+					this.garbage.addAndGet(previous.recordSize);
+			}
+		} catch (EOFException e) {
+			// an incomplete record at the end is handled below
+		}
+
+		if (position < length) {
+			LOG.warn("Truncating {} bytes of incomplete or corrupt records from the end of {}", length - position,
+					 this.path);
+			this.channel.truncate(position);
+		}
+		this.size = position;
+	}
+
+	private static void readFully(@Nonnull FileChannel channel, @Nonnull ByteBuffer buffer,
+								  long position) throws IOException {
+		long offset = position;
+		while (buffer.hasRemaining()) {
+			int read = channel.read(buffer, offset);
+			if (read < 0)
+				throw new EOFException();
+			offset += read;
+		}
+	}
+
+	@Nonnull
+	private static byte[] encodeKey(@Nonnull String key) {
+		var bytes = key.getBytes(UTF_8);
+		if (bytes.length > 0xFFFF)
+			throw new IllegalArgumentException("key is too long");
+		return bytes;
+	}
+
+	private static final class Location {
+
+		private final long valueOffset;
+		private final int length;
+		private final long expiry;
+		private final int recordSize;
+
+		Location(long valueOffset, int length, long expiry, int recordSize) {
+			this.valueOffset = valueOffset;
+			this.length = length;
+			this.expiry = expiry;
+			this.recordSize = recordSize;
+		}
+
+	}
+
+}
@@ -0,0 +1,105 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2026 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.core.store;
+
+import java.time.Duration;
+
+import javax.annotation.*;
+
+import org.eu.zajc.akiwrapper.*;
+import org.eu.zajc.akiwrapper.core.snapshot.GameSnapshot;
+
+/**
+ * Stores {@link GameSnapshot}s by key, so that idle games can be parked outside of
+ * the heap between interactions and resumed when they're needed again. A typical
+ * bot parks a game after each interaction with
+ * {@link #park(String, Akiwrapper, Duration)} and resumes it on the next one with
+ * {@link AkiwrapperBuilder#resume(GameStore, String)}.<br>
+ * Each entry has a time-to-live, after which it's no longer returned by
+ * {@link #get(String)}. Implementations must be thread-safe. Akiwrapper comes with
+ * an in-memory store ({@link MemoryGameStore}), a file-backed store
+ * ({@link FileGameStore}), and an adapter for external key-value stores
+ * ({@link KeyValueGameStore}). Custom implementations should usually extend
+ * {@link AbstractGameStore}, which takes care of encoding and metrics.
+ *
+ * @author Marko Zajc
+ *
+ * @see GameSnapshot
+ */
+public interface GameStore {
+
+	/**
+	 * Stores a snapshot, replacing any snapshot already stored under the same key.
+	 *
+	 * @param key
+	 *            the key to store the snapshot under.
+	 * @param snapshot
+	 *            the snapshot to store.
+	 * @param ttl
+	 *            the time after which the snapshot expires.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if {@code ttl} is not positive.
+	 */
+	void put(@Nonnull String key, @Nonnull GameSnapshot snapshot, @Nonnull Duration ttl);
+
+	/**
+	 * Retrieves a snapshot. The snapshot is not removed from the store.
+	 *
+	 * @param key
+	 *            the key the snapshot is stored under.
+	 *
+	 * @return the snapshot, or {@code null} if there is no snapshot stored under
+	 *         {@code key} or if it has expired.
+	 */
+	@Nullable
+	GameSnapshot get(@Nonnull String key);
+
+	/**
+	 * Removes a snapshot.
+	 *
+	 * @param key
+	 *            the key the snapshot is stored under.
+	 *
+	 * @return whether a snapshot was removed.
+	 */
+	boolean evict(@Nonnull String key);
+
+	/**
+	 * @return the metrics of this store.
+	 */
+	@Nonnull
+	GameStoreMetrics getMetrics();
+
+	/**
+	 * Takes a snapshot of a game and stores it. This is a shorthand for
+	 * {@code put(key, api.snapshot(), ttl)}.
+	 *
+	 * @param key
+	 *            the key to store the game under.
+	 * @param api
+	 *            the game to store.
+	 * @param ttl
+	 *            the time after which the stored game expires.
+	 *
+	 * @see Akiwrapper#snapshot()
+	 */
+	default void park(@Nonnull String key, @Nonnull Akiwrapper api, @Nonnull Duration ttl) {
+		put(key, api.snapshot(), ttl);
+	}
+
+}
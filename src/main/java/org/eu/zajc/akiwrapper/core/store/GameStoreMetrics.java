@@ -0,0 +1,164 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2026 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.core.store;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.*;
+
+import javax.annotation.Nonnull;
+
+import org.eu.zajc.akiwrapper.core.snapshot.GameSnapshot;
+
+/**
+ * Hit, miss, and latency metrics of a {@link GameStore}. The counters are updated
+ * as the store is used and can be read at any time. Latencies are measured from
+ * the caller's point of view, so they include encoding and decoding snapshots.
+ *
+ * @author Marko Zajc
+ */
+public final class GameStoreMetrics {
+
+	@Nonnull private final LongAdder hits = new LongAdder();
+	@Nonnull private final LongAdder misses = new LongAdder();
+	@Nonnull private final LongAdder expirations = new LongAdder();
+	@Nonnull private final LongAdder puts = new LongAdder();
+	@Nonnull private final LongAdder evictions = new LongAdder();
+	@Nonnull private final LongAdder getNanos = new LongAdder();
+	@Nonnull private final LongAdder putNanos = new LongAdder();
+	@Nonnull private final LongAccumulator maxGetNanos = new LongAccumulator(Math::max, 0);
+	@Nonnull private final LongAccumulator maxPutNanos = new LongAccumulator(Math::max, 0);
+
+	void recordGet(boolean hit, long nanos) {
+		(hit ? this.hits : this.misses).increment();
+		this.getNanos.add(nanos);
+		this.maxGetNanos.accumulate(nanos);
+	}
+
+	void recordPut(long nanos) {
+		this.puts.increment();
+		this.putNanos.add(nanos);
+		this.maxPutNanos.accumulate(nanos);
+	}
+
+	void recordEviction() {
+		this.evictions.increment();
+	}
+
+	void recordExpiration() {
+		this.expirations.increment();
+	}
+
+	/**
+	 * @return the amount of {@link GameStore#get(String)} calls that returned a
+	 *         snapshot.
+	 */
+	public long getHits() {
+		return this.hits.sum();
+	}
+
+	/**
+	 * @return the amount of {@link GameStore#get(String)} calls that didn't return a
+	 *         snapshot, including those whose snapshot had expired.
+	 */
+	public long getMisses() {
+		return this.misses.sum();
+	}
+
+	/**
+	 * @return the fraction of {@link GameStore#get(String)} calls that returned a
+	 *         snapshot, or {@code 0} if there were none.
+	 */
+	public double getHitRatio() {
+		long currentHits = getHits();
+		long total = currentHits + getMisses();
+		return total == 0 ? 0 : (double) currentHits / total;
+	}
+
+	/**
+	 * Returns the amount of expired entries the store has discarded. Stores that
+	 * delegate expiry to an external system (such as {@link KeyValueGameStore}) don't
+	 * know when entries expire, so this is always {@code 0} for them.
+	 *
+	 * @return the amount of discarded expired entries.
+	 */
+	public long getExpirations() {
+		return this.expirations.sum();
+	}
+
+	/**
+	 * @return the amount of {@link GameStore#put(String, GameSnapshot, Duration)} calls.
+	 */
+	public long getPuts() {
+		return this.puts.sum();
+	}
+
+	/**
+	 * @return the amount of {@link GameStore#evict(String)} calls that removed a
+	 *         snapshot.
+	 */
+	public long getEvictions() {
+		return this.evictions.sum();
+	}
+
+	/**
+	 * @return the mean latency of {@link GameStore#get(String)} calls.
+	 */
+	@Nonnull
+	public Duration getMeanGetLatency() {
+		return mean(this.getNanos.sum(), getHits() + getMisses());
+	}
+
+	/**
+	 * @return the highest latency of a {@link GameStore#get(String)} call.
+	 */
+	@Nonnull
+	public Duration getMaxGetLatency() {
+		return Duration.ofNanos(this.maxGetNanos.get());
+	}
+
+	/**
+	 * @return the mean latency of {@link GameStore#put(String, GameSnapshot, Duration)}
+	 *         calls.
+	 */
+	@Nonnull
+	public Duration getMeanPutLatency() {
+		return mean(this.putNanos.sum(), getPuts());
+	}
+
+	/**
+	 * @return the highest latency of a
+	 *         {@link GameStore#put(String, GameSnapshot, Duration)} call.
+	 */
+	@Nonnull
+	public Duration getMaxPutLatency() {
+		return Duration.ofNanos(this.maxPutNanos.get());
+	}
+
+	@Nonnull
+	private static Duration mean(long nanos, long count) {
+		return count == 0 ? Duration.ZERO : Duration.ofNanos(nanos / count);
+	}
+
+	@Override
+	public String toString() {
+		return String.format("hits=%d misses=%d hitRatio=%.3f expirations=%d puts=%d evictions=%d " +
+			"meanGet=%s maxGet=%s meanPut=%s maxPut=%s", getHits(), getMisses(), getHitRatio(), getExpirations(),
+							 getPuts(), getEvictions(), getMeanGetLatency(), getMaxGetLatency(), getMeanPutLatency(),
+							 getMaxPutLatency());
+	}
+
+}
@@ -0,0 +1,69 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2026 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.core.store;
+
+import java.time.Duration;
+
+import javax.annotation.*;
+
+/**
+ * A minimal client for an external key-value store (such as Redis or Memcached),
+ * used by {@link KeyValueGameStore}. Implementations are expected to be thin
+ * wrappers around an existing client library and must be thread-safe. Failures
+ * should be thrown as unchecked exceptions.
+ *
+ * @author Marko Zajc
+ *
+ * @see KeyValueGameStore
+ */
+public interface KeyValueClient {
+
+	/**
+	 * Stores a value, replacing any value already stored under the same key. The value
+	 * should expire after {@code ttl}.
+	 *
+	 * @param key
+	 *            the key to store the value under.
+	 * @param value
+	 *            the value to store.
+	 * @param ttl
+	 *            the time after which the value expires, always positive.
+	 */
+	void set(@Nonnull String key, @Nonnull byte[] value, @Nonnull Duration ttl);
+
+	/**
+	 * Retrieves a value.
+	 *
+	 * @param key
+	 *            the key the value is stored under.
+	 *
+	 * @return the value, or {@code null} if there is none or it has expired.
+	 */
+	@Nullable
+	byte[] get(@Nonnull String key);
+
+	/**
+	 * Removes a value.
+	 *
+	 * @param key
+	 *            the key the value is stored under.
+	 *
+	 * @return whether a value was removed.
+	 */
+	boolean delete(@Nonnull String key);
+
+}
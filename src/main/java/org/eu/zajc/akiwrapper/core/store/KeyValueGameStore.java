@@ -0,0 +1,97 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2026 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.core.store;
+
+import java.time.Duration;
+
+import javax.annotation.*;
+
+/**
+ * A {@link GameStore} backed by an external key-value store through a
+ * {@link KeyValueClient}, which allows games to be shared by several processes.
+ * Snapshots are stored in their binary form under the given key with a prefix
+ * prepended, and expiry is left to the key-value store.
+ *
+ * @author Marko Zajc
+ */
+public class KeyValueGameStore extends AbstractGameStore {
+
+	/**
+	 * The default key prefix.
+	 */
+	@Nonnull public static final String DEFAULT_PREFIX = "akiwrapper:game:";
+
+	@Nonnull private final KeyValueClient client;
+	@Nonnull private final String prefix;
+
+	/**
+	 * Creates a new {@link KeyValueGameStore} with the default key prefix
+	 * ({@link #DEFAULT_PREFIX}).
+	 *
+	 * @param client
+	 *            the client to store snapshots with.
+	 */
+	public KeyValueGameStore(@Nonnull KeyValueClient client) {
+		this(client, DEFAULT_PREFIX);
+	}
+
+	/**
+	 * Creates a new {@link KeyValueGameStore}.
+	 *
+	 * @param client
+	 *            the client to store snapshots with.
+	 * @param prefix
+	 *            the prefix to prepend to keys.
+	 */
+	public KeyValueGameStore(@Nonnull KeyValueClient client, @Nonnull String prefix) {
+		this.client = client;
+		this.prefix = prefix;
+	}
+
+	@Override
+	protected void write(@Nonnull String key, @Nonnull byte[] snapshot, @Nonnull Duration ttl) {
+		this.client.set(this.prefix + key, snapshot, ttl);
+	}
+
+	@Override
+	@Nullable
+	protected byte[] read(@Nonnull String key) {
+		return this.client.get(this.prefix + key);
+	}
+
+	@Override
+	protected boolean delete(@Nonnull String key) {
+		return this.client.delete(this.prefix + key);
+	}
+
+	/**
+	 * @return the client snapshots are stored with.
+	 */
+	@Nonnull
+	public KeyValueClient getClient() {
+		return this.client;
+	}
+
+	/**
+	 * @return the prefix prepended to keys.
+	 */
+	@Nonnull
+	public String getPrefix() {
+		return this.prefix;
+	}
+
+}
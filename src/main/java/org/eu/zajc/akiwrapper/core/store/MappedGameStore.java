@@ -0,0 +1,694 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2026 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.core.store;
+
+import static java.lang.System.nanoTime;
+import static java.nio.channels.FileChannel.MapMode.READ_WRITE;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.*;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+
+import javax.annotation.*;
+
+import org.eu.zajc.akiwrapper.Akiwrapper.*;
+import org.eu.zajc.akiwrapper.core.snapshot.*;
+import org.eu.zajc.akiwrapper.core.snapshot.GameSnapshot.QueryType;
+
+/**
+ * A {@link GameStore} that keeps snapshots in a memory-mapped file rather than on the
+ * heap, so that the heap usage and garbage collection pauses of an application don't
+ * grow with the number of idle games it holds. Snapshots are taken apart into
+ * fixed-size records kept in an open-addressing hash table, which is split into
+ * independently locked segments. Strings shared between games, such as question
+ * texts and guess descriptions, are kept once in a deduplicated string area, and
+ * strings unique to a game (the key and the session) are kept inline in its record.
+ * Snapshots are put back together when they're retrieved.<br>
+ * The store has a fixed capacity, chosen when the file is created. Records take up
+ * {@value #RECORD_SIZE} bytes each, and the hash table is sized at twice the
+ * capacity to keep lookups fast, so a store with a capacity of one million games
+ * maps roughly 400 MiB for records. Only the pages that are touched take up memory,
+ * and the operating system can page them out. The string area is never compacted,
+ * which is fine for text that repeats between games, but means that keys and
+ * session values too long to be kept inline (over 55 and 39 bytes respectively)
+ * leak space in it.<br>
+ * The file can be reopened with the same settings to recover the stored games,
+ * but it is not crash-safe: if the process or the system crashes, the file may be
+ * left inconsistent.
+ *
+ * @author Marko Zajc
+ */
+public class MappedGameStore implements GameStore, Closeable {
+
+	/**
+	 * The default size of the string area, in bytes.
+	 */
+	public static final int DEFAULT_STRING_AREA_SIZE = 64 << 20;
+
+	/**
+	 * The size of each game's record, in bytes.
+	 */
+	public static final int RECORD_SIZE = 192;
+
+	private static final byte[] MAGIC = { 'A', 'K', 'M', 'S' };
+	private static final int VERSION = 1;
+
+	private static final int HEADER_SIZE = 64;
+	private static final int HEADER_VERSION = 4;
+	private static final int HEADER_SEGMENTS = 8;
+	private static final int HEADER_SEGMENT_SLOTS = 12;
+	private static final int HEADER_STRING_SLOTS = 16;
+	private static final int HEADER_STRING_AREA_SIZE = 20;
+	private static final int HEADER_STRING_END = 24;
+
+	private static final int MAX_SEGMENTS = 16;
+	private static final double LOAD_FACTOR = 0.5;
+	private static final double MAX_FILL = 0.75;
+	private static final int MIN_STRING_SLOTS = 1024;
+	private static final int STRING_SLOT_SIZE = 8;
+	private static final int AVERAGE_STRING_SIZE = 32;
+
+	private static final int RECORD_STATE = 0;
+	private static final int RECORD_FLAGS = 1;
+	private static final int RECORD_THEME = 2;
+	private static final int RECORD_LAST_GUESS_STEP = 3;
+	private static final int RECORD_STEP = 4;
+	private static final int RECORD_LANGUAGE = 5; // two ASCII characters
+	private static final int RECORD_EXPIRY = 8;
+	private static final int RECORD_PROGRESSION = 16;
+	private static final int RECORD_KEY_HASH = 24;
+	private static final int RECORD_TEXT = 28;
+	private static final int RECORD_GUESS_ID = 32;
+	private static final int RECORD_GUESS_PSEUDONYM = 36;
+	private static final int RECORD_GUESS_DESCRIPTION = 40;
+	private static final int RECORD_GUESS_IMAGE = 44;
+	private static final int RECORD_GUESS_FLAG_PHOTO = 48;
+	private static final int RECORD_IDENTIFIER = 52;
+	private static final int RECORD_SIGNATURE = 80;
+	private static final int RECORD_SESSION = 96;
+	private static final int RECORD_KEY = 136;
+	private static final int IDENTIFIER_CAPACITY = RECORD_SIGNATURE - RECORD_IDENTIFIER;
+	private static final int SIGNATURE_CAPACITY = RECORD_SESSION - RECORD_SIGNATURE;
+	private static final int SESSION_CAPACITY = RECORD_KEY - RECORD_SESSION;
+	private static final int KEY_CAPACITY = RECORD_SIZE - RECORD_KEY;
+
+	private static final byte STATE_EMPTY = 0;
+	private static final byte STATE_USED = 1;
+	private static final byte STATE_DELETED = 2;
+
+	private static final int FLAG_FILTER_PROFANITY = 1;
+	private static final int FLAG_QUESTION = 1 << 1;
+	private static final int FLAG_GUESS = 1 << 2;
+
+	private static final int NULL_REFERENCE = -1;
+	private static final int INLINE_NULL = 0xFF;
+	private static final int INLINE_OVERFLOW = 0xFE;
+
+	@Nonnull private final Path path;
+	@Nonnull private final FileChannel channel;
+	@Nonnull private final MappedByteBuffer header;
+	@Nonnull private final MappedByteBuffer records;
+	@Nonnull private final MappedByteBuffer stringSlots;
+	@Nonnull private final MappedByteBuffer strings;
+	@Nonnull private final Segment[] segments;
+	private final int segmentBits;
+	private final int segmentSlots;
+	private final int maxSegmentFill;
+	private final int stringSlotCount;
+	private final int stringAreaSize;
+	@Nonnull private final Object stringLock = new Object();
+	private int stringEnd;
+	private int stringCount;
+	@Nonnull private final GameStoreMetrics metrics = new GameStoreMetrics();
+	private volatile boolean closed;
+
+	/**
+	 * Opens or creates a {@link MappedGameStore} with the default string area size
+	 * ({@link #DEFAULT_STRING_AREA_SIZE}).
+	 *
+	 * @param path
+	 *            the file to store games in.
+	 * @param capacity
+	 *            the amount of games the store should be able to hold. The store may
+	 *            hold slightly fewer games if keys are distributed unevenly.
+	 *
+	 * @throws IOException
+	 *             if the file can't be opened, isn't a game store file, or was created
+	 *             with different settings.
+	 */
+	public MappedGameStore(@Nonnull Path path, int capacity) throws IOException {
+		this(path, capacity, DEFAULT_STRING_AREA_SIZE);
+	}
+
+	/**
+	 * Opens or creates a {@link MappedGameStore}.
+	 *
+	 * @param path
+	 *            the file to store games in.
+	 * @param capacity
+	 *            the amount of games the store should be able to hold. The store may
+	 *            hold slightly fewer games if keys are distributed unevenly.
+	 * @param stringAreaSize
+	 *            the size of the deduplicated string area, in bytes.
+	 *
+	 * @throws IOException
+	 *             if the file can't be opened, isn't a game store file, or was created
+	 *             with different settings.
+	 */
+	@SuppressWarnings("null")
+	public MappedGameStore(@Nonnull Path path, int capacity, int stringAreaSize) throws IOException {
+		if (capacity < 1)
+			throw new IllegalArgumentException("capacity must be positive");
+		if (stringAreaSize < 1)
+			throw new IllegalArgumentException("stringAreaSize must be positive");
+
+		int segmentCount = capacity >= MAX_SEGMENTS * 64 ? MAX_SEGMENTS : 1;
+		int slots = ceilPowerOfTwo((long) Math.ceil(capacity / (double) segmentCount / LOAD_FACTOR));
+		long recordsSize = (long) segmentCount * slots * RECORD_SIZE;
+		if (slots < 0 || recordsSize > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("capacity is too large");
+		int stringSlots = ceilPowerOfTwo(Math.max(MIN_STRING_SLOTS, stringAreaSize / AVERAGE_STRING_SIZE));
+
+		this.path = path;
+		this.segmentSlots = slots;
+		this.segmentBits = Integer.numberOfTrailingZeros(segmentCount);
+		this.maxSegmentFill = (int) (slots * MAX_FILL);
+		this.stringSlotCount = stringSlots;
+		this.stringAreaSize = stringAreaSize;
+
+		this.channel = FileChannel.open(path, CREATE, READ, WRITE);
+		boolean created;
+		try {
+			created = this.channel.size() == 0;
+			this.header = this.channel.map(READ_WRITE, 0, HEADER_SIZE);
+			if (created) {
+				this.header.put(0, MAGIC[0]).put(1, MAGIC[1]).put(2, MAGIC[2]).put(3, MAGIC[3]);
+				this.header.putInt(HEADER_VERSION, VERSION)
+					.putInt(HEADER_SEGMENTS, segmentCount)
+					.putInt(HEADER_SEGMENT_SLOTS, slots)
+					.putInt(HEADER_STRING_SLOTS, stringSlots)
+					.putInt(HEADER_STRING_AREA_SIZE, stringAreaSize)
+					.putInt(HEADER_STRING_END, 0);
+
+			} else {
+				for (int i = 0; i < MAGIC.length; i++)
+					if (this.header.get(i) != MAGIC[i])
+						throw new IOException(path + " is not a game store file");
+				if (this.header.getInt(HEADER_VERSION) != VERSION ||
+					this.header.getInt(HEADER_SEGMENTS) != segmentCount ||
+					this.header.getInt(HEADER_SEGMENT_SLOTS) != slots ||
+					this.header.getInt(HEADER_STRING_SLOTS) != stringSlots ||
+					this.header.getInt(HEADER_STRING_AREA_SIZE) != stringAreaSize)
+					throw new IOException(path + " was created with different settings");
+			}
+
+			long position = HEADER_SIZE;
+			this.records = this.channel.map(READ_WRITE, position, recordsSize);
+			position += recordsSize;
+			this.stringSlots = this.channel.map(READ_WRITE, position, (long) stringSlots * STRING_SLOT_SIZE);
+			position += (long) stringSlots * STRING_SLOT_SIZE;
+			this.strings = this.channel.map(READ_WRITE, position, stringAreaSize);
+
+		} catch (IOException | RuntimeException e) {
+			this.channel.close();
+			throw e;
+		}
+
+		this.stringEnd = this.header.getInt(HEADER_STRING_END);
+		this.segments = new Segment[segmentCount];
+		for (int i = 0; i < segmentCount; i++)
+			this.segments[i] = new Segment(i * slots);
+
+		if (!created)
+			recount();
+	}
+
+	@Override
+	public void put(@Nonnull String key, @Nonnull GameSnapshot snapshot, @Nonnull Duration ttl) {
+		if (ttl.isNegative() || ttl.isZero())
+			throw new IllegalArgumentException("ttl must be positive");
+		ensureOpen();
+
+		long start = nanoTime();
+		var keyBytes = key.getBytes(UTF_8);
+		int hash = hash(keyBytes);
+		var record = encode(keyBytes, hash, snapshot, AbstractGameStore.expiryOf(ttl));
+
+		var segment = segmentOf(hash);
+		synchronized (segment) {
+			int offset = find(segment, hash, keyBytes);
+			if (offset < 0) {
+				if (segment.live + segment.deleted >= this.maxSegmentFill) {
+					rehash(segment);
+					if (segment.live >= this.maxSegmentFill)
+						throw new IllegalStateException("The store is full");
+				}
+
+				offset = findFree(segment, hash);
+				if (this.records.get(offset + RECORD_STATE) == STATE_DELETED)
+					segment.deleted--;
+				segment.live++;
+			}
+			this.records.duplicate().position(offset).put(record);
+		}
+		this.metrics.recordPut(nanoTime() - start);
+	}
+
+	@Override
+	@Nullable
+	public GameSnapshot get(@Nonnull String key) {
+		ensureOpen();
+
+		long start = nanoTime();
+		var keyBytes = key.getBytes(UTF_8);
+		int hash = hash(keyBytes);
+		var segment = segmentOf(hash);
+		GameSnapshot snapshot = null;
+		synchronized (segment) {
+			int offset = find(segment, hash, keyBytes);
+			if (offset >= 0) {
+				if (AbstractGameStore.isExpired(this.records.getLong(offset + RECORD_EXPIRY))) {
+					delete(segment, offset);
+					this.metrics.recordExpiration();
+				} else {
+					snapshot = decode(offset);
+				}
+			}
+		}
+		this.metrics.recordGet(snapshot != null, nanoTime() - start);
+		return snapshot;
+	}
+
+	@Override
+	public boolean evict(@Nonnull String key) {
+		ensureOpen();
+
+		var keyBytes = key.getBytes(UTF_8);
+		int hash = hash(keyBytes);
+		var segment = segmentOf(hash);
+		synchronized (segment) {
+			int offset = find(segment, hash, keyBytes);
+			if (offset < 0)
+				return false;
+
+			boolean expired = AbstractGameStore.isExpired(this.records.getLong(offset + RECORD_EXPIRY));
+			delete(segment, offset);
+			if (expired)
+				return false;
+		}
+		this.metrics.recordEviction();
+		return true;
+	}
+
+	@Override
+	@Nonnull
+	public GameStoreMetrics getMetrics() {
+		return this.metrics;
+	}
+
+	/**
+	 * Returns the amount of stored games, which may include expired games that haven't
+	 * been discarded yet.
+	 *
+	 * @return the amount of stored games.
+	 */
+	public int size() {
+		int size = 0;
+		for (var segment : this.segments) {
+			synchronized (segment) {
+				size += segment.live;
+			}
+		}
+		return size;
+	}
+
+	/**
+	 * @return the amount of distinct strings in the string area.
+	 */
+	public int getStringCount() {
+		synchronized (this.stringLock) {
+			return this.stringCount;
+		}
+	}
+
+	/**
+	 * @return the amount of bytes used in the string area.
+	 */
+	public int getStringAreaUsage() {
+		synchronized (this.stringLock) {
+			return this.stringEnd;
+		}
+	}
+
+	/**
+	 * @return the file games are stored in.
+	 */
+	@Nonnull
+	public Path getPath() {
+		return this.path;
+	}
+
+	/**
+	 * Writes all changes to the storage device and closes the file. The file stays
+	 * mapped until the store is garbage collected.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (this.closed)
+			return;
+		this.closed = true;
+
+		this.header.force();
+		this.records.force();
+		this.stringSlots.force();
+		this.strings.force();
+		this.channel.close();
+	}
+
+	private void recount() {
+		for (var segment : this.segments) {
+			for (int i = 0; i < this.segmentSlots; i++) {
+				byte state = this.records.get(recordOffset(segment, i) + RECORD_STATE);
+				if (state == STATE_USED)
+					segment.live++;
+				else if (state == STATE_DELETED)
+					segment.deleted++;
+			}
+		}
+
+		for (int i = 0; i < this.stringSlotCount; i++)
+			if (this.stringSlots.getInt(i * STRING_SLOT_SIZE + 4) != 0)
+				this.stringCount++;
+	}
+
+	private void ensureOpen() {
+		if (this.closed)
+			throw new IllegalStateException("The store is closed");
+	}
+
+	@Nonnull
+	private Segment segmentOf(int hash) {
+		return this.segmentBits == 0 ? this.segments[0] : this.segments[hash >>> (32 - this.segmentBits)];
+	}
+
+	private int recordOffset(@Nonnull Segment segment, int slot) {
+		return (segment.base + slot) * RECORD_SIZE;
+	}
+
+	private int find(@Nonnull Segment segment, int hash, @Nonnull byte[] key) {
+		int mask = this.segmentSlots - 1;
+		for (int probe = 0, slot = hash & mask; probe < this.segmentSlots; probe++, slot = (slot + 1) & mask) {
+			int offset = recordOffset(segment, slot);
+			byte state = this.records.get(offset + RECORD_STATE);
+			if (state == STATE_EMPTY)
+				return -1;
+			if (state == STATE_USED && this.records.getInt(offset + RECORD_KEY_HASH) == hash &&
+				keyEquals(offset + RECORD_KEY, key))
+				return offset;
+		}
+		return -1;
+	}
+
+	private int findFree(@Nonnull Segment segment, int hash) {
+		int mask = this.segmentSlots - 1;
+		for (int probe = 0, slot = hash & mask; probe < this.segmentSlots; probe++, slot = (slot + 1) & mask) {
+			int offset = recordOffset(segment, slot);
+			if (this.records.get(offset + RECORD_STATE) != STATE_USED)
+				return offset;
+		}
+		throw new IllegalStateException("The store is full"); // can't happen, the fill is limited
+	}
+
+	private void delete(@Nonnull Segment segment, int offset) {
+		this.records.put(offset + RECORD_STATE, STATE_DELETED);
+		segment.live--;
+		segment.deleted++;
+	}
+
+	private void rehash(@Nonnull Segment segment) {
+		var live = new ArrayList<byte[]>(segment.live);
+		for (int i = 0; i < this.segmentSlots; i++) {
+			int offset = recordOffset(segment, i);
+			if (this.records.get(offset + RECORD_STATE) != STATE_USED)
+				continue;
+
+			if (AbstractGameStore.isExpired(this.records.getLong(offset + RECORD_EXPIRY))) {
+				this.metrics.recordExpiration();
+				continue;
+			}
+
+			var record = new byte[RECORD_SIZE];
+			this.records.duplicate().position(offset).get(record);
+			live.add(record);
+		}
+
+		for (int i = 0; i < this.segmentSlots; i++)
+			this.records.put(recordOffset(segment, i) + RECORD_STATE, STATE_EMPTY);
+
+		for (var record : live) {
+			int hash = ByteBuffer.wrap(record).getInt(RECORD_KEY_HASH);
+			this.records.duplicate().position(findFree(segment, hash)).put(record);
+		}
+		segment.live = live.size();
+		segment.deleted = 0;
+	}
+
+	@Nonnull
+	@SuppressWarnings("null")
+	private byte[] encode(@Nonnull byte[] key, int hash, @Nonnull GameSnapshot snapshot, long expiry) {
+		var record = ByteBuffer.wrap(new byte[RECORD_SIZE]);
+		int flags = 0;
+		if (snapshot.doesFilterProfanity())
+			flags |= FLAG_FILTER_PROFANITY;
+		if (snapshot.getQueryType() == QueryType.QUESTION)
+			flags |= FLAG_QUESTION;
+		else if (snapshot.getQueryType() == QueryType.GUESS)
+			flags |= FLAG_GUESS;
+
+		var languageCode = snapshot.getLanguage().getLanguageCode();
+		record.put(RECORD_STATE, STATE_USED)
+			.put(RECORD_FLAGS, (byte) flags)
+			.put(RECORD_THEME, (byte) snapshot.getTheme().getId())
+			.put(RECORD_LAST_GUESS_STEP, (byte) snapshot.getLastGuessStep())
+			.put(RECORD_STEP, (byte) snapshot.getStep())
+			.put(RECORD_LANGUAGE, (byte) languageCode.charAt(0))
+			.put(RECORD_LANGUAGE + 1, (byte) languageCode.charAt(1))
+			.putLong(RECORD_EXPIRY, expiry)
+			.putDouble(RECORD_PROGRESSION, snapshot.getProgression())
+			.putInt(RECORD_KEY_HASH, hash)
+			.putInt(RECORD_TEXT, intern(snapshot.getText()))
+			.putInt(RECORD_GUESS_ID, intern(snapshot.getGuessId()))
+			.putInt(RECORD_GUESS_PSEUDONYM, intern(snapshot.getGuessPseudonym()))
+			.putInt(RECORD_GUESS_DESCRIPTION, intern(snapshot.getGuessDescription()))
+			.putInt(RECORD_GUESS_IMAGE, intern(snapshot.getGuessImage()))
+			.putInt(RECORD_GUESS_FLAG_PHOTO, intern(snapshot.getGuessFlagPhoto()));
+
+		putInline(record, RECORD_IDENTIFIER, IDENTIFIER_CAPACITY, encodeNullable(snapshot.getIdentifier()));
+		putInline(record, RECORD_SIGNATURE, SIGNATURE_CAPACITY, snapshot.getSignature().getBytes(UTF_8));
+		putInline(record, RECORD_SESSION, SESSION_CAPACITY, snapshot.getSession().getBytes(UTF_8));
+		putInline(record, RECORD_KEY, KEY_CAPACITY, key);
+		return record.array();
+	}
+
+	@Nonnull
+	@SuppressWarnings("null")
+	private GameSnapshot decode(int offset) {
+		int flags = this.records.get(offset + RECORD_FLAGS);
+		int step = Byte.toUnsignedInt(this.records.get(offset + RECORD_STEP));
+		double progression = this.records.getDouble(offset + RECORD_PROGRESSION);
+
+		var builder = new GameSnapshotBuilder()
+			.setLanguage(languageOf(this.records.get(offset + RECORD_LANGUAGE),
+									this.records.get(offset + RECORD_LANGUAGE + 1)))
+			.setTheme(themeOf(Byte.toUnsignedInt(this.records.get(offset + RECORD_THEME))))
+			.setFilterProfanity((flags & FLAG_FILTER_PROFANITY) != 0)
+			.setSession(getInline(offset + RECORD_SESSION), getInline(offset + RECORD_SIGNATURE),
+						getInline(offset + RECORD_IDENTIFIER))
+			.setLastGuessStep(Byte.toUnsignedInt(this.records.get(offset + RECORD_LAST_GUESS_STEP)));
+
+		if ((flags & FLAG_QUESTION) != 0)
+			builder.setQuestion(step, progression, getString(this.records.getInt(offset + RECORD_TEXT)));
+		else if ((flags & FLAG_GUESS) != 0)
+			builder.setGuess(step, progression, getString(this.records.getInt(offset + RECORD_TEXT)),
+							 getString(this.records.getInt(offset + RECORD_GUESS_ID)),
+							 getString(this.records.getInt(offset + RECORD_GUESS_PSEUDONYM)),
+							 getString(this.records.getInt(offset + RECORD_GUESS_DESCRIPTION)),
+							 getString(this.records.getInt(offset + RECORD_GUESS_IMAGE)),
+							 getString(this.records.getInt(offset + RECORD_GUESS_FLAG_PHOTO)));
+		return builder.build();
+	}
+
+	private void putInline(@Nonnull ByteBuffer record, int offset, int capacity, @Nullable byte[] value) {
+		if (value == null) {
+			record.put(offset, (byte) INLINE_NULL);
+
+		} else if (value.length < capacity) {
+			record.put(offset, (byte) value.length);
+			record.duplicate().position(offset + 1).put(value);
+
+		} else {
+			record.put(offset, (byte) INLINE_OVERFLOW);
+			record.putInt(offset + 1, intern(value));
+		}
+	}
+
+	@Nullable
+	private String getInline(int offset) {
+		int length = Byte.toUnsignedInt(this.records.get(offset));
+		if (length == INLINE_NULL)
+			return null;
+		if (length == INLINE_OVERFLOW)
+			return getString(this.records.getInt(offset + 1));
+
+		var bytes = new byte[length];
+		this.records.duplicate().position(offset + 1).get(bytes);
+		return new String(bytes, UTF_8);
+	}
+
+	private boolean keyEquals(int offset, @Nonnull byte[] key) {
+		int length = Byte.toUnsignedInt(this.records.get(offset));
+		if (length == INLINE_OVERFLOW)
+			return stringEquals(this.records.getInt(offset + 1), key);
+		if (length != key.length)
+			return false;
+
+		for (int i = 0; i < length; i++)
+			if (this.records.get(offset + 1 + i) != key[i])
+				return false;
+		return true;
+	}
+
+	private int intern(@Nullable String value) {
+		return value == null ? NULL_REFERENCE : intern(value.getBytes(UTF_8));
+	}
+
+	private int intern(@Nonnull byte[] value) {
+		int hash = Arrays.hashCode(value);
+		int mask = this.stringSlotCount - 1;
+		synchronized (this.stringLock) {
+			int slot = mix(hash) & mask;
+			while (true) {
+				int position = slot * STRING_SLOT_SIZE;
+				int reference = this.stringSlots.getInt(position + 4) - 1;
+				if (reference == NULL_REFERENCE)
+					break;
+				if (this.stringSlots.getInt(position) == hash && stringEquals(reference, value))
+					return reference;
+				slot = (slot + 1) & mask;
+			}
+
+			if (this.stringCount >= this.stringSlotCount * MAX_FILL ||
+				(long) this.stringEnd + Integer.BYTES + value.length > this.stringAreaSize)
+				throw new IllegalStateException("The string area is full");
+
+			int reference = this.stringEnd;
+			this.strings.putInt(reference, value.length);
+			this.strings.duplicate().position(reference + Integer.BYTES).put(value);
+			this.stringEnd += Integer.BYTES + value.length;
+			this.header.putInt(HEADER_STRING_END, this.stringEnd);
+			this.stringSlots.putInt(slot * STRING_SLOT_SIZE, hash);
+			this.stringSlots.putInt(slot * STRING_SLOT_SIZE + 4, reference + 1);
+			this.stringCount++;
+			return reference;
+		}
+	}
+
+	@Nullable
+	private String getString(int reference) {
+		if (reference == NULL_REFERENCE)
+			return null;
+
+		var bytes = new byte[this.strings.getInt(reference)];
+		this.strings.duplicate().position(reference + Integer.BYTES).get(bytes);
+		return new String(bytes, UTF_8);
+	}
+
+	private boolean stringEquals(int reference, @Nonnull byte[] value) {
+		if (this.strings.getInt(reference) != value.length)
+			return false;
+
+		int start = reference + Integer.BYTES;
+		for (int i = 0; i < value.length; i++)
+			if (this.strings.get(start + i) != value[i])
+				return false;
+		return true;
+	}
+
+	@Nullable
+	private static byte[] encodeNullable(@Nullable String value) {
+		return value == null ? null : value.getBytes(UTF_8);
+	}
+
+	private static int hash(@Nonnull byte[] key) {
+		return mix(Arrays.hashCode(key));
+	}
+
+	private static int mix(int hash) {
+		// the murmur3 finalizer, so that both the high bits (used to pick a segment) and
+		// the low bits (used to pick a slot) are well distributed
+		int h = hash;
+		h ^= h >>> 16;
+		h *= 0x85ebca6b;
+		h ^= h >>> 13;
+		h *= 0xc2b2ae35;
+		h ^= h >>> 16;
+		return h;
+	}
+
+	private static int ceilPowerOfTwo(long value) {
+		if (value > 1 << 30)
+			return -1;
+		int result = Integer.highestOneBit((int) Math.max(1, value));
+		return result < value ? result << 1 : result;
+	}
+
+	@Nonnull
+	private static Language languageOf(byte first, byte second) {
+		for (var language : Language.values()) {
+			var code = language.getLanguageCode();
+			if (code.charAt(0) == first && code.charAt(1) == second)
+				return language;
+		}
+		throw new IllegalStateException("Unknown language in the store");
+	}
+
+	@Nonnull
+	private static Theme themeOf(int id) {
+		for (var theme : Theme.values())
+			if (theme.getId() == id)
+				return theme;
+		throw new IllegalStateException("Unknown theme in the store");
+	}
+
+	private static final class Segment {
+
+		private final int base;
+		private int live;
+		private int deleted;
+
+		Segment(int base) {
+			this.base = base;
+		}
+
+	}
+
+}
@@ -0,0 +1,181 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2026 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.core.store;
+
+import java.time.Duration;
+import java.util.*;
+
+import javax.annotation.*;
+
+/**
+ * A {@link GameStore} that keeps snapshots in memory in their binary form, which
+ * takes up a small fraction of the memory a live game does. Entries are spread over
+ * a number of independently locked stripes, so concurrent calls for different keys
+ * rarely contend.<br>
+ * Expired entries are discarded when they're looked up, and each stripe is swept
+ * for expired entries whenever its size doubles, so the store doesn't fill up with
+ * expired entries that are never looked up again. {@link #purgeExpired()} can be
+ * used to sweep the whole store.
+ *
+ * @author Marko Zajc
+ */
+public class MemoryGameStore extends AbstractGameStore {
+
+	/**
+	 * The default amount of stripes.
+	 */
+	public static final int DEFAULT_STRIPES = 16;
+
+	private static final int MIN_SWEEP_SIZE = 16;
+
+	@Nonnull private final Stripe[] stripes;
+	private final int mask;
+
+	/**
+	 * Creates a new {@link MemoryGameStore} with the default amount of stripes
+	 * ({@link #DEFAULT_STRIPES}).
+	 */
+	public MemoryGameStore() {
+		this(DEFAULT_STRIPES);
+	}
+
+	/**
+	 * Creates a new {@link MemoryGameStore}.
+	 *
+	 * @param stripes
+	 *            the amount of stripes, rounded up to a power of two. More stripes
+	 *            reduce contention between threads.
+	 */
+	public MemoryGameStore(int stripes) {
+		if (stripes < 1)
+			throw new IllegalArgumentException("stripes must be positive");
+
+		int count = Integer.highestOneBit(stripes);
+		if (count < stripes)
+			count <<= 1;
+
+		this.stripes = new Stripe[count];
+		for (int i = 0; i < count; i++)
+			this.stripes[i] = new Stripe();
+		this.mask = count - 1;
+	}
+
+	@Override
+	protected void write(@Nonnull String key, @Nonnull byte[] snapshot, @Nonnull Duration ttl) {
+		stripeOf(key).put(key, new Entry(snapshot, expiryOf(ttl)));
+	}
+
+	@Override
+	@Nullable
+	protected byte[] read(@Nonnull String key) {
+		return stripeOf(key).get(key);
+	}
+
+	@Override
+	protected boolean delete(@Nonnull String key) {
+		return stripeOf(key).remove(key);
+	}
+
+	/**
+	 * Discards all expired entries.
+	 */
+	public void purgeExpired() {
+		for (var stripe : this.stripes) {
+			synchronized (stripe) {
+				stripe.sweep();
+			}
+		}
+	}
+
+	/**
+	 * Returns the amount of stored entries, which may include expired entries that
+	 * haven't been discarded yet.
+	 *
+	 * @return the amount of stored entries.
+	 */
+	public int size() {
+		int size = 0;
+		for (var stripe : this.stripes) {
+			synchronized (stripe) {
+				size += stripe.entries.size();
+			}
+		}
+		return size;
+	}
+
+	@Nonnull
+	private Stripe stripeOf(@Nonnull String key) {
+		int hash = key.hashCode();
+		return this.stripes[(hash ^ (hash >>> 16)) & this.mask];
+	}
+
+	private final class Stripe {
+
+		@Nonnull private final Map<String, Entry> entries = new HashMap<>();
+		private int sweepSize = MIN_SWEEP_SIZE;
+
+		synchronized void put(@Nonnull String key, @Nonnull Entry entry) {
+			this.entries.put(key, entry);
+			if (this.entries.size() >= this.sweepSize)
+				sweep();
+		}
+
+		@Nullable
+		synchronized byte[] get(@Nonnull String key) {
+			var entry = this.entries.get(key);
+			if (entry == null)
+				return null;
+
+			if (isExpired(entry.expiry)) {
+				this.entries.remove(key);
+				recordExpiration();
+				return null;
+			}
+			return entry.snapshot;
+		}
+
+		synchronized boolean remove(@Nonnull String key) {
+			var entry = this.entries.remove(key);
+			return entry != null && !isExpired(entry.expiry);
+		}
+
+		void sweep() {
+			var iterator = this.entries.values().iterator();
+			while (iterator.hasNext()) {
+				if (isExpired(iterator.next().expiry)) {
+					iterator.remove();
+					recordExpiration();
+				}
+			}
+			this.sweepSize = Math.max(MIN_SWEEP_SIZE, this.entries.size() * 2);
+		}
+
+	}
+
+	private static final class Entry {
+
+		@Nonnull private final byte[] snapshot;
+		private final long expiry;
+
+		Entry(@Nonnull byte[] snapshot, long expiry) {
+			this.snapshot = snapshot;
+			this.expiry = expiry;
+		}
+
+	}
+
+}
@@ -0,0 +1,101 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2026 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.core.transport;
+
+import static java.net.http.HttpClient.Version.HTTP_2;
+import static java.util.Collections.synchronizedMap;
+import static org.eu.zajc.akiwrapper.core.utils.Utilities.propagateCancellation;
+
+import java.lang.ref.WeakReference;
+import java.net.http.*;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+
+import javax.annotation.Nonnull;
+
+import org.eu.zajc.akiwrapper.AkiwrapperBuilder;
+import org.eu.zajc.akiwrapper.core.utils.SharedHttpClient;
+
+/**
+ * The default {@link Transport}, which sends requests over HTTP/2 with a
+ * {@link HttpClient}.
+ *
+ * @author Marko Zajc
+ *
+ * @see AkiwrapperBuilder#setHttpClient(HttpClient)
+ * @see SharedHttpClient
+ */
+public final class HttpClientTransport implements Transport {
+
+	private static final Map<HttpClient, WeakReference<HttpClientTransport>> INSTANCES =
+		synchronizedMap(new WeakHashMap<>());
+
+	@Nonnull private final HttpClient httpClient;
+
+	private HttpClientTransport(@Nonnull HttpClient httpClient) {
+		this.httpClient = httpClient;
+	}
+
+	/**
+	 * Returns the {@link HttpClientTransport} for a {@link HttpClient}. The same
+	 * instance is returned for the same {@link HttpClient} for as long as it's
+	 * reachable, so state that is tracked per {@link Transport} (such as retry budgets)
+	 * is shared by everything that uses the same {@link HttpClient}.
+	 *
+	 * @param httpClient
+	 *            the {@link HttpClient} to send requests with.
+	 *
+	 * @return the {@link HttpClientTransport} for {@code httpClient}.
+	 */
+	@Nonnull
+	public static HttpClientTransport of(@Nonnull HttpClient httpClient) {
+		synchronized (INSTANCES) {
+			var reference = INSTANCES.get(httpClient);
+			var transport = reference == null ? null : reference.get();
+			if (transport == null) {
+				transport = new HttpClientTransport(httpClient);
+				INSTANCES.put(httpClient, new WeakReference<>(transport));
+			}
+			return transport;
+		}
+	}
+
+	@Override
+	public CompletableFuture<TransportResponse> execute(TransportRequest request) {
+		var req = HttpRequest.newBuilder()
+			.version(HTTP_2)
+			.POST(BodyPublishers.ofByteArray(request.getBody()))
+			.uri(request.getUri())
+			.headers(request.getHeaders());
+		if (request.getTimeout() != null)
+			req.timeout(request.getTimeout());
+
+		var sent = this.httpClient.sendAsync(req.build(), BodyHandlers.ofByteArray());
+		return propagateCancellation(sent.thenApply(r -> new TransportResponse(r.statusCode(), r.body())), sent);
+	}
+
+	/**
+	 * @return the {@link HttpClient} requests are sent with.
+	 */
+	@Nonnull
+	public HttpClient getHttpClient() {
+		return this.httpClient;
+	}
+
+}
@@ -0,0 +1,57 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2026 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.core.transport;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
+import javax.annotation.Nonnull;
+
+import org.eu.zajc.akiwrapper.AkiwrapperBuilder;
+
+/**
+ * Sends requests to Akinator's API. All of Akiwrapper's requests go through a
+ * {@link Transport}, so implementing this interface allows plugging in a different
+ * HTTP client, an in-process stand-in for Akinator, or instrumentation such as
+ * request timing.<br>
+ * Akiwrapper handles everything above the transport, including retries, so
+ * implementations should send each request exactly once. Implementations must be
+ * thread-safe, because a single {@link Transport} is usually shared by many
+ * games.<br>
+ * The default implementation is {@link HttpClientTransport}.
+ *
+ * @author Marko Zajc
+ *
+ * @see AkiwrapperBuilder#setTransport(Transport)
+ */
+public interface Transport {
+
+	/**
+	 * Sends a request. This method should not block.
+	 *
+	 * @param request
+	 *            the request to send.
+	 *
+	 * @return a {@link CompletableFuture} that completes with the response, whatever
+	 *         its status code is, or completes exceptionally with an
+	 *         {@link IOException} if the request couldn't be sent or the response
+	 *         couldn't be received. Cancelling it should abort the request.
+	 */
+	@Nonnull
+	CompletableFuture<TransportResponse> execute(@Nonnull TransportRequest request);
+
+}
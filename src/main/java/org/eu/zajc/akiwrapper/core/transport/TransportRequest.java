@@ -0,0 +1,132 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2026 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.core.transport;
+
+import java.net.URI;
+import java.time.Duration;
+
+import javax.annotation.*;
+
+/**
+ * A request to be sent by a {@link Transport}. All of Akinator's routes are
+ * {@code POST}ed {@code application/x-www-form-urlencoded} forms.
+ *
+ * @author Marko Zajc
+ */
+public final class TransportRequest {
+
+	@Nonnull private final URI uri;
+	@Nonnull private final String[] headers;
+	@Nonnull private final byte[] body;
+	@Nullable private final Duration timeout;
+
+	/**
+	 * Creates a new {@link TransportRequest} without a timeout.
+	 *
+	 * @param uri
+	 *            the request URI.
+	 * @param headers
+	 *            the request headers, as alternating names and values.
+	 * @param body
+	 *            the encoded form.
+	 */
+	public TransportRequest(@Nonnull URI uri, @Nonnull String[] headers, @Nonnull byte[] body) {
+		this(uri, headers, body, null);
+	}
+
+	/**
+	 * Creates a new {@link TransportRequest}.
+	 *
+	 * @param uri
+	 *            the request URI.
+	 * @param headers
+	 *            the request headers, as alternating names and values.
+	 * @param body
+	 *            the encoded form.
+	 * @param timeout
+	 *            the time after which the request is abandoned, or {@code null} for no
+	 *            timeout.
+	 */
+	public TransportRequest(@Nonnull URI uri, @Nonnull String[] headers, @Nonnull byte[] body,
+							@Nullable Duration timeout) {
+		if (headers.length % 2 != 0)
+			throw new IllegalArgumentException("headers must consist of name-value pairs");
+
+		this.uri = uri;
+		this.headers = headers;
+		this.body = body;
+		this.timeout = timeout;
+	}
+
+	/**
+	 * Returns a copy of this request with a different timeout. The headers and the
+	 * body are shared with this request.
+	 *
+	 * @param timeout
+	 *            the new timeout, or {@code null} for no timeout.
+	 *
+	 * @return a copy of this request.
+	 */
+	@Nonnull
+	public TransportRequest withTimeout(@Nullable Duration timeout) {
+		return new TransportRequest(this.uri, this.headers, this.body, timeout);
+	}
+
+	/**
+	 * @return the request URI.
+	 */
+	@Nonnull
+	public URI getUri() {
+		return this.uri;
+	}
+
+	/**
+	 * Returns the request headers as alternating names and values, which is the format
+	 * accepted by {@link java.net.http.HttpRequest.Builder#headers(String...)}. The
+	 * returned array must not be modified.
+	 *
+	 * @return the request headers.
+	 */
+	@Nonnull
+	public String[] getHeaders() {
+		return this.headers;
+	}
+
+	/**
+	 * Returns the encoded form. The returned array must not be modified.
+	 *
+	 * @return the request body.
+	 */
+	@Nonnull
+	public byte[] getBody() {
+		return this.body;
+	}
+
+	/**
+	 * Returns the time after which the request should be abandoned. Transports should
+	 * pass this on to the underlying client where possible, so that hung connections
+	 * are released. The request is failed after this time regardless of whether the
+	 * transport supports timeouts.
+	 *
+	 * @return the timeout or {@code null} if there is none.
+	 */
+	@Nullable
+	public Duration getTimeout() {
+		return this.timeout;
+	}
+
+}
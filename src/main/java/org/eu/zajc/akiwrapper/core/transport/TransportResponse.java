@@ -0,0 +1,61 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2026 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.core.transport;
+
+import javax.annotation.Nonnull;
+
+/**
+ * A response received by a {@link Transport}.
+ *
+ * @author Marko Zajc
+ */
+public final class TransportResponse {
+
+	private final int statusCode;
+	@Nonnull private final byte[] body;
+
+	/**
+	 * Creates a new {@link TransportResponse}.
+	 *
+	 * @param statusCode
+	 *            the HTTP status code.
+	 * @param body
+	 *            the raw response body.
+	 */
+	public TransportResponse(int statusCode, @Nonnull byte[] body) {
+		this.statusCode = statusCode;
+		this.body = body;
+	}
+
+	/**
+	 * @return the HTTP status code.
+	 */
+	public int getStatusCode() {
+		return this.statusCode;
+	}
+
+	/**
+	 * Returns the raw response body. The returned array must not be modified.
+	 *
+	 * @return the response body.
+	 */
+	@Nonnull
+	public byte[] getBody() {
+		return this.body;
+	}
+
+}
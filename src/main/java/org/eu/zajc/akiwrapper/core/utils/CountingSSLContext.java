@@ -0,0 +1,334 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2026 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.core.utils;
+
+import static java.util.Collections.*;
+import static javax.net.ssl.SSLEngineResult.HandshakeStatus.FINISHED;
+
+import java.nio.ByteBuffer;
+import java.security.*;
+import java.util.*;
+import java.util.concurrent.atomic.*;
+import java.util.function.BiFunction;
+
+import javax.annotation.Nonnull;
+import javax.net.ssl.*;
+
+/**
+ * <b>Note:</b> This is an internal class and its internals are subject to change
+ * without prior deprecation. Use with caution.<br>
+ * <br>
+ * An {@link SSLContext} that wraps another one and keeps track of the
+ * {@link SSLEngine}s it creates. Because {@link java.net.http.HttpClient} creates one
+ * {@link SSLEngine} per connection, this is used to count TLS connections and
+ * handshakes, which the client doesn't expose otherwise.
+ *
+ * @author Marko Zajc
+ */
+@SuppressWarnings("javadoc") // internal
+public class CountingSSLContext extends SSLContext {
+
+	private final Counters counters;
+
+	private CountingSSLContext(@Nonnull SSLContext delegate, @Nonnull Counters counters) {
+		super(new CountingSpi(delegate, counters), delegate.getProvider(), delegate.getProtocol());
+		this.counters = counters;
+	}
+
+	@Nonnull
+	public static CountingSSLContext wrap(@Nonnull SSLContext delegate) {
+		return new CountingSSLContext(delegate, new Counters());
+	}
+
+	@Nonnull
+	public static CountingSSLContext wrapDefault() {
+		try {
+			return wrap(SSLContext.getDefault());
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	public long getHandshakes() {
+		return this.counters.handshakes.get();
+	}
+
+	public long getConnections() {
+		return this.counters.connections.get();
+	}
+
+	public int getOpenConnections() {
+		synchronized (this.counters.engines) {
+			int open = 0;
+			for (var engine : this.counters.engines)
+				if (!engine.isInboundDone() && !engine.isOutboundDone())
+					open++;
+			return open;
+		}
+	}
+
+	private static final class Counters {
+
+		private final AtomicLong connections = new AtomicLong();
+		private final AtomicLong handshakes = new AtomicLong();
+		private final Set<SSLEngine> engines = synchronizedSet(newSetFromMap(new WeakHashMap<>()));
+
+		@Nonnull
+		SSLEngine track(@Nonnull SSLEngine engine) {
+			var counting = new CountingEngine(engine, this.handshakes);
+			this.connections.incrementAndGet();
+			this.engines.add(counting);
+			return counting;
+		}
+
+	}
+
+	private static final class CountingSpi extends SSLContextSpi {
+
+		private final SSLContext delegate;
+		private final Counters counters;
+
+		CountingSpi(@Nonnull SSLContext delegate, @Nonnull Counters counters) {
+			this.delegate = delegate;
+			this.counters = counters;
+		}
+
+		@Override
+		protected void engineInit(KeyManager[] km, TrustManager[] tm, SecureRandom sr) throws KeyManagementException {
+			this.delegate.init(km, tm, sr);
+		}
+
+		@Override
+		protected SSLSocketFactory engineGetSocketFactory() {
+			return this.delegate.getSocketFactory();
+		}
+
+		@Override
+		protected SSLServerSocketFactory engineGetServerSocketFactory() {
+			return this.delegate.getServerSocketFactory();
+		}
+
+		@Override
+		protected SSLEngine engineCreateSSLEngine() {
+			return this.counters.track(this.delegate.createSSLEngine());
+		}
+
+		@Override
+		protected SSLEngine engineCreateSSLEngine(String host, int port) {
+			return this.counters.track(this.delegate.createSSLEngine(host, port));
+		}
+
+		@Override
+		protected SSLSessionContext engineGetServerSessionContext() {
+			return this.delegate.getServerSessionContext();
+		}
+
+		@Override
+		protected SSLSessionContext engineGetClientSessionContext() {
+			return this.delegate.getClientSessionContext();
+		}
+
+		@Override
+		protected SSLParameters engineGetDefaultSSLParameters() {
+			return this.delegate.getDefaultSSLParameters();
+		}
+
+		@Override
+		protected SSLParameters engineGetSupportedSSLParameters() {
+			return this.delegate.getSupportedSSLParameters();
+		}
+
+	}
+
+	private static final class CountingEngine extends SSLEngine {
+
+		private final SSLEngine delegate;
+		private final AtomicLong handshakes;
+		private final AtomicBoolean handshakeCounted = new AtomicBoolean();
+
+		CountingEngine(@Nonnull SSLEngine delegate, @Nonnull AtomicLong handshakes) {
+			super(delegate.getPeerHost(), delegate.getPeerPort());
+			this.delegate = delegate;
+			this.handshakes = handshakes;
+		}
+
+		@Nonnull
+		private SSLEngineResult count(@Nonnull SSLEngineResult result) {
+			if (result.getHandshakeStatus() == FINISHED && this.handshakeCounted.compareAndSet(false, true))
+				this.handshakes.incrementAndGet();
+			return result;
+		}
+
+		@Override
+		public SSLEngineResult wrap(ByteBuffer[] srcs, int offset, int length, ByteBuffer dst) throws SSLException {
+			return count(this.delegate.wrap(srcs, offset, length, dst));
+		}
+
+		@Override
+		public SSLEngineResult unwrap(ByteBuffer src, ByteBuffer[] dsts, int offset,
+									  int length) throws SSLException {
+			return count(this.delegate.unwrap(src, dsts, offset, length));
+		}
+
+		@Override
+		public Runnable getDelegatedTask() {
+			return this.delegate.getDelegatedTask();
+		}
+
+		@Override
+		public void closeInbound() throws SSLException {
+			this.delegate.closeInbound();
+		}
+
+		@Override
+		public boolean isInboundDone() {
+			return this.delegate.isInboundDone();
+		}
+
+		@Override
+		public void closeOutbound() {
+			this.delegate.closeOutbound();
+		}
+
+		@Override
+		public boolean isOutboundDone() {
+			return this.delegate.isOutboundDone();
+		}
+
+		@Override
+		public String[] getSupportedCipherSuites() {
+			return this.delegate.getSupportedCipherSuites();
+		}
+
+		@Override
+		public String[] getEnabledCipherSuites() {
+			return this.delegate.getEnabledCipherSuites();
+		}
+
+		@Override
+		public void setEnabledCipherSuites(String[] suites) {
+			this.delegate.setEnabledCipherSuites(suites);
+		}
+
+		@Override
+		public String[] getSupportedProtocols() {
+			return this.delegate.getSupportedProtocols();
+		}
+
+		@Override
+		public String[] getEnabledProtocols() {
+			return this.delegate.getEnabledProtocols();
+		}
+
+		@Override
+		public void setEnabledProtocols(String[] protocols) {
+			this.delegate.setEnabledProtocols(protocols);
+		}
+
+		@Override
+		public SSLSession getSession() {
+			return this.delegate.getSession();
+		}
+
+		@Override
+		public SSLSession getHandshakeSession() {
+			return this.delegate.getHandshakeSession();
+		}
+
+		@Override
+		public void beginHandshake() throws SSLException {
+			this.delegate.beginHandshake();
+		}
+
+		@Override
+		public SSLEngineResult.HandshakeStatus getHandshakeStatus() {
+			return this.delegate.getHandshakeStatus();
+		}
+
+		@Override
+		public void setUseClientMode(boolean mode) {
+			this.delegate.setUseClientMode(mode);
+		}
+
+		@Override
+		public boolean getUseClientMode() {
+			return this.delegate.getUseClientMode();
+		}
+
+		@Override
+		public void setNeedClientAuth(boolean need) {
+			this.delegate.setNeedClientAuth(need);
+		}
+
+		@Override
+		public boolean getNeedClientAuth() {
+			return this.delegate.getNeedClientAuth();
+		}
+
+		@Override
+		public void setWantClientAuth(boolean want) {
+			this.delegate.setWantClientAuth(want);
+		}
+
+		@Override
+		public boolean getWantClientAuth() {
+			return this.delegate.getWantClientAuth();
+		}
+
+		@Override
+		public void setEnableSessionCreation(boolean flag) {
+			this.delegate.setEnableSessionCreation(flag);
+		}
+
+		@Override
+		public boolean getEnableSessionCreation() {
+			return this.delegate.getEnableSessionCreation();
+		}
+
+		@Override
+		public SSLParameters getSSLParameters() {
+			return this.delegate.getSSLParameters();
+		}
+
+		@Override
+		public void setSSLParameters(SSLParameters params) {
+			this.delegate.setSSLParameters(params);
+		}
+
+		@Override
+		public String getApplicationProtocol() {
+			return this.delegate.getApplicationProtocol();
+		}
+
+		@Override
+		public String getHandshakeApplicationProtocol() {
+			return this.delegate.getHandshakeApplicationProtocol();
+		}
+
+		@Override
+		public void setHandshakeApplicationProtocolSelector(BiFunction<SSLEngine, List<String>, String> selector) {
+			this.delegate.setHandshakeApplicationProtocolSelector(selector);
+		}
+
+		@Override
+		public BiFunction<SSLEngine, List<String>, String> getHandshakeApplicationProtocolSelector() {
+			return this.delegate.getHandshakeApplicationProtocolSelector();
+		}
+
+	}
+
+}
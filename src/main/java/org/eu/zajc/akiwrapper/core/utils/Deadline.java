@@ -0,0 +1,91 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2026 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.core.utils;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import java.time.Duration;
+
+import javax.annotation.Nonnull;
+
+import org.eu.zajc.akiwrapper.core.entities.Question;
+import org.eu.zajc.akiwrapper.core.exceptions.DeadlineExceededException;
+
+/**
+ * A point in time by which an interaction (such as
+ * {@link Question#answerAsync(org.eu.zajc.akiwrapper.Akiwrapper.Answer, Deadline)})
+ * must complete. The deadline covers the whole interaction, including waiting for
+ * other interactions, timed out attempts, and retries - a request is never retried if
+ * the retry couldn't complete in time, and an interaction that runs out of time fails
+ * with a {@link DeadlineExceededException}.<br>
+ * Deadlines are measured with {@link System#nanoTime()}, so they aren't affected by
+ * changes to the system clock. The same deadline can be passed to several
+ * interactions to give them a shared budget.
+ *
+ * @author Marko Zajc
+ */
+public final class Deadline {
+
+	private final long nanos;
+
+	private Deadline(long nanos) {
+		this.nanos = nanos;
+	}
+
+	/**
+	 * Creates a {@link Deadline} that expires after the given amount of time.
+	 *
+	 * @param timeout
+	 *            the time until the deadline.
+	 *
+	 * @return a new {@link Deadline}.
+	 */
+	@Nonnull
+	public static Deadline after(@Nonnull Duration timeout) {
+		return new Deadline(System.nanoTime() + timeout.toNanos());
+	}
+
+	/**
+	 * @return the time left until this deadline, or {@link Duration#ZERO} if it has
+	 *         expired.
+	 */
+	@Nonnull
+	public Duration getRemaining() {
+		return Duration.ofNanos(getRemainingNanos());
+	}
+
+	/**
+	 * @return the time left until this deadline in nanoseconds, or {@code 0} if it has
+	 *         expired.
+	 */
+	public long getRemainingNanos() {
+		return Math.max(0, this.nanos - System.nanoTime());
+	}
+
+	/**
+	 * @return whether this deadline has passed.
+	 */
+	public boolean isExpired() {
+		return this.nanos - System.nanoTime() <= 0;
+	}
+
+	@Override
+	public String toString() {
+		return "Deadline[remaining=" + NANOSECONDS.toMillis(getRemainingNanos()) + " ms]";
+	}
+
+}
@@ -0,0 +1,233 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2026 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.core.utils;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.*;
+
+import org.eu.zajc.akiwrapper.Akiwrapper.Language;
+import org.eu.zajc.akiwrapper.AkiwrapperBuilder;
+
+/**
+ * A bounded pool of canonical question and guess strings. Akinator asks the same
+ * questions and proposes the same guesses in most games, so when a pool is set with
+ * {@link AkiwrapperBuilder#setInternPool(InternPool)}, every parsed question text and
+ * guess field is replaced with an equal string from the pool, and the freshly decoded
+ * copy can be collected right away.<br>
+ * The pool is partitioned by {@link Language}, and each partition holds at most
+ * {@link #getMaxSize()} strings. Each partition is split into independently locked
+ * stripes, and the least recently used string of a stripe is evicted when it is
+ * full. The same pool can (and should) be shared by any amount of builders.
+ *
+ * @author Marko Zajc
+ */
+public final class InternPool {
+
+	/**
+	 * The default maximum amount of strings per {@link Language}.
+	 */
+	public static final int DEFAULT_MAX_SIZE = 8192;
+
+	private static final int STRIPES = 16;
+
+	private final int maxSize;
+	private final int stripeCount;
+	private final int stripeSize;
+	@Nonnull private final Map<Language, Stripe[]> partitions = new ConcurrentHashMap<>();
+	@Nonnull private final LongAdder hits = new LongAdder();
+	@Nonnull private final LongAdder misses = new LongAdder();
+	@Nonnull private final LongAdder evictions = new LongAdder();
+
+	/**
+	 * Creates a new {@link InternPool} holding up to {@link #DEFAULT_MAX_SIZE} strings
+	 * per {@link Language}.
+	 */
+	public InternPool() {
+		this(DEFAULT_MAX_SIZE);
+	}
+
+	/**
+	 * Creates a new {@link InternPool}.
+	 *
+	 * @param maxSize
+	 *            the maximum amount of strings per {@link Language}. This is split
+	 *            evenly among the stripes, so it may be rounded up slightly.
+	 */
+	public InternPool(int maxSize) {
+		if (maxSize < 1)
+			throw new IllegalArgumentException("maxSize must be positive");
+
+		this.stripeCount = Integer.highestOneBit(Math.min(maxSize, STRIPES));
+		this.stripeSize = (maxSize + this.stripeCount - 1) / this.stripeCount;
+		this.maxSize = this.stripeSize * this.stripeCount;
+	}
+
+	/**
+	 * Returns the canonical instance of a string. If an equal string is already pooled
+	 * for the {@link Language}, it is returned, otherwise {@code value} is pooled and
+	 * returned.
+	 *
+	 * @param language
+	 *            the language the string is in
+	 * @param value
+	 *            the string to intern
+	 *
+	 * @return the pooled string equal to {@code value}, or {@code null} if
+	 *         {@code value} is {@code null}.
+	 */
+	@Nullable
+	public String intern(@Nonnull Language language, @Nullable String value) {
+		if (value == null)
+			return null;
+
+		int hash = value.hashCode();
+		var stripes = this.partitions.computeIfAbsent(language, l -> createStripes());
+		return stripes[(hash ^ (hash >>> 16)) & (stripes.length - 1)].intern(value);
+	}
+
+	/**
+	 * Removes all pooled strings. The statistics are not reset.
+	 */
+	public void clear() {
+		for (var stripes : this.partitions.values()) {
+			for (var stripe : stripes) {
+				synchronized (stripe) {
+					stripe.clear();
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return the maximum amount of strings pooled per {@link Language}.
+	 */
+	public int getMaxSize() {
+		return this.maxSize;
+	}
+
+	/**
+	 * @param language
+	 *            the language
+	 *
+	 * @return the amount of strings pooled for {@code language}.
+	 */
+	public int size(@Nonnull Language language) {
+		var stripes = this.partitions.get(language);
+		if (stripes == null)
+			return 0;
+
+		int size = 0;
+		for (var stripe : stripes) {
+			synchronized (stripe) {
+				size += stripe.size();
+			}
+		}
+		return size;
+	}
+
+	/**
+	 * @return the amount of strings pooled for all languages.
+	 */
+	public int size() {
+		int size = 0;
+		for (var language : this.partitions.keySet())
+			size += size(language);
+		return size;
+	}
+
+	/**
+	 * @return the amount of {@link #intern(Language, String)} calls that returned an
+	 *         already pooled string, each of which saved a duplicate string.
+	 */
+	public long getHits() {
+		return this.hits.sum();
+	}
+
+	/**
+	 * @return the amount of {@link #intern(Language, String)} calls that pooled a new
+	 *         string.
+	 */
+	public long getMisses() {
+		return this.misses.sum();
+	}
+
+	/**
+	 * @return the amount of strings evicted to make space for new ones.
+	 */
+	public long getEvictions() {
+		return this.evictions.sum();
+	}
+
+	/**
+	 * @return the fraction of {@link #intern(Language, String)} calls that returned an
+	 *         already pooled string, or {@code 0} if there were none.
+	 */
+	public double getHitRatio() {
+		long currentHits = getHits();
+		long total = currentHits + getMisses();
+		return total == 0 ? 0 : (double) currentHits / total;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("size=%d hits=%d misses=%d hitRatio=%.3f evictions=%d", size(), getHits(), getMisses(),
+							 getHitRatio(), getEvictions());
+	}
+
+	@Nonnull
+	private Stripe[] createStripes() {
+		var stripes = new Stripe[this.stripeCount];
+		for (int i = 0; i < stripes.length; i++)
+			stripes[i] = new Stripe();
+		return stripes;
+	}
+
+	@SuppressWarnings("serial")
+	private final class Stripe extends LinkedHashMap<String, String> {
+
+		Stripe() {
+			super(16, 0.75f, true);
+		}
+
+		@Nonnull
+		synchronized String intern(@Nonnull String value) {
+			var pooled = get(value);
+			if (pooled != null) {
+				InternPool.this.hits.increment();
+				return pooled;
+			}
+
+			put(value, value);
+			InternPool.this.misses.increment();
+			return value;
+		}
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+			if (size() <= InternPool.this.stripeSize)
+				return false;
+
+			InternPool.this.evictions.increment();
+			return true;
+		}
+
+	}
+
+}
@@ -0,0 +1,413 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2026 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.core.utils;
+
+import static java.lang.System.nanoTime;
+import static java.time.Duration.ofSeconds;
+import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
+import static java.util.concurrent.TimeUnit.*;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.io.*;
+import java.lang.ref.Cleaner;
+import java.lang.reflect.*;
+import java.net.*;
+import java.net.http.*;
+import java.net.http.HttpResponse.*;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import javax.annotation.*;
+import javax.net.ssl.*;
+
+import org.eu.zajc.akiwrapper.AkiwrapperBuilder;
+import org.slf4j.Logger;
+
+/**
+ * A managed {@link HttpClient} meant to be shared by many {@link
+ * org.eu.zajc.akiwrapper.Akiwrapper} instances. Unlike a plain {@link HttpClient},
+ * which keeps its own executor and connection pool for as long as it's reachable,
+ * this class creates the underlying client lazily and retires it when:
+ * <ul>
+ * <li>it hasn't been used for longer than the idle timeout,</li>
+ * <li>the last reference acquired with {@link #retain()} is released, or</li>
+ * <li>{@link #close()} is called.</li>
+ * </ul>
+ * A new underlying client is created transparently the next time a request is sent,
+ * so retiring is always safe. Releasing a retired client's connections is
+ * best-effort: {@link HttpClient} only gained a way to shut it down in Java 21, so on
+ * Java 21 and above the retired client is shut down right away, while on older
+ * versions its connections are only closed once it's garbage collected. In both
+ * cases, requests sent after retirement never reuse the retired client's
+ * connections.<br>
+ * All underlying clients share a single executor of a configurable size, whose
+ * threads time out when they're not needed. TLS connections are counted, so this
+ * class can report the amount of open connections, TLS handshakes, and requests that
+ * reused an existing connection.<br>
+ * When an {@link AkiwrapperBuilder} has no {@link HttpClient} set, it uses the
+ * instance returned by {@link #getDefault()}.
+ *
+ * @author Marko Zajc
+ */
+public final class SharedHttpClient extends HttpClient implements Closeable {
+
+	private static final Logger LOG = getLogger(SharedHttpClient.class);
+
+	/**
+	 * The default amount of executor threads.
+	 */
+	public static final int DEFAULT_THREADS = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+	/**
+	 * The default time after which an unused underlying client is retired.
+	 */
+	@Nonnull public static final Duration DEFAULT_IDLE_TIMEOUT = ofSeconds(60);
+
+	private static final Cleaner CLEANER = Cleaner.create();
+	private static final ScheduledExecutorService REAPER = newSingleThreadScheduledExecutor(r -> {
+		var thread = new Thread(r, "akiwrapper-http-reaper");
+		thread.setDaemon(true);
+		return thread;
+	});
+	@Nullable private static final Method SHUTDOWN; // HttpClient#shutdown(), available in Java 21+
+	static {
+		Method shutdown;
+		try {
+			shutdown = HttpClient.class.getMethod("shutdown");
+		} catch (NoSuchMethodException e) {
+			shutdown = null;
+		}
+		SHUTDOWN = shutdown;
+	}
+
+	@Nullable private static SharedHttpClient defaultInstance;
+
+	private final long idleTimeoutNanos;
+	@Nonnull private final ThreadPoolExecutor executor;
+	@Nonnull private final CountingSSLContext sslContext;
+
+	@Nonnull private final AtomicInteger references = new AtomicInteger();
+	@Nonnull private final AtomicInteger inFlight = new AtomicInteger();
+	@Nonnull private final AtomicLong requests = new AtomicLong();
+	private volatile long lastActivity = nanoTime();
+
+	@Nullable private HttpClient client;
+	@Nullable private ScheduledFuture<?> reaper;
+
+	/**
+	 * Creates a new {@link SharedHttpClient} with {@link #DEFAULT_THREADS} executor
+	 * threads and an idle timeout of {@link #DEFAULT_IDLE_TIMEOUT}.
+	 */
+	public SharedHttpClient() {
+		this(DEFAULT_THREADS, DEFAULT_IDLE_TIMEOUT);
+	}
+
+	/**
+	 * Creates a new {@link SharedHttpClient}.
+	 *
+	 * @param threads
+	 *            the maximum amount of executor threads. The executor only runs
+	 *            response handling, so this doesn't limit the amount of concurrent
+	 *            requests.
+	 * @param idleTimeout
+	 *            the time after which an unused underlying client and its connections
+	 *            are retired.
+	 */
+	public SharedHttpClient(int threads, @Nonnull Duration idleTimeout) {
+		this(threads, idleTimeout, null);
+	}
+
+	/**
+	 * Creates a new {@link SharedHttpClient} that uses the given {@link SSLContext},
+	 * for example one that trusts a private certificate authority.
+	 *
+	 * @param threads
+	 *            the maximum amount of executor threads. The executor only runs
+	 *            response handling, so this doesn't limit the amount of concurrent
+	 *            requests.
+	 * @param idleTimeout
+	 *            the time after which an unused underlying client and its connections
+	 *            are retired.
+	 * @param sslContext
+	 *            the {@link SSLContext} to open TLS connections with, or {@code null}
+	 *            to use the default one.
+	 */
+	public SharedHttpClient(int threads, @Nonnull Duration idleTimeout, @Nullable SSLContext sslContext) {
+		if (threads < 1)
+			throw new IllegalArgumentException("threads must be positive");
+		if (idleTimeout.isNegative() || idleTimeout.isZero())
+			throw new IllegalArgumentException("idleTimeout must be positive");
+
+		this.idleTimeoutNanos = idleTimeout.toNanos();
+		var threadCounter = new AtomicInteger();
+		this.executor = new ThreadPoolExecutor(threads, threads, 30, SECONDS, new LinkedBlockingQueue<>(), r -> {
+			var thread = new Thread(r, "akiwrapper-http-" + threadCounter.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.executor.allowCoreThreadTimeOut(true);
+		this.sslContext = sslContext == null ? CountingSSLContext.wrapDefault() : CountingSSLContext.wrap(sslContext);
+	}
+
+	/**
+	 * Returns the default {@link SharedHttpClient}, which is used by
+	 * {@link AkiwrapperBuilder}s that don't have an {@link HttpClient} set. It is
+	 * created with the default settings on first use, unless one is set with
+	 * {@link #setDefault(SharedHttpClient)}.
+	 *
+	 * @return the default {@link SharedHttpClient}.
+	 */
+	@Nonnull
+	public static synchronized SharedHttpClient getDefault() {
+		if (defaultInstance == null)
+			defaultInstance = new SharedHttpClient();
+		return defaultInstance;
+	}
+
+	/**
+	 * Replaces the default {@link SharedHttpClient}, for example to configure its
+	 * executor size. Instances that were already built keep using the previous default.
+	 *
+	 * @param sharedHttpClient
+	 *            the new default.
+	 */
+	public static synchronized void setDefault(@Nonnull SharedHttpClient sharedHttpClient) {
+		defaultInstance = sharedHttpClient;
+	}
+
+	/**
+	 * Acquires a reference to this client. Once every acquired reference is released
+	 * with {@link #release()}, the underlying client is retired.
+	 */
+	public void retain() {
+		this.references.incrementAndGet();
+	}
+
+	/**
+	 * Acquires a reference to this client that is released automatically once
+	 * {@code owner} becomes phantom reachable.
+	 *
+	 * @param owner
+	 *            the object that uses this client.
+	 */
+	public void retainFor(@Nonnull Object owner) {
+		retain();
+		CLEANER.register(owner, this::release);
+	}
+
+	/**
+	 * Releases a reference acquired with {@link #retain()}.
+	 */
+	public void release() {
+		if (this.references.decrementAndGet() <= 0)
+			retireIfIdle(false);
+	}
+
+	/**
+	 * Retires the underlying client. Requests that are in flight are allowed to
+	 * complete. See the class description for when the retired client's connections
+	 * are actually closed. This client remains usable, and will create a new
+	 * underlying client when it's used again.
+	 */
+	@Override
+	public void close() {
+		retire();
+	}
+
+	/**
+	 * @return the amount of currently acquired references.
+	 */
+	public int getReferences() {
+		return this.references.get();
+	}
+
+	/**
+	 * @return the amount of requests currently in flight.
+	 */
+	public int getInFlight() {
+		return this.inFlight.get();
+	}
+
+	/**
+	 * @return the total amount of requests sent through this client.
+	 */
+	public long getRequests() {
+		return this.requests.get();
+	}
+
+	/**
+	 * @return the amount of currently open TLS connections.
+	 */
+	public int getOpenConnections() {
+		return this.sslContext.getOpenConnections();
+	}
+
+	/**
+	 * @return the total amount of TLS connections opened by this client.
+	 */
+	public long getConnections() {
+		return this.sslContext.getConnections();
+	}
+
+	/**
+	 * @return the total amount of completed TLS handshakes.
+	 */
+	public long getTlsHandshakes() {
+		return this.sslContext.getHandshakes();
+	}
+
+	/**
+	 * Returns the amount of requests that were sent over an existing connection (either
+	 * as another HTTP/2 stream or over a kept-alive HTTP/1.1 connection) rather than
+	 * over a newly opened one. Only requests to HTTPS endpoints are accounted for.
+	 *
+	 * @return the amount of requests that reused a connection.
+	 */
+	public long getReusedRequests() {
+		return Math.max(0, this.requests.get() - this.sslContext.getConnections());
+	}
+
+	@Nonnull
+	private synchronized HttpClient getClient() {
+		if (this.client == null) {
+			this.client = HttpClient.newBuilder().executor(this.executor).sslContext(this.sslContext).build();
+			long period = Math.max(this.idleTimeoutNanos / 2, MILLISECONDS.toNanos(100));
+			this.reaper = REAPER.scheduleWithFixedDelay(() -> retireIfIdle(true), period, period, NANOSECONDS);
+		}
+		return this.client;
+	}
+
+	private synchronized void retireIfIdle(boolean checkTimeout) {
+		if (this.inFlight.get() > 0)
+			return;
+
+		if (checkTimeout && nanoTime() - this.lastActivity < this.idleTimeoutNanos)
+			return;
+
+		retire();
+	}
+
+	private synchronized void retire() {
+		if (this.client == null)
+			return;
+
+		LOG.debug("Retiring the underlying HttpClient");
+		// before Java 21, the client can't be shut down, and it closes its connections
+		// once it's garbage collected
+		if (SHUTDOWN != null) {
+			try {
+				SHUTDOWN.invoke(this.client);
+			} catch (IllegalAccessException | InvocationTargetException e) {
+				LOG.debug("Couldn't shut down the underlying HttpClient", e);
+			}
+		}
+
+		this.client = null;
+		if (this.reaper != null) {
+			this.reaper.cancel(false);
+			this.reaper = null;
+		}
+	}
+
+	private void onRequest() {
+		this.requests.incrementAndGet();
+		this.inFlight.incrementAndGet();
+		this.lastActivity = nanoTime();
+	}
+
+	private void onResponse() {
+		this.inFlight.decrementAndGet();
+		this.lastActivity = nanoTime();
+	}
+
+	@Override
+	public <T> HttpResponse<T> send(HttpRequest request,
+									BodyHandler<T> responseBodyHandler) throws IOException, InterruptedException {
+		onRequest();
+		try {
+			return getClient().send(request, responseBodyHandler);
+		} finally {
+			onResponse();
+		}
+	}
+
+	@Override
+	public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request,
+															BodyHandler<T> responseBodyHandler) {
+		onRequest();
+		var response = getClient().sendAsync(request, responseBodyHandler);
+		response.whenComplete((r, t) -> onResponse());
+		return response;
+	}
+
+	@Override
+	public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request, BodyHandler<T> responseBodyHandler,
+															PushPromiseHandler<T> pushPromiseHandler) {
+		onRequest();
+		var response = getClient().sendAsync(request, responseBodyHandler, pushPromiseHandler);
+		response.whenComplete((r, t) -> onResponse());
+		return response;
+	}
+
+	@Override
+	public Optional<CookieHandler> cookieHandler() {
+		return Optional.empty();
+	}
+
+	@Override
+	public Optional<Duration> connectTimeout() {
+		return Optional.empty();
+	}
+
+	@Override
+	public Redirect followRedirects() {
+		return Redirect.NEVER;
+	}
+
+	@Override
+	public Optional<ProxySelector> proxy() {
+		return Optional.empty();
+	}
+
+	@Override
+	public SSLContext sslContext() {
+		return this.sslContext;
+	}
+
+	@Override
+	public SSLParameters sslParameters() {
+		return this.sslContext.getDefaultSSLParameters();
+	}
+
+	@Override
+	public Optional<Authenticator> authenticator() {
+		return Optional.empty();
+	}
+
+	@Override
+	public Version version() {
+		return Version.HTTP_2;
+	}
+
+	@Override
+	public Optional<Executor> executor() {
+		return Optional.of(this.executor);
+	}
+
+}
@@ -16,6 +16,8 @@
  */
 package org.eu.zajc.akiwrapper.core.utils;
 
+import java.util.concurrent.*;
+
 import javax.annotation.Nonnull;
 
 import org.eu.zajc.akiwrapper.core.exceptions.MalformedResponseException;
@@ -50,6 +52,79 @@ public class Utilities {
 		throw (X) ex;
 	}
 
+	/**
+	 * Waits for a {@link CompletableFuture} to complete and returns its result. Unlike
+	 * {@link CompletableFuture#join()}, exceptions that the future completed with are
+	 * rethrown as-is (without being wrapped in a {@link CompletionException}), which
+	 * makes blocking wrappers of asynchronous methods behave as if they were
+	 * synchronous. If the calling thread is interrupted while waiting, the future is
+	 * cancelled and the {@link InterruptedException} is rethrown as unchecked.
+	 *
+	 * @param <T>
+	 *            the result type
+	 * @param future
+	 *            the future to wait for
+	 *
+	 * @return the result of the future
+	 */
+	public static <T> T join(@Nonnull CompletableFuture<T> future) {
+		try {
+			return future.get();
+
+		} catch (ExecutionException e) {
+			throw asUnchecked(e.getCause());
+
+		} catch (InterruptedException e) {
+			future.cancel(true);
+			Thread.currentThread().interrupt();
+			throw asUnchecked(e);
+		}
+	}
+
+	/**
+	 * Cancels {@code source} once {@code dependent} is cancelled. Because cancelling a
+	 * {@link CompletableFuture} does not propagate to the stages it depends on, this is
+	 * used to make sure that cancelling the future returned to the user also aborts the
+	 * underlying operation.
+	 *
+	 * @param <T>
+	 *            the dependent stage's result type
+	 * @param dependent
+	 *            the stage returned to the caller
+	 * @param source
+	 *            the stage that {@code dependent} was derived from
+	 *
+	 * @return {@code dependent}, for chaining
+	 */
+	@Nonnull
+	public static <T> CompletableFuture<T> propagateCancellation(@Nonnull CompletableFuture<T> dependent,
+																 @Nonnull Future<?> source) {
+		dependent.whenComplete((r, t) -> {
+			if (dependent.isCancelled())
+				source.cancel(true);
+		});
+		return dependent;
+	}
+
+	/**
+	 * Removes the {@link CompletionException} wrapper that {@link CompletableFuture}
+	 * puts around exceptions thrown by dependent stages.
+	 *
+	 * @param t
+	 *            the exception
+	 *
+	 * @return the cause of {@code t} if it's a {@link CompletionException}, or
+	 *         {@code t} itself otherwise
+	 */
+	@Nonnull
+	@SuppressWarnings("null")
+	public static Throwable unwrapCompletion(@Nonnull Throwable t) {
+		if (t instanceof CompletionException && t.getCause() != null)
+			return t.getCause();
+		else
+			return t;
+	}
+
 	/**
 	 * Attempts to parse a string using {@link Integer#parseInt(String)}, throwing a
 	 * {@link MalformedResponseException} on failure.
@@ -0,0 +1,201 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2026 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.core.utils.route;
+
+import static java.lang.String.format;
+
+import java.net.URI;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.annotation.Nonnull;
+
+import org.eu.zajc.akiwrapper.Akiwrapper.Language;
+import org.eu.zajc.akiwrapper.AkiwrapperBuilder;
+
+/**
+ * Decides where requests to Akinator's API are sent, and which origin they claim to
+ * come from. By default, requests for each {@link Language} are sent to that
+ * language's subdomain of {@code akinator.com}, but the base URI can be changed to
+ * send requests through a reverse proxy or to a stand-in server.<br>
+ * The origin is used for the {@code Origin} and {@code Referer} headers, and is
+ * configured separately from the base URI, because a proxy usually forwards
+ * requests to Akinator, which expects them to come from its own website.<br>
+ * Resolved URIs and headers are cached for each {@link Language}. Instances of this
+ * class are immutable and can be shared between {@link AkiwrapperBuilder}s. Use
+ * {@link EndpointResolverBuilder} to create one.
+ *
+ * @author Marko Zajc
+ *
+ * @see AkiwrapperBuilder#setEndpointResolver(EndpointResolver)
+ */
+public final class EndpointResolver {
+
+	/**
+	 * The default {@link EndpointResolver}, as built by an unmodified
+	 * {@link EndpointResolverBuilder}, which sends requests directly to Akinator.
+	 */
+	@Nonnull public static final EndpointResolver DEFAULT = new EndpointResolverBuilder().build();
+
+	private static final String HEADER_REFERER = "Referer";
+	private static final String HEADER_ORIGIN = "Origin";
+	private static final String REFERER_PATH = "/game";
+
+	@Nonnull private final String baseUriFormat;
+	@Nonnull private final String originFormat;
+
+	@Nonnull private final List<Map<String, URI>> uris;
+	@Nonnull private final Headers[] headers = new Headers[Language.values().length];
+
+	EndpointResolver(@Nonnull String baseUriFormat, @Nonnull String originFormat) {
+		this.baseUriFormat = baseUriFormat;
+		this.originFormat = originFormat;
+
+		var languageUris = new ArrayList<Map<String, URI>>(Language.values().length);
+		for (int i = 0; i < Language.values().length; i++)
+			languageUris.add(new ConcurrentHashMap<>());
+		this.uris = languageUris;
+	}
+
+	/**
+	 * Resolves the URI of a route for a {@link Language}.
+	 *
+	 * @param language
+	 *            the {@link Language} to resolve the URI for.
+	 * @param path
+	 *            the route's path, starting with a {@code /}.
+	 *
+	 * @return the URI requests to {@code path} should be sent to.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the resulting URI is invalid.
+	 */
+	@Nonnull
+	public URI resolve(@Nonnull Language language, @Nonnull String path) {
+		return this.uris.get(language.ordinal())
+			.computeIfAbsent(path, p -> URI.create(stripTrailingSlash(getBaseUri(language)) + p));
+	}
+
+	/**
+	 * Returns the HTTP headers sent with requests for a {@link Language}. These are
+	 * {@link Route#defaultHeaders}, with the {@code Origin} and {@code Referer} headers
+	 * pointing to this resolver's origin for that language.
+	 *
+	 * @param language
+	 *            the {@link Language} to get headers for.
+	 *
+	 * @return the headers as an array of alternating names and values. This array must
+	 *         not be modified.
+	 */
+	@Nonnull
+	public String[] getHeaders(@Nonnull Language language) {
+		var defaults = Route.defaultHeaders;
+		var cached = this.headers[language.ordinal()];
+		if (cached == null || cached.defaults != defaults) {
+			// racy, but the result only depends on the defaults, which are compared by identity
+			cached = new Headers(defaults, localizeHeaders(defaults, getOrigin(language)));
+			this.headers[language.ordinal()] = cached;
+		}
+		return cached.headers;
+	}
+
+	/**
+	 * @param language
+	 *            the {@link Language} to get the base URI for.
+	 *
+	 * @return the base URI for requests for {@code language}.
+	 */
+	@Nonnull
+	public String getBaseUri(@Nonnull Language language) {
+		return format(this.baseUriFormat, language.getLanguageCode());
+	}
+
+	/**
+	 * @param language
+	 *            the {@link Language} to get the origin for.
+	 *
+	 * @return the origin requests for {@code language} claim to come from.
+	 */
+	@Nonnull
+	public String getOrigin(@Nonnull Language language) {
+		return format(this.originFormat, language.getLanguageCode());
+	}
+
+	/**
+	 * @return the format of base URIs, where {@code %s} is replaced with the language
+	 *         code.
+	 */
+	@Nonnull
+	public String getBaseUriFormat() {
+		return this.baseUriFormat;
+	}
+
+	/**
+	 * @return the format of origins, where {@code %s} is replaced with the language
+	 *         code.
+	 */
+	@Nonnull
+	public String getOriginFormat() {
+		return this.originFormat;
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(this.baseUriFormat, this.originFormat);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (!(obj instanceof EndpointResolver))
+			return false;
+
+		var other = (EndpointResolver) obj;
+		return this.baseUriFormat.equals(other.baseUriFormat) && this.originFormat.equals(other.originFormat);
+	}
+
+	@Nonnull
+	private static String[] localizeHeaders(@Nonnull String[] defaults, @Nonnull String origin) {
+		var localized = defaults.clone();
+		for (int i = 0; i + 1 < localized.length; i += 2) {
+			if (HEADER_REFERER.equalsIgnoreCase(localized[i]))
+				localized[i + 1] = origin + REFERER_PATH;
+			else if (HEADER_ORIGIN.equalsIgnoreCase(localized[i]))
+				localized[i + 1] = origin;
+		}
+		return localized;
+	}
+
+	@Nonnull
+	private static String stripTrailingSlash(@Nonnull String uri) {
+		return uri.endsWith("/") ? uri.substring(0, uri.length() - 1) : uri;
+	}
+
+	private static final class Headers {
+
+		@Nonnull private final String[] defaults;
+		@Nonnull private final String[] headers;
+
+		Headers(@Nonnull String[] defaults, @Nonnull String[] headers) {
+			this.defaults = defaults;
+			this.headers = headers;
+		}
+
+	}
+
+}
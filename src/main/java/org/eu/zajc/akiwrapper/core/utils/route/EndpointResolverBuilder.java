@@ -0,0 +1,106 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2026 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.core.utils.route;
+
+import java.net.URI;
+
+import javax.annotation.Nonnull;
+
+/**
+ * A class used to build an {@link EndpointResolver}.
+ *
+ * @author Marko Zajc
+ */
+public class EndpointResolverBuilder {
+
+	/**
+	 * The default format of base URIs, where {@code %s} is replaced with the language
+	 * code.
+	 */
+	@Nonnull public static final String DEFAULT_BASE_URI_FORMAT = "https://%s.akinator.com";
+
+	/**
+	 * The default format of origins, where {@code %s} is replaced with the language
+	 * code.
+	 */
+	@Nonnull public static final String DEFAULT_ORIGIN_FORMAT = "https://%s.akinator.com";
+
+	@Nonnull private String baseUriFormat = DEFAULT_BASE_URI_FORMAT;
+	@Nonnull private String originFormat = DEFAULT_ORIGIN_FORMAT;
+
+	/**
+	 * Sets the format of base URIs requests are sent to, where {@code %s} is replaced
+	 * with the language code, for example {@code https://proxy.example.com/%s}. Route
+	 * paths are appended to the base URI.<br>
+	 * This is set to {@value #DEFAULT_BASE_URI_FORMAT} by default.
+	 *
+	 * @param baseUriFormat
+	 *            the format of base URIs.
+	 *
+	 * @return current instance, used for chaining.
+	 *
+	 * @see #setBaseUri(URI)
+	 */
+	@Nonnull
+	public EndpointResolverBuilder setBaseUriFormat(@Nonnull String baseUriFormat) {
+		this.baseUriFormat = baseUriFormat;
+		return this;
+	}
+
+	/**
+	 * Sets a single base URI that requests for all languages are sent to. Route paths
+	 * are appended to the base URI.
+	 *
+	 * @param baseUri
+	 *            the base URI.
+	 *
+	 * @return current instance, used for chaining.
+	 *
+	 * @see #setBaseUriFormat(String)
+	 */
+	@Nonnull
+	public EndpointResolverBuilder setBaseUri(@Nonnull URI baseUri) {
+		this.baseUriFormat = baseUri.toString().replace("%", "%%");
+		return this;
+	}
+
+	/**
+	 * Sets the format of the origin requests claim to come from, where {@code %s} is
+	 * replaced with the language code. This is used for the {@code Origin} and
+	 * {@code Referer} headers.<br>
+	 * This is set to {@value #DEFAULT_ORIGIN_FORMAT} by default.
+	 *
+	 * @param originFormat
+	 *            the format of origins.
+	 *
+	 * @return current instance, used for chaining.
+	 */
+	@Nonnull
+	public EndpointResolverBuilder setOriginFormat(@Nonnull String originFormat) {
+		this.originFormat = originFormat;
+		return this;
+	}
+
+	/**
+	 * @return a new {@link EndpointResolver} with this builder's configuration.
+	 */
+	@Nonnull
+	public EndpointResolver build() {
+		return new EndpointResolver(this.baseUriFormat, this.originFormat);
+	}
+
+}
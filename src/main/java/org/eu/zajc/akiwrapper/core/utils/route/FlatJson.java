@@ -0,0 +1,487 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2026 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.core.utils.route;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.util.Arrays;
+
+import javax.annotation.*;
+
+import org.eu.zajc.akiwrapper.core.exceptions.MalformedResponseException;
+import org.eu.zajc.akiwrapper.core.utils.Utilities;
+import org.json.*;
+import org.slf4j.Logger;
+
+/**
+ * <b>Note:</b> This is an internal class and its internals are subject to change
+ * without prior deprecation. Use with caution.<br>
+ * <br>
+ * The fields of a JSON response to {@link Routes#ANSWER}, {@link Routes#CANCEL_ANSWER}
+ * or {@link Routes#EXCLUDE}. These responses are flat objects of which only a few
+ * known keys are ever read, so {@link #parse(byte[])} scans the raw
+ * response bytes once, records where the known values are, and only decodes them
+ * when they're requested. Responses that aren't flat objects of strings, numbers
+ * and booleans are parsed with org.json instead.<br>
+ * Decoded values are cached without synchronization, which is safe because decoding
+ * is idempotent and strings are immutable.
+ *
+ * @author Marko Zajc
+ */
+@SuppressWarnings("javadoc") // internal
+public final class FlatJson {
+
+	private static final Logger LOG = getLogger(FlatJson.class);
+
+	public static final String KEY_COMPLETION = "completion";
+	public static final String KEY_QUESTION = "question";
+	public static final String KEY_STEP = "step";
+	public static final String KEY_PROGRESSION = "progression";
+	public static final String KEY_ID_PROPOSITION = "id_proposition";
+	public static final String KEY_NAME_PROPOSITION = "name_proposition";
+	public static final String KEY_DESCRIPTION_PROPOSITION = "description_proposition";
+	public static final String KEY_PSEUDO = "pseudo";
+	public static final String KEY_PHOTO = "photo";
+	public static final String KEY_FLAG_PHOTO = "flag_photo";
+
+	private static final String[] KEYS = { KEY_COMPLETION, KEY_QUESTION, KEY_STEP, KEY_PROGRESSION,
+		KEY_ID_PROPOSITION, KEY_NAME_PROPOSITION, KEY_DESCRIPTION_PROPOSITION, KEY_PSEUDO, KEY_PHOTO, KEY_FLAG_PHOTO };
+	private static final byte[][] KEY_BYTES = new byte[KEYS.length][];
+	static {
+		for (int i = 0; i < KEYS.length; i++)
+			KEY_BYTES[i] = KEYS[i].getBytes(UTF_8);
+	}
+
+	private static final int ABSENT = -1;
+
+	@Nullable private final byte[] body;
+	@Nonnull private final int[] starts = new int[KEYS.length];
+	@Nonnull private final int[] ends = new int[KEYS.length];
+	@Nonnull private final boolean[] escaped = new boolean[KEYS.length];
+	@Nonnull private final String[] values = new String[KEYS.length];
+
+	private FlatJson(@Nullable byte[] body) {
+		this.body = body;
+		Arrays.fill(this.starts, ABSENT);
+	}
+
+	@Nonnull
+	public static FlatJson parse(@Nonnull byte[] body) {
+		var json = new FlatJson(body);
+		if (new Scanner(body, json).scan())
+			return json;
+
+		LOG.debug("Couldn't scan the response, falling back to org.json");
+		return fromJsonObject(new String(body, UTF_8));
+	}
+
+	@Nonnull
+	@SuppressWarnings("null")
+	public static FlatJson fromJsonObject(@Nonnull String body) {
+		var jsonObject = parseJsonObject(body);
+		var json = new FlatJson(null);
+		for (int i = 0; i < KEYS.length; i++) {
+			var value = jsonObject.opt(KEYS[i]);
+			if (value instanceof String || value instanceof Number || value instanceof Boolean) {
+				json.starts[i] = 0;
+				json.values[i] = value.toString();
+			}
+		}
+		return json;
+	}
+
+	@Nonnull
+	private static JSONObject parseJsonObject(@Nonnull String body) {
+		try {
+			return new JSONObject(body);
+		} catch (JSONException e) {
+			throw new MalformedResponseException(e);
+		}
+	}
+
+	public boolean has(@Nonnull String key) {
+		return this.starts[indexOf(key)] != ABSENT;
+	}
+
+	@Nullable
+	public String optString(@Nonnull String key) {
+		int index = indexOf(key);
+		if (this.starts[index] == ABSENT)
+			return null;
+
+		var value = this.values[index];
+		if (value == null) {
+			value = decode(index);
+			this.values[index] = value;
+		}
+		return value;
+	}
+
+	@Nonnull
+	public String getString(@Nonnull String key) throws MalformedResponseException {
+		var value = optString(key);
+		if (value == null)
+			throw new MalformedResponseException();
+		return value;
+	}
+
+	/**
+	 * Decodes a string like {@link #getString(String)}, but without caching the decoded
+	 * value, for callers that keep (or intern) it themselves.
+	 *
+	 * @param key
+	 *            the key
+	 *
+	 * @return the decoded value
+	 *
+	 * @throws MalformedResponseException
+	 *             if the key is absent
+	 */
+	@Nonnull
+	public String decodeString(@Nonnull String key) throws MalformedResponseException {
+		int index = indexOf(key);
+		if (this.starts[index] == ABSENT)
+			throw new MalformedResponseException();
+
+		var value = this.values[index];
+		return value != null ? value : decode(index);
+	}
+
+	/**
+	 * Copies the values of the given keys into a new {@link FlatJson} that only holds
+	 * those values, so that they can still be decoded lazily without keeping the whole
+	 * response body reachable. Values that were already decoded are copied as they are.
+	 *
+	 * @param keys
+	 *            the keys to copy
+	 *
+	 * @return a {@link FlatJson} with only the given keys
+	 */
+	@Nonnull
+	public FlatJson compact(@Nonnull String... keys) {
+		int length = 0;
+		if (this.body != null) {
+			for (var key : keys) {
+				int index = indexOf(key);
+				if (this.starts[index] != ABSENT && this.values[index] == null)
+					length += this.ends[index] - this.starts[index];
+			}
+		}
+
+		var compacted = new FlatJson(length == 0 ? null : new byte[length]);
+		int position = 0;
+		for (var key : keys) {
+			int index = indexOf(key);
+			if (this.starts[index] == ABSENT)
+				continue;
+
+			int valueLength = this.ends[index] - this.starts[index];
+			if (this.values[index] != null || valueLength == 0) {
+				compacted.starts[index] = 0;
+				compacted.values[index] = this.values[index] != null ? this.values[index] : "";
+				continue;
+			}
+
+			System.arraycopy(this.body, this.starts[index], compacted.body, position, valueLength);
+			compacted.starts[index] = position;
+			compacted.ends[index] = position + valueLength;
+			compacted.escaped[index] = this.escaped[index];
+			position += valueLength;
+		}
+		return compacted;
+	}
+
+	public int getInt(@Nonnull String key) throws MalformedResponseException {
+		int index = indexOf(key);
+		if (this.body != null && this.starts[index] != ABSENT && !this.escaped[index]) {
+			// parse plain digits straight from the body
+			int start = this.starts[index];
+			int end = this.ends[index];
+			if (end - start > 0 && end - start < 10) {
+				int result = 0;
+				int i = start;
+				for (; i < end; i++) {
+					int digit = this.body[i] - '0';
+					if (digit < 0 || digit > 9)
+						break;
+					result = result * 10 + digit;
+				}
+				if (i == end)
+					return result;
+			}
+		}
+
+		return Utilities.parseInt(getString(key));
+	}
+
+	public double getDouble(@Nonnull String key) throws MalformedResponseException {
+		return Utilities.parseDouble(getString(key));
+	}
+
+	@Nonnull
+	@SuppressWarnings("null")
+	private String decode(int index) {
+		int start = this.starts[index];
+		int end = this.ends[index];
+		if (!this.escaped[index])
+			return new String(this.body, start, end - start, UTF_8);
+
+		var sb = new StringBuilder(end - start);
+		int segmentStart = start;
+		int i = start;
+		while (i < end) {
+			if (this.body[i] != '\\') {
+				i++;
+				continue;
+			}
+
+			sb.append(new String(this.body, segmentStart, i - segmentStart, UTF_8));
+			char escape = (char) this.body[i + 1];
+			switch (escape) {
+				case 'b':
+					sb.append('\b');
+					break;
+				case 'f':
+					sb.append('\f');
+					break;
+				case 'n':
+					sb.append('\n');
+					break;
+				case 'r':
+					sb.append('\r');
+					break;
+				case 't':
+					sb.append('\t');
+					break;
+				case 'u':
+					sb.append((char) Integer.parseInt(new String(this.body, i + 2, 4, UTF_8), 16));
+					i += 4;
+					break;
+				default: // '"', '\\' and '/'
+					sb.append(escape);
+			}
+			i += 2;
+			segmentStart = i;
+		}
+		sb.append(new String(this.body, segmentStart, end - segmentStart, UTF_8));
+		return sb.toString();
+	}
+
+	private static int indexOf(@Nonnull String key) {
+		for (int i = 0; i < KEYS.length; i++)
+			if (KEYS[i].equals(key))
+				return i;
+		throw new IllegalArgumentException("Unknown key: " + key);
+	}
+
+	private static final class Scanner {
+
+		@Nonnull private final byte[] body;
+		@Nonnull private final FlatJson json;
+		private int position;
+
+		Scanner(@Nonnull byte[] body, @Nonnull FlatJson json) {
+			this.body = body;
+			this.json = json;
+		}
+
+		/**
+		 * Scans a flat object, recording the positions of known keys' values.
+		 *
+		 * @return whether the body was a flat object that could be scanned.
+		 */
+		boolean scan() {
+			skipWhitespace();
+			if (!consume('{'))
+				return false;
+
+			skipWhitespace();
+			if (consume('}'))
+				return isAtEnd();
+
+			while (true) {
+				skipWhitespace();
+				int keyStart = this.position + 1;
+				if (!skipString())
+					return false;
+				int key = knownKey(keyStart, this.position - 1);
+
+				skipWhitespace();
+				if (!consume(':'))
+					return false;
+				skipWhitespace();
+
+				if (!scanValue(key))
+					return false;
+
+				skipWhitespace();
+				if (consume('}'))
+					return isAtEnd();
+				if (!consume(','))
+					return false;
+			}
+		}
+
+		private boolean scanValue(int key) {
+			if (this.position >= this.body.length)
+				return false;
+
+			byte first = this.body[this.position];
+			int start;
+			int end;
+			boolean escaped = false;
+			if (first == '"') {
+				start = this.position + 1;
+				int i = start;
+				while (true) {
+					if (i >= this.body.length)
+						return false;
+					byte c = this.body[i];
+					if (c == '"')
+						break;
+					if (c == '\\') {
+						if (i + 1 >= this.body.length || !isValidEscape(i))
+							return false;
+						escaped = true;
+						i += this.body[i + 1] == 'u' ? 6 : 2;
+					} else {
+						i++;
+					}
+				}
+				end = i;
+				this.position = i + 1;
+
+			} else if (first == '-' || first >= '0' && first <= '9' || first == 't' || first == 'f') {
+				start = this.position;
+				int i = start;
+				while (i < this.body.length && isScalarByte(this.body[i]))
+					i++;
+				end = i;
+				this.position = i;
+				if (!isValidScalar(start, end))
+					return false;
+
+			} else {
+				return false; // nested objects, arrays and nulls are left to org.json
+			}
+
+			if (key != ABSENT) {
+				this.json.starts[key] = start;
+				this.json.ends[key] = end;
+				this.json.escaped[key] = escaped;
+			}
+			return true;
+		}
+
+		private boolean skipString() {
+			if (!consume('"'))
+				return false;
+
+			while (this.position < this.body.length) {
+				byte c = this.body[this.position++];
+				if (c == '"')
+					return true;
+				if (c == '\\')
+					this.position++;
+			}
+			return false;
+		}
+
+		private int knownKey(int start, int end) {
+			outer: for (int i = 0; i < KEY_BYTES.length; i++) {
+				var key = KEY_BYTES[i];
+				if (key.length != end - start)
+					continue;
+				for (int j = 0; j < key.length; j++)
+					if (key[j] != this.body[start + j])
+						continue outer;
+				return i;
+			}
+			return ABSENT;
+		}
+
+		private boolean isValidEscape(int backslash) {
+			switch (this.body[backslash + 1]) {
+				case '"':
+				case '\\':
+				case '/':
+				case 'b':
+				case 'f':
+				case 'n':
+				case 'r':
+				case 't':
+					return true;
+				case 'u':
+					if (backslash + 6 > this.body.length)
+						return false;
+					for (int i = backslash + 2; i < backslash + 6; i++)
+						if (Character.digit(this.body[i], 16) < 0)
+							return false;
+					return true;
+				default:
+					return false;
+			}
+		}
+
+		private boolean isValidScalar(int start, int end) {
+			int length = end - start;
+			if (length == 4 && this.body[start] == 't')
+				return this.body[start + 1] == 'r' && this.body[start + 2] == 'u' && this.body[start + 3] == 'e';
+			if (length == 5 && this.body[start] == 'f')
+				return this.body[start + 1] == 'a' && this.body[start + 2] == 'l' && this.body[start + 3] == 's' &&
+					this.body[start + 4] == 'e';
+
+			// a number, the exact format is validated when it's parsed
+			for (int i = start; i < end; i++) {
+				byte c = this.body[i];
+				if (!(c >= '0' && c <= '9' || c == '-' || c == '+' || c == '.' || c == 'e' || c == 'E'))
+					return false;
+			}
+			return length > 0;
+		}
+
+		private static boolean isScalarByte(byte c) {
+			return c >= '0' && c <= '9' || c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c == '-' || c == '+' ||
+				c == '.';
+		}
+
+		private boolean consume(char expected) {
+			if (this.position < this.body.length && this.body[this.position] == expected) {
+				this.position++;
+				return true;
+			}
+			return false;
+		}
+
+		private void skipWhitespace() {
+			while (this.position < this.body.length) {
+				byte c = this.body[this.position];
+				if (c != ' ' && c != '\n' && c != '\r' && c != '\t')
+					return;
+				this.position++;
+			}
+		}
+
+		private boolean isAtEnd() {
+			skipWhitespace();
+			return this.position == this.body.length;
+		}
+
+	}
+
+}
@@ -0,0 +1,388 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2026 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.core.utils.route;
+
+import static org.eu.zajc.akiwrapper.core.entities.impl.AkiwrapperImpl.Session.IDENTIFIER_PATTERN;
+import static org.eu.zajc.akiwrapper.core.utils.route.Status.ERROR;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.util.Optional;
+
+import javax.annotation.*;
+
+import org.eu.zajc.akiwrapper.core.entities.impl.AkiwrapperImpl.Session;
+import org.eu.zajc.akiwrapper.core.exceptions.*;
+import org.eu.zajc.akiwrapper.core.utils.Utilities;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Element;
+import org.jsoup.parser.Parser;
+import org.slf4j.Logger;
+
+/**
+ * <b>Note:</b> This is an internal class and its internals are subject to change
+ * without prior deprecation. Use with caution.<br>
+ * <br>
+ * The data Akiwrapper needs from the game page returned by
+ * {@link Routes#NEW_SESSION}: the session and the first question.<br>
+ * The game page is large, but only a handful of elements are of interest, so
+ * {@link #parse(String)} extracts them in a single pass over the HTML without
+ * building a DOM, and stops as soon as everything has been found. If the page
+ * doesn't look the way the scanner expects, it falls back to parsing the page with
+ * jsoup ({@link #fromDocument(Element)}).
+ *
+ * @author Marko Zajc
+ */
+@SuppressWarnings("javadoc") // internal
+public final class GamePage {
+
+	private static final Logger LOG = getLogger(GamePage.class);
+
+	@Nonnull private final Session session;
+	@Nonnull private final String question;
+	private final int step;
+
+	private GamePage(@Nonnull Session session, @Nonnull String question, int step) {
+		this.session = session;
+		this.question = question;
+		this.step = step;
+	}
+
+	/**
+	 * Extracts the session and the first question from the game page.
+	 *
+	 * @param html
+	 *            the game page
+	 *
+	 * @return the extracted {@link GamePage}
+	 *
+	 * @throws ServerStatusException
+	 *             if the page indicates an error
+	 * @throws MalformedResponseException
+	 *             if the page is missing the session or the question
+	 */
+	@Nonnull
+	public static GamePage parse(@Nonnull String html) {
+		var page = new Scanner(html).scan();
+		if (page != null)
+			return page;
+
+		LOG.debug("Couldn't scan the game page, falling back to jsoup");
+		var gameRoot = Jsoup.parse(html);
+		if (gameRoot == null)
+			throw new MalformedResponseException();
+
+		return fromDocument(gameRoot);
+	}
+
+	@Nonnull
+	@SuppressWarnings("null")
+	public static GamePage fromDocument(@Nonnull Element gameRoot) {
+		var status = Status.fromHtml(gameRoot);
+		if (status.isErroneous())
+			throw new ServerStatusException(status);
+
+		var question = Optional.ofNullable(gameRoot.getElementById("question-label"))
+			.map(Element::wholeOwnText)
+			.orElseThrow(MalformedResponseException::new);
+
+		var step = Utilities.parseInt(Optional.ofNullable(gameRoot.getElementById("step-info"))
+			.map(Element::wholeOwnText)
+			.orElseThrow(MalformedResponseException::new)) - 1;
+
+		return new GamePage(Session.fromHtml(gameRoot), question, step);
+	}
+
+	@Nonnull
+	public Session getSession() {
+		return this.session;
+	}
+
+	@Nonnull
+	public String getQuestion() {
+		return this.question;
+	}
+
+	public int getStep() {
+		return this.step;
+	}
+
+	private static final class Scanner {
+
+		@Nonnull private final String html;
+		private final int length;
+		private int position;
+
+		// the current tag
+		@Nullable private String tagName;
+		@Nullable private String id;
+		@Nullable private String classes;
+		@Nullable private String value;
+		@Nullable private String alt;
+
+		// extracted values
+		private boolean inSessionForm;
+		@Nullable private String session;
+		@Nullable private String signature;
+		@Nullable private String identifier;
+		@Nullable private String question;
+		@Nullable private String step;
+		private boolean akitudeFound;
+		private boolean awaitingAkitude;
+
+		Scanner(@Nonnull String html) {
+			this.html = html;
+			this.length = html.length();
+		}
+
+		@Nullable
+		@SuppressWarnings("null")
+		GamePage scan() {
+			while (!isComplete()) {
+				int tagStart = this.html.indexOf('<', this.position);
+				if (tagStart < 0 || tagStart + 1 >= this.length)
+					break;
+
+				char next = this.html.charAt(tagStart + 1);
+				if (this.html.startsWith("!--", tagStart + 1)) {
+					if (!skipPast("-->", tagStart + 4))
+						break;
+
+				} else if (next == '/' || next == '!' || next == '?') {
+					if (!skipPast(">", tagStart + 1))
+						break;
+
+				} else if (isAsciiLetter(next)) {
+					if (!readTag(tagStart + 1) || !handleTag())
+						return null;
+
+				} else {
+					this.position = tagStart + 1; // a stray '<' in text
+				}
+			}
+
+			if (this.session == null || this.signature == null || this.question == null || this.step == null)
+				return null;
+
+			if (this.identifier == null)
+				LOG.trace("Couldn't find the session identifier");
+
+			return new GamePage(new Session(this.session, this.signature, this.identifier), this.question,
+								Utilities.parseInt(this.step) - 1);
+		}
+
+		private boolean isComplete() {
+			return this.session != null && this.signature != null && this.identifier != null &&
+				this.question != null && this.step != null && this.akitudeFound;
+		}
+
+		private void handleAkitude() {
+			// determines error status the same way as Status#fromHtml(Element), that is based
+			// on the akitude, which is the first child of .akinator-body
+			this.awaitingAkitude = false;
+			this.akitudeFound = true;
+			if ("akitude-surprise".equals(this.alt))
+				throw new ServerStatusException(ERROR);
+		}
+
+		private boolean handleTag() {
+			if (this.awaitingAkitude)
+				handleAkitude();
+
+			if ("script".equals(this.tagName) || "style".equals(this.tagName)) {
+				int contentStart = this.position;
+				int contentEnd = indexOfIgnoreCase("</" + this.tagName, contentStart);
+				if (contentEnd < 0)
+					return false;
+
+				if ("script".equals(this.tagName) && this.identifier == null) {
+					var matcher = IDENTIFIER_PATTERN.matcher(this.html).region(contentStart, contentEnd);
+					if (matcher.find())
+						this.identifier = matcher.group(1);
+				}
+
+				this.position = contentEnd;
+				return true;
+			}
+
+			if (!this.akitudeFound && this.classes != null && hasClass(this.classes, "akinator-body"))
+				this.awaitingAkitude = true;
+
+			if (this.id == null)
+				return true;
+
+			switch (this.id) {
+				case "askSoundlike":
+					this.inSessionForm = true;
+					return true;
+
+				case "session":
+					if (this.inSessionForm && this.session == null)
+						this.session = this.value == null ? "" : this.value;
+					return true;
+
+				case "signature":
+					if (this.inSessionForm && this.signature == null)
+						this.signature = this.value == null ? "" : this.value;
+					return true;
+
+				case "question-label":
+					if (this.question == null)
+						this.question = readOwnText();
+					return this.question != null;
+
+				case "step-info":
+					if (this.step == null)
+						this.step = readOwnText();
+					return this.step != null;
+
+				default:
+					return true;
+			}
+		}
+
+		/**
+		 * Reads the text of the current element, but only if it contains nothing but
+		 * text. Anything more complex is left to jsoup.
+		 */
+		@Nullable
+		private String readOwnText() {
+			int textEnd = this.html.indexOf('<', this.position);
+			if (textEnd < 0 || !this.html.startsWith("</" + this.tagName, textEnd))
+				return null;
+
+			var text = this.html.substring(this.position, textEnd);
+			this.position = textEnd;
+			return text.indexOf('&') >= 0 ? Parser.unescapeEntities(text, false) : text;
+		}
+
+		private boolean readTag(int nameStart) {
+			this.id = null;
+			this.classes = null;
+			this.value = null;
+			this.alt = null;
+
+			int i = nameStart;
+			while (i < this.length && !isTagDelimiter(this.html.charAt(i)))
+				i++;
+			this.tagName = this.html.substring(nameStart, i).toLowerCase();
+
+			while (i < this.length) {
+				char c = this.html.charAt(i);
+				if (c == '>') {
+					this.position = i + 1;
+					return true;
+
+				} else if (Character.isWhitespace(c) || c == '/') {
+					i++;
+
+				} else {
+					int attributeStart = i;
+					while (i < this.length && !isTagDelimiter(this.html.charAt(i)) && this.html.charAt(i) != '=')
+						i++;
+					var attribute = this.html.substring(attributeStart, i);
+
+					while (i < this.length && Character.isWhitespace(this.html.charAt(i)))
+						i++;
+					if (i >= this.length || this.html.charAt(i) != '=')
+						continue; // attribute without a value
+
+					i++;
+					while (i < this.length && Character.isWhitespace(this.html.charAt(i)))
+						i++;
+					if (i >= this.length)
+						return false;
+
+					int valueStart;
+					int valueEnd;
+					char quote = this.html.charAt(i);
+					if (quote == '"' || quote == '\'') {
+						valueStart = i + 1;
+						valueEnd = this.html.indexOf(quote, valueStart);
+						if (valueEnd < 0)
+							return false;
+						i = valueEnd + 1;
+
+					} else {
+						valueStart = i;
+						while (i < this.length && !isTagDelimiter(this.html.charAt(i)))
+							i++;
+						valueEnd = i;
+					}
+
+					setAttribute(attribute, valueStart, valueEnd);
+				}
+			}
+
+			return false;
+		}
+
+		private void setAttribute(@Nonnull String attribute, int valueStart, int valueEnd) {
+			if (attribute.equalsIgnoreCase("id"))
+				this.id = attributeValue(valueStart, valueEnd);
+			else if (attribute.equalsIgnoreCase("class"))
+				this.classes = attributeValue(valueStart, valueEnd);
+			else if (attribute.equalsIgnoreCase("value"))
+				this.value = attributeValue(valueStart, valueEnd);
+			else if (attribute.equalsIgnoreCase("alt"))
+				this.alt = attributeValue(valueStart, valueEnd);
+		}
+
+		@Nonnull
+		private String attributeValue(int valueStart, int valueEnd) {
+			var attributeValue = this.html.substring(valueStart, valueEnd);
+			return attributeValue.indexOf('&') >= 0 ? Parser.unescapeEntities(attributeValue, true) : attributeValue;
+		}
+
+		private boolean skipPast(@Nonnull String terminator, int from) {
+			int end = this.html.indexOf(terminator, from);
+			if (end < 0)
+				return false;
+
+			this.position = end + terminator.length();
+			return true;
+		}
+
+		private int indexOfIgnoreCase(@Nonnull String needle, int from) {
+			for (int i = this.html.indexOf('<', from); i >= 0; i = this.html.indexOf('<', i + 1))
+				if (this.html.regionMatches(true, i, needle, 0, needle.length()))
+					return i;
+			return -1;
+		}
+
+		private static boolean hasClass(@Nonnull String classes, @Nonnull String className) {
+			int index = classes.indexOf(className);
+			while (index >= 0) {
+				int end = index + className.length();
+				if ((index == 0 || Character.isWhitespace(classes.charAt(index - 1))) &&
+					(end == classes.length() || Character.isWhitespace(classes.charAt(end))))
+					return true;
+				index = classes.indexOf(className, end);
+			}
+			return false;
+		}
+
+		private static boolean isTagDelimiter(char c) {
+			return c == '>' || c == '/' || Character.isWhitespace(c);
+		}
+
+		private static boolean isAsciiLetter(char c) {
+			return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z';
+		}
+
+	}
+
+}
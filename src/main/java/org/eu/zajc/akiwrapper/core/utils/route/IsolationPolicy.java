@@ -0,0 +1,758 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2026 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.core.utils.route;
+
+import static java.util.Collections.synchronizedMap;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.annotation.*;
+
+import org.eu.zajc.akiwrapper.Akiwrapper.Language;
+import org.eu.zajc.akiwrapper.AkiwrapperBuilder;
+import org.eu.zajc.akiwrapper.core.exceptions.*;
+import org.eu.zajc.akiwrapper.core.transport.Transport;
+import org.eu.zajc.akiwrapper.core.utils.Deadline;
+
+/**
+ * Isolates the hosts requests are sent to from each other, so that a degraded host
+ * (each {@link Language} has its own) doesn't affect games on other hosts. Each
+ * host has:
+ * <ul>
+ * <li>a bulkhead, which limits the amount of requests in flight to the host.
+ * Further requests are queued, and once the queue is full too, they fail right away
+ * with a {@link BulkheadFullException}. If the limit is adaptive (see
+ * {@link IsolationPolicyBuilder#setAdaptiveLimit(boolean)}), it's adjusted with AIMD
+ * (additive increase, multiplicative decrease): it grows by one for each round of
+ * successful requests, and shrinks by a fraction when the host responds with HTTP
+ * 429 or 5xx, when a request times out, or when a response is much slower than usual
+ * for its route. The limit always stays between
+ * {@link IsolationPolicyBuilder#setMinConcurrentRequests(int)} and
+ * {@link IsolationPolicyBuilder#setMaxConcurrentRequests(int)}.</li>
+ * <li>a scheduler, which decides the order in which queued requests are sent. Queued
+ * {@link Priority#INTERACTIVE} requests are always sent before queued
+ * {@link Priority#BATCH} requests, and requests of the same priority are shared
+ * between tenants (see {@link AkiwrapperBuilder#setTenant(String)}) in proportion to
+ * their weights (see {@link IsolationPolicyBuilder#setTenantWeight(String, int)}),
+ * so a single tenant can't monopolize the host. Requests whose deadline passes while
+ * they're queued fail with a {@link DeadlineExceededException} instead of being
+ * sent, and once the queue is full, batch requests with the nearest deadlines are
+ * shed first.</li>
+ * <li>a circuit breaker, which tracks the outcomes of recent requests to the host.
+ * Responses with a 5xx status code or an erroneous {@link Status}, failed
+ * connections, and timeouts count as failures. Once the share of failures exceeds
+ * {@link IsolationPolicyBuilder#setFailureThreshold(double)}, the circuit opens, and
+ * all requests to the host (including session creation and retries) fail right away
+ * with a {@link CircuitOpenException} instead of piling up. After
+ * {@link IsolationPolicyBuilder#setOpenDuration(Duration)}, a single request is let
+ * through to probe the host, and the circuit closes again if it succeeds.</li>
+ * </ul>
+ * Hosts are tracked separately for each {@link Transport}, like retry budgets (see
+ * {@link RetryPolicy}), so they're shared by all games that use the same
+ * {@link Transport}. They're identified by the authority of the request URI, so
+ * languages that are served through the same reverse proxy (see
+ * {@link EndpointResolver}) share their bulkhead and circuit breaker. The state of
+ * each host can be monitored through {@link #getHosts(Transport)}.<br>
+ * Instances of this class are immutable and can be shared between
+ * {@link AkiwrapperBuilder}s. Use {@link IsolationPolicyBuilder} to create one.
+ *
+ * @author Marko Zajc
+ *
+ * @see AkiwrapperBuilder#setIsolationPolicy(IsolationPolicy)
+ */
+public final class IsolationPolicy {
+
+	/**
+	 * The default {@link IsolationPolicy}, as built by an unmodified
+	 * {@link IsolationPolicyBuilder}.
+	 */
+	@Nonnull public static final IsolationPolicy DEFAULT = new IsolationPolicyBuilder().build();
+
+	/**
+	 * An {@link IsolationPolicy} that doesn't limit concurrent requests and never opens
+	 * the circuit.
+	 */
+	@Nonnull public static final IsolationPolicy NONE = new IsolationPolicyBuilder().setAdaptiveLimit(false)
+		.setMaxConcurrentRequests(Integer.MAX_VALUE)
+		.setCircuitBreaker(false)
+		.build();
+
+	// the weight of each new sample in the queue wait average
+	private static final double QUEUE_WAIT_WEIGHT = 0.1;
+
+	// the order in which queued requests of the same priority are shed: the nearest
+	// deadline first, because it's the least likely to be met, and the newest one out of
+	// those without a deadline
+	private static final Comparator<Queued> SHED_ORDER =
+		Comparator.<Queued>comparingLong(q -> q.deadline == null ? Long.MAX_VALUE : q.deadline.getRemainingNanos())
+			.thenComparing(Comparator.<Queued>comparingLong(q -> q.sequence).reversed());
+
+	private final int maxConcurrentRequests;
+	private final int maxQueuedRequests;
+	@Nonnull private final Map<String, Integer> tenantWeights;
+	private final boolean adaptiveLimit;
+	private final int initialConcurrentRequests;
+	private final int minConcurrentRequests;
+	private final double backoffRatio;
+	private final double latencyTolerance;
+	private final boolean circuitBreaker;
+	private final double failureThreshold;
+	private final int window;
+	private final int minimumRequests;
+	@Nonnull private final Duration openDuration;
+
+	@Nonnull private final Map<Transport, Map<String, Host>> hosts = synchronizedMap(new WeakHashMap<>());
+
+	IsolationPolicy(int maxConcurrentRequests, int maxQueuedRequests, @Nonnull Map<String, Integer> tenantWeights,
+					boolean adaptiveLimit, int initialConcurrentRequests, int minConcurrentRequests,
+					double backoffRatio, double latencyTolerance, boolean circuitBreaker, double failureThreshold,
+					int window, int minimumRequests, @Nonnull Duration openDuration) {
+		this.maxConcurrentRequests = maxConcurrentRequests;
+		this.maxQueuedRequests = maxQueuedRequests;
+		this.tenantWeights = tenantWeights;
+		this.adaptiveLimit = adaptiveLimit;
+		this.initialConcurrentRequests = initialConcurrentRequests;
+		this.minConcurrentRequests = minConcurrentRequests;
+		this.backoffRatio = backoffRatio;
+		this.latencyTolerance = latencyTolerance;
+		this.circuitBreaker = circuitBreaker;
+		this.failureThreshold = failureThreshold;
+		this.window = window;
+		this.minimumRequests = minimumRequests;
+		this.openDuration = openDuration;
+	}
+
+	/**
+	 * @return the maximum amount of requests in flight to a single host, which is the
+	 *         upper bound for the adaptive limit.
+	 */
+	public int getMaxConcurrentRequests() {
+		return this.maxConcurrentRequests;
+	}
+
+	/**
+	 * @return the maximum amount of requests waiting for a single host.
+	 */
+	public int getMaxQueuedRequests() {
+		return this.maxQueuedRequests;
+	}
+
+	/**
+	 * Returns the weight of a tenant, which decides its share of queued requests.
+	 *
+	 * @param tenant
+	 *            the tenant
+	 *
+	 * @return the weight of {@code tenant}.
+	 *
+	 * @see IsolationPolicyBuilder#setTenantWeight(String, int)
+	 */
+	public int getTenantWeight(@Nonnull String tenant) {
+		return this.tenantWeights.getOrDefault(tenant, IsolationPolicyBuilder.DEFAULT_TENANT_WEIGHT);
+	}
+
+	/**
+	 * @return whether the concurrency limit adapts to the host's responses.
+	 */
+	public boolean hasAdaptiveLimit() {
+		return this.adaptiveLimit;
+	}
+
+	/**
+	 * @return the adaptive concurrency limit of hosts that haven't been contacted yet.
+	 */
+	public int getInitialConcurrentRequests() {
+		return this.initialConcurrentRequests;
+	}
+
+	/**
+	 * @return the lower bound for the adaptive concurrency limit.
+	 */
+	public int getMinConcurrentRequests() {
+		return this.minConcurrentRequests;
+	}
+
+	/**
+	 * @return the factor the adaptive concurrency limit is multiplied by when the host
+	 *         is overloaded.
+	 */
+	public double getBackoffRatio() {
+		return this.backoffRatio;
+	}
+
+	/**
+	 * @return how many times slower than the average for its route a response must be
+	 *         to count as a sign of overload.
+	 */
+	public double getLatencyTolerance() {
+		return this.latencyTolerance;
+	}
+
+	/**
+	 * @return whether the circuit breaker is enabled.
+	 */
+	public boolean hasCircuitBreaker() {
+		return this.circuitBreaker;
+	}
+
+	/**
+	 * @return the share of failed requests (between 0 and 1) that opens the circuit.
+	 */
+	public double getFailureThreshold() {
+		return this.failureThreshold;
+	}
+
+	/**
+	 * @return the amount of recent requests whose outcomes are tracked per host.
+	 */
+	public int getWindow() {
+		return this.window;
+	}
+
+	/**
+	 * @return the amount of tracked outcomes needed before the circuit can open.
+	 */
+	public int getMinimumRequests() {
+		return this.minimumRequests;
+	}
+
+	/**
+	 * @return the time the circuit stays open before a probe is let through.
+	 */
+	@Nonnull
+	public Duration getOpenDuration() {
+		return this.openDuration;
+	}
+
+	/**
+	 * Returns the hosts that requests have been sent to through a {@link Transport},
+	 * which can be used to monitor their concurrency limits, queues, and circuits.
+	 *
+	 * @param transport
+	 *            the transport, such as {@link AkiwrapperBuilder#getTransport()} or
+	 *            {@link org.eu.zajc.akiwrapper.core.transport.HttpClientTransport#of}
+	 *
+	 * @return an unmodifiable live view of the hosts, keyed by their authority (for
+	 *         example {@code "en.akinator.com"}).
+	 */
+	@Nonnull
+	public Map<String, Host> getHosts(@Nonnull Transport transport) {
+		var transportHosts = this.hosts.get(transport);
+		return transportHosts == null ? Map.of() : Collections.unmodifiableMap(transportHosts);
+	}
+
+	@Nonnull
+	Host getHost(@Nonnull Transport transport, @Nonnull URI uri) {
+		var transportHosts = this.hosts.computeIfAbsent(transport, t -> new ConcurrentHashMap<>());
+		return transportHosts.computeIfAbsent(uri.getAuthority(), a -> new Host());
+	}
+
+	/**
+	 * The state of a host's circuit breaker.
+	 *
+	 * @author Marko Zajc
+	 */
+	public enum CircuitState {
+
+		/**
+		 * Requests are sent as usual.
+		 */
+		CLOSED,
+
+		/**
+		 * Requests fail right away with a {@link CircuitOpenException}.
+		 */
+		OPEN,
+
+		/**
+		 * A single request is let through to probe the host, and the others fail right
+		 * away.
+		 */
+		HALF_OPEN;
+
+	}
+
+	/**
+	 * Receives the decision on whether a request may be sent, which is either made
+	 * immediately or once the request leaves the queue.
+	 */
+	@FunctionalInterface
+	interface Admission {
+
+		/**
+		 * @param probe
+		 *            the token of the request if it probes a half-open circuit, which must
+		 *            be passed to {@link Host#onSuccess(Probe)},
+		 *            {@link Host#onFailure(Probe)}, or {@link Host#onAbandoned(Probe)}
+		 *            once its outcome is known, or {@code null} otherwise
+		 * @param rejection
+		 *            {@code null} if the request was admitted and holds a permit that must
+		 *            be given back with {@link Host#release()}, or the reason it was
+		 *            rejected
+		 */
+		void admit(@Nullable Probe probe, @Nullable AkinatorException rejection);
+
+	}
+
+	/**
+	 * Identifies the single request that probes a half-open circuit, so that only its
+	 * outcome decides whether the circuit closes, and so that other requests don't let
+	 * another probe through while it's in flight.
+	 */
+	static final class Probe {
+
+		Probe() {}
+
+	}
+
+	/**
+	 * The bulkhead, scheduler, and circuit breaker of a single host. All methods of
+	 * this class return a momentary value.
+	 *
+	 * @author Marko Zajc
+	 */
+	public final class Host {
+
+		@Nonnull private final Map<Priority, Lane> lanes = new EnumMap<>(Priority.class);
+		@Nonnull private final boolean[] outcomes = new boolean[IsolationPolicy.this.window];
+		private double limit = IsolationPolicy.this.adaptiveLimit ? IsolationPolicy.this.initialConcurrentRequests :
+			IsolationPolicy.this.maxConcurrentRequests;
+		private int active;
+		private int queued;
+		private long sequence;
+		private double queueWaitNanos;
+		private int count;
+		private int next;
+		private int failures;
+		@Nonnull private CircuitState state = CircuitState.CLOSED;
+		private long openedAt;
+		@Nullable private Probe probe;
+
+		Host() {
+			for (var priority : Priority.values())
+				this.lanes.put(priority, new Lane());
+		}
+
+		/**
+		 * @return the current concurrency limit.
+		 */
+		public synchronized int getLimit() {
+			return (int) this.limit;
+		}
+
+		/**
+		 * @return the amount of requests in flight.
+		 */
+		public synchronized int getInFlight() {
+			return this.active;
+		}
+
+		/**
+		 * @return the amount of requests waiting for the limit.
+		 */
+		public synchronized int getQueueLength() {
+			return this.queued;
+		}
+
+		/**
+		 * @param priority
+		 *            the priority
+		 *
+		 * @return the amount of requests of {@code priority} waiting for the limit.
+		 */
+		public synchronized int getQueueLength(@Nonnull Priority priority) {
+			return this.lanes.get(priority).queue.size();
+		}
+
+		/**
+		 * @return the exponential moving average of the time requests waited in the queue
+		 *         (requests that weren't queued count as waiting for {@code 0}).
+		 */
+		@Nonnull
+		public synchronized Duration getQueueWait() {
+			return Duration.ofNanos((long) this.queueWaitNanos);
+		}
+
+		/**
+		 * @return the state of the circuit breaker.
+		 */
+		@Nonnull
+		public synchronized CircuitState getCircuitState() {
+			return this.state;
+		}
+
+		@Override
+		public synchronized String toString() {
+			return "Host[limit=" + (int) this.limit + ", inFlight=" + this.active + ", queued=" + this.queued +
+				", queueWait=" + (long) (this.queueWaitNanos / 1_000_000) + " ms, circuit=" + this.state + "]";
+		}
+
+		void submit(@Nonnull Admission admission, @Nonnull String tenant, @Nonnull Priority priority,
+					@Nullable Deadline deadline) {
+			AkinatorException rejection;
+			Probe probe = null;
+			List<Queued> expired = List.of();
+			Queued shed = null;
+			boolean enqueued = false;
+			synchronized (this) {
+				rejection = checkCircuit();
+				if (rejection == null && this.state == CircuitState.HALF_OPEN)
+					probe = this.probe;
+
+				if (rejection == null) {
+					if (this.active < this.limit) {
+						this.active++;
+						recordQueueWait(0);
+
+					} else {
+						var queued =
+							new Queued(admission, probe, tenant, priority, deadline, System.nanoTime(),
+									   this.sequence++);
+						if (this.queued >= IsolationPolicy.this.maxQueuedRequests) {
+							expired = removeExpired();
+							if (this.queued >= IsolationPolicy.this.maxQueuedRequests) {
+								shed = selectShed(queued);
+								if (shed != queued)
+									remove(shed);
+							}
+						}
+
+						if (shed == queued) {
+							shed = null;
+							rejection = new BulkheadFullException();
+						} else {
+							this.lanes.get(priority).add(queued);
+							this.queued++;
+							enqueued = true;
+						}
+					}
+				}
+			}
+
+			expired.forEach(q -> q.admission.admit(null, new DeadlineExceededException()));
+			if (shed != null)
+				shed.admission.admit(null, new BulkheadFullException());
+			if (!enqueued)
+				admission.admit(probe, rejection);
+		}
+
+		void release() {
+			List<Queued> admitted = List.of();
+			List<Queued> expired = List.of();
+			synchronized (this) {
+				this.active--;
+				if (this.queued > 0 && this.active < this.limit) {
+					admitted = new ArrayList<>();
+					expired = new ArrayList<>();
+					admitQueued(admitted, expired);
+				}
+			}
+			admitted.forEach(q -> q.admission.admit(q.probe, null));
+			expired.forEach(q -> q.admission.admit(null, new DeadlineExceededException()));
+		}
+
+		void onLatency(long nanos, long averageNanos) {
+			if (!IsolationPolicy.this.adaptiveLimit)
+				return;
+
+			if (averageNanos > 0 && nanos > IsolationPolicy.this.latencyTolerance * averageNanos) {
+				onOverload();
+				return;
+			}
+
+			synchronized (this) {
+				// only grow the limit while it's actually being used
+				if (this.active * 2 >= this.limit)
+					this.limit = Math.min(IsolationPolicy.this.maxConcurrentRequests, this.limit + 1 / this.limit);
+			}
+		}
+
+		void onOverload() {
+			if (!IsolationPolicy.this.adaptiveLimit)
+				return;
+
+			synchronized (this) {
+				this.limit = Math.max(IsolationPolicy.this.minConcurrentRequests,
+									  this.limit * IsolationPolicy.this.backoffRatio);
+			}
+		}
+
+		void onSuccess(@Nullable Probe probe) {
+			if (!IsolationPolicy.this.circuitBreaker)
+				return;
+
+			synchronized (this) {
+				if (this.state == CircuitState.HALF_OPEN) {
+					// requests that were sent before the circuit opened don't count
+					if (probe == null || probe != this.probe)
+						return;
+
+					this.state = CircuitState.CLOSED;
+					this.probe = null;
+					this.count = this.next = this.failures = 0;
+
+				} else if (this.state == CircuitState.CLOSED) {
+					record(false);
+				}
+			}
+		}
+
+		void onFailure(@Nullable Probe probe) {
+			if (!IsolationPolicy.this.circuitBreaker)
+				return;
+
+			List<Queued> rejected;
+			synchronized (this) {
+				if (this.state == CircuitState.CLOSED) {
+					record(true);
+					if (this.count < IsolationPolicy.this.minimumRequests ||
+						this.failures < IsolationPolicy.this.failureThreshold * this.count)
+						return;
+
+				} else if (this.state == CircuitState.OPEN || probe == null || probe != this.probe) {
+					return;
+				}
+
+				this.state = CircuitState.OPEN;
+				this.probe = null;
+				this.openedAt = System.nanoTime();
+				this.count = this.next = this.failures = 0;
+				rejected = new ArrayList<>(this.queued);
+				for (var lane : this.lanes.values())
+					lane.drainTo(rejected);
+				this.queued = 0;
+			}
+
+			rejected.forEach(q -> q.admission.admit(null, new CircuitOpenException()));
+		}
+
+		void onAbandoned(@Nullable Probe probe) {
+			// a probe that neither succeeded nor failed (for example because it was
+			// cancelled) shouldn't hold up the next one
+			if (probe != null) {
+				synchronized (this) {
+					releaseProbe(probe);
+				}
+			}
+		}
+
+		private void admitQueued(@Nonnull List<Queued> admitted, @Nonnull List<Queued> expired) {
+			long now = System.nanoTime();
+			while (this.active < this.limit && this.queued > 0) {
+				var queued = poll();
+				if (queued.deadline != null && queued.deadline.isExpired()) {
+					// sending it would only waste a permit
+					releaseProbe(queued.probe);
+					expired.add(queued);
+					continue;
+				}
+
+				this.active++;
+				recordQueueWait(now - queued.enqueuedAt);
+				admitted.add(queued);
+			}
+		}
+
+		@Nonnull
+		private Queued poll() {
+			// lanes are iterated in the order of priority, so interactive requests always
+			// go first
+			for (var lane : this.lanes.values()) {
+				var queued = lane.poll();
+				if (queued != null) {
+					this.queued--;
+					return queued;
+				}
+			}
+			throw new IllegalStateException("The queue is empty");
+		}
+
+		private void remove(@Nonnull Queued queued) {
+			this.lanes.get(queued.priority).remove(queued);
+			this.queued--;
+			releaseProbe(queued.probe);
+		}
+
+		private void releaseProbe(@Nullable Probe probe) {
+			if (probe != null && probe == this.probe)
+				this.probe = null;
+		}
+
+		@Nonnull
+		private List<Queued> removeExpired() {
+			List<Queued> expired = List.of();
+			for (var lane : this.lanes.values()) {
+				for (var queued : lane.queue) {
+					if (queued.deadline != null && queued.deadline.isExpired()) {
+						if (expired.isEmpty())
+							expired = new ArrayList<>();
+						expired.add(queued);
+					}
+				}
+			}
+			expired.forEach(this::remove);
+			return expired;
+		}
+
+		@Nonnull
+		private Queued selectShed(@Nonnull Queued incoming) {
+			// the lowest priority lane that has anything in it (counting the incoming
+			// request) gives up its request with the nearest deadline
+			var priorities = Priority.values();
+			for (int i = priorities.length - 1; i >= 0; i--) {
+				var lane = this.lanes.get(priorities[i]);
+				var candidate = lane.queue.stream().min(SHED_ORDER).orElse(null);
+				if (incoming.priority == priorities[i] &&
+					(candidate == null || SHED_ORDER.compare(incoming, candidate) < 0))
+					candidate = incoming;
+
+				if (candidate != null)
+					return candidate;
+			}
+			return incoming;
+		}
+
+		private void recordQueueWait(long nanos) {
+			this.queueWaitNanos += (nanos - this.queueWaitNanos) * QUEUE_WAIT_WEIGHT;
+		}
+
+		@Nullable
+		private AkinatorException checkCircuit() {
+			switch (this.state) {
+				case OPEN:
+					if (System.nanoTime() - this.openedAt < IsolationPolicy.this.openDuration.toNanos())
+						return new CircuitOpenException();
+
+					this.state = CircuitState.HALF_OPEN;
+					this.probe = new Probe();
+					return null;
+
+				case HALF_OPEN:
+					if (this.probe != null)
+						return new CircuitOpenException();
+
+					this.probe = new Probe();
+					return null;
+
+				default:
+					return null;
+			}
+		}
+
+		private void record(boolean failure) {
+			if (this.count == this.outcomes.length) {
+				if (this.outcomes[this.next])
+					this.failures--;
+			} else {
+				this.count++;
+			}
+
+			this.outcomes[this.next] = failure;
+			if (failure)
+				this.failures++;
+			this.next = (this.next + 1) % this.outcomes.length;
+		}
+
+	}
+
+	/**
+	 * The queued requests of a single {@link Priority}, which are shared between
+	 * tenants with self-clocked fair queueing. Each request is tagged with the virtual
+	 * time at which its tenant's share would have sent it, which advances by the
+	 * inverse of the tenant's weight for each of its requests, and the request with the
+	 * lowest tag is sent first. A tenant that has nothing queued starts at the tag of
+	 * the last sent request, so it can't save up its share while it's idle.
+	 */
+	private final class Lane {
+
+		@Nonnull private final PriorityQueue<Queued> queue = new PriorityQueue<>();
+		@Nonnull private final Map<String, Double> finishTags = new HashMap<>();
+		private double virtualTime;
+
+		void add(@Nonnull Queued queued) {
+			double start = Math.max(this.virtualTime, this.finishTags.getOrDefault(queued.tenant, 0D));
+			queued.finishTag = start + 1D / getTenantWeight(queued.tenant);
+			this.finishTags.put(queued.tenant, queued.finishTag);
+			this.queue.add(queued);
+		}
+
+		@Nullable
+		Queued poll() {
+			var queued = this.queue.poll();
+			if (queued != null)
+				this.virtualTime = queued.finishTag;
+			resetIfEmpty();
+			return queued;
+		}
+
+		void remove(@Nonnull Queued queued) {
+			this.queue.remove(queued);
+			resetIfEmpty();
+		}
+
+		void drainTo(@Nonnull Collection<Queued> target) {
+			target.addAll(this.queue);
+			this.queue.clear();
+			resetIfEmpty();
+		}
+
+		private void resetIfEmpty() {
+			// tags only matter relative to those of other queued requests
+			if (this.queue.isEmpty()) {
+				this.finishTags.clear();
+				this.virtualTime = 0;
+			}
+		}
+
+	}
+
+	private static final class Queued implements Comparable<Queued> {
+
+		@Nonnull private final Admission admission;
+		@Nullable private final Probe probe;
+		@Nonnull private final String tenant;
+		@Nonnull private final Priority priority;
+		@Nullable private final Deadline deadline;
+		private final long enqueuedAt;
+		private final long sequence;
+		private double finishTag;
+
+		Queued(@Nonnull Admission admission, @Nullable Probe probe, @Nonnull String tenant, @Nonnull Priority priority,
+			   @Nullable Deadline deadline, long enqueuedAt, long sequence) {
+			this.admission = admission;
+			this.probe = probe;
+			this.tenant = tenant;
+			this.priority = priority;
+			this.deadline = deadline;
+			this.enqueuedAt = enqueuedAt;
+			this.sequence = sequence;
+		}
+
+		@Override
+		public int compareTo(Queued other) {
+			// the order in which queued requests of the same priority are sent. this is the
+			// natural order rather than a comparator so that hosts don't hold on to lambdas
+			int order = Double.compare(this.finishTag, other.finishTag);
+			return order != 0 ? order : Long.compare(this.sequence, other.sequence);
+		}
+
+	}
+
+}
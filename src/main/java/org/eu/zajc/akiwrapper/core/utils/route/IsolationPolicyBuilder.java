@@ -0,0 +1,387 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2026 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.core.utils.route;
+
+import static java.time.Duration.ofSeconds;
+
+import java.time.Duration;
+import java.util.*;
+
+import javax.annotation.Nonnull;
+
+import org.eu.zajc.akiwrapper.AkiwrapperBuilder;
+import org.eu.zajc.akiwrapper.core.exceptions.*;
+
+/**
+ * A class used to build an {@link IsolationPolicy}.
+ *
+ * @author Marko Zajc
+ */
+public class IsolationPolicyBuilder {
+
+	/**
+	 * The default maximum amount of requests in flight to a single host, which is also
+	 * the upper bound for the adaptive limit.
+	 */
+	public static final int DEFAULT_MAX_CONCURRENT_REQUESTS = 128;
+
+	/**
+	 * The default maximum amount of requests waiting for a single host.
+	 */
+	public static final int DEFAULT_MAX_QUEUED_REQUESTS = 1024;
+
+	/**
+	 * The default weight of tenants without a weight of their own.
+	 */
+	public static final int DEFAULT_TENANT_WEIGHT = 1;
+
+	/**
+	 * The default preference for adapting the concurrency limit to the host's
+	 * responses.
+	 */
+	public static final boolean DEFAULT_ADAPTIVE_LIMIT = true;
+
+	/**
+	 * The default adaptive concurrency limit of hosts that haven't been contacted yet.
+	 */
+	public static final int DEFAULT_INITIAL_CONCURRENT_REQUESTS = 32;
+
+	/**
+	 * The default lower bound for the adaptive concurrency limit.
+	 */
+	public static final int DEFAULT_MIN_CONCURRENT_REQUESTS = 4;
+
+	/**
+	 * The default factor the adaptive concurrency limit is multiplied by when the host
+	 * is overloaded.
+	 */
+	public static final double DEFAULT_BACKOFF_RATIO = 0.9;
+
+	/**
+	 * The default multiple of the average latency of a route above which a response
+	 * counts as a sign of overload.
+	 */
+	public static final double DEFAULT_LATENCY_TOLERANCE = 2;
+
+	/**
+	 * The default preference for enabling the circuit breaker.
+	 */
+	public static final boolean DEFAULT_CIRCUIT_BREAKER = true;
+
+	/**
+	 * The default share of failed requests that opens the circuit.
+	 */
+	public static final double DEFAULT_FAILURE_THRESHOLD = 0.5;
+
+	/**
+	 * The default amount of recent requests whose outcomes are tracked per host.
+	 */
+	public static final int DEFAULT_WINDOW = 50;
+
+	/**
+	 * The default amount of tracked outcomes needed before the circuit can open.
+	 */
+	public static final int DEFAULT_MINIMUM_REQUESTS = 20;
+
+	/**
+	 * The default time the circuit stays open before a probe is let through.
+	 */
+	@Nonnull public static final Duration DEFAULT_OPEN_DURATION = ofSeconds(30);
+
+	private int maxConcurrentRequests = DEFAULT_MAX_CONCURRENT_REQUESTS;
+	private int maxQueuedRequests = DEFAULT_MAX_QUEUED_REQUESTS;
+	@Nonnull private final Map<String, Integer> tenantWeights = new HashMap<>();
+	private boolean adaptiveLimit = DEFAULT_ADAPTIVE_LIMIT;
+	private int initialConcurrentRequests = DEFAULT_INITIAL_CONCURRENT_REQUESTS;
+	private int minConcurrentRequests = DEFAULT_MIN_CONCURRENT_REQUESTS;
+	private double backoffRatio = DEFAULT_BACKOFF_RATIO;
+	private double latencyTolerance = DEFAULT_LATENCY_TOLERANCE;
+	private boolean circuitBreaker = DEFAULT_CIRCUIT_BREAKER;
+	private double failureThreshold = DEFAULT_FAILURE_THRESHOLD;
+	private int window = DEFAULT_WINDOW;
+	private int minimumRequests = DEFAULT_MINIMUM_REQUESTS;
+	@Nonnull private Duration openDuration = DEFAULT_OPEN_DURATION;
+
+	/**
+	 * Sets the maximum amount of requests in flight to a single host. Retries count as
+	 * separate requests. If the limit is adaptive, this is its upper bound.<br>
+	 * This is set to {@value #DEFAULT_MAX_CONCURRENT_REQUESTS} by default.
+	 *
+	 * @param maxConcurrentRequests
+	 *            the maximum amount of concurrent requests.
+	 *
+	 * @return current instance, used for chaining.
+	 */
+	@Nonnull
+	public IsolationPolicyBuilder setMaxConcurrentRequests(int maxConcurrentRequests) {
+		if (maxConcurrentRequests < 1)
+			throw new IllegalArgumentException("maxConcurrentRequests must be positive");
+
+		this.maxConcurrentRequests = maxConcurrentRequests;
+		return this;
+	}
+
+	/**
+	 * Sets the maximum amount of requests waiting for a single host once
+	 * {@link #setMaxConcurrentRequests(int)} is reached. Once the queue is full, a
+	 * request is shed with a {@link BulkheadFullException}: a batch request if there
+	 * is one (see {@link Priority}), and out of those, the one with the nearest
+	 * deadline. Setting this to {@code 0} disables queueing.<br>
+	 * This is set to {@value #DEFAULT_MAX_QUEUED_REQUESTS} by default.
+	 *
+	 * @param maxQueuedRequests
+	 *            the maximum amount of queued requests.
+	 *
+	 * @return current instance, used for chaining.
+	 */
+	@Nonnull
+	public IsolationPolicyBuilder setMaxQueuedRequests(int maxQueuedRequests) {
+		if (maxQueuedRequests < 0)
+			throw new IllegalArgumentException("maxQueuedRequests must not be negative");
+
+		this.maxQueuedRequests = maxQueuedRequests;
+		return this;
+	}
+
+	/**
+	 * Sets the weight of a tenant (see {@link AkiwrapperBuilder#setTenant(String)}).
+	 * Queued requests of the same {@link Priority} are sent in proportion to the
+	 * weights of their tenants, so a tenant with a weight of {@code 2} gets twice as
+	 * many requests through as a tenant with a weight of {@code 1} while both have
+	 * requests queued. Tenants without a weight of their own have a weight of
+	 * {@value #DEFAULT_TENANT_WEIGHT}.
+	 *
+	 * @param tenant
+	 *            the tenant.
+	 * @param weight
+	 *            the weight.
+	 *
+	 * @return current instance, used for chaining.
+	 */
+	@Nonnull
+	public IsolationPolicyBuilder setTenantWeight(@Nonnull String tenant, int weight) {
+		if (weight < 1)
+			throw new IllegalArgumentException("weight must be positive");
+
+		this.tenantWeights.put(tenant, weight);
+		return this;
+	}
+
+	/**
+	 * Sets whether the concurrency limit adapts to the host's responses. When this is
+	 * enabled, the limit starts at {@link #setInitialConcurrentRequests(int)}, grows by
+	 * one for each round of requests that succeed in a usual time, and is multiplied by
+	 * {@link #setBackoffRatio(double)} for each response with HTTP 429 or 5xx, each
+	 * timeout, and each response slower than {@link #setLatencyTolerance(double)} times
+	 * the average for its route. When this is disabled, the limit is fixed at
+	 * {@link #setMaxConcurrentRequests(int)}.<br>
+	 * This is set to {@value #DEFAULT_ADAPTIVE_LIMIT} by default.
+	 *
+	 * @param adaptiveLimit
+	 *            whether to adapt the concurrency limit.
+	 *
+	 * @return current instance, used for chaining.
+	 */
+	@Nonnull
+	public IsolationPolicyBuilder setAdaptiveLimit(boolean adaptiveLimit) {
+		this.adaptiveLimit = adaptiveLimit;
+		return this;
+	}
+
+	/**
+	 * Sets the adaptive concurrency limit of hosts that haven't been contacted yet.
+	 * This is capped at {@link #setMaxConcurrentRequests(int)}.<br>
+	 * This is set to {@value #DEFAULT_INITIAL_CONCURRENT_REQUESTS} by default.
+	 *
+	 * @param initialConcurrentRequests
+	 *            the initial concurrency limit.
+	 *
+	 * @return current instance, used for chaining.
+	 */
+	@Nonnull
+	public IsolationPolicyBuilder setInitialConcurrentRequests(int initialConcurrentRequests) {
+		if (initialConcurrentRequests < 1)
+			throw new IllegalArgumentException("initialConcurrentRequests must be positive");
+
+		this.initialConcurrentRequests = initialConcurrentRequests;
+		return this;
+	}
+
+	/**
+	 * Sets the lower bound for the adaptive concurrency limit. This is capped at
+	 * {@link #setMaxConcurrentRequests(int)}.<br>
+	 * This is set to {@value #DEFAULT_MIN_CONCURRENT_REQUESTS} by default.
+	 *
+	 * @param minConcurrentRequests
+	 *            the minimum concurrency limit.
+	 *
+	 * @return current instance, used for chaining.
+	 */
+	@Nonnull
+	public IsolationPolicyBuilder setMinConcurrentRequests(int minConcurrentRequests) {
+		if (minConcurrentRequests < 1)
+			throw new IllegalArgumentException("minConcurrentRequests must be positive");
+
+		this.minConcurrentRequests = minConcurrentRequests;
+		return this;
+	}
+
+	/**
+	 * Sets the factor the adaptive concurrency limit is multiplied by when the host is
+	 * overloaded.<br>
+	 * This is set to {@value #DEFAULT_BACKOFF_RATIO} by default.
+	 *
+	 * @param backoffRatio
+	 *            the backoff ratio, between {@code 0} and {@code 1} (both exclusive).
+	 *
+	 * @return current instance, used for chaining.
+	 */
+	@Nonnull
+	public IsolationPolicyBuilder setBackoffRatio(double backoffRatio) {
+		if (backoffRatio <= 0 || backoffRatio >= 1)
+			throw new IllegalArgumentException("backoffRatio must be between 0 and 1");
+
+		this.backoffRatio = backoffRatio;
+		return this;
+	}
+
+	/**
+	 * Sets how many times slower than the average for its route a response must be to
+	 * count as a sign of overload, which shrinks the adaptive concurrency limit.<br>
+	 * This is set to {@value #DEFAULT_LATENCY_TOLERANCE} by default.
+	 *
+	 * @param latencyTolerance
+	 *            the latency tolerance, at least {@code 1}.
+	 *
+	 * @return current instance, used for chaining.
+	 */
+	@Nonnull
+	public IsolationPolicyBuilder setLatencyTolerance(double latencyTolerance) {
+		if (latencyTolerance < 1)
+			throw new IllegalArgumentException("latencyTolerance must be at least 1");
+
+		this.latencyTolerance = latencyTolerance;
+		return this;
+	}
+
+	/**
+	 * Sets whether the circuit breaker is enabled. When it's disabled, requests are
+	 * always sent regardless of how many recent ones have failed.<br>
+	 * This is set to {@value #DEFAULT_CIRCUIT_BREAKER} by default.
+	 *
+	 * @param circuitBreaker
+	 *            whether to enable the circuit breaker.
+	 *
+	 * @return current instance, used for chaining.
+	 */
+	@Nonnull
+	public IsolationPolicyBuilder setCircuitBreaker(boolean circuitBreaker) {
+		this.circuitBreaker = circuitBreaker;
+		return this;
+	}
+
+	/**
+	 * Sets the share of failed requests among the recent ones that opens the
+	 * circuit.<br>
+	 * This is set to {@value #DEFAULT_FAILURE_THRESHOLD} by default.
+	 *
+	 * @param failureThreshold
+	 *            the failure threshold, between {@code 0} (exclusive) and {@code 1}.
+	 *
+	 * @return current instance, used for chaining.
+	 */
+	@Nonnull
+	public IsolationPolicyBuilder setFailureThreshold(double failureThreshold) {
+		if (failureThreshold <= 0 || failureThreshold > 1)
+			throw new IllegalArgumentException("failureThreshold must be above 0 and at most 1");
+
+		this.failureThreshold = failureThreshold;
+		return this;
+	}
+
+	/**
+	 * Sets the amount of recent requests whose outcomes are tracked for each host.<br>
+	 * This is set to {@value #DEFAULT_WINDOW} by default.
+	 *
+	 * @param window
+	 *            the window size.
+	 *
+	 * @return current instance, used for chaining.
+	 */
+	@Nonnull
+	public IsolationPolicyBuilder setWindow(int window) {
+		if (window < 1)
+			throw new IllegalArgumentException("window must be positive");
+
+		this.window = window;
+		return this;
+	}
+
+	/**
+	 * Sets the amount of tracked outcomes needed before the circuit can open, which
+	 * prevents a few failures right after startup from opening it. This is capped at
+	 * the window size.<br>
+	 * This is set to {@value #DEFAULT_MINIMUM_REQUESTS} by default.
+	 *
+	 * @param minimumRequests
+	 *            the minimum amount of requests.
+	 *
+	 * @return current instance, used for chaining.
+	 */
+	@Nonnull
+	public IsolationPolicyBuilder setMinimumRequests(int minimumRequests) {
+		if (minimumRequests < 1)
+			throw new IllegalArgumentException("minimumRequests must be positive");
+
+		this.minimumRequests = minimumRequests;
+		return this;
+	}
+
+	/**
+	 * Sets the time the circuit stays open before a single request is let through to
+	 * probe the host. If the probe fails, the circuit stays open for another
+	 * {@code openDuration}.<br>
+	 * This is set to {@link #DEFAULT_OPEN_DURATION} by default.
+	 *
+	 * @param openDuration
+	 *            the open duration.
+	 *
+	 * @return current instance, used for chaining.
+	 */
+	@Nonnull
+	public IsolationPolicyBuilder setOpenDuration(@Nonnull Duration openDuration) {
+		if (openDuration.isNegative())
+			throw new IllegalArgumentException("openDuration must not be negative");
+
+		this.openDuration = openDuration;
+		return this;
+	}
+
+	/**
+	 * @return a new {@link IsolationPolicy}.
+	 */
+	@Nonnull
+	public IsolationPolicy build() {
+		return new IsolationPolicy(this.maxConcurrentRequests, this.maxQueuedRequests, Map.copyOf(this.tenantWeights),
+								   this.adaptiveLimit,
+								   Math.min(this.initialConcurrentRequests, this.maxConcurrentRequests),
+								   Math.min(this.minConcurrentRequests, this.maxConcurrentRequests), this.backoffRatio,
+								   this.latencyTolerance, this.circuitBreaker, this.failureThreshold, this.window,
+								   Math.min(this.minimumRequests, this.window), this.openDuration);
+	}
+
+}
@@ -0,0 +1,44 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2026 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.core.utils.route;
+
+import org.eu.zajc.akiwrapper.AkiwrapperBuilder;
+
+/**
+ * The priority of a game's requests, which decides the order in which requests that
+ * wait for a host's concurrency limit are sent (see {@link IsolationPolicy}).
+ *
+ * @author Marko Zajc
+ *
+ * @see AkiwrapperBuilder#setPriority(Priority)
+ */
+public enum Priority {
+
+	/**
+	 * Requests on behalf of someone who is waiting for the response, such as a player.
+	 * Queued interactive requests are always sent before queued batch requests.
+	 */
+	INTERACTIVE,
+
+	/**
+	 * Background requests, such as health probes or automated games. Queued batch
+	 * requests are only sent once no interactive requests are queued, and are the first
+	 * to be shed when the queue is full.
+	 */
+	BATCH;
+
+}
@@ -16,25 +16,27 @@
  */
 package org.eu.zajc.akiwrapper.core.utils.route;
 
-import static java.lang.Thread.sleep;
-import static java.net.http.HttpClient.Version.HTTP_2;
-import static java.time.Duration.ofSeconds;
-import static org.eu.zajc.akiwrapper.core.utils.HttpUtils.*;
-import static org.eu.zajc.akiwrapper.core.utils.route.Route.defaultHeaders;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.CompletableFuture.completedFuture;
+import static java.util.concurrent.TimeUnit.*;
+import static org.eu.zajc.akiwrapper.core.utils.HttpUtils.getStatusLine;
+import static org.eu.zajc.akiwrapper.core.utils.Utilities.*;
 import static org.eu.zajc.akiwrapper.core.utils.route.Status.OK;
 import static org.slf4j.LoggerFactory.getLogger;
 
 import java.io.IOException;
-import java.net.URI;
-import java.net.http.*;
-import java.net.http.HttpResponse.BodyHandlers;
-import java.util.Map;
+import java.net.ConnectException;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.concurrent.*;
 
-import javax.annotation.Nonnull;
+import javax.annotation.*;
 
 import org.eu.zajc.akiwrapper.core.exceptions.*;
-import org.eu.zajc.akiwrapper.core.utils.*;
-import org.json.*;
+import org.eu.zajc.akiwrapper.core.transport.*;
+import org.eu.zajc.akiwrapper.core.utils.Deadline;
+import org.eu.zajc.akiwrapper.core.utils.route.IsolationPolicy.*;
+import org.eu.zajc.akiwrapper.core.utils.route.TimeoutPolicy.LatencyTracker;
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Element;
 import org.slf4j.Logger;
@@ -43,7 +45,9 @@ import org.slf4j.Logger;
  * <b>Note:</b> This is an internal class and its internals are subject to change
  * without prior deprecation. Use with caution.<br>
  * <br>
- * An executable HTTP request for a {@link Route}.
+ * An executable HTTP request for a {@link Route}. Requests are always executed
+ * asynchronously through a {@link Transport}, the blocking {@code retrieve*} methods
+ * simply wait for their asynchronous counterparts.
  *
  * @author Marko Zajc
  */
@@ -52,125 +56,407 @@ public class Request {
 
 	private static final Logger LOG = getLogger(Request.class);
 
-	private static final int MAX_RETRIES = 5;
-	private static final long RETRY_SLEEP = ofSeconds(2).toMillis();
+	@Nonnull private final RouteTemplate template;
+	@Nonnull private final Transport transport;
+	@Nonnull private final RetryPolicy retryPolicy;
+	@Nonnull private final LatencyTracker latency;
+	@Nonnull private final Host host;
+	@Nonnull private final String tenant;
+	@Nonnull private final Priority priority;
+	private final boolean idempotent;
+	@Nonnull private final Object[] values;
+	@Nullable private Reconciler reconciler;
+	@Nullable private Deadline deadline;
+	@Nullable private Probe probe; // set when an attempt probes a half-open circuit
+	private boolean inDoubt; // set before retrying, read after the retry completes
 
-	@Nonnull private final URI uri;
-	@Nonnull private final HttpClient http;
-	@Nonnull private Map<String, Object> parameters;
-
-	Request(@Nonnull URI uri, @Nonnull HttpClient http, @Nonnull Map<String, Object> parameters) {
-		this.uri = uri;
-		this.http = http;
-		this.parameters = parameters;
+	Request(@Nonnull RouteTemplate template, @Nonnull Transport transport, @Nonnull RetryPolicy retryPolicy,
+			@Nonnull LatencyTracker latency, @Nonnull Host host, @Nonnull String tenant,
+			@Nonnull Priority priority, boolean idempotent) {
+		this.template = template;
+		this.transport = transport;
+		this.retryPolicy = retryPolicy;
+		this.latency = latency;
+		this.host = host;
+		this.tenant = tenant;
+		this.priority = priority;
+		this.idempotent = idempotent;
+		this.values = new Object[template.getVariableCount()];
 	}
 
 	@Nonnull
 	public Request parameter(@Nonnull String name, @Nonnull Object value) {
-		if (this.parameters.containsKey(name))
-			this.parameters.put(name, value);
-		else
+		int index = this.template.indexOf(name);
+		if (index < 0)
 			throw new IllegalArgumentException("Parameter \"" + name + "\" is not defined");
 
+		this.values[index] = value;
+		return this;
+	}
+
+	/**
+	 * Makes retries of this request safe even if it's unclear whether a failed attempt
+	 * was applied, if enabled in the {@link RetryPolicy} (see
+	 * {@link RetryPolicyBuilder#setReconcile(boolean)}). The reconciler is given the
+	 * response to any retried attempt before its status is checked, and also makes
+	 * timed out attempts retryable. This only applies to
+	 * {@link #retrieveJsonAsync()}.
+	 *
+	 * @param reconciler
+	 *            the reconciler
+	 *
+	 * @return current instance, used for chaining.
+	 */
+	@Nonnull
+	public Request reconcile(@Nonnull Reconciler reconciler) {
+		if (this.retryPolicy.doesReconcile())
+			this.reconciler = reconciler;
+		return this;
+	}
+
+	/**
+	 * Limits the total time spent on this request, including retries. Each attempt
+	 * times out no later than the deadline, and failed attempts are only retried if the
+	 * retry can start before it. If the deadline passes, the request fails with a
+	 * {@link DeadlineExceededException}.
+	 *
+	 * @param deadline
+	 *            the deadline or {@code null} for no deadline
+	 *
+	 * @return current instance, used for chaining.
+	 */
+	@Nonnull
+	public Request deadline(@Nullable Deadline deadline) {
+		this.deadline = deadline;
 		return this;
 	}
 
 	@Nonnull
 	public Response<Element> retrieveDocument() {
-		var gameRoot = Jsoup.parse(executeRequest().body());
-		if (gameRoot == null)
-			throw new MalformedResponseException();
+		return join(retrieveDocumentAsync());
+	}
 
-		var status = Status.fromHtml(gameRoot);
-		if (status.isErroneous())
-			throw new ServerStatusException(status);
+	@Nonnull
+	public CompletableFuture<Response<Element>> retrieveDocumentAsync() {
+		var request = executeRequestAsync();
+		return settleProbe(propagateCancellation(request.thenApply(resp -> {
+			var gameRoot = Jsoup.parse(new String(resp.getBody(), UTF_8));
+			if (gameRoot == null)
+				throw new MalformedResponseException();
+
+			var status = Status.fromHtml(gameRoot);
+			recordStatus(status);
+			if (status.isErroneous())
+				throw new ServerStatusException(status);
 
-		return new Response<>(gameRoot, status);
+			return new Response<>(gameRoot, status);
+		}), request));
 	}
 
 	@Nonnull
-	public Response<JSONObject> retrieveJson() {
-		var body = executeRequest().body();
+	public Response<GamePage> retrieveGamePage() {
+		return join(retrieveGamePageAsync());
+	}
 
-		try {
-			var json = new JSONObject(body);
+	@Nonnull
+	public CompletableFuture<Response<GamePage>> retrieveGamePageAsync() {
+		var request = executeRequestAsync();
+		return settleProbe(propagateCancellation(request.thenApply(resp -> {
+			GamePage page;
+			try {
+				page = GamePage.parse(new String(resp.getBody(), UTF_8));
+			} catch (ServerStatusException e) {
+				recordStatus(e.getStatus());
+				throw e;
+			}
+
+			recordStatus(OK);
+			return new Response<>(page, OK);
+		}), request));
+	}
+
+	@Nonnull
+	public Response<FlatJson> retrieveJson() {
+		return join(retrieveJsonAsync());
+	}
+
+	@Nonnull
+	public CompletableFuture<Response<FlatJson>> retrieveJsonAsync() {
+		var request = executeRequestAsync();
+		return settleProbe(propagateCancellation(request.thenCompose(resp -> {
+			var json = FlatJson.parse(resp.getBody());
 			var status = Status.fromJson(json);
+			recordStatus(status);
+			if (this.inDoubt && this.reconciler != null)
+				return this.reconciler.reconcile(new Response<>(json, status));
+
 			if (status.isErroneous())
 				throw new ServerStatusException(status);
 
-			return new Response<>(json, status);
-
-		} catch (JSONException e) {
-			throw new MalformedResponseException(e);
-		}
+			return completedFuture(new Response<>(json, status));
+		}), request));
 	}
 
 	@Nonnull
 	public Response<Void> retrieveEmpty() {
-		executeRequest();
-		return new Response<>(null, OK);
+		return join(retrieveEmptyAsync());
 	}
 
 	@Nonnull
-	private HttpResponse<String> executeRequest() {
-		if (this.parameters.containsValue(null))
-			throw new IllegalStateException("One or more mandatory parameters aren't set");
-
-		try {
-			return executeRequest(this.uri, this.parameters, this.http, 0);
-		} catch (IOException e) {
-			throw new RuntimeException(e);
-		} catch (InterruptedException e) {
-			Thread.currentThread().interrupt();
-			throw Utilities.asUnchecked(e);
-		}
+	public CompletableFuture<Response<Void>> retrieveEmptyAsync() {
+		var request = executeRequestAsync();
+		return settleProbe(propagateCancellation(request.thenApply(resp -> {
+			recordStatus(OK);
+			return new Response<>(null, OK);
+		}), request));
 	}
 
 	@Nonnull
-	private static HttpResponse<String> executeRequest(@Nonnull URI uri, @Nonnull Map<String, Object> parameters,
-													   @Nonnull HttpClient http,
-													   int attempt) throws IOException, InterruptedException {
-		var req = HttpRequest.newBuilder()
-			.version(HTTP_2)
-			.POST(new FormBody(parameters))
-			.uri(uri)
-			.headers(defaultHeaders)
-			.build();
+	private CompletableFuture<TransportResponse> executeRequestAsync() {
+		for (var value : this.values)
+			if (value == null)
+				throw new IllegalStateException("One or more mandatory parameters aren't set");
+
+		// the request is created once and only copied with a different timeout by each attempt
+		var request = new TransportRequest(this.template.getUri(), this.template.getHeaders(),
+										   this.template.encodeForm(this.values));
+		var result = new CompletableFuture<TransportResponse>();
+		this.retryPolicy.onRequest(this.transport);
+		executeRequestAsync(0, request, result);
+		return result;
+	}
+
+	private void executeRequestAsync(int attempt, @Nonnull TransportRequest request,
+									 @Nonnull CompletableFuture<TransportResponse> result) {
+		// each attempt waits for a permit from the host's bulkhead, or fails right away if
+		// the host's circuit is open
+		this.host.submit((probe, rejection) -> {
+			this.probe = probe;
+			if (rejection != null) {
+				result.completeExceptionally(rejection);
+
+			} else if (result.isDone()) { // cancelled while queued
+				this.host.onAbandoned(probe);
+				this.host.release();
+
+			} else {
+				sendAttempt(attempt, request, result);
+			}
+		}, this.tenant, this.priority, this.deadline);
+	}
+
+	private void sendAttempt(int attempt, @Nonnull TransportRequest request,
+							 @Nonnull CompletableFuture<TransportResponse> result) {
+		// the timeout adapts to the route's latency, but never outlives the deadline
+		long timeoutNanos = this.latency.getTimeoutNanos();
+		boolean limited = false;
+		if (this.deadline != null) {
+			long remaining = this.deadline.getRemainingNanos();
+			if (remaining <= 0) {
+				this.host.onAbandoned(this.probe);
+				this.host.release();
+				result.completeExceptionally(new DeadlineExceededException());
+				return;
+			}
+
+			if (remaining < timeoutNanos) {
+				timeoutNanos = remaining;
+				limited = true;
+			}
+		}
+		var timedRequest = request.withTimeout(Duration.ofNanos(timeoutNanos));
 
 		if (LOG.isTraceEnabled()) {
-			LOG.trace("--> POST {} HTTP/2", req.uri());
-			req.headers().map().forEach((key, values) -> values.forEach(v -> LOG.trace("--> {}: {}", key, v)));
+			LOG.trace("--> POST {}", request.getUri());
+			var headers = request.getHeaders();
+			for (int i = 0; i < headers.length; i += 2)
+				LOG.trace("--> {}: {}", headers[i], headers[i + 1]);
 			LOG.trace("-->");
-			urlEncodeForm(parameters).lines().forEach(l -> LOG.trace("--> {}", l));
+			LOG.trace("--> {}", new String(request.getBody(), UTF_8));
 		}
 
-		var resp = http.send(req, BodyHandlers.ofString());
-		if (LOG.isTraceEnabled()) {
-			LOG.trace("<-- HTTP/2 {}", getStatusLine(resp.statusCode()));
-			resp.headers().map().forEach((key, values) -> values.forEach(v -> LOG.trace("<-- {}: {}", key, v)));
-			LOG.trace("<--");
-			resp.body().lines().forEach(l -> LOG.trace("<-- {}", l));
+		long start = System.nanoTime();
+		CompletableFuture<TransportResponse> sent;
+		try {
+			sent = this.transport.execute(timedRequest);
+		} catch (RuntimeException e) {
+			this.host.onAbandoned(this.probe);
+			this.host.release();
+			result.completeExceptionally(e);
+			return;
 		}
 
-		if (resp.statusCode() >= 500) {
-			if (attempt < MAX_RETRIES) {
-				if (LOG.isTraceEnabled())
-					LOG.trace("Got HTTP {}, retrying after {} ms", getStatusLine(resp.statusCode()), RETRY_SLEEP);
-				sleep(RETRY_SLEEP);
-				return executeRequest(uri, parameters, http, attempt + 1);
+		propagateCancellation(result, sent);
+		// not every transport enforces the timeout, so it's enforced here as well
+		long attemptTimeout = timeoutNanos;
+		boolean attemptLimited = limited;
+		sent.copy().orTimeout(timeoutNanos, NANOSECONDS).whenComplete((resp, t) -> {
+			if (t != null) {
+				var cause = unwrapCompletion(t);
+				if (cause instanceof TimeoutException && sent.cancel(true))
+					cause = new HttpTimeoutException("Request timed out after " +
+						NANOSECONDS.toMillis(attemptTimeout) +
+						" ms");
 
-			} else {
-				throw new AkinatorException("Got HTTP " + getStatusLine(resp.statusCode()) +
+				// running out of the caller's time says nothing about the host
+				boolean deadlineExceeded = attemptLimited && cause instanceof HttpTimeoutException;
+				if (!deadlineExceeded && cause instanceof HttpTimeoutException) {
+					// a timed out attempt took at least as long as the timeout
+					this.latency.record(attemptTimeout);
+					this.host.onOverload();
+				}
+
+				if (!deadlineExceeded && !(cause instanceof CancellationException))
+					this.host.onFailure(this.probe);
+				else
+					this.host.onAbandoned(this.probe);
+
+				// the permit is released after the limit is updated, so that queued requests
+				// are admitted according to the new limit
+				this.host.release();
+
+				if (deadlineExceeded) {
+					result.completeExceptionally(new DeadlineExceededException());
+					return;
+				}
+
+				if (isRetryable(cause))
+					retry(attempt, cause.toString(), cause, request, result);
+				else
+					result.completeExceptionally(toFailure(cause));
+				return;
+			}
+
+			long elapsed = System.nanoTime() - start;
+			this.latency.record(elapsed);
+			if (resp.getStatusCode() == RetryPolicy.TOO_MANY_REQUESTS || resp.getStatusCode() >= 500)
+				this.host.onOverload();
+			else
+				this.host.onLatency(elapsed, this.latency.getAverageNanos());
+
+			if (LOG.isTraceEnabled()) {
+				LOG.trace("<-- {}", getStatusLine(resp.getStatusCode()));
+				new String(resp.getBody(), UTF_8).lines().forEach(l -> LOG.trace("<-- {}", l));
+			}
+
+			// successful responses are judged by their status once they're parsed
+			if (resp.getStatusCode() >= 500)
+				this.host.onFailure(this.probe);
+			else if (resp.getStatusCode() >= 400)
+				this.host.onAbandoned(this.probe);
+			this.host.release();
+
+			if (isRetryable(resp.getStatusCode())) {
+				retry(attempt, "HTTP " + getStatusLine(resp.getStatusCode()), new AkinatorException("Got HTTP " +
+					getStatusLine(resp.getStatusCode()) +
 					" and exceeded re-attempts (" +
-					MAX_RETRIES +
-					")");
+					attempt +
+					")"), request, result);
+
+			} else if (resp.getStatusCode() >= 400) {
+				result.completeExceptionally(new AkinatorException("Got HTTP " + getStatusLine(resp.getStatusCode())));
+
+			} else {
+				result.complete(resp);
 			}
+		});
+	}
+
+	@Nonnull
+	private <T> CompletableFuture<T> settleProbe(@Nonnull CompletableFuture<T> response) {
+		// a probe whose response couldn't be judged (for example because it was malformed)
+		// mustn't hold up the next one - this does nothing if its outcome was recorded
+		response.whenComplete((r, t) -> this.host.onAbandoned(this.probe));
+		return response;
+	}
+
+	private void recordStatus(@Nonnull Status status) {
+		if (status == Status.ERROR)
+			this.host.onFailure(this.probe);
+		else
+			this.host.onSuccess(this.probe);
+	}
+
+	private boolean isRetryable(@Nonnull Throwable cause) {
+		// a reconciled attempt is safe to retry however it failed, even if it timed out
+		if (this.reconciler != null && cause instanceof HttpTimeoutException)
+			return true;
+
+		// an attempt whose connection was refused never reached the server
+		return this.retryPolicy.isRetryable(cause) && (cause instanceof ConnectException || isRepeatable());
+	}
+
+	private boolean isRetryable(int statusCode) {
+		// a request that was turned away for being too many wasn't applied
+		return this.retryPolicy.isRetryable(statusCode) &&
+			(statusCode == RetryPolicy.TOO_MANY_REQUESTS || isRepeatable());
+	}
+
+	private boolean isRepeatable() {
+		// an attempt that reached the server may have been applied even though it failed,
+		// so it's only repeated if the outcome can be reconciled or if applying it twice
+		// is harmless
+		return this.reconciler != null || this.idempotent;
+	}
+
+	@Nonnull
+	private static Throwable toFailure(@Nonnull Throwable cause) {
+		return cause instanceof IOException ? new RuntimeException(cause) : cause;
+	}
+
+	private void retry(int attempt, @Nonnull String reason, @Nonnull Throwable cause,
+					   @Nonnull TransportRequest request, @Nonnull CompletableFuture<TransportResponse> result) {
+		if (attempt >= this.retryPolicy.getMaxRetries()) {
+			result.completeExceptionally(toFailure(cause));
+			return;
+		}
 
-		} else if (resp.statusCode() >= 400) {
-			throw new AkinatorException("Got HTTP " + getStatusLine(resp.statusCode()));
+		var delay = this.retryPolicy.getDelayMillis(attempt);
+		if (this.deadline != null && MILLISECONDS.toNanos(delay) >= this.deadline.getRemainingNanos()) {
+			LOG.debug("Got {}, but there is no time left to retry before the deadline", reason);
+			result.completeExceptionally(new DeadlineExceededException(cause));
+			return;
 		}
 
-		return resp;
+		if (!this.retryPolicy.tryAcquireRetry(this.transport)) {
+			LOG.debug("Got {}, but the retry budget is depleted", reason);
+			result.completeExceptionally(toFailure(cause));
+			return;
+		}
+
+		// the failed attempt may have been applied even though it failed
+		this.inDoubt = true;
+
+		if (LOG.isTraceEnabled())
+			LOG.trace("Got {}, retrying after {} ms", reason, delay);
+
+		// the delay is scheduled rather than slept so that no thread is parked meanwhile
+		var retry = this.retryPolicy.getScheduler().schedule(() -> {
+			if (!result.isDone())
+				executeRequestAsync(attempt + 1, request, result);
+		}, delay, MILLISECONDS);
+		propagateCancellation(result, retry);
+	}
+
+	/**
+	 * Brings a game back in sync after a retried request (see
+	 * {@link Request#reconcile(Reconciler)}).
+	 */
+	@FunctionalInterface
+	public interface Reconciler {
+
+		/**
+		 * Called with the response to a retried attempt in place of the usual status
+		 * check.
+		 *
+		 * @param response
+		 *            the response to the retry, whose status hasn't been checked
+		 *
+		 * @return the response to use in place of {@code response}
+		 */
+		@Nonnull
+		CompletableFuture<Response<FlatJson>> reconcile(@Nonnull Response<FlatJson> response);
+
 	}
 
 }
@@ -0,0 +1,231 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2026 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.core.utils.route;
+
+import static java.util.Collections.synchronizedMap;
+import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+
+import javax.annotation.*;
+
+import org.eu.zajc.akiwrapper.AkiwrapperBuilder;
+import org.eu.zajc.akiwrapper.core.transport.Transport;
+
+/**
+ * Decides if and when failed requests to Akinator's API are retried. Requests are
+ * retried when the server responds with a 5xx status code or with 429 (Too Many
+ * Requests), or, if enabled, when sending the request fails with an
+ * {@link IOException}, such as when the connection is reset.<br>
+ * Retries are delayed with exponential backoff and jitter, and are scheduled on a
+ * shared {@link ScheduledExecutorService} rather than sleeping the calling thread.
+ * To prevent retries from amplifying load on an already struggling server, retries
+ * are also limited by a retry budget, which is tracked separately for each
+ * {@link Transport}: each request deposits a fraction of a token (see
+ * {@link RetryPolicyBuilder#setBudgetRatio(double)}) and each retry withdraws a
+ * whole token. Once the budget is depleted, failed requests aren't retried until
+ * enough requests are made to replenish it.<br>
+ * Answers and rejections carry the game's step, which allows retrying them safely
+ * even when it's unclear whether the failed attempt was applied (see
+ * {@link RetryPolicyBuilder#setReconcile(boolean)}).<br>
+ * Instances of this class are immutable and can be shared between
+ * {@link AkiwrapperBuilder}s. Use {@link RetryPolicyBuilder} to create one.
+ *
+ * @author Marko Zajc
+ *
+ * @see AkiwrapperBuilder#setRetryPolicy(RetryPolicy)
+ */
+public final class RetryPolicy {
+
+	/**
+	 * The default {@link RetryPolicy}, as built by an unmodified
+	 * {@link RetryPolicyBuilder}.
+	 */
+	@Nonnull public static final RetryPolicy DEFAULT = new RetryPolicyBuilder().build();
+
+	/**
+	 * A {@link RetryPolicy} that never retries anything.
+	 */
+	@Nonnull public static final RetryPolicy NONE = new RetryPolicyBuilder().setMaxRetries(0).build();
+
+	static final int TOO_MANY_REQUESTS = 429;
+
+	private static final ScheduledExecutorService SHARED_SCHEDULER = newSingleThreadScheduledExecutor(r -> {
+		var thread = new Thread(r, "akiwrapper-retry-scheduler");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private final int maxRetries;
+	@Nonnull private final Duration initialDelay;
+	@Nonnull private final Duration maxDelay;
+	private final double multiplier;
+	private final double jitter;
+	private final double budgetRatio;
+	private final double budgetCapacity;
+	private final boolean retryOnIOException;
+	private final boolean reconcile;
+	@Nullable private final ScheduledExecutorService scheduler;
+
+	@Nonnull private final Map<Transport, RetryBudget> budgets = synchronizedMap(new WeakHashMap<>());
+
+	RetryPolicy(int maxRetries, @Nonnull Duration initialDelay, @Nonnull Duration maxDelay, double multiplier,
+				double jitter, double budgetRatio, double budgetCapacity, boolean retryOnIOException, boolean reconcile,
+				@Nullable ScheduledExecutorService scheduler) {
+		this.maxRetries = maxRetries;
+		this.initialDelay = initialDelay;
+		this.maxDelay = maxDelay;
+		this.multiplier = multiplier;
+		this.jitter = jitter;
+		this.budgetRatio = budgetRatio;
+		this.budgetCapacity = budgetCapacity;
+		this.retryOnIOException = retryOnIOException;
+		this.reconcile = reconcile;
+		this.scheduler = scheduler;
+	}
+
+	/**
+	 * @return the maximum number of times a single request is retried.
+	 */
+	public int getMaxRetries() {
+		return this.maxRetries;
+	}
+
+	/**
+	 * @return the delay before the first retry, before jitter is applied.
+	 */
+	@Nonnull
+	public Duration getInitialDelay() {
+		return this.initialDelay;
+	}
+
+	/**
+	 * @return the upper bound for the delay between retries, before jitter is applied.
+	 */
+	@Nonnull
+	public Duration getMaxDelay() {
+		return this.maxDelay;
+	}
+
+	/**
+	 * @return the factor the delay is multiplied by after each retry.
+	 */
+	public double getMultiplier() {
+		return this.multiplier;
+	}
+
+	/**
+	 * @return the fraction (between 0 and 1) of the delay that is randomized.
+	 */
+	public double getJitter() {
+		return this.jitter;
+	}
+
+	/**
+	 * @return the amount of retry tokens deposited by each request.
+	 */
+	public double getBudgetRatio() {
+		return this.budgetRatio;
+	}
+
+	/**
+	 * @return the maximum amount of retry tokens that can be saved up.
+	 */
+	public double getBudgetCapacity() {
+		return this.budgetCapacity;
+	}
+
+	/**
+	 * @return whether requests that fail with an {@link IOException} are retried.
+	 */
+	public boolean doesRetryOnIOException() {
+		return this.retryOnIOException;
+	}
+
+	/**
+	 * @return whether retried answers and rejections are reconciled.
+	 *
+	 * @see RetryPolicyBuilder#setReconcile(boolean)
+	 */
+	public boolean doesReconcile() {
+		return this.reconcile;
+	}
+
+	/**
+	 * @return the {@link ScheduledExecutorService} used to schedule retries.
+	 */
+	@Nonnull
+	public ScheduledExecutorService getScheduler() {
+		return this.scheduler != null ? this.scheduler : SHARED_SCHEDULER;
+	}
+
+	boolean isRetryable(@Nonnull Throwable t) {
+		return this.retryOnIOException && t instanceof IOException;
+	}
+
+	boolean isRetryable(int statusCode) {
+		return statusCode >= 500 || statusCode == TOO_MANY_REQUESTS;
+	}
+
+	long getDelayMillis(int attempt) {
+		double delay = this.initialDelay.toMillis() * Math.pow(this.multiplier, attempt);
+		delay = Math.min(delay, this.maxDelay.toMillis());
+		delay -= delay * this.jitter * ThreadLocalRandom.current().nextDouble();
+		return (long) delay;
+	}
+
+	void onRequest(@Nonnull Transport transport) {
+		getBudget(transport).deposit(this.budgetRatio);
+	}
+
+	boolean tryAcquireRetry(@Nonnull Transport transport) {
+		return getBudget(transport).withdraw();
+	}
+
+	@Nonnull
+	private RetryBudget getBudget(@Nonnull Transport transport) {
+		return this.budgets.computeIfAbsent(transport, c -> new RetryBudget(this.budgetCapacity));
+	}
+
+	private static final class RetryBudget {
+
+		private final double capacity;
+		private double balance;
+
+		RetryBudget(double capacity) {
+			this.capacity = capacity;
+			this.balance = capacity;
+		}
+
+		synchronized void deposit(double amount) {
+			this.balance = Math.min(this.capacity, this.balance + amount);
+		}
+
+		synchronized boolean withdraw() {
+			if (this.balance < 1)
+				return false;
+
+			this.balance--;
+			return true;
+		}
+
+	}
+
+}
@@ -0,0 +1,292 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2026 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.core.utils.route;
+
+import static java.time.Duration.*;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.ScheduledExecutorService;
+
+import javax.annotation.*;
+
+/**
+ * A class used to build a {@link RetryPolicy}.
+ *
+ * @author Marko Zajc
+ */
+public class RetryPolicyBuilder {
+
+	/**
+	 * The default maximum amount of retries per request.
+	 */
+	public static final int DEFAULT_MAX_RETRIES = 5;
+
+	/**
+	 * The default delay before the first retry.
+	 */
+	@Nonnull public static final Duration DEFAULT_INITIAL_DELAY = ofMillis(500);
+
+	/**
+	 * The default upper bound for the delay between retries.
+	 */
+	@Nonnull public static final Duration DEFAULT_MAX_DELAY = ofSeconds(8);
+
+	/**
+	 * The default factor the delay is multiplied by after each retry.
+	 */
+	public static final double DEFAULT_MULTIPLIER = 2;
+
+	/**
+	 * The default fraction of the delay that is randomized.
+	 */
+	public static final double DEFAULT_JITTER = 0.5;
+
+	/**
+	 * The default amount of retry tokens deposited by each request, meaning that
+	 * retries can add at most 20% of extra load in the long run.
+	 */
+	public static final double DEFAULT_BUDGET_RATIO = 0.2;
+
+	/**
+	 * The default maximum amount of retry tokens that can be saved up.
+	 */
+	public static final double DEFAULT_BUDGET_CAPACITY = 50;
+
+	/**
+	 * The default preference for retrying requests that fail with an
+	 * {@link IOException}.
+	 */
+	public static final boolean DEFAULT_RETRY_ON_IO_EXCEPTION = true;
+
+	/**
+	 * The default preference for reconciling retried answers and rejections.
+	 */
+	public static final boolean DEFAULT_RECONCILE = true;
+
+	private int maxRetries = DEFAULT_MAX_RETRIES;
+	@Nonnull private Duration initialDelay = DEFAULT_INITIAL_DELAY;
+	@Nonnull private Duration maxDelay = DEFAULT_MAX_DELAY;
+	private double multiplier = DEFAULT_MULTIPLIER;
+	private double jitter = DEFAULT_JITTER;
+	private double budgetRatio = DEFAULT_BUDGET_RATIO;
+	private double budgetCapacity = DEFAULT_BUDGET_CAPACITY;
+	private boolean retryOnIOException = DEFAULT_RETRY_ON_IO_EXCEPTION;
+	private boolean reconcile = DEFAULT_RECONCILE;
+	@Nullable private ScheduledExecutorService scheduler;
+
+	/**
+	 * Sets the maximum amount of times a single request is retried. Setting this to
+	 * {@code 0} disables retries.<br>
+	 * This is set to {@value #DEFAULT_MAX_RETRIES} by default.
+	 *
+	 * @param maxRetries
+	 *            the maximum amount of retries.
+	 *
+	 * @return current instance, used for chaining.
+	 */
+	@Nonnull
+	public RetryPolicyBuilder setMaxRetries(int maxRetries) {
+		if (maxRetries < 0)
+			throw new IllegalArgumentException("maxRetries must not be negative");
+
+		this.maxRetries = maxRetries;
+		return this;
+	}
+
+	/**
+	 * Sets the delay before the first retry. Each subsequent retry multiplies the delay
+	 * by {@link #setMultiplier(double)}, up to {@link #setMaxDelay(Duration)}.<br>
+	 * This is set to {@link #DEFAULT_INITIAL_DELAY} by default.
+	 *
+	 * @param initialDelay
+	 *            the initial delay.
+	 *
+	 * @return current instance, used for chaining.
+	 */
+	@Nonnull
+	public RetryPolicyBuilder setInitialDelay(@Nonnull Duration initialDelay) {
+		this.initialDelay = initialDelay;
+		return this;
+	}
+
+	/**
+	 * Sets the upper bound for the delay between retries.<br>
+	 * This is set to {@link #DEFAULT_MAX_DELAY} by default.
+	 *
+	 * @param maxDelay
+	 *            the maximum delay.
+	 *
+	 * @return current instance, used for chaining.
+	 */
+	@Nonnull
+	public RetryPolicyBuilder setMaxDelay(@Nonnull Duration maxDelay) {
+		this.maxDelay = maxDelay;
+		return this;
+	}
+
+	/**
+	 * Sets the factor the delay is multiplied by after each retry. Setting this to
+	 * {@code 1} results in a constant delay.<br>
+	 * This is set to {@value #DEFAULT_MULTIPLIER} by default.
+	 *
+	 * @param multiplier
+	 *            the backoff multiplier.
+	 *
+	 * @return current instance, used for chaining.
+	 */
+	@Nonnull
+	public RetryPolicyBuilder setMultiplier(double multiplier) {
+		if (multiplier < 1)
+			throw new IllegalArgumentException("multiplier must be at least 1");
+
+		this.multiplier = multiplier;
+		return this;
+	}
+
+	/**
+	 * Sets the fraction of the delay that is randomized, which spreads out retries of
+	 * requests that failed at the same time. For example, with a jitter of {@code 0.5},
+	 * a delay of 2 seconds becomes a random delay between 1 and 2 seconds. Setting this
+	 * to {@code 0} disables jitter.<br>
+	 * This is set to {@value #DEFAULT_JITTER} by default.
+	 *
+	 * @param jitter
+	 *            the jitter, between {@code 0} and {@code 1}.
+	 *
+	 * @return current instance, used for chaining.
+	 */
+	@Nonnull
+	public RetryPolicyBuilder setJitter(double jitter) {
+		if (jitter < 0 || jitter > 1)
+			throw new IllegalArgumentException("jitter must be between 0 and 1");
+
+		this.jitter = jitter;
+		return this;
+	}
+
+	/**
+	 * Sets the amount of retry tokens deposited by each request. Each retry withdraws a
+	 * whole token, so this is effectively the maximum ratio of retries to requests in
+	 * the long run.<br>
+	 * This is set to {@value #DEFAULT_BUDGET_RATIO} by default.
+	 *
+	 * @param budgetRatio
+	 *            the budget ratio.
+	 *
+	 * @return current instance, used for chaining.
+	 */
+	@Nonnull
+	public RetryPolicyBuilder setBudgetRatio(double budgetRatio) {
+		if (budgetRatio < 0)
+			throw new IllegalArgumentException("budgetRatio must not be negative");
+
+		this.budgetRatio = budgetRatio;
+		return this;
+	}
+
+	/**
+	 * Sets the maximum amount of retry tokens that can be saved up. The budget starts
+	 * out full, so this is also the amount of retries that can be made in a burst.<br>
+	 * This is set to {@value #DEFAULT_BUDGET_CAPACITY} by default.
+	 *
+	 * @param budgetCapacity
+	 *            the budget capacity.
+	 *
+	 * @return current instance, used for chaining.
+	 */
+	@Nonnull
+	public RetryPolicyBuilder setBudgetCapacity(double budgetCapacity) {
+		if (budgetCapacity < 0)
+			throw new IllegalArgumentException("budgetCapacity must not be negative");
+
+		this.budgetCapacity = budgetCapacity;
+		return this;
+	}
+
+	/**
+	 * Sets whether requests that fail with an {@link IOException} (for example when the
+	 * connection is reset) are retried.<br>
+	 * This is set to {@value #DEFAULT_RETRY_ON_IO_EXCEPTION} by default.
+	 *
+	 * @param retryOnIOException
+	 *            whether to retry on {@link IOException}s.
+	 *
+	 * @return current instance, used for chaining.
+	 */
+	@Nonnull
+	public RetryPolicyBuilder setRetryOnIOException(boolean retryOnIOException) {
+		this.retryOnIOException = retryOnIOException;
+		return this;
+	}
+
+	/**
+	 * Sets whether retried answers and rejections are reconciled. A request whose
+	 * response was lost (for example because the connection was reset or the request
+	 * timed out) may or may not have been applied by Akinator, so blindly retrying it
+	 * can either advance the game twice or fail because the step has already moved on.
+	 * When this is enabled, the step in the response to such a retry is compared with
+	 * the expected one, and if the original request turns out to have been applied, the
+	 * game is brought back in sync (by undoing the extra step or replaying the lost
+	 * one) instead of failing. Such requests are also retried when they time out, even
+	 * if {@link #setRetryOnIOException(boolean)} is disabled.<br>
+	 * When this is disabled, answers and rejections (and undoing an answer) are only
+	 * retried if the failed attempt never reached Akinator, such as when the connection
+	 * is refused. An attempt that failed in any other way, including with a 5xx status
+	 * code or a timeout, may have been applied, so it's not retried.<br>
+	 * This is set to {@value #DEFAULT_RECONCILE} by default.
+	 *
+	 * @param reconcile
+	 *            whether to reconcile retried answers and rejections.
+	 *
+	 * @return current instance, used for chaining.
+	 */
+	@Nonnull
+	public RetryPolicyBuilder setReconcile(boolean reconcile) {
+		this.reconcile = reconcile;
+		return this;
+	}
+
+	/**
+	 * Sets the {@link ScheduledExecutorService} used to schedule retries. Scheduled
+	 * tasks only send the retried request, so a single thread is enough for any
+	 * amount of games.<br>
+	 * This is set to {@code null} by default, which uses a shared single-threaded
+	 * scheduler.
+	 *
+	 * @param scheduler
+	 *            the scheduler or {@code null} to use the shared one.
+	 *
+	 * @return current instance, used for chaining.
+	 */
+	@Nonnull
+	public RetryPolicyBuilder setScheduler(@Nullable ScheduledExecutorService scheduler) {
+		this.scheduler = scheduler;
+		return this;
+	}
+
+	/**
+	 * @return a new {@link RetryPolicy}.
+	 */
+	@Nonnull
+	public RetryPolicy build() {
+		return new RetryPolicy(this.maxRetries, this.initialDelay, this.maxDelay, this.multiplier, this.jitter,
+							   this.budgetRatio, this.budgetCapacity, this.retryOnIOException, this.reconcile,
+							   this.scheduler);
+	}
+
+}
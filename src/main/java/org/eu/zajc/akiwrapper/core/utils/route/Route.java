@@ -16,17 +16,16 @@
  */
 package org.eu.zajc.akiwrapper.core.utils.route;
 
-import static java.lang.String.format;
 import static java.util.Map.entry;
+import static org.eu.zajc.akiwrapper.core.utils.route.Routes.*;
 
-import java.net.*;
 import java.util.*;
 import java.util.Map.Entry;
 import java.util.stream.Stream;
 
 import javax.annotation.Nonnull;
 
-import org.eu.zajc.akiwrapper.core.entities.impl.AkiwrapperImpl;
+import org.eu.zajc.akiwrapper.core.entities.impl.*;
 
 /**
  * <b>Note:</b> This is an internal class and its internals are subject to change
@@ -42,11 +41,11 @@ import org.eu.zajc.akiwrapper.core.entities.impl.AkiwrapperImpl;
 @SuppressWarnings("javadoc") // internal
 public final class Route {
 
-	private static final String URL_FORMAT = "https://%s.akinator.com%s";
-
 	/**
-	 * Default HTTP headers passed to Akinator. Assigning this in your code removes
-	 * warranty, and should only be done as a workaround when things break.
+	 * Default HTTP headers passed to Akinator. The {@code Origin} and {@code Referer}
+	 * headers are replaced for each language by {@link EndpointResolver}. Assigning
+	 * this in your code removes warranty, and should only be done as a workaround when
+	 * things break.
 	 */
 	public static String[] defaultHeaders; // NOSONAR
 	static {
@@ -72,44 +71,84 @@ public final class Route {
 
 	@Nonnull private final String path;
 	private final boolean requiresSession;
+	private final boolean idempotent;
 	@Nonnull private Map<String, Object> staticParameters;
 	@Nonnull private List<String> variableParameterNames;
 
-	Route(@Nonnull String path, boolean requiresSession, @Nonnull Map<String, Object> staticParameters,
-		  @Nonnull List<String> variableParameterNames) {
+	Route(@Nonnull String path, boolean requiresSession, boolean idempotent,
+		  @Nonnull Map<String, Object> staticParameters, @Nonnull List<String> variableParameterNames) {
 		this.path = path;
 		this.requiresSession = requiresSession;
+		this.idempotent = idempotent;
 		this.staticParameters = staticParameters;
 		this.variableParameterNames = variableParameterNames;
 	}
 
 	@Nonnull
 	public Request createRequest(@Nonnull AkiwrapperImpl api) {
-		URI uri;
-		try {
-			uri = new URI(format(URL_FORMAT, api.getLanguage().getLanguageCode(), this.path));
-		} catch (URISyntaxException e) {
-			throw new RuntimeException(e);
-		}
+		var context = api.getContext();
+		var template = context.getRouteTemplate(this);
+		var transport = context.getTransport();
+		var latency = context.getTimeoutPolicy().getTracker(this, template.getUri());
+		var host = context.getIsolationPolicy().getHost(transport, template.getUri());
+		var request = new Request(template, transport, context.getRetryPolicy(), latency, host, context.getTenant(),
+								  context.getPriority(), this.idempotent);
+		if (this.requiresSession) {
+			var session = api.getSession();
+			if (session == null)
+				throw new IllegalStateException("Session is required but not set in the Akiwrapper object");
 
-		var parameters = new HashMap<>(this.staticParameters);
+			request.parameter(PARAMETER_SESSION, session.getSession())
+				.parameter(PARAMETER_SIGNATURE, session.getSignature());
+		}
+		return request;
+	}
 
-		// append variable parameters
-		this.variableParameterNames.forEach(p -> parameters.put(p, null)); // Collectors.toMap doesn't allow nulls
+	/**
+	 * Compiles this route for the language, theme, and profanity filter preference of
+	 * the given {@link GameContext}. If the route requires a session, the session
+	 * parameters are left variable, so the result can be shared by all games with the
+	 * same context. The result is cached by {@link GameContext#getRouteTemplate(Route)},
+	 * which should be used instead.
+	 *
+	 * @param context
+	 *            the {@link GameContext} to compile this route for.
+	 *
+	 * @return the compiled {@link RouteTemplate}.
+	 */
+	@Nonnull
+	public RouteTemplate compile(@Nonnull GameContext context) {
+		var parameters = new LinkedHashMap<>(this.staticParameters);
 
 		// append common parameters
-		parameters.put(PARAM_PROFANITY_FILTER, api.doesFilterProfanity());
-		parameters.put(PARAM_THEME, api.getTheme().getId());
+		parameters.put(PARAM_PROFANITY_FILTER, context.doesFilterProfanity());
+		parameters.put(PARAM_THEME, context.getTheme().getId());
 
-		// append session
+		// the session goes before the route's own variable parameters
+		var variableNames = this.variableParameterNames;
 		if (this.requiresSession) {
-			if (api.getSession() == null)
-				throw new IllegalStateException("Session is required but not set in the Akiwrapper object");
-
-			api.getSession().apply(parameters);
+			variableNames = new ArrayList<>(this.variableParameterNames.size() + 2);
+			variableNames.add(PARAMETER_SESSION);
+			variableNames.add(PARAMETER_SIGNATURE);
+			variableNames.addAll(this.variableParameterNames);
 		}
 
-		return new Request(uri, api.getHttpClient(), parameters);
+		var endpoints = context.getEndpointResolver();
+		var language = context.getLanguage();
+		return new RouteTemplate(endpoints.resolve(language, this.path), endpoints.getHeaders(language), parameters,
+								 variableNames);
+	}
+
+	public boolean requiresSession() {
+		return this.requiresSession;
+	}
+
+	/**
+	 * @return whether sending this route more than once has the same effect as sending
+	 *         it once.
+	 */
+	public boolean isIdempotent() {
+		return this.idempotent;
 	}
 
 }
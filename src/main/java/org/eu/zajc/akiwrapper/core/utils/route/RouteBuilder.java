@@ -35,6 +35,7 @@ public class RouteBuilder {
 
 	@Nonnull private final String path;
 	private boolean requiresSession = false;
+	private boolean idempotent = true;
 	@SuppressWarnings("null") @Nonnull private Map<String, Object> staticParameters = emptyMap();
 	@SuppressWarnings("null") @Nonnull private Set<String> variableParameterNames = emptySet();
 
@@ -48,6 +49,12 @@ public class RouteBuilder {
 		return this;
 	}
 
+	@Nonnull
+	public RouteBuilder nonIdempotent() {
+		this.idempotent = false;
+		return this;
+	}
+
 	@Nonnull
 	public RouteBuilder staticParameter(@Nonnull Map<String, Object> staticParameters) {
 		this.staticParameters = staticParameters;
@@ -64,7 +71,7 @@ public class RouteBuilder {
 	@Nonnull
 	@SuppressWarnings("null")
 	public Route build() {
-		return new Route(this.path, this.requiresSession, this.staticParameters,
+		return new Route(this.path, this.requiresSession, this.idempotent, this.staticParameters,
 						 List.copyOf(this.variableParameterNames));
 	}
 
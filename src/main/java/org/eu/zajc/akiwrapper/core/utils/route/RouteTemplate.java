@@ -0,0 +1,160 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2026 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.core.utils.route;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.eu.zajc.akiwrapper.core.utils.HttpUtils.urlEncodeForm;
+
+import java.net.*;
+import java.util.*;
+
+import javax.annotation.Nonnull;
+
+/**
+ * <b>Note:</b> This is an internal class and its internals are subject to change
+ * without prior deprecation. Use with caution.<br>
+ * <br>
+ * A {@link Route} compiled for a specific endpoint, language, theme, and profanity
+ * filter preference. Everything but the variable parameters is known at this point,
+ * so the URI and the constant part of the form are prepared once, and each
+ * {@link Request} only has to encode its variable parameters. The session is one of
+ * the variable parameters, so a template can be shared by all games with the same
+ * configuration.
+ *
+ * @author Marko Zajc
+ *
+ * @see Route#compile(org.eu.zajc.akiwrapper.core.entities.impl.GameContext)
+ */
+@SuppressWarnings("javadoc") // internal
+public final class RouteTemplate {
+
+	private static final int INITIAL_BUFFER_SIZE = 512;
+	private static final ThreadLocal<byte[]> BUFFER = ThreadLocal.withInitial(() -> new byte[INITIAL_BUFFER_SIZE]);
+
+	@Nonnull private final URI uri;
+	@Nonnull private final String[] headers;
+	@Nonnull private final byte[] staticForm;
+	@Nonnull private final List<String> variableNames;
+	@Nonnull private final byte[][] variablePrefixes;
+
+	RouteTemplate(@Nonnull URI uri, @Nonnull String[] headers, @Nonnull Map<String, Object> staticParameters,
+				  @Nonnull List<String> variableNames) {
+		this.uri = uri;
+		this.headers = headers;
+		this.staticForm = urlEncodeForm(staticParameters).getBytes(UTF_8);
+		this.variableNames = variableNames;
+		this.variablePrefixes = new byte[variableNames.size()][];
+		for (int i = 0; i < variableNames.size(); i++) {
+			var separator = i == 0 && this.staticForm.length == 0 ? "" : "&";
+			this.variablePrefixes[i] =
+				(separator + URLEncoder.encode(variableNames.get(i), UTF_8) + "=").getBytes(UTF_8);
+		}
+	}
+
+	@Nonnull
+	public URI getUri() {
+		return this.uri;
+	}
+
+	/**
+	 * @return the HTTP headers, as an array of alternating names and values.
+	 */
+	@Nonnull
+	public String[] getHeaders() {
+		return this.headers;
+	}
+
+	/**
+	 * @param name
+	 *            the variable parameter's name.
+	 *
+	 * @return the index of the variable parameter, or {@code -1} if this route doesn't
+	 *         define it.
+	 */
+	public int indexOf(@Nonnull String name) {
+		return this.variableNames.indexOf(name);
+	}
+
+	public int getVariableCount() {
+		return this.variableNames.size();
+	}
+
+	/**
+	 * Encodes the form body, consisting of the pre-encoded static parameters followed by
+	 * the variable parameters.
+	 *
+	 * @param values
+	 *            the values of variable parameters, in the order of their indices.
+	 *
+	 * @return the encoded form.
+	 */
+	@Nonnull
+	public byte[] encodeForm(@Nonnull Object[] values) {
+		var buffer = BUFFER.get();
+		int length = 0;
+
+		buffer = ensureCapacity(buffer, length + this.staticForm.length);
+		System.arraycopy(this.staticForm, 0, buffer, length, this.staticForm.length);
+		length += this.staticForm.length;
+
+		for (int i = 0; i < values.length; i++) {
+			var prefix = this.variablePrefixes[i];
+			var value = String.valueOf(values[i]);
+			buffer = ensureCapacity(buffer, length + prefix.length + value.length());
+			System.arraycopy(prefix, 0, buffer, length, prefix.length);
+			length += prefix.length;
+
+			if (isUnreserved(value)) {
+				// the common case (numbers and plain words), which encodes to itself
+				for (int j = 0; j < value.length(); j++)
+					buffer[length++] = (byte) value.charAt(j);
+
+			} else {
+				var encoded = URLEncoder.encode(value, UTF_8).getBytes(UTF_8);
+				buffer = ensureCapacity(buffer, length + encoded.length);
+				System.arraycopy(encoded, 0, buffer, length, encoded.length);
+				length += encoded.length;
+			}
+		}
+
+		return Arrays.copyOf(buffer, length);
+	}
+
+	@Nonnull
+	private static byte[] ensureCapacity(@Nonnull byte[] buffer, int capacity) {
+		if (buffer.length >= capacity)
+			return buffer;
+
+		var grown = Arrays.copyOf(buffer, Math.max(capacity, buffer.length * 2));
+		BUFFER.set(grown);
+		return grown;
+	}
+
+	/**
+	 * @return whether {@link URLEncoder} would leave the value unchanged.
+	 */
+	private static boolean isUnreserved(@Nonnull String value) {
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (!(c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9' || c == '.' || c == '-' ||
+				c == '*' || c == '_'))
+				return false;
+		}
+		return true;
+	}
+
+}
@@ -33,6 +33,14 @@ import org.eu.zajc.akiwrapper.core.entities.impl.GuessImpl;
  */
 public final class Routes {
 
+	/**
+	 * The value of {@link Session#getSession()}.
+	 */
+	public static final String PARAMETER_SESSION = "session";
+	/**
+	 * The value of {@link Session#getSignature()}.
+	 */
+	public static final String PARAMETER_SIGNATURE = "signature";
 	/**
 	 * The current zero-indexed question number.
 	 */
@@ -89,6 +97,7 @@ public final class Routes {
 	 * </ul>
 	 */
 	public static final Route ANSWER = new RouteBuilder("/answer").requiresSession()
+		.nonIdempotent()
 		.variableParameters(PARAMETER_STEP, PARAMETER_PROGRESSION, PARAMETER_ANSWER, PARAMETER_STEP_LAST_PROPOSITION)
 		.build();
 
@@ -102,6 +111,7 @@ public final class Routes {
 	 * </ul>
 	 */
 	public static final Route CANCEL_ANSWER = new RouteBuilder("/cancel_answer").requiresSession()
+		.nonIdempotent()
 		.variableParameters(PARAMETER_STEP, PARAMETER_PROGRESSION)
 		.build();
 
@@ -119,6 +129,7 @@ public final class Routes {
 	 * <b>This route requires a session</b>
 	 */
 	@SuppressWarnings("null") public static final Route EXCLUDE = new RouteBuilder("/exclude").requiresSession()
+		.nonIdempotent()
 		.staticParameter(Map.of("forward_answer", "1"))
 		.variableParameters(PARAMETER_STEP, PARAMETER_PROGRESSION)
 		.build();
@@ -18,7 +18,6 @@ package org.eu.zajc.akiwrapper.core.utils.route;
 
 import javax.annotation.Nonnull;
 
-import org.json.JSONObject;
 import org.jsoup.nodes.Element;
 
 /**
@@ -49,6 +48,8 @@ public enum Status {
 	 */
 	UNKNOWN("", true);
 
+	private static final Status[] VALUES = values();
+
 	private final String name;
 	private final boolean erroneous;
 
@@ -74,8 +75,9 @@ public enum Status {
 
 	@Nonnull
 	@SuppressWarnings({ "javadoc", "null" }) // internal
-	public static Status fromJson(@Nonnull JSONObject json) {
-		return json.has("completion") ? fromString(json.getString("completion")) : OK;
+	public static Status fromJson(@Nonnull FlatJson json) {
+		var completion = json.optString(FlatJson.KEY_COMPLETION);
+		return completion == null ? OK : fromString(completion);
 	}
 
 	@Nonnull
@@ -95,8 +97,9 @@ public enum Status {
 	@Nonnull
 	@SuppressWarnings("javadoc") // internal
 	public static Status fromString(@Nonnull String completion) {
-		for (Status iteratedLevel : Status.values())
-			if (completion.toUpperCase().startsWith(iteratedLevel.toString()))
+		var upperCompletion = completion.toUpperCase();
+		for (Status iteratedLevel : VALUES)
+			if (upperCompletion.startsWith(iteratedLevel.toString()))
 				return iteratedLevel;
 
 		return UNKNOWN;
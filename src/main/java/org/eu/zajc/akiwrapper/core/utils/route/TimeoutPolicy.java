@@ -0,0 +1,202 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2026 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.core.utils.route;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.annotation.Nonnull;
+
+import org.eu.zajc.akiwrapper.AkiwrapperBuilder;
+import org.eu.zajc.akiwrapper.core.utils.Deadline;
+
+/**
+ * Decides how long a single attempt of a request to Akinator's API may take before
+ * it's abandoned (and possibly retried according to the {@link RetryPolicy}). Each
+ * {@link Route} has its own timeout, because some routes (such as
+ * {@link Routes#NEW_SESSION}, which loads the whole game page) are much heavier than
+ * others.<br>
+ * If adaptive timeouts are enabled, the latency of each route is tracked separately
+ * for each host, and the timeout is lowered to a multiple of a high percentile of
+ * recent latencies (see {@link TimeoutPolicyBuilder#setPercentile(double)} and
+ * {@link TimeoutPolicyBuilder#setMultiplier(double)}). This way a hung connection is
+ * abandoned soon after it becomes clear that it's an outlier, rather than only after
+ * the configured timeout, which is still used as the upper bound. Attempts that time
+ * out are counted as taking the whole timeout, so the timeout grows back when the
+ * host slows down.<br>
+ * Independently of this, callers can pass a {@link Deadline} to interactions, which
+ * caps the timeout of each attempt and prevents retries that couldn't complete in
+ * time.<br>
+ * Instances of this class are immutable and can be shared between
+ * {@link AkiwrapperBuilder}s. Use {@link TimeoutPolicyBuilder} to create one.
+ *
+ * @author Marko Zajc
+ *
+ * @see AkiwrapperBuilder#setTimeoutPolicy(TimeoutPolicy)
+ */
+public final class TimeoutPolicy {
+
+	/**
+	 * The default {@link TimeoutPolicy}, as built by an unmodified
+	 * {@link TimeoutPolicyBuilder}.
+	 */
+	@Nonnull public static final TimeoutPolicy DEFAULT = new TimeoutPolicyBuilder().build();
+
+	private static final int UPDATE_INTERVAL = 8;
+	private static final int AVERAGE_WEIGHT = 64; // the inverse weight of each sample in the average
+
+	@Nonnull private final Duration timeout;
+	@Nonnull private final Map<Route, Duration> routeTimeouts;
+	private final boolean adaptive;
+	@Nonnull private final Duration minTimeout;
+	private final double percentile;
+	private final double multiplier;
+	private final int window;
+
+	@Nonnull private final Map<URI, LatencyTracker> trackers = new ConcurrentHashMap<>();
+
+	TimeoutPolicy(@Nonnull Duration timeout, @Nonnull Map<Route, Duration> routeTimeouts, boolean adaptive,
+				  @Nonnull Duration minTimeout, double percentile, double multiplier, int window) {
+		this.timeout = timeout;
+		this.routeTimeouts = routeTimeouts;
+		this.adaptive = adaptive;
+		this.minTimeout = minTimeout;
+		this.percentile = percentile;
+		this.multiplier = multiplier;
+		this.window = window;
+	}
+
+	/**
+	 * @return the timeout of routes that don't have their own timeout set.
+	 */
+	@Nonnull
+	public Duration getTimeout() {
+		return this.timeout;
+	}
+
+	/**
+	 * Returns the configured timeout of a {@link Route}, which is the upper bound for
+	 * its adaptive timeout.
+	 *
+	 * @param route
+	 *            the route
+	 *
+	 * @return the timeout of {@code route}.
+	 */
+	@Nonnull
+	public Duration getTimeout(@Nonnull Route route) {
+		return this.routeTimeouts.getOrDefault(route, this.timeout);
+	}
+
+	/**
+	 * @return whether timeouts adapt to observed latencies.
+	 */
+	public boolean isAdaptive() {
+		return this.adaptive;
+	}
+
+	/**
+	 * @return the lower bound for adaptive timeouts.
+	 */
+	@Nonnull
+	public Duration getMinTimeout() {
+		return this.minTimeout;
+	}
+
+	/**
+	 * @return the latency percentile (between 0 and 1) adaptive timeouts are based on.
+	 */
+	public double getPercentile() {
+		return this.percentile;
+	}
+
+	/**
+	 * @return the factor the latency percentile is multiplied by.
+	 */
+	public double getMultiplier() {
+		return this.multiplier;
+	}
+
+	/**
+	 * @return the amount of recent latencies tracked per route and host.
+	 */
+	public int getWindow() {
+		return this.window;
+	}
+
+	@Nonnull
+	LatencyTracker getTracker(@Nonnull Route route, @Nonnull URI uri) {
+		// the URI contains both the host and the route's path
+		return this.trackers.computeIfAbsent(uri, u -> new LatencyTracker(getTimeout(route).toNanos()));
+	}
+
+	final class LatencyTracker {
+
+		private final long maxNanos;
+		private final long[] samples;
+		private int count;
+		private int next;
+		private int sinceUpdate;
+		private long averageNanos;
+		private volatile long timeoutNanos;
+
+		LatencyTracker(long maxNanos) {
+			this.maxNanos = maxNanos;
+			this.samples = new long[TimeoutPolicy.this.window];
+			this.timeoutNanos = maxNanos;
+		}
+
+		long getTimeoutNanos() {
+			return this.timeoutNanos;
+		}
+
+		synchronized long getAverageNanos() {
+			return this.averageNanos;
+		}
+
+		void record(long nanos) {
+			long[] sorted;
+			synchronized (this) {
+				this.averageNanos = this.averageNanos == 0 ? nanos :
+					this.averageNanos + (nanos - this.averageNanos) / AVERAGE_WEIGHT;
+				if (!TimeoutPolicy.this.adaptive)
+					return;
+
+				this.samples[this.next] = nanos;
+				this.next = (this.next + 1) % this.samples.length;
+				if (this.count < this.samples.length)
+					this.count++;
+
+				// adapt once a quarter of the window is filled, and then only every few samples
+				if (this.count < this.samples.length / 4 || ++this.sinceUpdate < UPDATE_INTERVAL)
+					return;
+
+				this.sinceUpdate = 0;
+				sorted = Arrays.copyOf(this.samples, this.count);
+			}
+
+			Arrays.sort(sorted);
+			int index = Math.max(0, (int) Math.ceil(TimeoutPolicy.this.percentile * sorted.length) - 1);
+			long adapted = (long) (sorted[index] * TimeoutPolicy.this.multiplier);
+			this.timeoutNanos = Math.min(this.maxNanos, Math.max(TimeoutPolicy.this.minTimeout.toNanos(), adapted));
+		}
+
+	}
+
+}
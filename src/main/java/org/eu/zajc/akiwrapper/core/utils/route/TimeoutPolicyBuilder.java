@@ -0,0 +1,227 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2026 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.core.utils.route;
+
+import static java.time.Duration.ofSeconds;
+
+import java.time.Duration;
+import java.util.*;
+
+import javax.annotation.Nonnull;
+
+/**
+ * A class used to build a {@link TimeoutPolicy}.
+ *
+ * @author Marko Zajc
+ */
+public class TimeoutPolicyBuilder {
+
+	/**
+	 * The default timeout of routes that don't have their own timeout set.
+	 */
+	@Nonnull public static final Duration DEFAULT_TIMEOUT = ofSeconds(10);
+
+	/**
+	 * The default timeout of {@link Routes#NEW_SESSION}, which fetches and parses the
+	 * whole game page.
+	 */
+	@Nonnull public static final Duration DEFAULT_NEW_SESSION_TIMEOUT = ofSeconds(30);
+
+	/**
+	 * The default preference for adapting timeouts to observed latencies.
+	 */
+	public static final boolean DEFAULT_ADAPTIVE = true;
+
+	/**
+	 * The default lower bound for adaptive timeouts.
+	 */
+	@Nonnull public static final Duration DEFAULT_MIN_TIMEOUT = ofSeconds(1);
+
+	/**
+	 * The default latency percentile adaptive timeouts are based on.
+	 */
+	public static final double DEFAULT_PERCENTILE = 0.99;
+
+	/**
+	 * The default factor the latency percentile is multiplied by.
+	 */
+	public static final double DEFAULT_MULTIPLIER = 3;
+
+	/**
+	 * The default amount of recent latencies tracked per route and host.
+	 */
+	public static final int DEFAULT_WINDOW = 128;
+
+	@Nonnull private Duration timeout = DEFAULT_TIMEOUT;
+	@Nonnull private final Map<Route, Duration> routeTimeouts = new HashMap<>();
+	private boolean adaptive = DEFAULT_ADAPTIVE;
+	@Nonnull private Duration minTimeout = DEFAULT_MIN_TIMEOUT;
+	private double percentile = DEFAULT_PERCENTILE;
+	private double multiplier = DEFAULT_MULTIPLIER;
+	private int window = DEFAULT_WINDOW;
+
+	/**
+	 * Creates a new {@link TimeoutPolicyBuilder} with the default settings, including
+	 * a timeout of {@link #DEFAULT_NEW_SESSION_TIMEOUT} for {@link Routes#NEW_SESSION}.
+	 */
+	public TimeoutPolicyBuilder() {
+		this.routeTimeouts.put(Routes.NEW_SESSION, DEFAULT_NEW_SESSION_TIMEOUT);
+	}
+
+	/**
+	 * Sets the timeout of routes that don't have their own timeout set with
+	 * {@link #setTimeout(Route, Duration)}.<br>
+	 * This is set to {@link #DEFAULT_TIMEOUT} by default.
+	 *
+	 * @param timeout
+	 *            the timeout.
+	 *
+	 * @return current instance, used for chaining.
+	 */
+	@Nonnull
+	public TimeoutPolicyBuilder setTimeout(@Nonnull Duration timeout) {
+		checkPositive(timeout, "timeout");
+		this.timeout = timeout;
+		return this;
+	}
+
+	/**
+	 * Sets the timeout of a specific {@link Route}. When adaptive timeouts are enabled,
+	 * this is the upper bound for the route's timeout.<br>
+	 * Only {@link Routes#NEW_SESSION} has its own timeout by default
+	 * ({@link #DEFAULT_NEW_SESSION_TIMEOUT}).
+	 *
+	 * @param route
+	 *            the route, one of those in {@link Routes}.
+	 * @param timeout
+	 *            the timeout.
+	 *
+	 * @return current instance, used for chaining.
+	 */
+	@Nonnull
+	public TimeoutPolicyBuilder setTimeout(@Nonnull Route route, @Nonnull Duration timeout) {
+		checkPositive(timeout, "timeout");
+		this.routeTimeouts.put(route, timeout);
+		return this;
+	}
+
+	/**
+	 * Sets whether timeouts adapt to the observed latency of each route and host.
+	 * Disabling this makes the configured timeouts fixed.<br>
+	 * This is set to {@value #DEFAULT_ADAPTIVE} by default.
+	 *
+	 * @param adaptive
+	 *            whether to adapt timeouts.
+	 *
+	 * @return current instance, used for chaining.
+	 */
+	@Nonnull
+	public TimeoutPolicyBuilder setAdaptive(boolean adaptive) {
+		this.adaptive = adaptive;
+		return this;
+	}
+
+	/**
+	 * Sets the lower bound for adaptive timeouts, which prevents a streak of fast
+	 * responses from making the timeout too tight to tolerate ordinary jitter.<br>
+	 * This is set to {@link #DEFAULT_MIN_TIMEOUT} by default.
+	 *
+	 * @param minTimeout
+	 *            the minimum timeout.
+	 *
+	 * @return current instance, used for chaining.
+	 */
+	@Nonnull
+	public TimeoutPolicyBuilder setMinTimeout(@Nonnull Duration minTimeout) {
+		checkPositive(minTimeout, "minTimeout");
+		this.minTimeout = minTimeout;
+		return this;
+	}
+
+	/**
+	 * Sets the latency percentile adaptive timeouts are based on. For example, with a
+	 * percentile of {@code 0.99} and a multiplier of {@code 3}, an attempt times out
+	 * once it takes three times longer than 99% of recent attempts.<br>
+	 * This is set to {@value #DEFAULT_PERCENTILE} by default.
+	 *
+	 * @param percentile
+	 *            the percentile, between {@code 0} (exclusive) and {@code 1}.
+	 *
+	 * @return current instance, used for chaining.
+	 */
+	@Nonnull
+	public TimeoutPolicyBuilder setPercentile(double percentile) {
+		if (percentile <= 0 || percentile > 1)
+			throw new IllegalArgumentException("percentile must be above 0 and at most 1");
+
+		this.percentile = percentile;
+		return this;
+	}
+
+	/**
+	 * Sets the factor the latency percentile is multiplied by to get the adaptive
+	 * timeout.<br>
+	 * This is set to {@value #DEFAULT_MULTIPLIER} by default.
+	 *
+	 * @param multiplier
+	 *            the multiplier.
+	 *
+	 * @return current instance, used for chaining.
+	 */
+	@Nonnull
+	public TimeoutPolicyBuilder setMultiplier(double multiplier) {
+		if (multiplier < 1)
+			throw new IllegalArgumentException("multiplier must be at least 1");
+
+		this.multiplier = multiplier;
+		return this;
+	}
+
+	/**
+	 * Sets the amount of recent latencies tracked for each route and host. Timeouts
+	 * start adapting once a quarter of the window is filled.<br>
+	 * This is set to {@value #DEFAULT_WINDOW} by default.
+	 *
+	 * @param window
+	 *            the window size.
+	 *
+	 * @return current instance, used for chaining.
+	 */
+	@Nonnull
+	public TimeoutPolicyBuilder setWindow(int window) {
+		if (window < 4)
+			throw new IllegalArgumentException("window must be at least 4");
+
+		this.window = window;
+		return this;
+	}
+
+	/**
+	 * @return a new {@link TimeoutPolicy}.
+	 */
+	@Nonnull
+	public TimeoutPolicy build() {
+		return new TimeoutPolicy(this.timeout, Map.copyOf(this.routeTimeouts), this.adaptive, this.minTimeout,
+								 this.percentile, this.multiplier, this.window);
+	}
+
+	private static void checkPositive(@Nonnull Duration duration, @Nonnull String name) {
+		if (duration.isNegative() || duration.isZero())
+			throw new IllegalArgumentException(name + " must be positive");
+	}
+
+}
@@ -0,0 +1,274 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2026 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.*;
+import java.net.*;
+import java.net.http.*;
+import java.net.http.HttpResponse.*;
+import java.nio.ByteBuffer;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Function;
+
+import javax.annotation.Nonnull;
+import javax.net.ssl.*;
+
+/**
+ * A {@link HttpClient} that never touches the network. Every request is answered
+ * by a handler, and the futures returned by {@link #sendAsync(HttpRequest, BodyHandler)}
+ * are kept so that tests can check whether they were cancelled.
+ *
+ * @author Marko Zajc
+ */
+public class FakeHttpClient extends HttpClient {
+
+	@Nonnull private final Function<HttpRequest, CompletableFuture<Reply>> handler;
+	@Nonnull private final List<HttpRequest> requests = new CopyOnWriteArrayList<>();
+	@Nonnull private final List<CompletableFuture<?>> exchanges = new CopyOnWriteArrayList<>();
+
+	public FakeHttpClient(@Nonnull Function<HttpRequest, CompletableFuture<Reply>> handler) {
+		this.handler = handler;
+	}
+
+	/**
+	 * @return a {@link FakeHttpClient} that replies with {@link #replyToGame(HttpRequest)}.
+	 */
+	@Nonnull
+	public static FakeHttpClient game() {
+		return new FakeHttpClient(FakeHttpClient::replyToGame);
+	}
+
+	/**
+	 * Replies with {@code game.html} to {@code /game} and with {@code question.json} to
+	 * everything else, which makes for a game that never ends.
+	 *
+	 * @param request
+	 *            the request to reply to.
+	 *
+	 * @return the reply.
+	 */
+	@Nonnull
+	public static CompletableFuture<Reply> replyToGame(@Nonnull HttpRequest request) {
+		try {
+			var fixture = request.uri().getPath().endsWith("/game") ? "game.html" : "question.json";
+			return CompletableFuture.completedFuture(Reply.ok(Fixtures.readFixture(fixture)));
+
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@Nonnull
+	public List<HttpRequest> getRequests() {
+		return this.requests;
+	}
+
+	@Nonnull
+	public List<CompletableFuture<?>> getExchanges() {
+		return this.exchanges;
+	}
+
+	@Override
+	public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request, BodyHandler<T> bodyHandler) {
+		this.requests.add(request);
+		var exchange = this.handler.apply(request).thenCompose(reply -> {
+			var info = new Info(reply.statusCode);
+			var subscriber = bodyHandler.apply(info);
+			subscriber.onSubscribe(new Flow.Subscription() {
+
+				@Override
+				public void request(long n) {}
+
+				@Override
+				public void cancel() {}
+
+			});
+			subscriber.onNext(List.of(ByteBuffer.wrap(reply.body)));
+			subscriber.onComplete();
+			return subscriber.getBody().thenApply(body -> (HttpResponse<T>) new Response<>(request, info, body));
+		});
+		this.exchanges.add(exchange);
+		return exchange;
+	}
+
+	@Override
+	public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request, BodyHandler<T> bodyHandler,
+															PushPromiseHandler<T> pushPromiseHandler) {
+		return sendAsync(request, bodyHandler);
+	}
+
+	@Override
+	public <T> HttpResponse<T> send(HttpRequest request, BodyHandler<T> bodyHandler) throws IOException,
+																					  InterruptedException {
+		try {
+			return sendAsync(request, bodyHandler).get();
+		} catch (ExecutionException e) {
+			throw new IOException(e.getCause());
+		}
+	}
+
+	@Override
+	public Optional<CookieHandler> cookieHandler() {
+		return Optional.empty();
+	}
+
+	@Override
+	public Optional<Duration> connectTimeout() {
+		return Optional.empty();
+	}
+
+	@Override
+	public Redirect followRedirects() {
+		return Redirect.NEVER;
+	}
+
+	@Override
+	public Optional<ProxySelector> proxy() {
+		return Optional.empty();
+	}
+
+	@Override
+	public SSLContext sslContext() {
+		try {
+			return SSLContext.getDefault();
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	@Override
+	public SSLParameters sslParameters() {
+		return new SSLParameters();
+	}
+
+	@Override
+	public Optional<Authenticator> authenticator() {
+		return Optional.empty();
+	}
+
+	@Override
+	public Version version() {
+		return Version.HTTP_2;
+	}
+
+	@Override
+	public Optional<Executor> executor() {
+		return Optional.empty();
+	}
+
+	public static final class Reply {
+
+		private final int statusCode;
+		@Nonnull private final byte[] body;
+
+		public Reply(int statusCode, @Nonnull byte[] body) {
+			this.statusCode = statusCode;
+			this.body = body;
+		}
+
+		@Nonnull
+		public static Reply ok(@Nonnull String body) {
+			return new Reply(200, body.getBytes(UTF_8));
+		}
+
+	}
+
+	private static final class Info implements ResponseInfo {
+
+		private final int statusCode;
+
+		Info(int statusCode) {
+			this.statusCode = statusCode;
+		}
+
+		@Override
+		public int statusCode() {
+			return this.statusCode;
+		}
+
+		@Override
+		public HttpHeaders headers() {
+			return HttpHeaders.of(Map.of(), (k, v) -> true);
+		}
+
+		@Override
+		public Version version() {
+			return Version.HTTP_2;
+		}
+
+	}
+
+	private static final class Response<T> implements HttpResponse<T> {
+
+		@Nonnull private final HttpRequest request;
+		@Nonnull private final Info info;
+		private final T body;
+
+		Response(@Nonnull HttpRequest request, @Nonnull Info info, T body) {
+			this.request = request;
+			this.info = info;
+			this.body = body;
+		}
+
+		@Override
+		public int statusCode() {
+			return this.info.statusCode();
+		}
+
+		@Override
+		public HttpRequest request() {
+			return this.request;
+		}
+
+		@Override
+		public Optional<HttpResponse<T>> previousResponse() {
+			return Optional.empty();
+		}
+
+		@Override
+		public HttpHeaders headers() {
+			return this.info.headers();
+		}
+
+		@Override
+		public T body() {
+			return this.body;
+		}
+
+		@Override
+		public Optional<SSLSession> sslSession() {
+			return Optional.empty();
+		}
+
+		@Override
+		public URI uri() {
+			return this.request.uri();
+		}
+
+		@Override
+		public Version version() {
+			return this.info.version();
+		}
+
+	}
+
+}
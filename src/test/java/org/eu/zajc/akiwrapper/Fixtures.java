@@ -0,0 +1,43 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2026 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.*;
+
+import javax.annotation.Nonnull;
+
+public final class Fixtures {
+
+	@Nonnull
+	public static String readFixture(@Nonnull String name) throws IOException {
+		return new String(readFixtureBytes(name), UTF_8);
+	}
+
+	@Nonnull
+	public static byte[] readFixtureBytes(@Nonnull String name) throws IOException {
+		try (var in = Fixtures.class.getResourceAsStream("/fixtures/" + name)) {
+			if (in == null)
+				throw new FileNotFoundException(name);
+			return in.readAllBytes();
+		}
+	}
+
+	private Fixtures() {}
+
+}
@@ -0,0 +1,139 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2026 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.core.entities;
+
+import static java.util.concurrent.CompletableFuture.failedFuture;
+import static org.eu.zajc.akiwrapper.FakeHttpClient.replyToGame;
+import static org.eu.zajc.akiwrapper.core.utils.Utilities.unwrapCompletion;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.util.concurrent.*;
+
+import org.eu.zajc.akiwrapper.*;
+import org.eu.zajc.akiwrapper.Akiwrapper.Answer;
+import org.eu.zajc.akiwrapper.FakeHttpClient.Reply;
+import org.eu.zajc.akiwrapper.core.exceptions.UndoOutOfBoundsException;
+import org.junit.jupiter.api.Test;
+
+class AsyncTest {
+
+	@Test
+	void testBuildAsync() {
+		var http = FakeHttpClient.game();
+		var api = new AkiwrapperBuilder().setHttpClient(http).buildAsync().join();
+
+		var question = (Question) api.getCurrentQuery();
+		assertEquals(0, question.getStep());
+		assertEquals("Is your character real?", question.getText());
+		assertEquals("/game", http.getRequests().get(0).uri().getPath());
+	}
+
+	@Test
+	void testAnswerAsync() {
+		var http = FakeHttpClient.game();
+		var api = new AkiwrapperBuilder().setHttpClient(http).build();
+		var first = (Question) api.getCurrentQuery();
+
+		// the step is checked before a request is made, and the failure is delivered through the future
+		assertTrue(failure(first.undoAnswerAsync()) instanceof UndoOutOfBoundsException);
+		assertEquals(1, http.getRequests().size());
+
+		var next = (Question) first.answerAsync(Answer.YES).join();
+		assertEquals(1, next.getStep());
+		assertEquals("Is your character a YouTuber?", next.getText());
+		assertSame(next, api.getCurrentQuery());
+		assertEquals("/answer", http.getRequests().get(1).uri().getPath());
+
+		// the answered question is stale now
+		assertTrue(failure(first.answerAsync(Answer.NO)) instanceof IllegalStateException);
+
+		next.undoAnswerAsync().join();
+		assertEquals("/cancel_answer", http.getRequests().get(2).uri().getPath());
+	}
+
+	@Test
+	void testAnswerAsyncQueued() {
+		var pending = new CompletableFuture<Reply>();
+		var http = new FakeHttpClient(r -> r.uri().getPath().equals("/answer") ? pending : replyToGame(r));
+		var api = new AkiwrapperBuilder().setHttpClient(http).build();
+		var question = (Question) api.getCurrentQuery();
+
+		var first = question.answerAsync(Answer.YES);
+		var second = question.answerAsync(Answer.NO);
+		assertFalse(first.isDone());
+		// the second interaction waits for the first one instead of sending its own request
+		assertEquals(2, http.getRequests().size());
+
+		pending.complete(replyToGame(http.getRequests().get(1)).join());
+		assertEquals(1, first.join().getStep());
+		// by the time the second interaction starts, its question is stale
+		assertTrue(failure(second) instanceof IllegalStateException);
+		assertEquals(2, http.getRequests().size());
+	}
+
+	@Test
+	void testCancellation() {
+		var pending = new CompletableFuture<Reply>();
+		var http = new FakeHttpClient(r -> r.uri().getPath().equals("/answer") ? pending : replyToGame(r));
+		var api = new AkiwrapperBuilder().setHttpClient(http).build();
+		var question = (Question) api.getCurrentQuery();
+
+		var answer = question.answerAsync(Answer.YES);
+		var exchange = http.getExchanges().get(1);
+		assertFalse(exchange.isDone());
+
+		assertTrue(answer.cancel(true));
+		assertTrue(exchange.isCancelled());
+		assertSame(question, api.getCurrentQuery());
+
+		// the game can still be played after the cancelled interaction
+		pending.complete(replyToGame(http.getRequests().get(1)).join());
+		assertEquals(1, question.answerAsync(Answer.YES).join().getStep());
+	}
+
+	@Test
+	void testBuildAsyncCancellation() {
+		var http = new FakeHttpClient(r -> new CompletableFuture<>());
+		var build = new AkiwrapperBuilder().setHttpClient(http).buildAsync();
+		var exchange = http.getExchanges().get(0);
+
+		assertTrue(build.cancel(true));
+		assertTrue(exchange.isCancelled());
+	}
+
+	@Test
+	void testFailure() {
+		var http = new FakeHttpClient(r -> r.uri().getPath().equals("/answer") ?
+			failedFuture(new IOException("Connection reset")) : replyToGame(r));
+		var api = new AkiwrapperBuilder().setHttpClient(http).build();
+		var question = (Question) api.getCurrentQuery();
+
+		assertTrue(failure(question.answerAsync(Answer.YES)).getCause() instanceof IOException);
+		assertSame(question, api.getCurrentQuery());
+	}
+
+	private static Throwable failure(CompletableFuture<?> future) {
+		try {
+			future.join();
+		} catch (CompletionException e) {
+			return unwrapCompletion(e);
+		}
+		return fail("Expected the future to fail");
+	}
+
+}
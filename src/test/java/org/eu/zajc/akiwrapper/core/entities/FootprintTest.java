@@ -0,0 +1,129 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2026 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.core.entities;
+
+import static java.util.concurrent.CompletableFuture.*;
+import static org.eu.zajc.akiwrapper.Fixtures.readFixtureBytes;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
+import javax.annotation.Nonnull;
+
+import org.eu.zajc.akiwrapper.Akiwrapper.Answer;
+import org.eu.zajc.akiwrapper.AkiwrapperBuilder;
+import org.eu.zajc.akiwrapper.core.entities.impl.AkiwrapperImpl;
+import org.eu.zajc.akiwrapper.core.snapshot.GameSnapshot;
+import org.eu.zajc.akiwrapper.core.transport.*;
+import org.eu.zajc.akiwrapper.core.utils.route.*;
+import org.eu.zajc.akiwrapper.standin.AkinatorStandIn;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jol.info.GraphLayout;
+import org.openjdk.jol.vm.VM;
+
+class FootprintTest {
+
+	private static final int GAMES = 1000;
+
+	// an idle game is the instance, its session, and the current question (with their
+	// strings); everything else is shared
+	private static final long MAX_BYTES_PER_GAME = 400;
+	// a game sitting on a guess that hasn't been shown yet also keeps the guess's
+	// undecoded values, but not the rest of the response they were read from
+	private static final long MAX_BYTES_PER_GUESSING_GAME = 700;
+
+	@Test
+	void testIdleGameFootprint() {
+		var builder = new AkiwrapperBuilder().setTransport(new OfflineTransport())
+			.setRetryPolicy(new RetryPolicyBuilder().build())
+			.setIsolationPolicy(new IsolationPolicyBuilder().build());
+		var games = resumeGames(builder);
+
+		assertFootprint(games, MAX_BYTES_PER_GAME, "an idle game");
+	}
+
+	@Test
+	void testGuessingGameFootprint() throws IOException {
+		// a guess parsed from a response must only keep its own values, not the response
+		var builder = new AkiwrapperBuilder().setTransport(new GuessTransport(readFixtureBytes("guess.json")))
+			.setRetryPolicy(new RetryPolicyBuilder().build())
+			.setIsolationPolicy(new IsolationPolicyBuilder().build());
+		var games = resumeGames(builder);
+		for (var game : games)
+			assertTrue(((Question) game.getCurrentQuery()).answer(Answer.YES) instanceof Guess);
+
+		assertFootprint(games, MAX_BYTES_PER_GUESSING_GAME, "a game with an undecoded guess");
+	}
+
+	@Nonnull
+	private static AkiwrapperImpl[] resumeGames(@Nonnull AkiwrapperBuilder builder) {
+		byte[] snapshot;
+		try (var standIn = new AkinatorStandIn()) {
+			var api = new AkiwrapperBuilder().setTransport(standIn.createInProcessTransport()).build();
+			((Question) api.getCurrentQuery()).answer(Answer.YES);
+			snapshot = api.snapshot().toBytes();
+		}
+
+		// JOL can't walk lambdas (such as the stand-in's transport), so the measured games
+		// are resumed onto a plain transport, with retry and isolation policies that
+		// haven't seen the stand-in's transport
+		var games = new AkiwrapperImpl[GAMES];
+		for (int i = 0; i < GAMES; i++)
+			games[i] = (AkiwrapperImpl) builder.resume(GameSnapshot.fromBytes(snapshot));
+
+		var context = games[0].getContext();
+		for (var game : games)
+			assertSame(context, game.getContext());
+		return games;
+	}
+
+	private static void assertFootprint(@Nonnull AkiwrapperImpl[] games, long maxBytesPerGame,
+										@Nonnull String description) {
+		var layout = GraphLayout.parseInstance((Object) games)
+			.subtract(GraphLayout.parseInstance(games[0].getContext()));
+		long perGame = (layout.totalSize() - VM.current().sizeOf(games)) / GAMES;
+		assertTrue(perGame <= maxBytesPerGame,
+				   description + " retains " + perGame + " bytes:\n" + layout.toFootprint());
+	}
+
+	private static final class GuessTransport implements Transport {
+
+		@Nonnull private final byte[] guess;
+
+		GuessTransport(@Nonnull byte[] guess) {
+			this.guess = guess;
+		}
+
+		@Override
+		public CompletableFuture<TransportResponse> execute(TransportRequest request) {
+			// every response has its own body, like a real one
+			return completedFuture(new TransportResponse(200, this.guess.clone()));
+		}
+
+	}
+
+	private static final class OfflineTransport implements Transport {
+
+		@Override
+		public CompletableFuture<TransportResponse> execute(TransportRequest request) {
+			return failedFuture(new IOException("offline"));
+		}
+
+	}
+
+}
@@ -0,0 +1,58 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2026 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.core.entities;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.eu.zajc.akiwrapper.Akiwrapper.Answer;
+import org.eu.zajc.akiwrapper.AkiwrapperBuilder;
+import org.eu.zajc.akiwrapper.core.utils.InternPool;
+import org.eu.zajc.akiwrapper.standin.AkinatorStandIn;
+import org.junit.jupiter.api.Test;
+
+class GuessTest {
+
+	@Test
+	void testLazyDecoding() {
+		// decoded fields are interned, so the pool's statistics show what was decoded
+		var internPool = new InternPool();
+		try (var standIn = new AkinatorStandIn().setGuessInterval(1)) {
+			var api = new AkiwrapperBuilder().setTransport(standIn.createInProcessTransport())
+				.setInternPool(internPool)
+				.build();
+			var guess = (Guess) ((Question) api.getCurrentQuery()).answer(Answer.YES);
+			long interned = internPool.getHits() + internPool.getMisses();
+
+			var name = guess.getName();
+			assertEquals(interned + 1, internPool.getHits() + internPool.getMisses());
+			// decoded fields are memoized
+			assertSame(name, guess.getName());
+			assertEquals(interned + 1, internPool.getHits() + internPool.getMisses());
+
+			assertNotNull(guess.getId());
+			assertNotNull(guess.getDescription());
+			assertNull(guess.getPseudonym());
+			assertNotNull(guess.getImage());
+			assertEquals(interned + 4, internPool.getHits() + internPool.getMisses());
+
+			// the undecoded fields are still sent when the guess is rejected
+			assertEquals(1, guess.reject().getStep());
+			assertEquals(1, standIn.getRequests("/exclude"));
+		}
+	}
+
+}
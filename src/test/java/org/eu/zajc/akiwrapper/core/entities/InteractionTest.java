@@ -0,0 +1,92 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2026 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.core.entities;
+
+import static java.time.Duration.*;
+import static org.eu.zajc.akiwrapper.core.utils.Utilities.unwrapCompletion;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.*;
+
+import org.eu.zajc.akiwrapper.Akiwrapper.Answer;
+import org.eu.zajc.akiwrapper.AkiwrapperBuilder;
+import org.eu.zajc.akiwrapper.core.exceptions.InteractionInFlightException;
+import org.eu.zajc.akiwrapper.standin.AkinatorStandIn;
+import org.junit.jupiter.api.Test;
+
+class InteractionTest {
+
+	@Test
+	void testTryAnswer() {
+		try (var standIn = new AkinatorStandIn().setLatency(ofMillis(200), ZERO)) {
+			var api = new AkiwrapperBuilder().setTransport(standIn.createInProcessTransport()).build();
+			var question = (Question) api.getCurrentQuery();
+
+			var first = question.tryAnswer(Answer.YES);
+			var second = question.tryAnswer(Answer.NO);
+			// the second attempt must fail right away, without waiting for the first one
+			assertTrue(second.isCompletedExceptionally());
+			assertTrue(failure(second) instanceof InteractionInFlightException);
+
+			var next = (Question) first.join();
+			assertEquals(1, next.getStep());
+			assertSame(next, api.getCurrentQuery());
+			assertEquals(1, standIn.getRequests("/answer"));
+
+			// the answered question is stale now
+			assertTrue(failure(question.tryAnswer(Answer.YES)) instanceof IllegalStateException);
+			assertEquals(2, next.tryAnswer(Answer.YES).join().getStep());
+		}
+	}
+
+	@Test
+	void testTryAnswerWhileQueued() {
+		try (var standIn = new AkinatorStandIn().setLatency(ofMillis(200), ZERO)) {
+			var api = new AkiwrapperBuilder().setTransport(standIn.createInProcessTransport()).build();
+			var question = (Question) api.getCurrentQuery();
+
+			var queued = question.answerAsync(Answer.YES);
+			assertTrue(failure(question.tryAnswer(Answer.NO)) instanceof InteractionInFlightException);
+			assertEquals(1, queued.join().getStep());
+		}
+	}
+
+	@Test
+	void testTryReject() {
+		try (var standIn = new AkinatorStandIn().setGuessInterval(1).setLatency(ofMillis(200), ZERO)) {
+			var api = new AkiwrapperBuilder().setTransport(standIn.createInProcessTransport()).build();
+			var guess = (Guess) ((Question) api.getCurrentQuery()).answer(Answer.YES);
+
+			var first = guess.tryReject();
+			assertTrue(failure(guess.tryReject()) instanceof InteractionInFlightException);
+			assertEquals(1, first.join().getStep());
+			assertEquals(1, standIn.getRequests("/exclude"));
+		}
+	}
+
+	private static Throwable failure(CompletableFuture<?> future) {
+		try {
+			future.get(1, TimeUnit.SECONDS);
+		} catch (ExecutionException e) {
+			return unwrapCompletion(e.getCause());
+		} catch (InterruptedException | TimeoutException e) {
+			fail(e);
+		}
+		return fail("Expected the interaction to fail");
+	}
+
+}
@@ -0,0 +1,214 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2026 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.core.entities;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.time.Duration.*;
+import static java.util.concurrent.CompletableFuture.*;
+import static org.eu.zajc.akiwrapper.Fixtures.readFixtureBytes;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.http.HttpTimeoutException;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+
+import javax.annotation.Nonnull;
+
+import org.eu.zajc.akiwrapper.Akiwrapper.Answer;
+import org.eu.zajc.akiwrapper.AkiwrapperBuilder;
+import org.eu.zajc.akiwrapper.core.transport.*;
+import org.eu.zajc.akiwrapper.core.utils.route.*;
+import org.eu.zajc.akiwrapper.standin.AkinatorStandIn;
+import org.junit.jupiter.api.Test;
+
+class ReconciliationTest {
+
+	@Test
+	void testLostAnswer() {
+		try (var standIn = new AkinatorStandIn()) {
+			var api = builder().setTransport(standIn.createInProcessTransport()).build();
+
+			// the answer is applied, but its response is lost, so the retry is rejected
+			// because of its stale step
+			standIn.loseNext(1);
+			var next = ((Question) api.getCurrentQuery()).answer(Answer.YES);
+			assertEquals(1, next.getStep());
+			assertSame(next, api.getCurrentQuery());
+			assertEquals(3, standIn.getRequests("/answer"));
+			assertEquals(1, standIn.getRequests("/cancel_answer"));
+
+			// the game is still in sync with the stand-in
+			assertEquals(2, ((Question) next).answer(Answer.NO).getStep());
+		}
+	}
+
+	@Test
+	void testAnswerAppliedTwice() throws IOException {
+		var game = readFixtureBytes("game.html");
+		var paths = Collections.synchronizedList(new ArrayList<String>());
+		var bodies = Collections.synchronizedList(new ArrayList<String>());
+		Transport transport = request -> {
+			var path = request.getUri().getPath();
+			paths.add(path);
+			bodies.add(new String(request.getBody(), UTF_8));
+			switch (paths.size()) {
+				case 1:
+					return completedFuture(new TransportResponse(200, game));
+				case 2: // times out after being applied
+					return failedFuture(new HttpTimeoutException("Timed out"));
+				case 3: // a lenient server applies the retry too
+					return completedFuture(new TransportResponse(200, question(2, "Does your character sing?")));
+				default:
+					return completedFuture(new TransportResponse(200, question(1, "Is your character a girl?")));
+			}
+		};
+
+		var api = builder().setTransport(transport).build();
+		var next = ((Question) api.getCurrentQuery()).answer(Answer.YES);
+		assertEquals(1, next.getStep());
+		assertEquals("Is your character a girl?", ((Question) next).getText());
+		assertEquals(List.of("/game", "/answer", "/answer", "/cancel_answer"), paths);
+		assertTrue(bodies.get(3).contains("step=2"), bodies.get(3));
+	}
+
+	@Test
+	void testAttemptTimeout() throws IOException {
+		var paths = Collections.synchronizedList(new ArrayList<String>());
+		var transport = hangingTransport(paths);
+
+		// with reconciliation, a timed out answer is retried even if I/O errors aren't
+		var api = builder(new RetryPolicyBuilder().setInitialDelay(ZERO).setRetryOnIOException(false))
+			.setTransport(transport)
+			.setTimeoutPolicy(new TimeoutPolicyBuilder().setTimeout(ofMillis(200)).setAdaptive(false).build())
+			.build();
+		var next = ((Question) api.getCurrentQuery()).answer(Answer.YES);
+		assertEquals(1, next.getStep());
+		assertEquals(List.of("/game", "/answer", "/answer"), paths);
+
+		// without it, a timed out answer is never retried, because it may still be applied
+		paths.clear();
+		var unreconciled = builder(new RetryPolicyBuilder().setInitialDelay(ZERO).setReconcile(false))
+			.setTransport(transport)
+			.setTimeoutPolicy(new TimeoutPolicyBuilder().setTimeout(ofMillis(200)).setAdaptive(false).build())
+			.build();
+		var question = (Question) unreconciled.getCurrentQuery();
+		assertThrows(RuntimeException.class, () -> question.answer(Answer.YES));
+		assertEquals(List.of("/game", "/answer"), paths);
+	}
+
+	@Test
+	void testLostRejection() {
+		try (var standIn = new AkinatorStandIn().setGuessInterval(1)) {
+			var api = builder().setTransport(standIn.createInProcessTransport()).build();
+			var guess = (Guess) ((Question) api.getCurrentQuery()).answer(Answer.YES);
+
+			standIn.loseNext(1);
+			var next = guess.reject();
+			assertEquals(guess.getStep(), next.getStep());
+			assertEquals(2, standIn.getRequests("/exclude"));
+		}
+	}
+
+	@Test
+	void testDisabled() {
+		try (var standIn = new AkinatorStandIn()) {
+			var api = builder(new RetryPolicyBuilder().setInitialDelay(ZERO).setReconcile(false))
+				.setTransport(standIn.createInProcessTransport())
+				.build();
+
+			// without reconciliation, the lost answer isn't retried, because it was applied
+			standIn.loseNext(1);
+			var question = (Question) api.getCurrentQuery();
+			assertThrows(RuntimeException.class, () -> question.answer(Answer.YES));
+			assertEquals(1, standIn.getRequests("/answer"));
+		}
+	}
+
+	@Test
+	void testDisabledInDoubt() throws IOException {
+		var paths = Collections.synchronizedList(new ArrayList<String>());
+		var game = readFixtureBytes("game.html");
+		var next = new ArrayDeque<Object>();
+		Transport transport = request -> {
+			var path = request.getUri().getPath();
+			paths.add(path);
+			if (path.equals("/game"))
+				return completedFuture(new TransportResponse(200, game));
+
+			var failure = next.poll();
+			if (failure instanceof Throwable)
+				return failedFuture((Throwable) failure);
+			else if (failure != null)
+				return completedFuture((TransportResponse) failure);
+			return completedFuture(new TransportResponse(200, question(1, "Is your character a girl?")));
+		};
+
+		// without reconciliation, an answer that may have reached the server is never
+		// retried, however it failed
+		var api = builder(new RetryPolicyBuilder().setInitialDelay(ZERO).setReconcile(false)).setTransport(transport)
+			.build();
+		var question = (Question) api.getCurrentQuery();
+		for (var failure : List.of(new IOException("Connection reset"), new HttpTimeoutException("Timed out"),
+								   new TransportResponse(503, new byte[0]))) {
+			paths.clear();
+			next.add(failure);
+			assertThrows(RuntimeException.class, () -> question.answer(Answer.YES));
+			assertEquals(List.of("/answer"), paths);
+		}
+
+		// but one whose connection was refused is
+		paths.clear();
+		next.add(new ConnectException("Connection refused"));
+		assertEquals(1, question.answer(Answer.YES).getStep());
+		assertEquals(List.of("/answer", "/answer"), paths);
+	}
+
+	@Nonnull
+	private static AkiwrapperBuilder builder() {
+		return builder(new RetryPolicyBuilder().setInitialDelay(ZERO));
+	}
+
+	@Nonnull
+	private static AkiwrapperBuilder builder(@Nonnull RetryPolicyBuilder retryPolicy) {
+		return new AkiwrapperBuilder().setRetryPolicy(retryPolicy.build());
+	}
+
+	@Nonnull
+	private static Transport hangingTransport(@Nonnull List<String> paths) throws IOException {
+		var game = readFixtureBytes("game.html");
+		return request -> {
+			var path = request.getUri().getPath();
+			paths.add(path);
+			if (path.equals("/game"))
+				return completedFuture(new TransportResponse(200, game));
+
+			// the first answer attempt hangs until it's abandoned
+			if (paths.size() == 2)
+				return new CompletableFuture<>();
+			return completedFuture(new TransportResponse(200, question(1, "Is your character a girl?")));
+		};
+	}
+
+	@Nonnull
+	private static byte[] question(int step, @Nonnull String text) {
+		return ("{\"completion\":\"OK\",\"step\":\"" + step + "\",\"progression\":\"4.5\",\"question\":\"" + text +
+			"\"}").getBytes(UTF_8);
+	}
+
+}
@@ -0,0 +1,158 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2026 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.core.image;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.CompletableFuture.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+
+import javax.annotation.Nonnull;
+
+import org.eu.zajc.akiwrapper.Akiwrapper.Answer;
+import org.eu.zajc.akiwrapper.AkiwrapperBuilder;
+import org.eu.zajc.akiwrapper.core.entities.*;
+import org.eu.zajc.akiwrapper.standin.AkinatorStandIn;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ImageCacheTest {
+
+	@Test
+	void testDeduplication() throws Exception {
+		var loader = new PendingLoader();
+		var cache = new ImageCache(loader, ImageCache.DEFAULT_MAX_MEMORY);
+		var url = new URL("https://photos.clarinea.fr/BL_1_en/600/partenaire/x/73428__1.jpg");
+
+		var first = cache.get(url);
+		var second = cache.get(url);
+		assertEquals(1, loader.requested.size());
+		assertFalse(first.isDone());
+
+		loader.complete(url);
+		assertArrayEquals(bytes(url), first.get());
+		assertSame(first.get(), second.get());
+		assertSame(first.get(), cache.get(url).get());
+		assertEquals(1, loader.requested.size());
+		assertEquals(1, cache.getLoads());
+		assertEquals(1, cache.getJoins());
+		assertEquals(1, cache.getMemoryHits());
+	}
+
+	@Test
+	void testMemoryLimit() throws Exception {
+		var image = new byte[100];
+		var cache = new ImageCache(url -> completedFuture(image), 250);
+		var first = new URL("https://example.com/1.jpg");
+
+		cache.get(first).get();
+		cache.get(new URL("https://example.com/2.jpg")).get();
+		cache.get(first).get(); // makes 2.jpg the least recently used image
+		cache.get(new URL("https://example.com/3.jpg")).get();
+
+		assertEquals(200, cache.getMemoryUsage());
+		assertNotNull(cache.getIfPresent(first));
+		assertNull(cache.getIfPresent(new URL("https://example.com/2.jpg")));
+	}
+
+	@Test
+	void testFailure() throws Exception {
+		var cache = new ImageCache(url -> failedFuture(new IOException("not found")), ImageCache.DEFAULT_MAX_MEMORY);
+		var url = new URL("https://example.com/missing.jpg");
+
+		var e = assertThrows(ExecutionException.class, () -> cache.get(url).get());
+		assertInstanceOf(IOException.class, e.getCause());
+		assertEquals(1, cache.getFailures());
+		assertThrows(ExecutionException.class, () -> cache.get(url).get()); // failures aren't cached
+		assertEquals(2, cache.getLoads());
+	}
+
+	@Test
+	void testDisk(@TempDir Path directory) throws Exception {
+		var url = new URL("https://example.com/1.jpg");
+		var cache = new ImageCache(u -> completedFuture(bytes(u)), 0, directory, 1024);
+		cache.get(url).get();
+		awaitDiskUsage(cache, bytes(url).length);
+
+		// a new cache with an empty memory tier reads the image from the directory
+		var reopened = new ImageCache(u -> failedFuture(new IOException("offline")), 0, directory, 1024);
+		assertEquals(bytes(url).length, reopened.getDiskUsage());
+		assertArrayEquals(bytes(url), reopened.get(url).get());
+		assertEquals(1, reopened.getDiskHits());
+		assertEquals(0, reopened.getLoads());
+
+		// shrinking the limit evicts the image
+		var small = new ImageCache(u -> completedFuture(bytes(u)), 0, directory, 1);
+		assertEquals(0, small.getDiskUsage());
+	}
+
+	@Test
+	void testPrefetch() throws Exception {
+		var loader = new PendingLoader();
+		var cache = new ImageCache(loader, ImageCache.DEFAULT_MAX_MEMORY);
+		try (var standIn = new AkinatorStandIn().setGuessInterval(1)) {
+			var api = new AkiwrapperBuilder().setTransport(standIn.createInProcessTransport())
+				.setImageCache(cache)
+				.build();
+
+			var guess = (Guess) ((Question) api.getCurrentQuery()).answer(Answer.YES);
+			assertEquals(List.of(guess.getImage()), loader.requested);
+
+			var image = guess.getImageDataAsync();
+			loader.complete(guess.getImage());
+			assertArrayEquals(bytes(guess.getImage()), image.get());
+			assertArrayEquals(bytes(guess.getImage()), guess.getImageData());
+			assertEquals(1, cache.getLoads());
+			assertEquals(2 / 3D, cache.getHitRatio(), 1e-9);
+		}
+	}
+
+	private static void awaitDiskUsage(@Nonnull ImageCache cache, long usage) throws InterruptedException {
+		// images are written to disk in the background
+		for (int i = 0; i < 500 && cache.getDiskUsage() != usage; i++)
+			Thread.sleep(10);
+		assertEquals(usage, cache.getDiskUsage());
+	}
+
+	@Nonnull
+	private static byte[] bytes(@Nonnull URL url) {
+		return url.toString().getBytes(UTF_8);
+	}
+
+	private static final class PendingLoader implements ImageLoader {
+
+		@Nonnull private final List<URL> requested = new CopyOnWriteArrayList<>();
+		@Nonnull private final Map<String, CompletableFuture<byte[]>> pending = new ConcurrentHashMap<>();
+
+		@Override
+		public CompletableFuture<byte[]> load(URL url) {
+			this.requested.add(url);
+			return this.pending.computeIfAbsent(url.toString(), k -> new CompletableFuture<>());
+		}
+
+		void complete(@Nonnull URL url) {
+			this.pending.get(url.toString()).complete(bytes(url));
+		}
+
+	}
+
+}
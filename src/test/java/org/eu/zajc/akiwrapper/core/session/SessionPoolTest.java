@@ -0,0 +1,134 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2026 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.core.session;
+
+import static java.lang.System.nanoTime;
+import static java.time.Duration.*;
+import static java.util.concurrent.CompletableFuture.failedFuture;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.util.function.BooleanSupplier;
+
+import org.eu.zajc.akiwrapper.*;
+import org.eu.zajc.akiwrapper.Akiwrapper.*;
+import org.eu.zajc.akiwrapper.core.entities.Question;
+import org.eu.zajc.akiwrapper.core.utils.route.*;
+import org.junit.jupiter.api.Test;
+
+class SessionPoolTest {
+
+	@Test
+	void testTake() {
+		var http = FakeHttpClient.game();
+		var pool = new SessionPool(2);
+		var builder = new AkiwrapperBuilder().setHttpClient(http).setSessionPool(pool);
+
+		pool.prefill(builder);
+		assertEquals(2, pool.getReady(builder));
+		assertEquals(2, http.getRequests().size());
+
+		// a pooled session is handed out without a request, and the pool is topped up
+		var api = builder.build();
+		assertEquals(0, ((Question) api.getCurrentQuery()).getStep());
+		assertEquals(2, pool.getReady(builder));
+		assertEquals(3, http.getRequests().size());
+
+		// the session is the taker's own
+		assertEquals(1, ((Question) api.getCurrentQuery()).answer(Answer.YES).getStep());
+		assertSame(api, api.getCurrentQuery().getAkiwrapper());
+	}
+
+	@Test
+	void testSettingsMismatch() {
+		var http = FakeHttpClient.game();
+		var pool = new SessionPool(1);
+		var builder = new AkiwrapperBuilder().setHttpClient(http).setSessionPool(pool);
+		pool.prefill(builder);
+
+		var sameSettings = new AkiwrapperBuilder().setHttpClient(http).setSessionPool(pool);
+		assertEquals(1, pool.getReady(sameSettings));
+
+		// any differing setting means a different pool, including the client and the retry policy
+		assertEquals(0, pool.getReady(new AkiwrapperBuilder().setHttpClient(http).setLanguage(Language.GERMAN)));
+		assertEquals(0, pool.getReady(new AkiwrapperBuilder().setHttpClient(FakeHttpClient.game())));
+		assertEquals(0, pool.getReady(new AkiwrapperBuilder().setHttpClient(http).setRetryPolicy(RetryPolicy.NONE)));
+		assertEquals(0, pool.getReady(new AkiwrapperBuilder().setHttpClient(http).setTenant("other")));
+		assertEquals(0, pool.getReady(new AkiwrapperBuilder().setHttpClient(http).setPriority(Priority.BATCH)));
+		// the tenant is compared by value
+		assertEquals(1, pool.getReady(new AkiwrapperBuilder().setHttpClient(http).setTenant(new String("default"))));
+
+		var otherClient = FakeHttpClient.game();
+		new AkiwrapperBuilder().setHttpClient(otherClient).setSessionPool(pool).build();
+		// the other client's pool is filled with the other client
+		assertEquals(2, otherClient.getRequests().size());
+		assertEquals(1, http.getRequests().size());
+	}
+
+	@Test
+	void testRefill() {
+		var http = FakeHttpClient.game();
+		var pool = new SessionPool(3);
+		var builder = new AkiwrapperBuilder().setHttpClient(http);
+
+		assertNull(pool.take(builder));
+		assertEquals(3, pool.getReady(builder));
+
+		assertNotNull(pool.take(builder));
+		assertNotNull(pool.take(builder));
+		assertEquals(3, pool.getReady(builder));
+		assertEquals(5, http.getRequests().size());
+
+		pool.clear();
+		assertEquals(0, pool.getReady(builder));
+		pool.prefill(builder);
+		assertEquals(3, pool.getReady(builder));
+	}
+
+	@Test
+	void testTtl() {
+		var http = FakeHttpClient.game();
+		var pool = new SessionPool(1, ofMillis(100));
+		var builder = new AkiwrapperBuilder().setHttpClient(http);
+
+		pool.prefill(builder);
+		// expired sessions are replaced even if nobody takes them
+		awaitTrue(() -> http.getRequests().size() >= 3 && pool.getReady(builder) == 1);
+	}
+
+	@Test
+	void testBoundedRefill() {
+		// sessions that fail right away must not be recreated over and over
+		var http = new FakeHttpClient(r -> failedFuture(new IOException("Connection refused")));
+		var pool = new SessionPool(4);
+		var builder = new AkiwrapperBuilder().setHttpClient(http).setRetryPolicy(RetryPolicy.NONE);
+
+		assertTimeoutPreemptively(ofSeconds(5), () -> pool.prefill(builder));
+		assertEquals(0, pool.getReady(builder));
+		assertEquals(4, http.getRequests().size());
+	}
+
+	private static void awaitTrue(BooleanSupplier condition) {
+		long deadline = nanoTime() + ofSeconds(5).toNanos();
+		while (!condition.getAsBoolean()) {
+			if (nanoTime() - deadline > 0)
+				fail("Timed out waiting for the condition");
+			Thread.onSpinWait();
+		}
+	}
+
+}
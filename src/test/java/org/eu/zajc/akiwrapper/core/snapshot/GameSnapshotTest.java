@@ -0,0 +1,103 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2026 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.core.snapshot;
+
+import static java.time.Duration.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.eu.zajc.akiwrapper.Akiwrapper.*;
+import org.eu.zajc.akiwrapper.AkiwrapperBuilder;
+import org.eu.zajc.akiwrapper.core.entities.*;
+import org.eu.zajc.akiwrapper.core.exceptions.InteractionInFlightException;
+import org.eu.zajc.akiwrapper.core.snapshot.GameSnapshot.QueryType;
+import org.eu.zajc.akiwrapper.standin.AkinatorStandIn;
+import org.junit.jupiter.api.Test;
+
+class GameSnapshotTest {
+
+	@Test
+	void testResumeQuestion() {
+		try (var standIn = new AkinatorStandIn()) {
+			var builder = new AkiwrapperBuilder().setTransport(standIn.createInProcessTransport())
+				.setLanguage(Language.ENGLISH)
+				.setFilterProfanity(true);
+			var api = builder.build();
+			var question = (Question) ((Question) api.getCurrentQuery()).answer(Answer.YES);
+
+			var bytes = api.snapshot().toBytes();
+			assertTrue(bytes.length < 200, "snapshot is " + bytes.length + " bytes");
+
+			// resume with a builder configured differently, the game settings come from the
+			// snapshot
+			var resumed = new AkiwrapperBuilder().setTransport(standIn.createInProcessTransport())
+				.setLanguage(Language.FRENCH)
+				.resume(GameSnapshot.fromBytes(bytes));
+			assertEquals(Language.ENGLISH, resumed.getLanguage());
+			assertTrue(resumed.doesFilterProfanity());
+			assertEquals(1, standIn.getRequests("/game"));
+
+			var resumedQuestion = (Question) resumed.getCurrentQuery();
+			assertEquals(question.getText(), resumedQuestion.getText());
+			assertEquals(question.getStep(), resumedQuestion.getStep());
+			assertEquals(question.getProgression(), resumedQuestion.getProgression());
+
+			// the stand-in validates the session and step, so this only works if they were
+			// restored
+			assertEquals(2, resumedQuestion.answer(Answer.NO).getStep());
+		}
+	}
+
+	@Test
+	void testResumeGuess() {
+		try (var standIn = new AkinatorStandIn().setGuessInterval(2)) {
+			var builder = new AkiwrapperBuilder().setTransport(standIn.createInProcessTransport());
+			var api = builder.build();
+			var guess = (Guess) ((Question) ((Question) api.getCurrentQuery()).answer(Answer.YES)).answer(Answer.YES);
+
+			var snapshot = GameSnapshot.fromJson(api.snapshot().toJson());
+			assertEquals(api.snapshot(), snapshot);
+			assertEquals(QueryType.GUESS, snapshot.getQueryType());
+
+			var resumed = builder.resume(GameSnapshot.fromBytes(snapshot.toBytes()));
+			var resumedGuess = (Guess) resumed.getCurrentQuery();
+			assertEquals(guess.getName(), resumedGuess.getName());
+			assertEquals(guess.getDescription(), resumedGuess.getDescription());
+			assertEquals(guess.getImage(), resumedGuess.getImage());
+			assertEquals(2, resumedGuess.reject().getStep());
+		}
+	}
+
+	@Test
+	void testInFlight() {
+		try (var standIn = new AkinatorStandIn().setLatency(ofMillis(200), ZERO)) {
+			var api = new AkiwrapperBuilder().setTransport(standIn.createInProcessTransport()).build();
+			var next = ((Question) api.getCurrentQuery()).answerAsync(Answer.YES);
+
+			assertThrows(InteractionInFlightException.class, api::snapshot);
+			next.join();
+			assertEquals(1, api.snapshot().getStep());
+		}
+	}
+
+	@Test
+	void testMalformed() {
+		assertThrows(IllegalArgumentException.class, () -> GameSnapshot.fromBytes(new byte[] { 'A', 'K', 99 }));
+		assertThrows(IllegalArgumentException.class, () -> GameSnapshot.fromBytes(new byte[] { 'A', 'K', 1, 0 }));
+		assertThrows(IllegalArgumentException.class, () -> GameSnapshot.fromJson("{\"version\":1}"));
+	}
+
+}
@@ -0,0 +1,248 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2026 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.core.store;
+
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.time.Duration.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.*;
+import java.nio.file.*;
+
+import javax.annotation.*;
+
+import org.eu.zajc.akiwrapper.Akiwrapper.Answer;
+import org.eu.zajc.akiwrapper.AkiwrapperBuilder;
+import org.eu.zajc.akiwrapper.core.entities.Question;
+import org.eu.zajc.akiwrapper.core.snapshot.GameSnapshot;
+import org.eu.zajc.akiwrapper.standin.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class GameStoreTest {
+
+	@TempDir Path directory;
+	@Nullable private Closeable closeableStore;
+
+	@AfterEach
+	void closeStore() throws IOException {
+		if (this.closeableStore != null)
+			this.closeableStore.close();
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = { "memory", "file", "key-value", "mapped" })
+	void testParkAndResume(@Nonnull String type) throws IOException {
+		var store = createStore(type);
+		try (var standIn = new AkinatorStandIn()) {
+			var builder = new AkiwrapperBuilder().setTransport(standIn.createInProcessTransport());
+			var api = builder.build();
+			((Question) api.getCurrentQuery()).answer(Answer.YES);
+			store.park("player", api, ofMinutes(1));
+
+			var resumed = builder.resume(store, "player");
+			assertNotNull(resumed);
+			assertEquals(2, ((Question) resumed.getCurrentQuery()).answer(Answer.NO).getStep());
+			store.park("player", resumed, ofMinutes(1));
+			assertEquals(2, builder.resume(store, "player").getCurrentQuery().getStep());
+
+			assertNull(builder.resume(store, "nobody"));
+			var metrics = store.getMetrics();
+			assertEquals(2, metrics.getPuts());
+			assertEquals(2, metrics.getHits());
+			assertEquals(1, metrics.getMisses());
+			assertEquals(2 / 3d, metrics.getHitRatio(), 1e-9);
+			assertTrue(metrics.getMaxGetLatency().compareTo(metrics.getMeanGetLatency()) >= 0);
+		}
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = { "memory", "file", "key-value", "mapped" })
+	void testEvictAndExpire(@Nonnull String type) throws IOException, InterruptedException {
+		var store = createStore(type);
+		var snapshot = createSnapshot();
+
+		store.put("evicted", snapshot, ofMinutes(1));
+		assertTrue(store.evict("evicted"));
+		assertFalse(store.evict("evicted"));
+		assertNull(store.get("evicted"));
+
+		store.put("expired", snapshot, ofMillis(50));
+		store.put("kept", snapshot, ofMinutes(1));
+		Thread.sleep(100);
+		assertNull(store.get("expired"));
+		assertEquals(snapshot, store.get("kept"));
+		assertThrows(IllegalArgumentException.class, () -> store.put("kept", snapshot, ZERO));
+
+		var metrics = store.getMetrics();
+		assertEquals(1, metrics.getEvictions());
+		assertEquals(1, metrics.getHits());
+		assertEquals(2, metrics.getMisses());
+	}
+
+	@Test
+	void testMemoryPurge() throws InterruptedException {
+		var store = new MemoryGameStore(3);
+		var snapshot = createSnapshot();
+		for (int i = 0; i < 10; i++)
+			store.put("game" + i, snapshot, ofMillis(50));
+		store.put("kept", snapshot, ofMinutes(1));
+		Thread.sleep(100);
+
+		store.purgeExpired();
+		assertEquals(1, store.size());
+		assertEquals(10, store.getMetrics().getExpirations());
+	}
+
+	@Test
+	void testFileReplay() throws IOException {
+		var path = this.directory.resolve("games");
+		var snapshot = createSnapshot();
+		try (var store = new FileGameStore(path)) {
+			store.put("evicted", snapshot, ofMinutes(1));
+			store.put("replaced", snapshot, ofMinutes(1));
+			store.put("replaced", snapshot, ofMinutes(2));
+			store.put("kept", snapshot, ofMinutes(1));
+			assertTrue(store.evict("evicted"));
+		}
+
+		// simulate a crash in the middle of writing a record
+		Files.write(path, new byte[] { 1, 0, 4, 'l', 'o' }, APPEND);
+		long size = Files.size(path);
+
+		try (var store = new FileGameStore(path)) {
+			assertEquals(2, store.size());
+			assertEquals(size - 5, store.getFileSize());
+			assertEquals(snapshot, store.get("replaced"));
+			assertEquals(snapshot, store.get("kept"));
+			assertNull(store.get("evicted"));
+			assertTrue(store.getGarbage() > 0);
+
+			store.put("after", snapshot, ofMinutes(1));
+			assertEquals(snapshot, store.get("after"));
+		}
+
+		Files.write(path, new byte[] { 'n', 'o', 'p', 'e' });
+		assertThrows(IOException.class, () -> new FileGameStore(path));
+	}
+
+	@Test
+	void testFileCompaction() throws IOException {
+		var path = this.directory.resolve("games");
+		var snapshot = createSnapshot();
+		long recordSize;
+		try (var store = new FileGameStore(path, 0)) {
+			store.put("game", snapshot, ofMinutes(1));
+			recordSize = store.getFileSize();
+
+			for (int i = 0; i < 100; i++)
+				store.put("game", snapshot, ofMinutes(1));
+			assertTrue(store.getFileSize() <= recordSize * 2, "file wasn't compacted");
+
+			store.put("other", snapshot, ofMinutes(1));
+			store.compact();
+			assertEquals(0, store.getGarbage());
+			assertEquals(snapshot, store.get("game"));
+		}
+
+		try (var store = new FileGameStore(path)) {
+			assertEquals(2, store.size());
+			assertEquals(snapshot, store.get("other"));
+		}
+	}
+
+	@Test
+	void testMappedDeduplication() throws IOException {
+		var path = this.directory.resolve("games");
+		var longKey = "player-" + "x".repeat(100);
+		try (var standIn = new AkinatorStandIn().setGuessInterval(2);
+			 var store = new MappedGameStore(path, 1000, 1 << 20)) {
+			var builder = new AkiwrapperBuilder().setTransport(standIn.createInProcessTransport());
+			for (int i = 0; i < 100; i++) {
+				var api = builder.build();
+				((Question) api.getCurrentQuery()).answer(Answer.YES);
+				store.park("player" + i, api, ofMinutes(1));
+			}
+			var guessing = builder.build();
+			((Question) ((Question) guessing.getCurrentQuery()).answer(Answer.YES)).answer(Answer.YES);
+			store.park(longKey, guessing, ofMinutes(1));
+
+			// every game is on the same question, so its text is only stored once
+			assertEquals(101, store.size());
+			assertTrue(store.getStringCount() < 10, store.getStringCount() + " strings stored");
+			assertEquals(guessing.snapshot(), store.get(longKey));
+		}
+
+		try (var store = new MappedGameStore(path, 1000, 1 << 20)) {
+			assertEquals(101, store.size());
+			assertEquals(1, store.get("player42").getStep());
+			assertNotNull(store.get(longKey));
+		}
+		assertThrows(IOException.class, () -> new MappedGameStore(path, 2000, 1 << 20));
+	}
+
+	@Test
+	void testMappedCapacity() throws IOException {
+		var snapshot = createSnapshot();
+		try (var store = new MappedGameStore(this.directory.resolve("games"), 16, 1 << 16)) {
+			// churn through many more keys than the capacity, leaving deleted records behind
+			for (int i = 0; i < 1000; i++) {
+				store.put("game" + i, snapshot, ofMinutes(1));
+				assertTrue(store.evict("game" + i));
+			}
+			for (int i = 0; i < 16; i++)
+				store.put("game" + i, snapshot, ofMinutes(1));
+			for (int i = 0; i < 16; i++)
+				assertEquals(snapshot, store.get("game" + i));
+
+			assertThrows(IllegalStateException.class, () -> {
+				for (int i = 16; i < 100; i++)
+					store.put("game" + i, snapshot, ofMinutes(1));
+			});
+		}
+	}
+
+	@Nonnull
+	private GameStore createStore(@Nonnull String type) throws IOException {
+		switch (type) {
+			case "memory":
+				return new MemoryGameStore();
+			case "file":
+				var fileStore = new FileGameStore(this.directory.resolve("games"));
+				this.closeableStore = fileStore;
+				return fileStore;
+			case "mapped":
+				var mappedStore = new MappedGameStore(this.directory.resolve("games"), 64, 1 << 20);
+				this.closeableStore = mappedStore;
+				return mappedStore;
+			case "key-value":
+				return new KeyValueGameStore(new KeyValueStandIn());
+			default:
+				throw new IllegalArgumentException(type);
+		}
+	}
+
+	@Nonnull
+	private static GameSnapshot createSnapshot() {
+		try (var standIn = new AkinatorStandIn()) {
+			return new AkiwrapperBuilder().setTransport(standIn.createInProcessTransport()).build().snapshot();
+		}
+	}
+
+}
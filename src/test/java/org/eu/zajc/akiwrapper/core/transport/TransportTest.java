@@ -0,0 +1,72 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2026 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.core.transport;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.time.Duration.ZERO;
+import static java.util.concurrent.CompletableFuture.completedFuture;
+import static org.eu.zajc.akiwrapper.Fixtures.readFixtureBytes;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.util.*;
+
+import org.eu.zajc.akiwrapper.Akiwrapper.Answer;
+import org.eu.zajc.akiwrapper.AkiwrapperBuilder;
+import org.eu.zajc.akiwrapper.core.entities.Question;
+import org.eu.zajc.akiwrapper.core.utils.route.RetryPolicyBuilder;
+import org.junit.jupiter.api.Test;
+
+class TransportTest {
+
+	private static final byte[] ANSWER_RESPONSE = ("{\"completion\":\"OK\",\"step\":\"1\",\"progression\":\"4.5\"," +
+		"\"question\":\"Is your character a girl?\"}").getBytes(UTF_8);
+
+	@Test
+	void testTransport() throws IOException {
+		var game = readFixtureBytes("game.html");
+		var requests = Collections.synchronizedList(new ArrayList<TransportRequest>());
+		Transport transport = request -> {
+			requests.add(request);
+			if (request.getUri().getPath().equals("/game"))
+				return completedFuture(new TransportResponse(200, game));
+
+			// fail the first answer attempt to exercise retries
+			if (requests.size() == 2)
+				return completedFuture(new TransportResponse(503, new byte[0]));
+			return completedFuture(new TransportResponse(200, ANSWER_RESPONSE));
+		};
+
+		var api = new AkiwrapperBuilder().setTransport(transport)
+			.setRetryPolicy(new RetryPolicyBuilder().setInitialDelay(ZERO).build())
+			.build();
+		assertEquals("Is your character real?", ((Question) api.getCurrentQuery()).getText());
+
+		var next = ((Question) api.getCurrentQuery()).answer(Answer.YES);
+		assertEquals("Is your character a girl?", ((Question) next).getText());
+		assertEquals(1, next.getStep());
+
+		assertEquals(3, requests.size());
+		var answer = requests.get(2);
+		assertEquals("https://en.akinator.com/answer", answer.getUri().toString());
+		assertArrayEquals(requests.get(1).getBody(), answer.getBody());
+		var form = new String(answer.getBody(), UTF_8);
+		assertTrue(form.contains("session=4b8c2f1e-7d3a-4c65-9e21-0f6b8a1d3c57"), form);
+		assertTrue(form.contains("answer=0"), form);
+	}
+
+}
@@ -0,0 +1,86 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2026 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.core.utils;
+
+import static org.eu.zajc.akiwrapper.Akiwrapper.Language.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.eu.zajc.akiwrapper.Akiwrapper.Answer;
+import org.eu.zajc.akiwrapper.AkiwrapperBuilder;
+import org.eu.zajc.akiwrapper.core.entities.*;
+import org.eu.zajc.akiwrapper.standin.AkinatorStandIn;
+import org.junit.jupiter.api.Test;
+
+class InternPoolTest {
+
+	@Test
+	void testSharedAcrossGames() {
+		var pool = new InternPool();
+		try (var standIn = new AkinatorStandIn().setGuessInterval(2)) {
+			var builder = new AkiwrapperBuilder().setTransport(standIn.createInProcessTransport()).setInternPool(pool);
+			var first = builder.build();
+			var second = builder.build();
+			assertSame(((Question) first.getCurrentQuery()).getText(), ((Question) second.getCurrentQuery()).getText());
+
+			var firstQuestion = ((Question) first.getCurrentQuery()).answer(Answer.YES);
+			var secondQuestion = ((Question) second.getCurrentQuery()).answer(Answer.YES);
+			assertSame(((Question) firstQuestion).getText(), ((Question) secondQuestion).getText());
+
+			var firstGuess = (Guess) ((Question) firstQuestion).answer(Answer.YES);
+			var secondGuess = (Guess) ((Question) secondQuestion).answer(Answer.YES);
+			assertSame(firstGuess.getId(), secondGuess.getId());
+			assertSame(firstGuess.getName(), secondGuess.getName());
+			assertSame(firstGuess.getDescription(), secondGuess.getDescription());
+
+			var resumed = (Guess) builder.resume(first.snapshot()).getCurrentQuery();
+			assertSame(firstGuess.getName(), resumed.getName());
+		}
+
+		assertEquals(pool.getMisses(), pool.size(ENGLISH));
+		assertTrue(pool.getHits() >= pool.getMisses(), pool.toString());
+		assertTrue(pool.getHitRatio() >= 0.5, pool.toString());
+	}
+
+	@Test
+	void testEviction() {
+		var pool = new InternPool(1);
+		var original = pool.intern(ENGLISH, "Is your character real?");
+		assertSame(original, pool.intern(ENGLISH, new String(original)));
+
+		pool.intern(ENGLISH, "Is your character a girl?");
+		assertEquals(1, pool.size(ENGLISH));
+		assertEquals(1, pool.getEvictions());
+		assertNotSame(original, pool.intern(ENGLISH, new String(original)));
+	}
+
+	@Test
+	void testLanguages() {
+		var pool = new InternPool();
+		var english = pool.intern(ENGLISH, "Pikachu");
+		var french = pool.intern(FRENCH, new String(english));
+
+		assertNotSame(english, french);
+		assertEquals(1, pool.size(ENGLISH));
+		assertEquals(2, pool.size());
+
+		pool.clear();
+		assertEquals(0, pool.size());
+		assertEquals(2, pool.getMisses());
+		assertNull(pool.intern(ENGLISH, null));
+	}
+
+}
@@ -0,0 +1,157 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2026 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.core.utils;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.time.Duration.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.net.*;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.security.*;
+import java.time.Duration;
+
+import javax.annotation.Nonnull;
+import javax.net.ssl.*;
+
+import org.junit.jupiter.api.*;
+
+import com.sun.net.httpserver.*;
+
+class SharedHttpClientTest {
+
+	private static final char[] PASSWORD = "akiwrapper".toCharArray();
+
+	private static HttpsServer server;
+	private static SSLContext clientContext;
+
+	@BeforeAll
+	static void startServer() throws Exception {
+		var keyStore = KeyStore.getInstance("PKCS12");
+		try (var in = SharedHttpClientTest.class.getResourceAsStream("/localhost.p12")) {
+			keyStore.load(in, PASSWORD);
+		}
+
+		var keyManagers = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+		keyManagers.init(keyStore, PASSWORD);
+		var serverContext = SSLContext.getInstance("TLS");
+		serverContext.init(keyManagers.getKeyManagers(), null, null);
+
+		var trustStore = KeyStore.getInstance("PKCS12");
+		trustStore.load(null, null);
+		trustStore.setCertificateEntry("localhost", keyStore.getCertificate("localhost"));
+		var trustManagers = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+		trustManagers.init(trustStore);
+		clientContext = SSLContext.getInstance("TLS");
+		clientContext.init(null, trustManagers.getTrustManagers(), null);
+
+		server = HttpsServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+		server.setHttpsConfigurator(new HttpsConfigurator(serverContext));
+		server.createContext("/", exchange -> {
+			var body = "ok".getBytes(UTF_8);
+			exchange.sendResponseHeaders(200, body.length);
+			exchange.getResponseBody().write(body);
+			exchange.close();
+		});
+		server.start();
+	}
+
+	@AfterAll
+	static void stopServer() {
+		server.stop(0);
+	}
+
+	@Test
+	void testReferenceCounting() throws Exception {
+		var client = createClient(ofMinutes(5));
+
+		client.retain();
+		client.retain();
+		assertEquals(2, client.getReferences());
+
+		send(client);
+		send(client);
+		assertEquals(2, client.getRequests());
+		assertEquals(0, client.getInFlight());
+		assertEquals(1, client.getConnections());
+		assertEquals(1, client.getTlsHandshakes());
+		assertEquals(1, client.getOpenConnections());
+		assertEquals(1, client.getReusedRequests());
+
+		// a reference is still held, so the connection is kept
+		client.release();
+		assertEquals(1, client.getReferences());
+		send(client);
+		assertEquals(1, client.getConnections());
+
+		// releasing the last reference retires the underlying client, so the next request
+		// can't reuse its connection
+		client.release();
+		assertEquals(0, client.getReferences());
+		send(client);
+		assertEquals(2, client.getConnections());
+		assertEquals(2, client.getTlsHandshakes());
+		assertEquals(2, client.getReusedRequests());
+	}
+
+	@Test
+	void testIdleRetirement() throws Exception {
+		var client = createClient(ofMillis(200));
+		client.retain();
+
+		send(client);
+		send(client);
+		assertEquals(1, client.getConnections());
+
+		// retired even though a reference is held, because it's idle
+		Thread.sleep(1000);
+		send(client);
+		assertEquals(2, client.getConnections());
+		assertEquals(2, client.getTlsHandshakes());
+
+		// close() retires it right away
+		client.close();
+		send(client);
+		assertEquals(3, client.getConnections());
+		assertEquals(4, client.getRequests());
+	}
+
+	@Test
+	void testUnused() {
+		// the underlying client is only created once it's needed
+		var client = createClient(ofMinutes(5));
+		assertEquals(0, client.getConnections());
+		assertEquals(0, client.getOpenConnections());
+		assertEquals(0, client.getReusedRequests());
+		assertThrows(IllegalArgumentException.class, () -> new SharedHttpClient(0, ofMinutes(5)));
+		assertThrows(IllegalArgumentException.class, () -> new SharedHttpClient(1, ZERO));
+	}
+
+	@Nonnull
+	private static SharedHttpClient createClient(@Nonnull Duration idleTimeout) {
+		return new SharedHttpClient(1, idleTimeout, clientContext);
+	}
+
+	private static void send(@Nonnull SharedHttpClient client) throws IOException, InterruptedException {
+		var uri = URI.create("https://127.0.0.1:" + server.getAddress().getPort() + "/");
+		var response = client.send(HttpRequest.newBuilder(uri).build(), BodyHandlers.ofString());
+		assertEquals("ok", response.body());
+	}
+
+}
@@ -0,0 +1,78 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2026 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.core.utils.route;
+
+import static org.eu.zajc.akiwrapper.Akiwrapper.Language.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.util.*;
+
+import org.eu.zajc.akiwrapper.Akiwrapper.Answer;
+import org.eu.zajc.akiwrapper.AkiwrapperBuilder;
+import org.eu.zajc.akiwrapper.core.entities.Question;
+import org.eu.zajc.akiwrapper.standin.AkinatorStandIn;
+import org.junit.jupiter.api.Test;
+
+class EndpointResolverTest {
+
+	@Test
+	void testDefault() {
+		var resolver = EndpointResolver.DEFAULT;
+		assertEquals(URI.create("https://en.akinator.com/answer"), resolver.resolve(ENGLISH, "/answer"));
+		assertEquals(URI.create("https://fr.akinator.com/answer"), resolver.resolve(FRENCH, "/answer"));
+		assertSame(resolver.resolve(FRENCH, "/answer"), resolver.resolve(FRENCH, "/answer"));
+
+		var headers = headers(resolver.getHeaders(FRENCH));
+		assertEquals("https://fr.akinator.com", headers.get("Origin"));
+		assertEquals("https://fr.akinator.com/game", headers.get("Referer"));
+		assertSame(resolver.getHeaders(FRENCH), resolver.getHeaders(FRENCH));
+	}
+
+	@Test
+	void testProxy() {
+		var resolver = new EndpointResolverBuilder().setBaseUriFormat("https://proxy.example.com/%s/").build();
+		assertEquals(URI.create("https://proxy.example.com/de/answer"), resolver.resolve(GERMAN, "/answer"));
+		assertEquals("https://de.akinator.com", headers(resolver.getHeaders(GERMAN)).get("Origin"));
+
+		assertEquals(resolver, new EndpointResolverBuilder().setBaseUriFormat("https://proxy.example.com/%s/").build());
+		assertNotEquals(EndpointResolver.DEFAULT, resolver);
+	}
+
+	@Test
+	void testStandIn() throws IOException {
+		try (var standIn = new AkinatorStandIn().start()) {
+			var api = new AkiwrapperBuilder().setHttpClient(HttpClient.newHttpClient())
+				.setEndpointResolver(new EndpointResolverBuilder().setBaseUri(standIn.getBaseUri()).build())
+				.build();
+
+			var next = ((Question) api.getCurrentQuery()).answer(Answer.YES);
+			assertEquals(1, next.getStep());
+			assertEquals(1, standIn.getRequests("/answer"));
+		}
+	}
+
+	private static Map<String, String> headers(String[] headers) {
+		var map = new HashMap<String, String>();
+		for (int i = 0; i < headers.length; i += 2)
+			map.put(headers[i], headers[i + 1]);
+		return map;
+	}
+
+}
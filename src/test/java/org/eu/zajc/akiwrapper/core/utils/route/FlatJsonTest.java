@@ -0,0 +1,114 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2026 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.core.utils.route;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.eu.zajc.akiwrapper.core.utils.route.FlatJson.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.eu.zajc.akiwrapper.core.exceptions.MalformedResponseException;
+import org.junit.jupiter.api.Test;
+
+class FlatJsonTest {
+
+	static final String QUESTION = "{\"completion\":\"OK\",\"akitude\":\"defi.png\",\"step\":\"1\"," +
+		"\"progression\":\"3.61130\",\"question_id\":\"266\",\"question\":\"Is your character a \\\"YouTuber\\\"?\"}";
+	static final String GUESS = "{\"completion\":\"OK\",\"id_proposition\":\"73428\"," +
+		"\"id_base_proposition\":\"2983\",\"valide_contrainte\":\"1\",\"name_proposition\":\"Ren\\u00e9 Magritte\"," +
+		"\"description_proposition\":\"Painter \\/ surrealist\",\"flag_photo\":0,\"step\":12," +
+		"\"photo\":\"https:\\/\\/photos.clarinea.fr\\/BL_1_en\\/600\\/partenaire\\/x\\/2983__1.jpg\"," +
+		"\"pseudo\":\"none\",\"nb_elements\":1}";
+
+	@Test
+	void testQuestion() {
+		var json = FlatJson.parse(QUESTION.getBytes(UTF_8));
+
+		assertEquals("OK", json.getString(KEY_COMPLETION));
+		assertEquals(1, json.getInt(KEY_STEP));
+		assertEquals(3.6113, json.getDouble(KEY_PROGRESSION));
+		assertEquals("Is your character a \"YouTuber\"?", json.getString(KEY_QUESTION));
+		assertFalse(json.has(KEY_NAME_PROPOSITION));
+	}
+
+	@Test
+	void testGuess() {
+		var json = FlatJson.parse(GUESS.getBytes(UTF_8));
+
+		assertEquals(12, json.getInt(KEY_STEP));
+		assertEquals("René Magritte", json.getString(KEY_NAME_PROPOSITION));
+		assertEquals("Painter / surrealist", json.getString(KEY_DESCRIPTION_PROPOSITION));
+		assertEquals("0", json.getString(KEY_FLAG_PHOTO));
+		assertEquals("https://photos.clarinea.fr/BL_1_en/600/partenaire/x/2983__1.jpg", json.getString(KEY_PHOTO));
+		assertFalse(json.has(KEY_QUESTION));
+	}
+
+	@Test
+	void testMatchesJsonObject() {
+		for (var body : new String[] { QUESTION, GUESS }) {
+			var scanned = FlatJson.parse(body.getBytes(UTF_8));
+			var parsed = FlatJson.fromJsonObject(body);
+			for (var key : new String[] { KEY_COMPLETION, KEY_QUESTION, KEY_STEP, KEY_PROGRESSION, KEY_ID_PROPOSITION,
+				KEY_NAME_PROPOSITION, KEY_DESCRIPTION_PROPOSITION, KEY_PSEUDO, KEY_PHOTO, KEY_FLAG_PHOTO })
+				assertEquals(parsed.optString(key), scanned.optString(key), key);
+		}
+	}
+
+	@Test
+	void testCompact() {
+		for (var json : new FlatJson[] { FlatJson.parse(GUESS.getBytes(UTF_8)), FlatJson.fromJsonObject(GUESS) }) {
+			// a value that was already decoded is carried over
+			assertEquals("OK", json.getString(KEY_COMPLETION));
+
+			var compacted = json.compact(KEY_COMPLETION, KEY_NAME_PROPOSITION, KEY_PHOTO, KEY_QUESTION);
+			assertEquals("OK", compacted.getString(KEY_COMPLETION));
+			assertEquals("René Magritte", compacted.decodeString(KEY_NAME_PROPOSITION));
+			assertEquals(json.getString(KEY_PHOTO), compacted.getString(KEY_PHOTO));
+			assertFalse(compacted.has(KEY_QUESTION));
+			assertFalse(compacted.has(KEY_STEP));
+			assertFalse(compacted.has(KEY_DESCRIPTION_PROPOSITION));
+		}
+
+		var empty = FlatJson.parse("{\"question\":\"\",\"step\":\"1\"}".getBytes(UTF_8)).compact(KEY_QUESTION);
+		assertEquals("", empty.getString(KEY_QUESTION));
+	}
+
+	@Test
+	void testFallback() {
+		var json = FlatJson.parse("{\"completion\":\"OK\",\"nested\":{\"a\":[1,2]},\"question\":\"Q\",\"step\":\"2\"}"
+			.getBytes(UTF_8));
+
+		assertEquals("Q", json.getString(KEY_QUESTION));
+		assertEquals(2, json.getInt(KEY_STEP));
+	}
+
+	@Test
+	void testMalformed() {
+		assertThrows(MalformedResponseException.class, () -> FlatJson.parse("{\"question\":\"Q\"".getBytes(UTF_8)));
+		assertThrows(MalformedResponseException.class, () -> FlatJson.parse("<html></html>".getBytes(UTF_8)));
+		assertThrows(MalformedResponseException.class,
+					 () -> FlatJson.parse("{\"question\":\"Q\"}".getBytes(UTF_8)).getString(KEY_STEP));
+	}
+
+	@Test
+	void testStatus() {
+		assertEquals(Status.QUESTIONS_EXHAUSTED, Status.fromString("soundlike"));
+		assertEquals(Status.ERROR, Status.fromString("KO - TIMEOUT"));
+		assertEquals(Status.OK,
+					 Status.fromJson(FlatJson.parse("{\"completion\":\"OK\"}".getBytes(UTF_8))));
+	}
+
+}
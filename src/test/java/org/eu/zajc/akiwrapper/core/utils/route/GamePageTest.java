@@ -0,0 +1,88 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2026 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.core.utils.route;
+
+import static org.eu.zajc.akiwrapper.Fixtures.readFixture;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.util.*;
+
+import javax.annotation.Nonnull;
+
+import org.eu.zajc.akiwrapper.core.exceptions.*;
+import org.jsoup.Jsoup;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class GamePageTest {
+
+	@ParameterizedTest
+	@ValueSource(strings = { "game.html", "game-entities.html" })
+	void testMatchesDocument(@Nonnull String fixture) throws IOException {
+		var html = readFixture(fixture);
+		var scanned = GamePage.parse(html);
+		var parsed = GamePage.fromDocument(Jsoup.parse(html));
+
+		assertEquals(parsed.getQuestion(), scanned.getQuestion());
+		assertEquals(parsed.getStep(), scanned.getStep());
+		assertEquals(parsed.getSession().getIdentifier(), scanned.getSession().getIdentifier());
+		assertEquals(sessionParameters(parsed), sessionParameters(scanned));
+	}
+
+	@Test
+	void testGame() throws IOException {
+		var page = GamePage.parse(readFixture("game.html"));
+
+		assertEquals("Is your character real?", page.getQuestion());
+		assertEquals(0, page.getStep());
+		assertEquals("f1d9a8c2b7e64e03", page.getSession().getIdentifier());
+		assertEquals(Map.of("session", "4b8c2f1e-7d3a-4c65-9e21-0f6b8a1d3c57", "signature", "1843962754"),
+					 sessionParameters(page));
+	}
+
+	@Test
+	void testError() throws IOException {
+		var html = readFixture("game-error.html");
+
+		var e = assertThrows(ServerStatusException.class, () -> GamePage.parse(html));
+		assertEquals(Status.ERROR, e.getStatus());
+		assertThrows(ServerStatusException.class, () -> GamePage.fromDocument(Jsoup.parse(html)));
+	}
+
+	@Test
+	void testFallback() throws IOException {
+		// markup inside the question isn't handled by the scanner
+		var html = readFixture("game.html").replace("Is your character real?", "Is your character <i>real</i>?");
+		var page = GamePage.parse(html);
+
+		assertEquals(GamePage.fromDocument(Jsoup.parse(html)).getQuestion(), page.getQuestion());
+		assertEquals(0, page.getStep());
+	}
+
+	@Test
+	void testMalformed() {
+		assertThrows(MalformedResponseException.class, () -> GamePage.parse("<html><body></body></html>"));
+	}
+
+	@Nonnull
+	private static Map<String, Object> sessionParameters(@Nonnull GamePage page) {
+		return Map.of("session", page.getSession().getSession(), "signature", page.getSession().getSignature());
+	}
+
+}
@@ -0,0 +1,313 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2026 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.core.utils.route;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.time.Duration.*;
+import static java.util.concurrent.CompletableFuture.completedFuture;
+import static org.eu.zajc.akiwrapper.Fixtures.readFixtureBytes;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.Nonnull;
+
+import org.eu.zajc.akiwrapper.Akiwrapper.Answer;
+import org.eu.zajc.akiwrapper.AkiwrapperBuilder;
+import org.eu.zajc.akiwrapper.core.entities.Question;
+import org.eu.zajc.akiwrapper.core.exceptions.*;
+import org.eu.zajc.akiwrapper.core.transport.*;
+import org.eu.zajc.akiwrapper.core.utils.Deadline;
+import org.eu.zajc.akiwrapper.core.utils.route.IsolationPolicy.CircuitState;
+import org.junit.jupiter.api.Test;
+
+class IsolationPolicyTest {
+
+	private static final byte[] ANSWER_RESPONSE = ("{\"completion\":\"OK\",\"step\":\"1\",\"progression\":\"4.5\"," +
+		"\"question\":\"Is your character a girl?\"}").getBytes(UTF_8);
+
+	@Test
+	void testCircuitBreaker() throws IOException, InterruptedException {
+		var game = readFixtureBytes("game.html");
+		var answers = new AtomicInteger();
+		var healthy = new boolean[1];
+		Transport transport = request -> {
+			if (request.getUri().getPath().equals("/game"))
+				return completedFuture(new TransportResponse(200, game));
+
+			answers.incrementAndGet();
+			return completedFuture(healthy[0] ? new TransportResponse(200, ANSWER_RESPONSE) :
+				new TransportResponse(503, new byte[0]));
+		};
+		var builder = new AkiwrapperBuilder().setTransport(transport)
+			.setRetryPolicy(RetryPolicy.NONE)
+			.setIsolationPolicy(new IsolationPolicyBuilder().setWindow(4)
+				.setMinimumRequests(4)
+				.setOpenDuration(ofMillis(200))
+				.build());
+		var question = (Question) builder.build().getCurrentQuery();
+
+		// one success and three failures open the circuit
+		for (int i = 0; i < 3; i++)
+			assertThrows(AkinatorException.class, () -> question.answer(Answer.YES));
+		assertEquals(3, answers.get());
+
+		// requests to the host fail right away, including new sessions
+		assertThrows(CircuitOpenException.class, () -> question.answer(Answer.YES));
+		assertThrows(CircuitOpenException.class, builder::build);
+		assertEquals(3, answers.get());
+
+		// once the host recovers, the probe closes the circuit again
+		healthy[0] = true;
+		Thread.sleep(300);
+		assertEquals(1, question.answer(Answer.YES).getStep());
+		assertNotNull(builder.build());
+	}
+
+	@Test
+	void testAdaptiveLimit() throws IOException {
+		var game = readFixtureBytes("game.html");
+		var answers = new AtomicInteger();
+		Transport transport = request -> {
+			if (request.getUri().getPath().equals("/game"))
+				return completedFuture(new TransportResponse(200, game));
+
+			// the host is overloaded on the first attempt
+			if (answers.incrementAndGet() == 1)
+				return completedFuture(new TransportResponse(429, new byte[0]));
+			return completedFuture(new TransportResponse(200, ANSWER_RESPONSE));
+		};
+		var policy = new IsolationPolicyBuilder().setMaxConcurrentRequests(16)
+			.setInitialConcurrentRequests(8)
+			.setMinConcurrentRequests(2)
+			.setBackoffRatio(0.5)
+			.build();
+		var api = new AkiwrapperBuilder().setTransport(transport)
+			.setRetryPolicy(new RetryPolicyBuilder().setInitialDelay(ZERO).build())
+			.setIsolationPolicy(policy)
+			.build();
+
+		// 429 is retried, and the limit backs off
+		assertEquals(1, ((Question) api.getCurrentQuery()).answer(Answer.YES).getStep());
+		assertEquals(2, answers.get());
+
+		var host = policy.getHosts(transport).get("en.akinator.com");
+		assertNotNull(host);
+		assertTrue(host.getLimit() <= 4, host.toString());
+		assertEquals(0, host.getInFlight());
+		assertEquals(0, host.getQueueLength());
+		assertEquals(ZERO, host.getQueueWait());
+	}
+
+	@Test
+	void testHalfOpen() throws IOException, InterruptedException {
+		var answers = new LinkedBlockingQueue<CompletableFuture<TransportResponse>>();
+		var transport = deferredTransport(answers);
+		var policy = new IsolationPolicyBuilder().setAdaptiveLimit(false)
+			.setWindow(2)
+			.setMinimumRequests(2)
+			.setFailureThreshold(1)
+			.setOpenDuration(ofMillis(200))
+			.build();
+		var builder = new AkiwrapperBuilder().setTransport(transport)
+			.setRetryPolicy(RetryPolicy.NONE)
+			.setIsolationPolicy(policy);
+		var questions = new ArrayList<Question>();
+		for (int i = 0; i < 5; i++)
+			questions.add((Question) builder.build().getCurrentQuery());
+		var host = policy.getHosts(transport).get("en.akinator.com");
+
+		// one request is still in flight when two failures open the circuit
+		var stale = questions.get(0).answerAsync(Answer.YES);
+		var staleResponse = answers.remove();
+		for (int i = 1; i <= 2; i++) {
+			var failed = questions.get(i).answerAsync(Answer.YES);
+			answers.remove().complete(new TransportResponse(503, new byte[0]));
+			assertThrows(CompletionException.class, failed::join);
+		}
+		assertEquals(CircuitState.OPEN, host.getCircuitState());
+
+		// the stale request completing neither closes the circuit nor lets another probe in
+		Thread.sleep(300);
+		var probe = questions.get(3).answerAsync(Answer.YES);
+		assertEquals(CircuitState.HALF_OPEN, host.getCircuitState());
+		staleResponse.complete(new TransportResponse(200, ANSWER_RESPONSE));
+		assertEquals(1, stale.join().getStep());
+		assertEquals(CircuitState.HALF_OPEN, host.getCircuitState());
+		var e = assertThrows(CompletionException.class, questions.get(4).answerAsync(Answer.YES)::join);
+		assertInstanceOf(CircuitOpenException.class, e.getCause());
+
+		// only the probe's own outcome closes it
+		answers.remove().complete(new TransportResponse(200, ANSWER_RESPONSE));
+		assertEquals(1, probe.join().getStep());
+		assertEquals(CircuitState.CLOSED, host.getCircuitState());
+		assertTrue(answers.isEmpty());
+	}
+
+	@Test
+	void testBulkhead() throws IOException {
+		var game = readFixtureBytes("game.html");
+		var answers = new LinkedBlockingQueue<CompletableFuture<TransportResponse>>();
+		Transport transport = request -> {
+			if (request.getUri().getPath().equals("/game"))
+				return completedFuture(new TransportResponse(200, game));
+
+			var response = new CompletableFuture<TransportResponse>();
+			answers.add(response);
+			return response;
+		};
+		var builder = new AkiwrapperBuilder().setTransport(transport)
+			.setIsolationPolicy(new IsolationPolicyBuilder().setMaxConcurrentRequests(1)
+				.setMaxQueuedRequests(1)
+				.setCircuitBreaker(false)
+				.build());
+
+		var questions = new ArrayList<Question>();
+		for (int i = 0; i < 3; i++)
+			questions.add((Question) builder.build().getCurrentQuery());
+
+		// the first answer is sent, the second one is queued, and the third one is rejected
+		var first = questions.get(0).answerAsync(Answer.YES);
+		var second = questions.get(1).answerAsync(Answer.YES);
+		var third = questions.get(2).answerAsync(Answer.YES);
+		assertEquals(1, answers.size());
+		var e = assertThrows(CompletionException.class, third::join);
+		assertInstanceOf(BulkheadFullException.class, e.getCause());
+
+		// the queued answer is sent once the first one completes
+		answers.remove().complete(new TransportResponse(200, ANSWER_RESPONSE));
+		assertEquals(1, first.join().getStep());
+		assertEquals(1, answers.size());
+		answers.remove().complete(new TransportResponse(200, ANSWER_RESPONSE));
+		assertEquals(1, second.join().getStep());
+	}
+
+	@Test
+	void testScheduling() throws IOException {
+		var answers = new LinkedBlockingQueue<CompletableFuture<TransportResponse>>();
+		var transport = deferredTransport(answers);
+		var policy = new IsolationPolicyBuilder().setAdaptiveLimit(false)
+			.setMaxConcurrentRequests(1)
+			.setTenantWeight("a", 2)
+			.setCircuitBreaker(false)
+			.build();
+		var builder = new AkiwrapperBuilder().setTransport(transport).setIsolationPolicy(policy);
+
+		var blocker = (Question) builder.setTenant("a").build().getCurrentQuery();
+		var games = new LinkedHashMap<String, Question>();
+		games.put("c1", (Question) builder.setTenant("b").setPriority(Priority.BATCH).build().getCurrentQuery());
+		builder.setPriority(Priority.INTERACTIVE);
+		for (var name : List.of("a1", "a2", "a3", "a4"))
+			games.put(name, (Question) builder.setTenant("a").build().getCurrentQuery());
+		for (var name : List.of("b1", "b2"))
+			games.put(name, (Question) builder.setTenant("b").build().getCurrentQuery());
+
+		// everything queues up behind the blocker
+		blocker.answerAsync(Answer.YES);
+		var order = Collections.synchronizedList(new ArrayList<String>());
+		games.forEach((name, question) -> question.answerAsync(Answer.YES).thenRun(() -> order.add(name)));
+		var host = policy.getHosts(transport).get("en.akinator.com");
+		assertEquals(6, host.getQueueLength(Priority.INTERACTIVE));
+		assertEquals(1, host.getQueueLength(Priority.BATCH));
+
+		while (!answers.isEmpty())
+			answers.remove().complete(new TransportResponse(200, ANSWER_RESPONSE));
+
+		// tenant a gets twice the share of tenant b, and batch requests go last
+		assertEquals(List.of("a1", "a2", "b1", "a3", "a4", "b2", "c1"), order);
+	}
+
+	@Test
+	void testShedding() throws IOException {
+		var answers = new LinkedBlockingQueue<CompletableFuture<TransportResponse>>();
+		var transport = deferredTransport(answers);
+		var builder = new AkiwrapperBuilder().setTransport(transport)
+			.setIsolationPolicy(new IsolationPolicyBuilder().setAdaptiveLimit(false)
+				.setMaxConcurrentRequests(1)
+				.setMaxQueuedRequests(1)
+				.setCircuitBreaker(false)
+				.build());
+
+		var blocker = (Question) builder.build().getCurrentQuery();
+		var interactive = (Question) builder.build().getCurrentQuery();
+		var expiring = (Question) builder.build().getCurrentQuery();
+		builder.setPriority(Priority.BATCH);
+		var batch = (Question) builder.build().getCurrentQuery();
+		var lateBatch = (Question) builder.build().getCurrentQuery();
+
+		// a full queue sheds batch requests before interactive ones
+		var first = blocker.answerAsync(Answer.YES);
+		var shed = batch.answerAsync(Answer.YES);
+		var queued = interactive.answerAsync(Answer.YES);
+		var e = assertThrows(CompletionException.class, shed::join);
+		assertInstanceOf(BulkheadFullException.class, e.getCause());
+		e = assertThrows(CompletionException.class, lateBatch.answerAsync(Answer.YES)::join);
+		assertInstanceOf(BulkheadFullException.class, e.getCause());
+
+		// and requests of the same priority with the nearest deadline
+		var expired = expiring.answerAsync(Answer.YES, Deadline.after(ofMillis(1)));
+		e = assertThrows(CompletionException.class, expired::join);
+		assertInstanceOf(BulkheadFullException.class, e.getCause());
+
+		answers.remove().complete(new TransportResponse(200, ANSWER_RESPONSE));
+		assertEquals(1, first.join().getStep());
+		answers.remove().complete(new TransportResponse(200, ANSWER_RESPONSE));
+		assertEquals(1, queued.join().getStep());
+	}
+
+	@Test
+	void testQueuedDeadline() throws IOException, InterruptedException {
+		var answers = new LinkedBlockingQueue<CompletableFuture<TransportResponse>>();
+		var transport = deferredTransport(answers);
+		var builder = new AkiwrapperBuilder().setTransport(transport)
+			.setIsolationPolicy(new IsolationPolicyBuilder().setAdaptiveLimit(false)
+				.setMaxConcurrentRequests(1)
+				.setCircuitBreaker(false)
+				.build());
+
+		var blocker = (Question) builder.build().getCurrentQuery();
+		var waiting = (Question) builder.build().getCurrentQuery();
+
+		// a request whose deadline passes while it's queued is never sent
+		var first = blocker.answerAsync(Answer.YES);
+		var expired = waiting.answerAsync(Answer.YES, Deadline.after(ofMillis(50)));
+		Thread.sleep(100);
+		answers.remove().complete(new TransportResponse(200, ANSWER_RESPONSE));
+		assertEquals(1, first.join().getStep());
+		var e = assertThrows(CompletionException.class, expired::join);
+		assertInstanceOf(DeadlineExceededException.class, e.getCause());
+		assertTrue(answers.isEmpty());
+	}
+
+	@Nonnull
+	private static Transport deferredTransport(@Nonnull Queue<CompletableFuture<TransportResponse>> answers)
+		throws IOException {
+		var game = readFixtureBytes("game.html");
+		return request -> {
+			if (request.getUri().getPath().equals("/game"))
+				return completedFuture(new TransportResponse(200, game));
+
+			var response = new CompletableFuture<TransportResponse>();
+			answers.add(response);
+			return response;
+		};
+	}
+
+}
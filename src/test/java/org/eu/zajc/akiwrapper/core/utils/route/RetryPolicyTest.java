@@ -0,0 +1,119 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2026 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.core.utils.route;
+
+import static java.time.Duration.ofMillis;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.util.concurrent.CompletableFuture;
+
+import org.eu.zajc.akiwrapper.core.transport.Transport;
+import org.junit.jupiter.api.Test;
+
+class RetryPolicyTest {
+
+	@Test
+	void testBackoff() {
+		var policy = new RetryPolicyBuilder().setInitialDelay(ofMillis(100))
+			.setMaxDelay(ofMillis(1000))
+			.setMultiplier(3)
+			.setJitter(0)
+			.build();
+
+		assertEquals(100, policy.getDelayMillis(0));
+		assertEquals(300, policy.getDelayMillis(1));
+		assertEquals(900, policy.getDelayMillis(2));
+		// capped from here on
+		assertEquals(1000, policy.getDelayMillis(3));
+		assertEquals(1000, policy.getDelayMillis(30));
+	}
+
+	@Test
+	void testJitter() {
+		var policy = new RetryPolicyBuilder().setInitialDelay(ofMillis(1000))
+			.setMaxDelay(ofMillis(1000))
+			.setJitter(0.25)
+			.build();
+
+		long min = Long.MAX_VALUE;
+		long max = Long.MIN_VALUE;
+		for (int i = 0; i < 1000; i++) {
+			long delay = policy.getDelayMillis(0);
+			min = Math.min(min, delay);
+			max = Math.max(max, delay);
+		}
+
+		// jitter only ever shortens the delay, and by at most a quarter
+		assertTrue(min >= 750, "delay below the jitter bound: " + min);
+		assertTrue(max <= 1000, "delay above the maximum delay: " + max);
+		assertTrue(min < max, "delay isn't randomized");
+
+		assertThrows(IllegalArgumentException.class, () -> new RetryPolicyBuilder().setJitter(1.5));
+	}
+
+	@Test
+	void testBudget() {
+		var policy = new RetryPolicyBuilder().setBudgetCapacity(2).setBudgetRatio(0.5).build();
+		Transport transport = r -> new CompletableFuture<>();
+
+		assertTrue(policy.tryAcquireRetry(transport));
+		assertTrue(policy.tryAcquireRetry(transport));
+		assertFalse(policy.tryAcquireRetry(transport));
+
+		// budgets are tracked separately for each transport
+		assertTrue(policy.tryAcquireRetry(r -> new CompletableFuture<>()));
+
+		// two requests deposit a whole token
+		policy.onRequest(transport);
+		assertFalse(policy.tryAcquireRetry(transport));
+		policy.onRequest(transport);
+		assertTrue(policy.tryAcquireRetry(transport));
+		assertFalse(policy.tryAcquireRetry(transport));
+
+		// the balance never exceeds the capacity
+		for (int i = 0; i < 100; i++)
+			policy.onRequest(transport);
+		assertTrue(policy.tryAcquireRetry(transport));
+		assertTrue(policy.tryAcquireRetry(transport));
+		assertFalse(policy.tryAcquireRetry(transport));
+	}
+
+	@Test
+	void testRetryable() {
+		var policy = RetryPolicy.DEFAULT;
+		assertTrue(policy.isRetryable(500));
+		assertTrue(policy.isRetryable(503));
+		assertTrue(policy.isRetryable(599));
+		// rate limited
+		assertTrue(policy.isRetryable(429));
+		assertFalse(policy.isRetryable(200));
+		assertFalse(policy.isRetryable(400));
+		assertFalse(policy.isRetryable(404));
+		assertFalse(policy.isRetryable(499));
+
+		assertTrue(policy.isRetryable(new IOException("Connection reset")));
+		assertTrue(policy.isRetryable(new ConnectException()));
+		assertFalse(policy.isRetryable(new IllegalStateException()));
+
+		var noIo = new RetryPolicyBuilder().setRetryOnIOException(false).build();
+		assertFalse(noIo.isRetryable(new IOException("Connection reset")));
+		assertTrue(noIo.isRetryable(503));
+	}
+
+}
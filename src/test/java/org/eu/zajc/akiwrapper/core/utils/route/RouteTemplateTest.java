@@ -0,0 +1,62 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2026 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.core.utils.route;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.eu.zajc.akiwrapper.core.utils.HttpUtils.urlEncodeForm;
+import static org.eu.zajc.akiwrapper.core.utils.route.Routes.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.net.URI;
+import java.util.*;
+
+import org.junit.jupiter.api.Test;
+
+class RouteTemplateTest {
+
+	@Test
+	void testEncodeForm() {
+		var staticParameters = new LinkedHashMap<String, Object>();
+		staticParameters.put("cm", false);
+		staticParameters.put("sid", 1);
+		staticParameters.put("session", "4b8c2f1e-7d3a");
+		var template = new RouteTemplate(URI.create("https://en.akinator.com/choice"), new String[0], staticParameters,
+										 List.of(PARAMETER_STEP, PARAMETER_GUESS_NAME, PARAMETER_PROGRESSION));
+
+		var values = new Object[] { 12, "René Magritte & co", 97.5 };
+		var expected = new LinkedHashMap<>(staticParameters);
+		expected.put(PARAMETER_STEP, values[0]);
+		expected.put(PARAMETER_GUESS_NAME, values[1]);
+		expected.put(PARAMETER_PROGRESSION, values[2]);
+
+		assertEquals(urlEncodeForm(expected), new String(template.encodeForm(values), UTF_8));
+		// the reused buffer must not leak between requests
+		assertEquals("cm=false&sid=1&session=4b8c2f1e-7d3a&step=1&charac_name=a&progression=0",
+					 new String(template.encodeForm(new Object[] { 1, "a", 0 }), UTF_8));
+	}
+
+	@Test
+	void testEncodeFormWithoutStaticParameters() {
+		var template = new RouteTemplate(URI.create("https://en.akinator.com/answer"), new String[0], Map.of(),
+										 List.of(PARAMETER_STEP, PARAMETER_ANSWER));
+
+		assertEquals("step=3&answer=0", new String(template.encodeForm(new Object[] { 3, 0 }), UTF_8));
+		assertEquals(1, template.indexOf(PARAMETER_ANSWER));
+		assertEquals(-1, template.indexOf(PARAMETER_IDENTIFIER));
+	}
+
+}
@@ -0,0 +1,166 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2026 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.core.utils.route;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.time.Duration.*;
+import static java.util.concurrent.CompletableFuture.completedFuture;
+import static java.util.concurrent.TimeUnit.*;
+import static org.eu.zajc.akiwrapper.Fixtures.readFixtureBytes;
+import static org.eu.zajc.akiwrapper.core.utils.route.Routes.ANSWER;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.*;
+import java.util.concurrent.*;
+
+import javax.annotation.Nonnull;
+
+import org.eu.zajc.akiwrapper.Akiwrapper.Answer;
+import org.eu.zajc.akiwrapper.AkiwrapperBuilder;
+import org.eu.zajc.akiwrapper.core.entities.Question;
+import org.eu.zajc.akiwrapper.core.exceptions.*;
+import org.eu.zajc.akiwrapper.core.transport.*;
+import org.eu.zajc.akiwrapper.core.utils.Deadline;
+import org.junit.jupiter.api.Test;
+
+class TimeoutPolicyTest {
+
+	private static final byte[] ANSWER_RESPONSE = ("{\"completion\":\"OK\",\"step\":\"1\",\"progression\":\"4.5\"," +
+		"\"question\":\"Is your character a girl?\"}").getBytes(UTF_8);
+
+	@Test
+	void testHungAttempt() throws IOException {
+		var requests = Collections.synchronizedList(new ArrayList<TransportRequest>());
+		var hung = new CompletableFuture<TransportResponse>();
+		var api = builder(requests, hung, 1).setTimeoutPolicy(new TimeoutPolicyBuilder().setTimeout(ofMillis(200))
+			.setAdaptive(false)
+			.build()).build();
+
+		// the hung attempt is abandoned and retried
+		var next = ((Question) api.getCurrentQuery()).answer(Answer.YES);
+		assertEquals(1, next.getStep());
+		assertTrue(hung.isCancelled());
+		assertEquals(3, requests.size());
+		assertEquals(ofMillis(200), requests.get(1).getTimeout());
+		assertEquals(TimeoutPolicyBuilder.DEFAULT_NEW_SESSION_TIMEOUT, requests.get(0).getTimeout());
+	}
+
+	@Test
+	void testAdaptive() {
+		var policy = new TimeoutPolicyBuilder().setTimeout(ANSWER, ofSeconds(1))
+			.setMinTimeout(ofMillis(10))
+			.setMultiplier(2)
+			.setWindow(32)
+			.build();
+		var latency = policy.getTracker(ANSWER, URI.create("https://en.akinator.com/answer"));
+		assertEquals(ofSeconds(1).toNanos(), latency.getTimeoutNanos());
+
+		for (int i = 0; i < 32; i++)
+			latency.record(MILLISECONDS.toNanos(20));
+		assertEquals(MILLISECONDS.toNanos(40), latency.getTimeoutNanos());
+
+		// the configured timeout is still the upper bound
+		for (int i = 0; i < 32; i++)
+			latency.record(ofSeconds(5).toNanos());
+		assertEquals(ofSeconds(1).toNanos(), latency.getTimeoutNanos());
+
+		// each host is tracked separately
+		assertNotSame(latency, policy.getTracker(ANSWER, URI.create("https://fr.akinator.com/answer")));
+	}
+
+	@Test
+	void testDeadline() throws IOException {
+		var requests = Collections.synchronizedList(new ArrayList<TransportRequest>());
+		var api = builder(requests, new CompletableFuture<>(), Integer.MAX_VALUE).build();
+		var question = (Question) api.getCurrentQuery();
+
+		// the attempt times out with the deadline rather than with the route's timeout
+		var deadline = Deadline.after(ofMillis(200));
+		assertThrows(DeadlineExceededException.class, () -> question.answer(Answer.YES, deadline));
+		assertEquals(2, requests.size());
+		assertTrue(requests.get(1).getTimeout().compareTo(ofMillis(200)) <= 0);
+
+		// nothing is sent once the deadline has passed
+		assertThrows(DeadlineExceededException.class, () -> question.answer(Answer.YES, Deadline.after(ZERO)));
+		assertEquals(2, requests.size());
+		assertSame(question, api.getCurrentQuery());
+	}
+
+	@Test
+	void testDeadlineWhileQueued() throws IOException {
+		var requests = Collections.synchronizedList(new ArrayList<TransportRequest>());
+		var api = builder(requests, new CompletableFuture<>(), Integer.MAX_VALUE).build();
+		var question = (Question) api.getCurrentQuery();
+
+		// the deadline also covers waiting for the stalled interaction in front of it
+		var stalled = question.answerAsync(Answer.YES);
+		var queued = question.answerAsync(Answer.NO, Deadline.after(ofMillis(200)));
+		var e = assertThrows(ExecutionException.class, () -> queued.get(5, SECONDS));
+		assertTrue(e.getCause() instanceof DeadlineExceededException, e.getCause().toString());
+		assertFalse(stalled.isDone());
+		assertEquals(2, requests.size());
+
+		// the interactions queued after it still wait for the stalled one
+		var next = question.undoAnswerAsync();
+		assertFalse(next.isDone());
+		stalled.cancel(true);
+		assertTrue(next.isDone());
+		assertEquals(2, requests.size());
+	}
+
+	@Test
+	void testDeadlineRetry() throws IOException {
+		var game = readFixtureBytes("game.html");
+		var requests = Collections.synchronizedList(new ArrayList<TransportRequest>());
+		Transport transport = request -> {
+			requests.add(request);
+			if (request.getUri().getPath().equals("/game"))
+				return completedFuture(new TransportResponse(200, game));
+			return completedFuture(new TransportResponse(503, new byte[0]));
+		};
+		var api = new AkiwrapperBuilder().setTransport(transport)
+			.setRetryPolicy(new RetryPolicyBuilder().setInitialDelay(ofSeconds(1)).setJitter(0).build())
+			.build();
+
+		// the retry wouldn't start before the deadline, so it isn't made
+		var question = (Question) api.getCurrentQuery();
+		var e = assertThrows(DeadlineExceededException.class,
+							 () -> question.answer(Answer.YES, Deadline.after(ofMillis(500))));
+		assertTrue(e.getCause().getMessage().contains("503"), e.getCause().getMessage());
+		assertEquals(2, requests.size());
+	}
+
+	@Nonnull
+	private static AkiwrapperBuilder builder(@Nonnull List<TransportRequest> requests,
+											 @Nonnull CompletableFuture<TransportResponse> hung,
+											 int hungAttempts) throws IOException {
+		var game = readFixtureBytes("game.html");
+		Transport transport = request -> {
+			requests.add(request);
+			if (request.getUri().getPath().equals("/game"))
+				return completedFuture(new TransportResponse(200, game));
+			if (requests.size() - 1 <= hungAttempts)
+				return hung;
+			return completedFuture(new TransportResponse(200, ANSWER_RESPONSE));
+		};
+		return new AkiwrapperBuilder().setTransport(transport)
+			.setRetryPolicy(new RetryPolicyBuilder().setInitialDelay(ZERO).build());
+	}
+
+}
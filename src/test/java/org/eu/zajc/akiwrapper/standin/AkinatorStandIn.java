@@ -0,0 +1,542 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2026 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.standin;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.CompletableFuture.*;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.eu.zajc.akiwrapper.Fixtures.readFixture;
+
+import java.io.*;
+import java.net.*;
+import java.net.http.*;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.function.Function;
+
+import javax.annotation.*;
+
+import org.eu.zajc.akiwrapper.AkiwrapperBuilder;
+import org.eu.zajc.akiwrapper.core.transport.*;
+import org.eu.zajc.akiwrapper.core.utils.route.Routes;
+
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * A stand-in for Akinator's API, used to test and benchmark Akiwrapper without
+ * access to akinator.com. It implements all {@link Routes} with payloads shaped
+ * like Akinator's and validates the session, signature and step of every request,
+ * responding with a {@code KO} completion when they don't match, like Akinator
+ * does.<br>
+ * Games alternate between questions and guesses: a guess is proposed every
+ * {@link #setGuessInterval(int) few} steps, and the questions are exhausted at step
+ * {@value #LAST_STEP}. Latency, server errors (503) and lost responses can be
+ * injected, and any amount of sessions can be played concurrently.<br>
+ * The stand-in can be used in-process with {@link #createInProcessTransport()},
+ * which skips HTTP entirely, or over HTTP with {@link #start()} and
+ * {@link #createHttpTransport()}, which exercises the whole stack:
+ *
+ * <pre>
+ * try (var standIn = new AkinatorStandIn().start()) {
+ * 	var api = new AkiwrapperBuilder().setTransport(standIn.createHttpTransport()).build();
+ * 	// ...
+ * }
+ * </pre>
+ *
+ * @author Marko Zajc
+ */
+public class AkinatorStandIn implements Closeable {
+
+	public static final int LAST_STEP = 80;
+	public static final int DEFAULT_GUESS_INTERVAL = 10;
+
+	private static final String FIXTURE_SESSION = "4b8c2f1e-7d3a-4c65-9e21-0f6b8a1d3c57";
+	private static final String FIXTURE_SIGNATURE = "1843962754";
+	private static final String FIXTURE_IDENTIFIER = "f1d9a8c2b7e64e03";
+	private static final String FIXTURE_QUESTION = "Is your character real?";
+
+	private static final String[] QUESTIONS = { "Is your character real?", "Is your character a girl?",
+		"Is your character a YouTuber?", "Is your character from a video game?",
+		"Has your character ever been in jail?", "Is your character older than 30?", "Does your character sing?",
+		"Does your character wear glasses?", "Is your character American?", "Is your character linked with sports?",
+		"Is your character an animal?", "Does your character have a beard?", "Is your character known for \"memes\"?",
+		"Does your character fight?", "Is your character a politician?" };
+	private static final String[][] GUESSES = { { "73428", "René Magritte", "Painter" },
+		{ "1042", "Mario", "Super Mario Bros." }, { "8812", "Ada Lovelace", "Mathematician" },
+		{ "55", "Pikachu", "Pokémon" } };
+
+	@Nonnull private final String gamePage;
+	@Nonnull private final Map<String, Game> games = new ConcurrentHashMap<>();
+	@Nonnull private final Map<String, AtomicLong> requests = new ConcurrentHashMap<>();
+	@Nonnull private final AtomicInteger pendingErrors = new AtomicInteger();
+	@Nonnull private final AtomicInteger pendingLosses = new AtomicInteger();
+
+	private volatile long latencyNanos;
+	private volatile long latencyJitterNanos;
+	private volatile double errorRate;
+	private volatile int guessInterval = DEFAULT_GUESS_INTERVAL;
+
+	@Nullable private HttpServer server;
+	@Nullable private ExecutorService serverExecutor;
+
+	public AkinatorStandIn() {
+		try {
+			this.gamePage = readFixture("game.html");
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Sets the latency added to every response. The actual latency is uniformly
+	 * distributed between {@code latency} and {@code latency + jitter}.
+	 *
+	 * @param latency
+	 *            the minimum latency.
+	 * @param jitter
+	 *            the maximum additional random latency.
+	 *
+	 * @return current instance, used for chaining.
+	 */
+	@Nonnull
+	public AkinatorStandIn setLatency(@Nonnull Duration latency, @Nonnull Duration jitter) {
+		this.latencyNanos = latency.toNanos();
+		this.latencyJitterNanos = jitter.toNanos();
+		return this;
+	}
+
+	/**
+	 * Sets the probability of a request failing with a HTTP 503 before it's processed.
+	 *
+	 * @param errorRate
+	 *            the probability, between {@code 0} and {@code 1}.
+	 *
+	 * @return current instance, used for chaining.
+	 */
+	@Nonnull
+	public AkinatorStandIn setErrorRate(double errorRate) {
+		this.errorRate = errorRate;
+		return this;
+	}
+
+	/**
+	 * Makes the next {@code count} requests fail with a HTTP 503 before they're
+	 * processed.
+	 *
+	 * @param count
+	 *            the amount of requests to fail.
+	 *
+	 * @return current instance, used for chaining.
+	 */
+	@Nonnull
+	public AkinatorStandIn failNext(int count) {
+		this.pendingErrors.addAndGet(count);
+		return this;
+	}
+
+	/**
+	 * Makes the responses to the next {@code count} requests get lost after the
+	 * requests are processed, as if the connection was reset. In-process, they fail
+	 * with an {@link IOException}, and over HTTP, they fail with a HTTP 500.
+	 *
+	 * @param count
+	 *            the amount of responses to lose.
+	 *
+	 * @return current instance, used for chaining.
+	 */
+	@Nonnull
+	public AkinatorStandIn loseNext(int count) {
+		this.pendingLosses.addAndGet(count);
+		return this;
+	}
+
+	/**
+	 * Sets the amount of steps between guesses.
+	 *
+	 * @param guessInterval
+	 *            the amount of steps.
+	 *
+	 * @return current instance, used for chaining.
+	 */
+	@Nonnull
+	public AkinatorStandIn setGuessInterval(int guessInterval) {
+		this.guessInterval = guessInterval;
+		return this;
+	}
+
+	/**
+	 * Starts serving the stand-in over HTTP on a random local port.
+	 *
+	 * @return current instance, used for chaining.
+	 *
+	 * @throws IOException
+	 *             if the server couldn't be started.
+	 */
+	@Nonnull
+	public synchronized AkinatorStandIn start() throws IOException {
+		if (this.server != null)
+			return this;
+
+		var executor = Executors.newCachedThreadPool(r -> {
+			var thread = new Thread(r, "akinator-stand-in");
+			thread.setDaemon(true);
+			return thread;
+		});
+		var httpServer = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+		httpServer.createContext("/", exchange -> {
+			var path = exchange.getRequestURI().getPath();
+			var body = exchange.getRequestBody().readAllBytes();
+			// respond on the server's executor rather than the thread that completed the
+			// response, which may be the single thread that applies latency
+			handle(path, body).whenCompleteAsync((response, t) -> {
+				try {
+					if (t != null) {
+						exchange.sendResponseHeaders(500, -1);
+						return;
+					}
+
+					exchange.getResponseHeaders().add("Content-Type", path.equals("/game") ?
+						"text/html; charset=UTF-8" : "application/json; charset=UTF-8");
+					var responseBody = response.getBody();
+					exchange.sendResponseHeaders(response.getStatusCode(),
+												 responseBody.length == 0 ? -1 : responseBody.length);
+					if (responseBody.length != 0)
+						exchange.getResponseBody().write(responseBody);
+
+				} catch (IOException e) {
+					// the client went away
+				} finally {
+					exchange.close();
+				}
+			}, executor);
+		});
+		httpServer.setExecutor(executor);
+		httpServer.start();
+		this.server = httpServer;
+		this.serverExecutor = executor;
+		return this;
+	}
+
+	/**
+	 * @return the base URI of the HTTP server.
+	 *
+	 * @throws IllegalStateException
+	 *             if the server hasn't been started.
+	 */
+	@Nonnull
+	public synchronized URI getBaseUri() {
+		if (this.server == null)
+			throw new IllegalStateException("The stand-in hasn't been started");
+		return URI.create("http://127.0.0.1:" + this.server.getAddress().getPort());
+	}
+
+	/**
+	 * Creates a {@link Transport} that sends requests to this stand-in's HTTP server
+	 * with a new {@link HttpClient}. The request URI's path is kept, but the scheme,
+	 * host and port are replaced.
+	 *
+	 * @return a {@link Transport} for {@link AkiwrapperBuilder#setTransport(Transport)}.
+	 */
+	@Nonnull
+	public Transport createHttpTransport() {
+		return createHttpTransport(HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build());
+	}
+
+	/**
+	 * Creates a {@link Transport} that sends requests to this stand-in's HTTP server
+	 * with the given {@link HttpClient}.
+	 *
+	 * @param httpClient
+	 *            the client to send requests with.
+	 *
+	 * @return a {@link Transport} for {@link AkiwrapperBuilder#setTransport(Transport)}.
+	 */
+	@Nonnull
+	public Transport createHttpTransport(@Nonnull HttpClient httpClient) {
+		var base = getBaseUri();
+		return request -> {
+			var req = HttpRequest.newBuilder()
+				.POST(BodyPublishers.ofByteArray(request.getBody()))
+				.uri(base.resolve(request.getUri().getRawPath()))
+				.headers(request.getHeaders())
+				.build();
+			return httpClient.sendAsync(req, BodyHandlers.ofByteArray())
+				.thenApply(r -> new TransportResponse(r.statusCode(), r.body()));
+		};
+	}
+
+	/**
+	 * Creates a {@link Transport} that calls this stand-in directly, without HTTP. The
+	 * configured latency is still applied.
+	 *
+	 * @return a {@link Transport} for {@link AkiwrapperBuilder#setTransport(Transport)}.
+	 */
+	@Nonnull
+	public Transport createInProcessTransport() {
+		return request -> handle(request.getUri().getPath(), request.getBody());
+	}
+
+	/**
+	 * @param path
+	 *            the route path, for example {@code /answer}.
+	 *
+	 * @return the amount of requests received for a route, including failed ones.
+	 */
+	public long getRequests(@Nonnull String path) {
+		var counter = this.requests.get(path);
+		return counter == null ? 0 : counter.get();
+	}
+
+	/**
+	 * @return the amount of sessions created so far.
+	 */
+	public int getSessions() {
+		return this.games.size();
+	}
+
+	@Override
+	public synchronized void close() {
+		if (this.server != null) {
+			this.server.stop(0);
+			this.server = null;
+		}
+		if (this.serverExecutor != null) {
+			this.serverExecutor.shutdownNow();
+			this.serverExecutor = null;
+		}
+	}
+
+	@Nonnull
+	private CompletableFuture<TransportResponse> handle(@Nonnull String path, @Nonnull byte[] body) {
+		this.requests.computeIfAbsent(path, p -> new AtomicLong()).incrementAndGet();
+
+		TransportResponse response;
+		if (shouldFail()) {
+			response = new TransportResponse(503, new byte[0]);
+
+		} else {
+			var form = parseForm(new String(body, UTF_8));
+			switch (path) {
+				case "/game":
+					response = newGame();
+					break;
+				case "/answer":
+					response = withGame(form, g -> g.answer(form));
+					break;
+				case "/cancel_answer":
+					response = withGame(form, g -> g.cancelAnswer(form));
+					break;
+				case "/exclude":
+					response = withGame(form, g -> g.exclude(form));
+					break;
+				case "/choice":
+					response = withGame(form, g -> g.choice(form));
+					break;
+				default:
+					response = new TransportResponse(404, new byte[0]);
+			}
+		}
+
+		var lost = takePending(this.pendingLosses);
+		long latency = this.latencyNanos;
+		if (this.latencyJitterNanos > 0)
+			latency += ThreadLocalRandom.current().nextLong(this.latencyJitterNanos);
+		if (latency <= 0)
+			return lost ? failedFuture(new IOException("Lost the response")) : completedFuture(response);
+
+		var delayed = response;
+		return supplyAsync(() -> {
+			if (lost)
+				throw new CompletionException(new IOException("Lost the response"));
+			return delayed;
+		}, delayedExecutor(latency, NANOSECONDS));
+	}
+
+	private boolean shouldFail() {
+		if (takePending(this.pendingErrors))
+			return true;
+
+		return this.errorRate > 0 && ThreadLocalRandom.current().nextDouble() < this.errorRate;
+	}
+
+	private static boolean takePending(@Nonnull AtomicInteger counter) {
+		while (true) {
+			int pending = counter.get();
+			if (pending <= 0)
+				return false;
+			if (counter.compareAndSet(pending, pending - 1))
+				return true;
+		}
+	}
+
+	@Nonnull
+	private TransportResponse newGame() {
+		var session = UUID.randomUUID().toString();
+		var signature = Integer.toString(ThreadLocalRandom.current().nextInt(Integer.MAX_VALUE));
+		var identifier = Long.toHexString(ThreadLocalRandom.current().nextLong());
+		this.games.put(session, new Game(signature));
+
+		var page = this.gamePage.replace(FIXTURE_SESSION, session)
+			.replace(FIXTURE_SIGNATURE, signature)
+			.replace(FIXTURE_IDENTIFIER, identifier)
+			.replace(FIXTURE_QUESTION, QUESTIONS[0]);
+		return new TransportResponse(200, page.getBytes(UTF_8));
+	}
+
+	@Nonnull
+	private TransportResponse withGame(@Nonnull Map<String, String> form,
+									   @Nonnull Function<Game, String> action) {
+		String json;
+		var game = this.games.get(String.valueOf(form.get("session")));
+		if (game == null)
+			json = completion("KO - SESSION NOT FOUND");
+		else if (!game.signature.equals(form.get("signature")))
+			json = completion("KO - BAD SIGNATURE");
+		else
+			json = action.apply(game);
+		return new TransportResponse(200, json.getBytes(UTF_8));
+	}
+
+	@Nonnull
+	private static Map<String, String> parseForm(@Nonnull String body) {
+		var form = new HashMap<String, String>();
+		if (body.isEmpty())
+			return form;
+
+		for (var pair : body.split("&")) {
+			int separator = pair.indexOf('=');
+			if (separator < 0)
+				form.put(URLDecoder.decode(pair, UTF_8), "");
+			else
+				form.put(URLDecoder.decode(pair.substring(0, separator), UTF_8),
+						 URLDecoder.decode(pair.substring(separator + 1), UTF_8));
+		}
+		return form;
+	}
+
+	@Nonnull
+	private static String completion(@Nonnull String completion) {
+		return "{\"completion\":\"" + completion + "\"}";
+	}
+
+	@Nonnull
+	private static String escape(@Nonnull String value) {
+		return value.replace("\\", "\\\\").replace("\"", "\\\"");
+	}
+
+	private final class Game {
+
+		@Nonnull private final String signature;
+		private int step;
+		private int guesses;
+
+		Game(@Nonnull String signature) {
+			this.signature = signature;
+		}
+
+		@Nonnull
+		synchronized String answer(@Nonnull Map<String, String> form) {
+			if (!isCurrentStep(form))
+				return completion("KO - UNEXPECTED STEP");
+			if (!form.containsKey("answer") || !form.containsKey("step_last_proposition"))
+				return completion("KO - MISSING PARAMETERS");
+
+			if (this.step + 1 >= LAST_STEP)
+				return completion("SOUNDLIKE");
+
+			this.step++;
+			if (this.step % AkinatorStandIn.this.guessInterval == 0)
+				return guess();
+			else
+				return question();
+		}
+
+		@Nonnull
+		synchronized String cancelAnswer(@Nonnull Map<String, String> form) {
+			if (!isCurrentStep(form) || this.step == 0)
+				return completion("KO - UNEXPECTED STEP");
+
+			this.step--;
+			return question();
+		}
+
+		@Nonnull
+		synchronized String exclude(@Nonnull Map<String, String> form) {
+			if (!isCurrentStep(form))
+				return completion("KO - UNEXPECTED STEP");
+			if (!"1".equals(form.get("forward_answer")))
+				return completion("KO - MISSING PARAMETERS");
+
+			return question();
+		}
+
+		@Nonnull
+		synchronized String choice(@Nonnull Map<String, String> form) {
+			if (!isCurrentStep(form))
+				return completion("KO - UNEXPECTED STEP");
+
+			return completion("OK");
+		}
+
+		private boolean isCurrentStep(@Nonnull Map<String, String> form) {
+			return Integer.toString(this.step).equals(form.get("step"));
+		}
+
+		@Nonnull
+		private String question() {
+			return "{\"completion\":\"OK\",\"akitude\":\"defi.png\",\"step\":\"" +
+				this.step +
+				"\",\"progression\":\"" +
+				progression() +
+				"\",\"question_id\":\"" +
+				this.step % QUESTIONS.length +
+				"\",\"question\":\"" +
+				escape(QUESTIONS[this.step % QUESTIONS.length]) +
+				"\"}";
+		}
+
+		@Nonnull
+		private String guess() {
+			var guess = GUESSES[this.guesses++ % GUESSES.length];
+			return "{\"completion\":\"OK\",\"id_proposition\":\"" +
+				guess[0] +
+				"\",\"id_base_proposition\":\"" +
+				guess[0] +
+				"\",\"valide_contrainte\":\"1\",\"name_proposition\":\"" +
+				escape(guess[1]) +
+				"\",\"description_proposition\":\"" +
+				escape(guess[2]) +
+				"\",\"flag_photo\":\"0\",\"photo\":\"https:\\/\\/photos.clarinea.fr" +
+				"\\/BL_1_en\\/600\\/partenaire\\/x\\/" +
+				guess[0] +
+				"__1.jpg\",\"pseudo\":\"none\",\"nb_elements\":1,\"step\":\"" +
+				this.step +
+				"\"}";
+		}
+
+		@Nonnull
+		private String progression() {
+			return String.format(Locale.ROOT, "%.5f", Math.min(99D, this.step * 100D / LAST_STEP));
+		}
+
+	}
+
+}
@@ -0,0 +1,94 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2026 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.standin;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.*;
+
+import org.eu.zajc.akiwrapper.core.store.KeyValueClient;
+
+/**
+ * An in-process stand-in for an external key-value store, used to test
+ * {@link KeyValueClient} consumers without running one. Values are copied on the
+ * way in and out, like they would be by a real client, and expire like they would
+ * in Redis.
+ *
+ * @author Marko Zajc
+ */
+@SuppressWarnings("javadoc")
+public class KeyValueStandIn implements KeyValueClient {
+
+	@Nonnull private final Map<String, Value> values = new ConcurrentHashMap<>();
+	@Nonnull private final AtomicInteger operations = new AtomicInteger();
+
+	@Override
+	public void set(@Nonnull String key, @Nonnull byte[] value, @Nonnull Duration ttl) {
+		this.operations.incrementAndGet();
+		this.values.put(key, new Value(value.clone(), System.nanoTime() + ttl.toNanos()));
+	}
+
+	@Override
+	@Nullable
+	public byte[] get(@Nonnull String key) {
+		this.operations.incrementAndGet();
+		var value = this.values.get(key);
+		if (value == null)
+			return null;
+
+		if (value.isExpired()) {
+			this.values.remove(key, value);
+			return null;
+		}
+		return value.bytes.clone();
+	}
+
+	@Override
+	public boolean delete(@Nonnull String key) {
+		this.operations.incrementAndGet();
+		var value = this.values.remove(key);
+		return value != null && !value.isExpired();
+	}
+
+	public boolean containsKey(@Nonnull String key) {
+		return this.values.containsKey(key);
+	}
+
+	public int getOperations() {
+		return this.operations.get();
+	}
+
+	private static final class Value {
+
+		@Nonnull private final byte[] bytes;
+		private final long expiry;
+
+		Value(@Nonnull byte[] bytes, long expiry) {
+			this.bytes = bytes;
+			this.expiry = expiry;
+		}
+
+		boolean isExpired() {
+			return System.nanoTime() - this.expiry >= 0;
+		}
+
+	}
+
+}
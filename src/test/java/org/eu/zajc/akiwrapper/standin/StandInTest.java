@@ -0,0 +1,136 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2026 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.standin;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.time.Duration.*;
+import static org.eu.zajc.akiwrapper.core.utils.HttpUtils.urlEncodeForm;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+
+import org.eu.zajc.akiwrapper.Akiwrapper.Answer;
+import org.eu.zajc.akiwrapper.AkiwrapperBuilder;
+import org.eu.zajc.akiwrapper.core.entities.*;
+import org.eu.zajc.akiwrapper.core.transport.TransportRequest;
+import org.eu.zajc.akiwrapper.core.utils.route.*;
+import org.junit.jupiter.api.Test;
+
+class StandInTest {
+
+	@Test
+	void testGame() throws IOException {
+		try (var standIn = new AkinatorStandIn().setGuessInterval(3).start()) {
+			var api = new AkiwrapperBuilder().setTransport(standIn.createHttpTransport()).build();
+			var question = (Question) api.getCurrentQuery();
+			assertEquals(0, question.getStep());
+
+			question = (Question) question.answer(Answer.YES);
+			question = (Question) question.answer(Answer.NO);
+			assertEquals(2, question.getStep());
+
+			question = question.undoAnswer();
+			assertEquals(1, question.getStep());
+			question = (Question) question.answer(Answer.PROBABLY);
+
+			var guess = (Guess) question.answer(Answer.DONT_KNOW);
+			assertEquals(3, guess.getStep());
+			assertNotNull(guess.getName());
+
+			var next = guess.reject();
+			assertEquals(3, next.getStep());
+			assertTrue(next instanceof Question);
+
+			var secondGuess = (Guess) ((Question) ((Question) ((Question) next).answer(Answer.YES)).answer(Answer.YES))
+				.answer(Answer.YES);
+			secondGuess.confirm();
+
+			assertEquals(1, standIn.getRequests("/game"));
+			assertEquals(1, standIn.getRequests("/choice"));
+		}
+	}
+
+	@Test
+	void testValidation() throws IOException {
+		try (var standIn = new AkinatorStandIn()) {
+			var transport = standIn.createInProcessTransport();
+			var game = transport.execute(request("/game", Map.of())).join();
+			var page = GamePage.parse(new String(game.getBody(), UTF_8));
+
+			var parameters = new HashMap<String, Object>();
+			parameters.put("session", page.getSession().getSession());
+			parameters.put("signature", page.getSession().getSignature());
+			parameters.putAll(Map.of("step", 5, "progression", 0, "answer", 0, "step_last_proposition", ""));
+			var json = FlatJson.parse(transport.execute(request("/answer", parameters)).join().getBody());
+			assertEquals(Status.ERROR, Status.fromJson(json));
+
+			parameters.put("step", 0);
+			parameters.put("signature", "0");
+			json = FlatJson.parse(transport.execute(request("/answer", parameters)).join().getBody());
+			assertEquals(Status.ERROR, Status.fromJson(json));
+		}
+	}
+
+	@Test
+	void testConcurrentGames() {
+		try (var standIn = new AkinatorStandIn().setLatency(ofMillis(1), ofMillis(4)).setErrorRate(0.05)) {
+			var builder = new AkiwrapperBuilder().setTransport(standIn.createInProcessTransport())
+				.setRetryPolicy(new RetryPolicyBuilder().setInitialDelay(ZERO).setMaxRetries(10).build());
+
+			var games = new ArrayList<CompletableFuture<Query>>();
+			for (int i = 0; i < 64; i++)
+				games.add(builder.buildAsync().thenCompose(api -> play(api.getCurrentQuery(), 20)));
+
+			for (var game : games)
+				assertEquals(20, game.join().getStep());
+			assertEquals(64, standIn.getSessions());
+		}
+	}
+
+	@Test
+	void testErrorInjection() {
+		try (var standIn = new AkinatorStandIn().failNext(2)) {
+			var api = new AkiwrapperBuilder().setTransport(standIn.createInProcessTransport())
+				.setRetryPolicy(new RetryPolicyBuilder().setInitialDelay(ZERO).build())
+				.build();
+
+			assertEquals(0, api.getCurrentQuery().getStep());
+			assertEquals(3, standIn.getRequests("/game"));
+		}
+	}
+
+	private static CompletableFuture<Query> play(Query query, int steps) {
+		if (query.getStep() >= steps)
+			return CompletableFuture.completedFuture(query);
+
+		CompletableFuture<Query> next;
+		if (query instanceof Question)
+			next = ((Question) query).answerAsync(Answer.YES);
+		else
+			next = ((Guess) query).rejectAsync().thenCompose(q -> ((Question) q).answerAsync(Answer.NO));
+		return next.thenCompose(q -> play(q, steps));
+	}
+
+	private static TransportRequest request(String path, Map<String, Object> parameters) {
+		return new TransportRequest(URI.create("https://en.akinator.com" + path), new String[0],
+									urlEncodeForm(parameters).getBytes(UTF_8));
+	}
+
+}